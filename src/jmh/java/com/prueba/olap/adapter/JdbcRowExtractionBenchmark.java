@@ -0,0 +1,80 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracción de filas JDBC en {@link JdbcOlapAdapter} sobre una {@code fact_sales} generada en H2.
+ * {@code processResultSet} mide solo la conversión de un resultado ya leído;
+ * {@code queryEndToEnd} incluye la ejecución de la consulta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JdbcRowExtractionBenchmark {
+
+    private static final String SELECT_ALL = "SELECT Region, Product, Sales, Quantity, \"Year\" FROM cube_view";
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private JdbcTemplate template;
+    private JdbcOlapAdapter adapter;
+    private SqlRowSet rowSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        template = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:olap_bench_" + rows + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        template.execute("CREATE TABLE fact_sales (Region VARCHAR(50), Product VARCHAR(50), "
+            + "Sales DECIMAL(10,2), Quantity INT, \"Year\" INT)");
+        template.execute("INSERT INTO fact_sales SELECT "
+            + "CASEWHEN(MOD(X, 4) = 0, 'EMEA', CASEWHEN(MOD(X, 4) = 1, 'APAC', CASEWHEN(MOD(X, 4) = 2, 'AMERICAS', 'LATAM'))), "
+            + "CONCAT('Product', MOD(X, 50)), MOD(X, 1000) + 0.5, MOD(X, 100), 2000 + MOD(X, 25) "
+            + "FROM SYSTEM_RANGE(1, " + rows + ")");
+        template.execute("CREATE VIEW vw_olap_cube AS SELECT * FROM fact_sales");
+
+        adapter = new JdbcOlapAdapter(new NamedParameterJdbcTemplate(template), "vw_olap_cube");
+        rowSet = template.queryForRowSet(SELECT_ALL.replace("cube_view", "vw_olap_cube"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        template.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    public List<AggregationRow> processResultSet() {
+        rowSet.beforeFirst();
+        return adapter.processResultSet(rowSet);
+    }
+
+    @Benchmark
+    public AggregationResponse queryEndToEnd() {
+        return adapter.query(SELECT_ALL, Map.of());
+    }
+}
@@ -0,0 +1,53 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.service.dto.AggregationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de respuestas XMLA sintéticas de 1K a 1M filas en {@link XmlaOlapAdapter}, en formato
+ * tabular y multidimensional,
+ * leyendo desde un {@code InputStream} como con la respuesta HTTP real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class XmlaParseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"TABULAR", "MULTIDIMENSIONAL"})
+    public XmlaFormat format;
+
+    private XmlaOlapAdapter adapter;
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        adapter = new XmlaOlapAdapter(envelope -> null, "Sales", format);
+        String xml = format == XmlaFormat.MULTIDIMENSIONAL ? XmlaResponses.cellset(rows) : XmlaResponses.tabular(rows);
+        response = xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public AggregationResponse parseXmlaResponse() {
+        return adapter.parseXmlaResponse(new ByteArrayInputStream(response));
+    }
+}
@@ -0,0 +1,68 @@
+package com.prueba.olap.adapter;
+
+/**
+ * Genera respuestas XMLA tabulares sintéticas, con esquema XSD tipado, para los benchmarks.
+ */
+final class XmlaResponses {
+
+    private static final String[] REGIONS = {"EMEA", "APAC", "AMERICAS", "LATAM"};
+
+    private XmlaResponses() {
+    }
+
+    static String tabular(int rows) {
+        StringBuilder xml = new StringBuilder(rows * 160 + 512);
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>")
+           .append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>")
+           .append("<ExecuteResponse xmlns=\"urn:schemas-microsoft-com:xml-analysis\"><return>")
+           .append("<root xmlns=\"urn:schemas-microsoft-com:xml-analysis:rowset\" ")
+           .append("xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\">")
+           .append("<xsd:schema><xsd:complexType name=\"row\"><xsd:sequence>")
+           .append("<xsd:element name=\"Region\" type=\"xsd:string\" minOccurs=\"0\"/>")
+           .append("<xsd:element name=\"Product\" type=\"xsd:string\" minOccurs=\"0\"/>")
+           .append("<xsd:element name=\"Year\" type=\"xsd:int\" minOccurs=\"0\"/>")
+           .append("<xsd:element name=\"Sales\" type=\"xsd:double\" minOccurs=\"0\"/>")
+           .append("<xsd:element name=\"Quantity\" type=\"xsd:long\" minOccurs=\"0\"/>")
+           .append("</xsd:sequence></xsd:complexType></xsd:schema>");
+        for (int i = 0; i < rows; i++) {
+            xml.append("<row><Region>").append(REGIONS[i % REGIONS.length]).append("</Region>")
+               .append("<Product>Product").append(i % 50).append("</Product>")
+               .append("<Year>").append(2000 + i % 25).append("</Year>")
+               .append("<Sales>").append(i % 1000).append(".5</Sales>")
+               .append("<Quantity>").append(i % 100).append("</Quantity></row>");
+        }
+        xml.append("</root></return></ExecuteResponse></soap:Body></soap:Envelope>");
+        return xml.toString();
+    }
+
+    /**
+     * Los mismos datos que {@link #tabular(int)} en formato Multidimensional: medidas en Axis0,
+     * tuplas (Region, Product, Year) en Axis1 y las celdas aparte.
+     */
+    static String cellset(int rows) {
+        StringBuilder xml = new StringBuilder(rows * 420 + 512);
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>")
+           .append("<root xmlns=\"urn:schemas-microsoft-com:xml-analysis:mddataset\" ")
+           .append("xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"><Axes><Axis name=\"Axis0\"><Tuples>")
+           .append("<Tuple><Member Hierarchy=\"[Measures]\"><Caption>Sales</Caption></Member></Tuple>")
+           .append("<Tuple><Member Hierarchy=\"[Measures]\"><Caption>Quantity</Caption></Member></Tuple>")
+           .append("</Tuples></Axis><Axis name=\"Axis1\"><Tuples>");
+        for (int i = 0; i < rows; i++) {
+            xml.append("<Tuple><Member Hierarchy=\"[Region].[Region]\"><Caption>")
+               .append(REGIONS[i % REGIONS.length]).append("</Caption></Member>")
+               .append("<Member Hierarchy=\"[Product].[Product]\"><Caption>Product")
+               .append(i % 50).append("</Caption></Member>")
+               .append("<Member Hierarchy=\"[Date].[Year]\"><Caption>")
+               .append(2000 + i % 25).append("</Caption></Member></Tuple>");
+        }
+        xml.append("</Tuples></Axis></Axes><CellData>");
+        for (int i = 0; i < rows; i++) {
+            xml.append("<Cell CellOrdinal=\"").append(i * 2).append("\"><Value xsi:type=\"xsd:double\">")
+               .append(i % 1000).append(".5</Value></Cell>")
+               .append("<Cell CellOrdinal=\"").append(i * 2 + 1).append("\"><Value xsi:type=\"xsd:long\">")
+               .append(i % 100).append("</Value></Cell>");
+        }
+        xml.append("</CellData></root>");
+        return xml.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción de consultas en {@link OlapService#buildQuery}: parseo, validación,
+ * normalización y plantilla SQL (en caché tras la primera llamada de cada forma).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OlapServiceBenchmark {
+
+    private OlapService service;
+
+    @Setup
+    public void setUp() {
+        service = new OlapService((sql, params) -> new AggregationResponse(List.of()),
+            Set.of("Region", "Product", "Sales", "Quantity", "Year"));
+    }
+
+    @Benchmark
+    public Query buildQueryWithoutFilters() {
+        return service.buildQuery("Region", "Sales", null);
+    }
+
+    @Benchmark
+    public Query buildQueryWithFilters() {
+        return service.buildQuery("Region,Product", "Sales,Quantity", "Year:2024|Region:EMEA");
+    }
+}
@@ -0,0 +1,57 @@
+package com.prueba.olap.service.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de {@link AggregationResponse} con el mismo {@link ObjectMapper} por defecto
+ * que usa Jackson en WebFlux.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationResponseSerializationBenchmark {
+
+    private static final String[] REGIONS = {"EMEA", "APAC", "AMERICAS", "LATAM"};
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private AggregationResponse response;
+
+    @Setup
+    public void setUp() {
+        RowSchema schema = RowSchema.of(List.of("Region", "Year", "Sales", "Quantity"));
+        List<AggregationRow> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(new AggregationRow(schema, new Object[] {
+                REGIONS[i % REGIONS.length], 2000 + i % 25, BigDecimal.valueOf(i % 1000, 1), (long) i % 100}));
+        }
+        response = new AggregationResponse(data);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(response);
+    }
+}
@@ -2,8 +2,10 @@ package com.prueba.olap;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// El ConnectionFactory R2DBC lo crea R2dbcConfig solo en modo r2dbc
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class OlapApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,70 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.AggregateFunction;
+
+import java.math.BigDecimal;
+
+/**
+ * Operaciones sobre valores ya agregados que comparten el cubo en memoria y la caché de resultados:
+ * volver a agregar grupos y comparar valores como lo hace el motor SQL.
+ */
+final class AggregateValues {
+
+    private AggregateValues() {
+    }
+
+    /**
+     * Agrega un valor más a un total de la función indicada: las sumas y los conteos se suman, los
+     * mínimos y máximos se vuelven a comparar. Los nulos se ignoran, como en SQL.
+     */
+    static Object combine(AggregateFunction function, Object total, Object value) {
+        if (total == null) {
+            return value;
+        }
+        if (value == null) {
+            return total;
+        }
+        return switch (function) {
+            case MIN -> compare(value, total) < 0 ? value : total;
+            case MAX -> compare(value, total) > 0 ? value : total;
+            default -> add(total, value);
+        };
+    }
+
+    /**
+     * Compara números por valor aunque sean de tipos distintos (el cursor guarda {@code BigDecimal}).
+     * Los nulos se ordenan como el menor valor.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        if (left instanceof Number a && right instanceof Number b) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        if (left instanceof Comparable comparable && left.getClass() == right.getClass()) {
+            return comparable.compareTo(right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    /**
+     * Conserva el tipo de los sumandos: enteros como {@code Long} (las sumas del cubo y los conteos),
+     * decimales como {@code BigDecimal} (los {@code DECIMAL} de JDBC) y el resto como {@code Double}.
+     */
+    private static Object add(Object total, Object value) {
+        if (isIntegral(total) && isIntegral(value)) {
+            return ((Number) total).longValue() + ((Number) value).longValue();
+        }
+        if (total instanceof BigDecimal sum && value instanceof BigDecimal addend) {
+            return sum.add(addend);
+        }
+        return ((Number) total).doubleValue() + ((Number) value).doubleValue();
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short
+            || value instanceof Byte;
+    }
+}
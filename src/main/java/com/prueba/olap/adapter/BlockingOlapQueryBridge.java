@@ -0,0 +1,51 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Expone un {@link OlapQueryPort} bloqueante (JDBC, cubo en memoria) como {@link ReactiveOlapQueryPort}.
+ * Las llamadas se ejecutan en el {@link QueryExecutor} acotado, nunca en el event loop,
+ * y heredan su control de admisión.
+ */
+public class BlockingOlapQueryBridge implements ReactiveOlapQueryPort {
+
+    private final OlapQueryPort delegate;
+    private final QueryExecutor queryExecutor;
+
+    public BlockingOlapQueryBridge(OlapQueryPort delegate, QueryExecutor queryExecutor) {
+        validateParameters(delegate, queryExecutor);
+        this.delegate = delegate;
+        this.queryExecutor = queryExecutor;
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return queryExecutor.stream(() -> delegate.stream(query));
+    }
+
+    @Override
+    public Mono<AggregationResponse> aggregate(Query query) {
+        return queryExecutor.submit(() -> delegate.query(query));
+    }
+
+    @Override
+    public Mono<String> plan(Query query) {
+        return queryExecutor.submit(() -> delegate.explain(query).orElse(null));
+    }
+
+    private void validateParameters(OlapQueryPort delegate, QueryExecutor queryExecutor) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Puerto delegado no puede ser nulo");
+        }
+        if (queryExecutor == null) {
+            throw new IllegalArgumentException("Ejecutor de consultas no puede ser nulo");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.QueryTrace;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decorador de {@link OlapQueryPort} que sirve desde caché las consultas repetidas y las que se obtienen
+ * volviendo a agregar un resultado guardado más detallado ({@link QueryResultCache#find}).
+ * Decora el adaptador registrado (JDBC o cubo en memoria); la clave distingue SQL de MDX, pero ningún
+ * adaptador MDX está conectado a la API. El streaming no se cachea para no materializar resultados grandes.
+ */
+public class CachingOlapQueryPort implements OlapQueryPort {
+
+    private static final String MDX_PREFIX = "MDX:";
+
+    private final OlapQueryPort delegate;
+    private final String cubeName;
+    private final QueryResultCache cache;
+
+    public CachingOlapQueryPort(OlapQueryPort delegate, String cubeName, QueryResultCache cache) {
+        validateParameters(delegate, cubeName, cache);
+        this.delegate = delegate;
+        this.cubeName = cubeName;
+        this.cache = cache;
+    }
+
+    @Override
+    public AggregationResponse query(String query, Map<String, Object> params) {
+        return query(toCacheKey(query, params));
+    }
+
+    @Override
+    public AggregationResponse query(Query query) {
+        Optional<AggregationResponse> cached = cache.find(cubeName, query);
+        QueryTrace.current().ifPresent(trace -> trace.recordCache(cached.isPresent()));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        AggregationResponse response = delegate.query(query);
+        cache.put(cubeName, query, response);
+        return response;
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(String query, Map<String, Object> params) {
+        return delegate.stream(query, params);
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return delegate.stream(query);
+    }
+
+    @Override
+    public Optional<String> explain(Query query) {
+        return delegate.explain(query);
+    }
+
+    public String getCubeName() {
+        return cubeName;
+    }
+
+    private Query toCacheKey(String query, Map<String, Object> params) {
+        QueryType type = query != null && query.startsWith(MDX_PREFIX) ? QueryType.MDX : QueryType.SQL;
+        return new Query(query, type, params);
+    }
+
+    private void validateParameters(OlapQueryPort delegate, String cubeName, QueryResultCache cache) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Puerto delegado no puede ser nulo");
+        }
+        if (cubeName == null || cubeName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nombre del cubo no puede ser nulo o vacío");
+        }
+        if (cache == null) {
+            throw new IllegalArgumentException("Caché de resultados no puede ser nula");
+        }
+    }
+}
@@ -0,0 +1,1136 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Aggregate;
+import com.prueba.olap.domain.entity.AggregateFunction;
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.service.HyperLogLog;
+import com.prueba.olap.service.QuantileSketch;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Almacén columnar en memoria de un cubo OLAP.
+ * Las dimensiones se guardan codificadas por diccionario (un {@code int} por fila) y las medidas
+ * en arrays primitivos {@code long[]} o {@code double[]} según su tipo JDBC. Las agregaciones
+ * recorren los arrays por tramos en paralelo y fusionan los parciales por grupo: sumas, conteos,
+ * extremos, conjuntos de valores y resúmenes aproximados ({@link HyperLogLog}, {@link QuantileSketch}),
+ * todos combinables entre tramos.
+ */
+public final class ColumnarCube {
+
+    private static final int MIN_ROWS_PER_CHUNK = 16_384;
+
+    private final int rowCount;
+    private final Map<String, DimensionColumn> dimensions;
+    private final Map<String, MeasureColumn> measures;
+
+    private ColumnarCube(int rowCount, List<DimensionColumn> dimensionColumns, List<MeasureColumn> measureColumns) {
+        this.rowCount = rowCount;
+        this.dimensions = indexByName(dimensionColumns);
+        this.measures = indexByName(measureColumns);
+    }
+
+    /**
+     * Construye el cubo leyendo un {@link ResultSet} completo. Las columnas se localizan
+     * por etiqueta sin distinguir mayúsculas, ya que cada motor las devuelve de forma distinta.
+     */
+    public static ColumnarCube fromResultSet(ResultSet resultSet, CubeSchema schema) throws SQLException {
+        Map<String, Integer> positions = columnPositions(resultSet.getMetaData());
+        List<DimensionColumn> dimensionColumns = new ArrayList<>();
+        List<MeasureColumn> measureColumns = new ArrayList<>();
+
+        for (String name : schema.dimensions()) {
+            dimensionColumns.add(new DimensionColumn(name, requirePosition(positions, name)));
+        }
+        for (String name : schema.measures()) {
+            int position = requirePosition(positions, name);
+            measureColumns.add(new MeasureColumn(name, position, isIntegral(resultSet.getMetaData(), position)));
+        }
+
+        int rows = 0;
+        while (resultSet.next()) {
+            appendRow(resultSet, dimensionColumns, measureColumns, rows++);
+        }
+        for (DimensionColumn column : dimensionColumns) {
+            column.trim(rows);
+        }
+        for (MeasureColumn column : measureColumns) {
+            column.trim(rows);
+        }
+        return new ColumnarCube(rows, dimensionColumns, measureColumns);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Agrupa por las dimensiones pedidas, aplica los filtros de igualdad y la exclusión, y agrega las medidas
+     * con su función.
+     * Los conteos ({@code count}, {@code distinct}, {@code approx_distinct}) admiten también dimensiones.
+     *
+     * @param query Consulta estructurada
+     * @param parallelism Número máximo de tramos procesados en paralelo
+     * @return Una fila por grupo no vacío
+     */
+    public AggregationResponse aggregate(CubeQuery query, int parallelism) {
+        DimensionColumn[] groupBy = resolve(dimensions, query.getDimensions(), "Dimensión")
+            .toArray(DimensionColumn[]::new);
+        List<Aggregate> aggregates = query.getAggregates();
+        Column[] operands = new Column[aggregates.size()];
+        for (int m = 0; m < operands.length; m++) {
+            operands[m] = resolveOperand(aggregates.get(m));
+        }
+        DimensionColumn[] filterColumns = resolve(dimensions, List.copyOf(query.getFilters().keySet()), "Filtro")
+            .toArray(DimensionColumn[]::new);
+        int[] filterValues = resolveFilterCodes(filterColumns, query.getFilters());
+        if (filterValues == null) {
+            return new AggregationResponse(List.of());
+        }
+
+        Aggregation aggregation = new Aggregation(groupBy, new Operands(aggregates, operands),
+            new RowFilter(filterColumns, filterValues, resolveExclusion(query)));
+        int chunks = chunkCount(parallelism);
+        int chunkSize = (rowCount + chunks - 1) / chunks;
+        GroupTable result = IntStream.range(0, chunks)
+            .parallel()
+            .mapToObj(chunk -> aggregation.scan(chunk * chunkSize, Math.min(rowCount, (chunk + 1) * chunkSize)))
+            .reduce(GroupTable::merge)
+            .orElseGet(aggregation::newTable);
+        return aggregation.toResponse(result, query);
+    }
+
+    private Column resolveOperand(Aggregate aggregate) {
+        MeasureColumn measure = measures.get(aggregate.getColumn());
+        if (measure != null) {
+            return measure;
+        }
+        AggregateFunction function = aggregate.getFunction();
+        DimensionColumn dimension = dimensions.get(aggregate.getColumn());
+        if (dimension != null && (function == AggregateFunction.COUNT || function == AggregateFunction.DISTINCT
+            || function == AggregateFunction.APPROX_DISTINCT)) {
+            return dimension;
+        }
+        throw new IllegalArgumentException("Medida no disponible en el cubo en memoria: " + aggregate.spec());
+    }
+
+    private int chunkCount(int parallelism) {
+        int byRows = Math.max(1, rowCount / MIN_ROWS_PER_CHUNK);
+        return Math.max(1, Math.min(Math.max(parallelism, 1), byRows));
+    }
+
+    /**
+     * Traduce el valor de cada filtro a su código de diccionario. Devuelve {@code null} si algún
+     * valor no existe en el cubo, lo que implica un resultado vacío.
+     */
+    private static int[] resolveFilterCodes(DimensionColumn[] filterColumns, Map<String, String> filters) {
+        int[] codes = new int[filterColumns.length];
+        int index = 0;
+        for (String value : filters.values()) {
+            codes[index] = filterColumns[index].codeOf(value);
+            if (codes[index++] < 0) {
+                return null;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Códigos de diccionario de los valores excluidos; los que no existen en el cubo no descartan nada.
+     * El código del nulo nunca se excluye ({@link DimensionColumn#codeOf}).
+     */
+    private ExcludedCodes resolveExclusion(CubeQuery query) {
+        return query.getExclusion().map(exclusion -> {
+            DimensionColumn column = resolve(dimensions, List.of(exclusion.column()), "Exclusión").get(0);
+            BitSet codes = new BitSet(column.cardinality());
+            exclusion.values().stream().mapToInt(column::codeOf).filter(code -> code >= 0).forEach(codes::set);
+            return new ExcludedCodes(column.codes, codes);
+        }).orElse(null);
+    }
+
+    private static <C extends Column> Map<String, C> indexByName(List<C> columns) {
+        Map<String, C> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (C column : columns) {
+            index.put(column.name, column);
+        }
+        return index;
+    }
+
+    private static <C extends Column> List<C> resolve(Map<String, C> columns, List<String> names, String kind) {
+        List<C> resolved = new ArrayList<>(names.size());
+        for (String name : names) {
+            C column = columns.get(name);
+            if (column == null) {
+                throw new IllegalArgumentException(kind + " no disponible en el cubo en memoria: " + name);
+            }
+            resolved.add(column);
+        }
+        return resolved;
+    }
+
+    private static Map<String, Integer> columnPositions(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> positions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            positions.put(metaData.getColumnLabel(i), i);
+        }
+        return positions;
+    }
+
+    private static int requirePosition(Map<String, Integer> positions, String name) {
+        Integer position = positions.get(name);
+        if (position == null) {
+            throw new IllegalArgumentException("Columna no encontrada en la vista del cubo: " + name);
+        }
+        return position;
+    }
+
+    private static boolean isIntegral(ResultSetMetaData metaData, int position) throws SQLException {
+        int type = metaData.getColumnType(position);
+        return type == Types.INTEGER || type == Types.BIGINT || type == Types.SMALLINT || type == Types.TINYINT;
+    }
+
+    private static void appendRow(ResultSet resultSet, List<DimensionColumn> dimensionColumns,
+                                  List<MeasureColumn> measureColumns, int row) throws SQLException {
+        for (DimensionColumn column : dimensionColumns) {
+            column.append(row, resultSet.getObject(column.position));
+        }
+        for (MeasureColumn column : measureColumns) {
+            column.append(row, resultSet);
+        }
+    }
+
+    /**
+     * Columnas que componen el cubo en memoria.
+     */
+    public record CubeSchema(List<String> dimensions, List<String> measures) {
+
+        public CubeSchema {
+            dimensions = dimensions != null ? List.copyOf(dimensions) : List.of();
+            measures = measures != null ? List.copyOf(measures) : List.of();
+        }
+    }
+
+    private abstract static class Column {
+
+        final String name;
+        final int position;
+
+        Column(String name, int position) {
+            this.name = name;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Dimensión codificada por diccionario: {@code codes[fila]} indexa {@code dictionary}. Los filtros
+     * llegan como texto, así que el código de cada valor también se indexa por su forma textual.
+     */
+    private static final class DimensionColumn extends Column {
+
+        private final Map<Object, Integer> codeByValue = new HashMap<>();
+        private final Map<String, Integer> codeByText = new HashMap<>();
+        private final List<Object> dictionary = new ArrayList<>();
+        private int[] codes = new int[1024];
+
+        DimensionColumn(String name, int position) {
+            super(name, position);
+        }
+
+        void append(int row, Object value) {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            codes[row] = codeByValue.computeIfAbsent(value, key -> {
+                dictionary.add(key);
+                if (key != null) {
+                    codeByText.putIfAbsent(key.toString(), dictionary.size() - 1);
+                }
+                return dictionary.size() - 1;
+            });
+        }
+
+        void trim(int rows) {
+            codes = Arrays.copyOf(codes, rows);
+        }
+
+        int cardinality() {
+            return dictionary.size();
+        }
+
+        Object valueOf(int code) {
+            return dictionary.get(code);
+        }
+
+        /**
+         * Código del valor nulo, o -1 si la columna no tiene nulos.
+         */
+        int nullCode() {
+            return codeByValue.getOrDefault(null, -1);
+        }
+
+        /**
+         * Código del valor con ese texto, o -1 si no existe. El nulo no tiene texto: como en SQL, ningún
+         * filtro ni exclusión lo selecciona.
+         */
+        int codeOf(String value) {
+            return codeByText.getOrDefault(value, -1);
+        }
+    }
+
+    /**
+     * Medida almacenada como {@code long[]} (tipos enteros) o {@code double[]} (decimales). Los nulos se
+     * marcan aparte en un {@link BitSet}; su posición en el array vale 0 y los acumuladores la ignoran,
+     * como las funciones de agregación de SQL.
+     */
+    private static final class MeasureColumn extends Column {
+
+        private final boolean integral;
+        private final BitSet nulls = new BitSet();
+        private long[] longValues;
+        private double[] doubleValues;
+
+        MeasureColumn(String name, int position, boolean integral) {
+            super(name, position);
+            this.integral = integral;
+            if (integral) {
+                longValues = new long[1024];
+            } else {
+                doubleValues = new double[1024];
+            }
+        }
+
+        void append(int row, ResultSet resultSet) throws SQLException {
+            if (integral) {
+                longValues = row == longValues.length ? Arrays.copyOf(longValues, row * 2) : longValues;
+                longValues[row] = resultSet.getLong(position);
+            } else {
+                doubleValues = row == doubleValues.length ? Arrays.copyOf(doubleValues, row * 2) : doubleValues;
+                doubleValues[row] = resultSet.getDouble(position);
+            }
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        double doubleAt(int row) {
+            return integral ? longValues[row] : doubleValues[row];
+        }
+
+        void trim(int rows) {
+            if (integral) {
+                longValues = Arrays.copyOf(longValues, rows);
+            } else {
+                doubleValues = Arrays.copyOf(doubleValues, rows);
+            }
+        }
+    }
+
+    /**
+     * Medidas de una agregación y la columna sobre la que se calcula cada una.
+     */
+    private record Operands(List<Aggregate> aggregates, Column[] columns) {
+    }
+
+    /**
+     * Plan de una agregación: columnas de agrupación, medidas, filtros y codificación
+     * de la clave de grupo en base mixta (un dígito por dimensión).
+     */
+    private final class Aggregation {
+
+        private final DimensionColumn[] groupBy;
+        private final Operands operands;
+        private final RowFilter filter;
+        private final long[] radix;
+        private final long groupSpace;
+
+        Aggregation(DimensionColumn[] groupBy, Operands operands, RowFilter filter) {
+            this.groupBy = groupBy;
+            this.operands = operands;
+            this.filter = filter;
+            this.radix = new long[groupBy.length];
+            long space = 1;
+            for (int i = groupBy.length - 1; i >= 0; i--) {
+                radix[i] = space;
+                space = Math.multiplyExact(space, Math.max(groupBy[i].cardinality(), 1));
+            }
+            this.groupSpace = space;
+        }
+
+        GroupTable newTable() {
+            Accumulator[] accumulators = new Accumulator[operands.columns().length];
+            for (int m = 0; m < accumulators.length; m++) {
+                accumulators[m] = newAccumulator(operands.aggregates().get(m), operands.columns()[m]);
+            }
+            return new GroupTable(accumulators, groupSpace);
+        }
+
+        private Accumulator newAccumulator(Aggregate aggregate, Column column) {
+            if (column instanceof DimensionColumn dimension) {
+                return switch (aggregate.getFunction()) {
+                    case COUNT -> new CountAccumulator(dimension);
+                    case DISTINCT -> new DistinctAccumulator(dimension);
+                    default -> new ApproxDistinctAccumulator(dimension);
+                };
+            }
+            MeasureColumn measure = (MeasureColumn) column;
+            return switch (aggregate.getFunction()) {
+                case SUM -> new SumAccumulator(measure);
+                case AVG -> new AverageAccumulator(measure);
+                case MIN -> new ExtremeAccumulator(measure, false);
+                case MAX -> new ExtremeAccumulator(measure, true);
+                case COUNT -> new CountAccumulator(measure);
+                case DISTINCT -> new DistinctAccumulator(measure);
+                case PERCENTILE -> new PercentileAccumulator(measure, aggregate.getQuantile());
+                case APPROX_DISTINCT -> new ApproxDistinctAccumulator(measure);
+                case APPROX_PERCENTILE -> new ApproxPercentileAccumulator(measure, aggregate.getQuantile());
+            };
+        }
+
+        GroupTable scan(int from, int to) {
+            GroupTable table = newTable();
+            for (int row = from; row < to; row++) {
+                if (filter.matches(row)) {
+                    table.add(groupKey(row), row);
+                }
+            }
+            return table;
+        }
+
+        private long groupKey(int row) {
+            long key = 0;
+            for (int i = 0; i < groupBy.length; i++) {
+                key += groupBy[i].codes[row] * radix[i];
+            }
+            return key;
+        }
+
+        AggregationResponse toResponse(GroupTable table, CubeQuery query) {
+            RowSchema schema = RowSchema.of(query.getColumns());
+            List<AggregationRow> rows = new ArrayList<>(table.size());
+            table.forEachGroup((key, slot) -> rows.add(new AggregationRow(schema, toValues(table, key, slot))));
+            return new AggregationResponse(rows);
+        }
+
+        /**
+         * Los valores de dimensión salen del diccionario, así que todas las filas comparten instancia.
+         */
+        private Object[] toValues(GroupTable table, long key, int slot) {
+            Object[] values = new Object[groupBy.length + operands.columns().length];
+            for (int i = 0; i < groupBy.length; i++) {
+                values[i] = groupBy[i].valueOf((int) (key / radix[i] % Math.max(groupBy[i].cardinality(), 1)));
+            }
+            for (int m = 0; m < operands.columns().length; m++) {
+                values[groupBy.length + m] = table.result(m, slot);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Filtros de igualdad ya traducidos a códigos de diccionario.
+     */
+    private static final class RowFilter {
+
+        private final int[][] columnCodes;
+        private final int[] expectedCodes;
+        private final ExcludedCodes excluded;
+
+        RowFilter(DimensionColumn[] columns, int[] expectedCodes, ExcludedCodes excluded) {
+            this.columnCodes = new int[columns.length][];
+            for (int i = 0; i < columns.length; i++) {
+                columnCodes[i] = columns[i].codes;
+            }
+            this.expectedCodes = expectedCodes;
+            this.excluded = excluded;
+        }
+
+        boolean matches(int row) {
+            for (int i = 0; i < expectedCodes.length; i++) {
+                if (columnCodes[i][row] != expectedCodes[i]) {
+                    return false;
+                }
+            }
+            return excluded == null || !excluded.codes().get(excluded.columnCodes()[row]);
+        }
+    }
+
+    /**
+     * Códigos de una columna y cuáles de ellos descarta la exclusión de la consulta.
+     */
+    private record ExcludedCodes(int[] columnCodes, BitSet codes) {
+    }
+
+    /**
+     * Tabla de grupos parcial. Con pocas combinaciones posibles usa direccionamiento directo
+     * (la clave es el índice); si no, asigna huecos bajo demanda mediante un {@link SlotIndex}.
+     */
+    private static final class GroupTable {
+
+        private static final int DENSE_LIMIT = 1 << 16;
+
+        private final Accumulator[] accumulators;
+        private final boolean dense;
+        private final SlotIndex slotByKey;
+        private long[] keys;
+        private long[] counts;
+        private int slots;
+
+        GroupTable(Accumulator[] accumulators, long groupSpace) {
+            this.accumulators = accumulators;
+            this.dense = groupSpace <= DENSE_LIMIT;
+            int capacity = dense ? (int) groupSpace : 1024;
+            this.slotByKey = dense ? null : new SlotIndex(capacity);
+            this.keys = dense ? null : new long[capacity];
+            this.counts = new long[capacity];
+            for (Accumulator accumulator : accumulators) {
+                accumulator.resize(capacity);
+            }
+        }
+
+        void add(long key, int row) {
+            int slot = slotOf(key);
+            counts[slot]++;
+            for (Accumulator accumulator : accumulators) {
+                accumulator.add(slot, row);
+            }
+        }
+
+        GroupTable merge(GroupTable other) {
+            other.forEachGroup((key, otherSlot) -> {
+                int slot = slotOf(key);
+                counts[slot] += other.counts[otherSlot];
+                for (int m = 0; m < accumulators.length; m++) {
+                    accumulators[m].merge(slot, other.accumulators[m], otherSlot);
+                }
+            });
+            return this;
+        }
+
+        Object result(int measure, int slot) {
+            return accumulators[measure].result(slot, counts[slot]);
+        }
+
+        int size() {
+            return dense ? (int) Arrays.stream(counts).filter(count -> count > 0).count() : slots;
+        }
+
+        void forEachGroup(GroupVisitor visitor) {
+            int limit = dense ? counts.length : slots;
+            for (int slot = 0; slot < limit; slot++) {
+                if (counts[slot] > 0) {
+                    visitor.visit(dense ? slot : keys[slot], slot);
+                }
+            }
+        }
+
+        private int slotOf(long key) {
+            if (dense) {
+                return (int) key;
+            }
+            int slot = slotByKey.getOrAdd(key, slots);
+            if (slot == slots) {
+                slots++;
+                ensureCapacity(slots);
+                keys[slot] = key;
+            }
+            return slot;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= counts.length) {
+                return;
+            }
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            for (Accumulator accumulator : accumulators) {
+                accumulator.resize(capacity);
+            }
+        }
+    }
+
+    /**
+     * Índice de huecos de una {@link GroupTable} dispersa: tabla {@code long -> int} de direccionamiento
+     * abierto con sondeo lineal sobre arrays primitivos, para no crear objetos por fila. Guarda
+     * {@code hueco + 1} para que 0 marque una posición libre.
+     */
+    private static final class SlotIndex {
+
+        private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+        private long[] keys;
+        private int[] slots;
+        private int size;
+
+        SlotIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.slots = new int[capacity];
+        }
+
+        /**
+         * Hueco de la clave; si no está, le asigna {@code next} y lo devuelve.
+         */
+        int getOrAdd(long key, int next) {
+            int mask = keys.length - 1;
+            for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+                if (slots[index] == 0) {
+                    keys[index] = key;
+                    slots[index] = next + 1;
+                    if (++size * 2 > keys.length) {
+                        grow();
+                    }
+                    return next;
+                }
+                if (keys[index] == key) {
+                    return slots[index] - 1;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new long[oldKeys.length * 2];
+            slots = new int[oldSlots.length * 2];
+            int mask = keys.length - 1;
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (oldSlots[old] != 0) {
+                    int index = hash(oldKeys[old]) & mask;
+                    while (slots[index] != 0) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[old];
+                    slots[index] = oldSlots[old];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * HASH_MULTIPLIER;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+
+    /**
+     * Estado de una medida en cada hueco de una {@link GroupTable}. La tabla lleva el número de filas
+     * de cada grupo, así que los acumuladores solo guardan lo que no se deduce de él.
+     */
+    private interface Accumulator {
+
+        void add(int slot, int row);
+
+        /**
+         * Combina en {@code slot} el hueco {@code otherSlot} de otro acumulador del mismo tipo, que se descarta después.
+         */
+        void merge(int slot, Accumulator other, int otherSlot);
+
+        Object result(int slot, long rows);
+
+        void resize(int capacity);
+    }
+
+    /**
+     * Suma en {@code long} o {@code double}, según el tipo de la medida; nula si el grupo no tiene valores.
+     */
+    private static final class SumAccumulator implements Accumulator {
+
+        private final MeasureColumn column;
+        private final PresentCounts present = new PresentCounts();
+        private long[] longSums;
+        private double[] doubleSums;
+
+        SumAccumulator(MeasureColumn column) {
+            this.column = column;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (column.isNull(row)) {
+                return;
+            }
+            present.add(slot);
+            if (column.integral) {
+                longSums[slot] += column.longValues[row];
+            } else {
+                doubleSums[slot] += column.doubleValues[row];
+            }
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            SumAccumulator sums = (SumAccumulator) other;
+            present.merge(slot, sums.present, otherSlot);
+            if (column.integral) {
+                longSums[slot] += sums.longSums[otherSlot];
+            } else {
+                doubleSums[slot] += sums.doubleSums[otherSlot];
+            }
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            if (!present.any(slot)) {
+                return null;
+            }
+            return column.integral ? (Object) longSums[slot] : (Object) doubleSums[slot];
+        }
+
+        @Override
+        public void resize(int capacity) {
+            present.resize(capacity);
+            if (column.integral) {
+                longSums = longSums == null ? new long[capacity] : Arrays.copyOf(longSums, capacity);
+            } else {
+                doubleSums = doubleSums == null ? new double[capacity] : Arrays.copyOf(doubleSums, capacity);
+            }
+        }
+    }
+
+    /**
+     * Media: suma en {@code double} dividida entre los valores no nulos del grupo.
+     */
+    private static final class AverageAccumulator implements Accumulator {
+
+        private final MeasureColumn column;
+        private final PresentCounts present = new PresentCounts();
+        private double[] sums;
+
+        AverageAccumulator(MeasureColumn column) {
+            this.column = column;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (!column.isNull(row)) {
+                present.add(slot);
+                sums[slot] += column.doubleAt(row);
+            }
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            AverageAccumulator averages = (AverageAccumulator) other;
+            present.merge(slot, averages.present, otherSlot);
+            sums[slot] += averages.sums[otherSlot];
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            return present.any(slot) ? sums[slot] / present.count(slot) : null;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            present.resize(capacity);
+            sums = sums == null ? new double[capacity] : Arrays.copyOf(sums, capacity);
+        }
+    }
+
+    /**
+     * Mínimo o máximo. Cada hueco empieza en el neutro de la comparación; si el grupo no tiene valores no
+     * nulos el resultado es nulo.
+     */
+    private static final class ExtremeAccumulator implements Accumulator {
+
+        private final MeasureColumn column;
+        private final boolean max;
+        private final PresentCounts present = new PresentCounts();
+        private long[] longValues;
+        private double[] doubleValues;
+
+        ExtremeAccumulator(MeasureColumn column, boolean max) {
+            this.column = column;
+            this.max = max;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (column.isNull(row)) {
+                return;
+            }
+            present.add(slot);
+            if (column.integral) {
+                accept(slot, column.longValues[row]);
+            } else {
+                accept(slot, column.doubleValues[row]);
+            }
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            ExtremeAccumulator extremes = (ExtremeAccumulator) other;
+            present.merge(slot, extremes.present, otherSlot);
+            if (column.integral) {
+                accept(slot, extremes.longValues[otherSlot]);
+            } else {
+                accept(slot, extremes.doubleValues[otherSlot]);
+            }
+        }
+
+        private void accept(int slot, long value) {
+            longValues[slot] = max ? Math.max(longValues[slot], value) : Math.min(longValues[slot], value);
+        }
+
+        private void accept(int slot, double value) {
+            doubleValues[slot] = max ? Math.max(doubleValues[slot], value) : Math.min(doubleValues[slot], value);
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            if (!present.any(slot)) {
+                return null;
+            }
+            return column.integral ? (Object) longValues[slot] : (Object) doubleValues[slot];
+        }
+
+        @Override
+        public void resize(int capacity) {
+            present.resize(capacity);
+            if (column.integral) {
+                int from = longValues == null ? 0 : longValues.length;
+                longValues = longValues == null ? new long[capacity] : Arrays.copyOf(longValues, capacity);
+                Arrays.fill(longValues, from, capacity, max ? Long.MIN_VALUE : Long.MAX_VALUE);
+            } else {
+                int from = doubleValues == null ? 0 : doubleValues.length;
+                doubleValues = doubleValues == null ? new double[capacity] : Arrays.copyOf(doubleValues, capacity);
+                Arrays.fill(doubleValues, from, capacity,
+                    max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+            }
+        }
+    }
+
+    /**
+     * Valores no nulos: las filas del grupo menos las que tienen la columna nula.
+     */
+    private static final class CountAccumulator implements Accumulator {
+
+        private final IntPredicate isNull;
+        private long[] nulls;
+
+        CountAccumulator(DimensionColumn dimension) {
+            int[] codes = dimension.codes;
+            int nullCode = dimension.nullCode();
+            this.isNull = nullCode >= 0 ? row -> codes[row] == nullCode : row -> false;
+        }
+
+        CountAccumulator(MeasureColumn measure) {
+            this.isNull = measure::isNull;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (isNull.test(row)) {
+                nulls[slot]++;
+            }
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            nulls[slot] += ((CountAccumulator) other).nulls[otherSlot];
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            return rows - nulls[slot];
+        }
+
+        @Override
+        public void resize(int capacity) {
+            nulls = nulls == null ? new long[capacity] : Arrays.copyOf(nulls, capacity);
+        }
+    }
+
+    /**
+     * Valores distintos exactos: los códigos de diccionario en un {@link BitSet} para las dimensiones
+     * (sin el nulo, como {@code COUNT(DISTINCT)}) o los valores en un conjunto para las medidas.
+     */
+    private static final class DistinctAccumulator implements Accumulator {
+
+        private final DimensionColumn dimension;
+        private final MeasureColumn measure;
+        private Object[] values;
+
+        DistinctAccumulator(DimensionColumn dimension) {
+            this.dimension = dimension;
+            this.measure = null;
+        }
+
+        DistinctAccumulator(MeasureColumn measure) {
+            this.dimension = null;
+            this.measure = measure;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void add(int slot, int row) {
+            if (dimension != null) {
+                if (values[slot] == null) {
+                    values[slot] = new BitSet(dimension.cardinality());
+                }
+                ((BitSet) values[slot]).set(dimension.codes[row]);
+            } else if (!measure.isNull(row)) {
+                if (values[slot] == null) {
+                    values[slot] = new HashSet<Number>();
+                }
+                ((Set<Number>) values[slot]).add(measure.integral
+                    ? (Number) measure.longValues[row]
+                    : (Number) measure.doubleValues[row]);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            Object incoming = ((DistinctAccumulator) other).values[otherSlot];
+            if (incoming == null) {
+                return;
+            }
+            if (values[slot] == null) {
+                values[slot] = incoming;
+            } else if (dimension != null) {
+                ((BitSet) values[slot]).or((BitSet) incoming);
+            } else {
+                ((Set<Number>) values[slot]).addAll((Set<Number>) incoming);
+            }
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            if (dimension == null) {
+                return values[slot] == null ? 0L : (long) ((Set<?>) values[slot]).size();
+            }
+            BitSet codes = (BitSet) values[slot];
+            int nullCode = dimension.nullCode();
+            return (long) codes.cardinality() - (nullCode >= 0 && codes.get(nullCode) ? 1 : 0);
+        }
+
+        @Override
+        public void resize(int capacity) {
+            values = values == null ? new Object[capacity] : Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Percentil exacto interpolado, como {@code PERCENTILE_CONT}: guarda todos los valores del grupo.
+     */
+    private static final class PercentileAccumulator implements Accumulator {
+
+        private final MeasureColumn column;
+        private final double quantile;
+        private double[][] values;
+        private int[] sizes;
+
+        PercentileAccumulator(MeasureColumn column, double quantile) {
+            this.column = column;
+            this.quantile = quantile;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (!column.isNull(row)) {
+                append(slot, column.doubleAt(row));
+            }
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            PercentileAccumulator percentiles = (PercentileAccumulator) other;
+            for (int i = 0; i < percentiles.sizes[otherSlot]; i++) {
+                append(slot, percentiles.values[otherSlot][i]);
+            }
+        }
+
+        private void append(int slot, double value) {
+            if (values[slot] == null) {
+                values[slot] = new double[16];
+            } else if (sizes[slot] == values[slot].length) {
+                values[slot] = Arrays.copyOf(values[slot], sizes[slot] * 2);
+            }
+            values[slot][sizes[slot]++] = value;
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            if (sizes[slot] == 0) {
+                return null;
+            }
+            double[] sorted = Arrays.copyOf(values[slot], sizes[slot]);
+            Arrays.sort(sorted);
+            double position = quantile * (sorted.length - 1);
+            int lower = (int) Math.floor(position);
+            int upper = Math.min(lower + 1, sorted.length - 1);
+            return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+        }
+
+        @Override
+        public void resize(int capacity) {
+            values = values == null ? new double[capacity][] : Arrays.copyOf(values, capacity);
+            sizes = sizes == null ? new int[capacity] : Arrays.copyOf(sizes, capacity);
+        }
+    }
+
+    /**
+     * Valores distintos aproximados. En las dimensiones el hash de cada valor del diccionario se calcula
+     * una sola vez; el resultado no depende de los códigos, así que es combinable con otros resúmenes.
+     */
+    private static final class ApproxDistinctAccumulator implements Accumulator {
+
+        private final int[] codes;
+        private final long[] codeHashes;
+        private final int nullCode;
+        private final MeasureColumn measure;
+        private HyperLogLog[] sketches;
+
+        ApproxDistinctAccumulator(DimensionColumn dimension) {
+            this.codes = dimension.codes;
+            this.codeHashes = new long[dimension.cardinality()];
+            for (int code = 0; code < codeHashes.length; code++) {
+                codeHashes[code] = HyperLogLog.hash(dimension.valueOf(code));
+            }
+            this.nullCode = dimension.nullCode();
+            this.measure = null;
+        }
+
+        ApproxDistinctAccumulator(MeasureColumn measure) {
+            this.codes = null;
+            this.codeHashes = null;
+            this.nullCode = -1;
+            this.measure = measure;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (sketches[slot] == null) {
+                sketches[slot] = new HyperLogLog();
+            }
+            if (measure == null) {
+                if (codes[row] != nullCode) {
+                    sketches[slot].addHash(codeHashes[codes[row]]);
+                }
+            } else if (measure.isNull(row)) {
+                return;
+            } else if (measure.integral) {
+                sketches[slot].add(measure.longValues[row]);
+            } else {
+                sketches[slot].add(measure.doubleValues[row]);
+            }
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            HyperLogLog incoming = ((ApproxDistinctAccumulator) other).sketches[otherSlot];
+            if (incoming != null) {
+                sketches[slot] = sketches[slot] == null ? incoming : sketches[slot].merge(incoming);
+            }
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            return sketches[slot].estimate();
+        }
+
+        @Override
+        public void resize(int capacity) {
+            sketches = sketches == null ? new HyperLogLog[capacity] : Arrays.copyOf(sketches, capacity);
+        }
+    }
+
+    /**
+     * Percentil aproximado con un {@link QuantileSketch} por grupo.
+     */
+    private static final class ApproxPercentileAccumulator implements Accumulator {
+
+        private final MeasureColumn column;
+        private final double quantile;
+        private QuantileSketch[] sketches;
+
+        ApproxPercentileAccumulator(MeasureColumn column, double quantile) {
+            this.column = column;
+            this.quantile = quantile;
+        }
+
+        @Override
+        public void add(int slot, int row) {
+            if (column.isNull(row)) {
+                return;
+            }
+            if (sketches[slot] == null) {
+                sketches[slot] = new QuantileSketch();
+            }
+            sketches[slot].add(column.doubleAt(row));
+        }
+
+        @Override
+        public void merge(int slot, Accumulator other, int otherSlot) {
+            QuantileSketch incoming = ((ApproxPercentileAccumulator) other).sketches[otherSlot];
+            if (incoming != null) {
+                sketches[slot] = sketches[slot] == null ? incoming : sketches[slot].merge(incoming);
+            }
+        }
+
+        @Override
+        public Object result(int slot, long rows) {
+            return sketches[slot] != null ? sketches[slot].quantile(quantile) : null;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            sketches = sketches == null ? new QuantileSketch[capacity] : Arrays.copyOf(sketches, capacity);
+        }
+    }
+
+    /**
+     * Valores no nulos de cada hueco, para los acumuladores cuyo resultado es nulo sin valores.
+     */
+    private static final class PresentCounts {
+
+        private long[] counts;
+
+        void add(int slot) {
+            counts[slot]++;
+        }
+
+        void merge(int slot, PresentCounts other, int otherSlot) {
+            counts[slot] += other.counts[otherSlot];
+        }
+
+        boolean any(int slot) {
+            return counts[slot] > 0;
+        }
+
+        long count(int slot) {
+            return counts[slot];
+        }
+
+        void resize(int capacity) {
+            counts = counts == null ? new long[capacity] : Arrays.copyOf(counts, capacity);
+        }
+    }
+
+    @FunctionalInterface
+    private interface GroupVisitor {
+        void visit(long key, int slot);
+    }
+}
@@ -0,0 +1,264 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Aggregate;
+import com.prueba.olap.domain.entity.AggregateFunction;
+import com.prueba.olap.domain.entity.CalculatedMeasure;
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Adaptador que resuelve las consultas sobre un {@link ColumnarCube} cargado en memoria.
+ * Usa la descripción estructurada de la consulta ({@link CubeQuery}) en lugar del SQL,
+ * agrega en paralelo en el propio proceso y recarga el cubo periódicamente.
+ */
+public class InMemoryCubeAdapter implements OlapQueryPort, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryCubeAdapter.class);
+
+    private final Supplier<ColumnarCube> loader;
+    private final int parallelism;
+    private volatile ColumnarCube cube;
+    private ScheduledExecutorService reloadScheduler;
+
+    public InMemoryCubeAdapter(Supplier<ColumnarCube> loader, int parallelism) {
+        validateParameters(loader, parallelism);
+        this.loader = loader;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Cargador que lee la vista completa del cubo mediante JDBC.
+     */
+    public static Supplier<ColumnarCube> jdbcLoader(NamedParameterJdbcTemplate jdbcTemplate, String cubeViewName,
+                                                    ColumnarCube.CubeSchema schema) {
+        String sql = "SELECT * FROM " + cubeViewName;
+        ResultSetExtractor<ColumnarCube> extractor = resultSet -> ColumnarCube.fromResultSet(resultSet, schema);
+        return () -> jdbcTemplate.getJdbcTemplate().query(sql, extractor);
+    }
+
+    @Override
+    public AggregationResponse query(String query, Map<String, Object> params) {
+        throw new IllegalArgumentException("El cubo en memoria requiere una consulta estructurada (CubeQuery)");
+    }
+
+    @Override
+    public AggregationResponse query(Query query) {
+        CubeQuery cubeQuery = query.getCubeQuery().orElseThrow(() ->
+            new IllegalArgumentException("El cubo en memoria requiere una consulta estructurada (CubeQuery)"));
+        AggregationResponse finest = cubeQuery.getCalculatedMeasures().isEmpty()
+            ? currentCube().aggregate(cubeQuery, parallelism)
+            : calculate(cubeQuery);
+        AggregationResponse response = cubeQuery.hasGroupingSets() ? rollUp(finest, cubeQuery) : finest;
+        return cubeQuery.getPage().map(page -> page(response, cubeQuery)).orElse(response);
+    }
+
+    /**
+     * Medidas calculadas como en el SQL generado: se agregan también las medidas que usan, en la misma
+     * pasada, y cada expresión se evalúa por fila; {@code total(m)} es {@code m} vuelta a agregar sobre
+     * todas las filas del resultado.
+     */
+    private AggregationResponse calculate(CubeQuery query) {
+        TreeSet<String> measures = new TreeSet<>(query.getMeasures());
+        query.getCalculatedMeasures().forEach(measure ->
+            measure.getAggregates().forEach(aggregate -> measures.add(aggregate.spec())));
+        CubeQuery filtered = new CubeQuery(query.getDimensions(), List.copyOf(measures), query.getFilters());
+        CubeQuery base = query.getExclusion().map(filtered::withExclusion).orElse(filtered);
+        AggregationResponse aggregated = currentCube().aggregate(base, parallelism);
+        List<String> baseColumns = base.getColumns();
+
+        Map<CalculatedMeasure.Reference, Object> totals = new HashMap<>();
+        for (CalculatedMeasure measure : query.getCalculatedMeasures()) {
+            for (CalculatedMeasure.Reference reference : measure.getReferences()) {
+                if (reference.total()) {
+                    int position = baseColumns.indexOf(reference.aggregate().alias());
+                    totals.computeIfAbsent(reference, key -> aggregated.getRows().stream()
+                        .map(row -> row.getValueAt(position))
+                        .reduce(null, (total, value) ->
+                            AggregateValues.combine(key.aggregate().getFunction(), total, value)));
+                }
+            }
+        }
+
+        List<String> columns = query.getColumns();
+        int stored = columns.size() - query.getCalculatedMeasures().size();
+        RowSchema schema = RowSchema.of(columns);
+        List<AggregationRow> rows = new ArrayList<>(aggregated.getRowCount());
+        for (AggregationRow row : aggregated.getRows()) {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < stored; i++) {
+                values[i] = row.getValueAt(baseColumns.indexOf(columns.get(i)));
+            }
+            for (int c = 0; c < query.getCalculatedMeasures().size(); c++) {
+                values[stored + c] = query.getCalculatedMeasures().get(c).evaluate(reference -> reference.total()
+                    ? totals.get(reference)
+                    : row.getValueAt(baseColumns.indexOf(reference.aggregate().alias())));
+            }
+            rows.add(new AggregationRow(schema, values));
+        }
+        return new AggregationResponse(rows);
+    }
+
+    /**
+     * Misma página que el SQL generado: filas posteriores al cursor, ordenadas y limitadas,
+     * con los nulos como menor valor.
+     */
+    private AggregationResponse page(AggregationResponse response, CubeQuery query) {
+        CubeQuery.Page page = query.getPage().orElseThrow();
+        int[] positions = page.ordering().stream().mapToInt(key -> query.getColumns().indexOf(key.column())).toArray();
+        Comparator<Object[]> order = (left, right) -> 0;
+        for (int i = 0; i < positions.length; i++) {
+            int index = i;
+            Comparator<Object[]> byKey = (left, right) -> AggregateValues.compare(left[index], right[index]);
+            order = order.thenComparing(page.ordering().get(i).descending() ? byKey.reversed() : byKey);
+        }
+        Comparator<Object[]> keyOrder = order;
+        Object[] after = page.after() != null ? page.after().toArray() : null;
+
+        Stream<AggregationRow> rows = response.getRows().stream()
+            .filter(row -> after == null || keyOrder.compare(sortKey(row, positions), after) > 0)
+            .sorted((left, right) -> keyOrder.compare(sortKey(left, positions), sortKey(right, positions)));
+        if (page.isLimited()) {
+            rows = rows.limit(page.limit());
+        }
+        return new AggregationResponse(rows.toList());
+    }
+
+    private static Object[] sortKey(AggregationRow row, int[] positions) {
+        Object[] key = new Object[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            key[i] = row.getValueAt(positions[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Subtotales a partir del nivel más detallado ya agregado: una sola pasada sobre el cubo y,
+     * por cada conjunto, una nueva agregación de los grupos resultantes (como la alternativa UNION ALL
+     * en SQL): las sumas y los conteos se suman, los mínimos y máximos se vuelven a comparar.
+     */
+    private AggregationResponse rollUp(AggregationResponse finest, CubeQuery query) {
+        List<String> columns = new ArrayList<>(query.getColumns());
+        columns.add(CubeQuery.GROUPING_ID_COLUMN);
+        RowSchema schema = RowSchema.of(columns);
+
+        List<AggregationRow> rows = new ArrayList<>();
+        for (List<String> groupingSet : query.getGroupingSets()) {
+            subtotals(finest, query, groupingSet).forEach(values -> rows.add(new AggregationRow(schema, values)));
+        }
+        return new AggregationResponse(rows);
+    }
+
+    private Collection<Object[]> subtotals(AggregationResponse finest, CubeQuery query, List<String> groupingSet) {
+        int dimensionCount = query.getDimensions().size();
+        List<AggregateFunction> functions = query.getAggregates().stream()
+            .map(Aggregate::getFunction)
+            .toList();
+        Object[] template = new Object[dimensionCount + functions.size() + 1];
+        template[template.length - 1] = query.groupingId(groupingSet);
+
+        Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+        for (AggregationRow row : finest.getRows()) {
+            Object[] key = new Object[dimensionCount];
+            for (int i = 0; i < dimensionCount; i++) {
+                key[i] = groupingSet.contains(query.getDimensions().get(i)) ? row.getValueAt(i) : null;
+            }
+            Object[] values = groups.computeIfAbsent(Arrays.asList(key), k -> withKey(template, key));
+            for (int m = dimensionCount; m < template.length - 1; m++) {
+                AggregateFunction function = functions.get(m - dimensionCount);
+                values[m] = AggregateValues.combine(function, values[m], row.getValueAt(m));
+            }
+        }
+        if (groups.isEmpty() && groupingSet.isEmpty()) {
+            groups.put(List.of(), template);
+        }
+        return groups.values();
+    }
+
+    private static Object[] withKey(Object[] template, Object[] key) {
+        Object[] values = template.clone();
+        System.arraycopy(key, 0, values, 0, key.length);
+        return values;
+    }
+
+    /**
+     * Carga una nueva versión del cubo y la publica atómicamente; las consultas en curso
+     * terminan sobre la versión anterior.
+     */
+    public void reload() {
+        long start = System.nanoTime();
+        ColumnarCube loaded = loader.get();
+        this.cube = loaded;
+        log.info("Cubo en memoria recargado: {} filas en {} ms",
+            loaded.getRowCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Programa recargas periódicas. Un fallo de recarga se registra y se mantiene la versión vigente.
+     */
+    public synchronized void scheduleReloads(Duration interval) {
+        if (interval == null || interval.isZero() || interval.isNegative() || reloadScheduler != null) {
+            return;
+        }
+        reloadScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("olap-cube-reload").daemon(true).factory());
+        long millis = interval.toMillis();
+        reloadScheduler.scheduleWithFixedDelay(this::reloadSafely, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reloadScheduler != null) {
+            reloadScheduler.shutdownNow();
+            reloadScheduler = null;
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Error recargando el cubo en memoria, se mantiene la versión anterior", e);
+        }
+    }
+
+    private ColumnarCube currentCube() {
+        ColumnarCube current = cube;
+        if (current == null) {
+            throw new IllegalStateException("El cubo en memoria todavía no se ha cargado");
+        }
+        return current;
+    }
+
+    private void validateParameters(Supplier<ColumnarCube> loader, int parallelism) {
+        if (loader == null) {
+            throw new IllegalArgumentException("Cargador del cubo no puede ser nulo");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("El paralelismo debe ser mayor que cero");
+        }
+    }
+}
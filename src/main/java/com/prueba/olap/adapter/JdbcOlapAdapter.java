@@ -1,60 +1,175 @@
 package com.prueba.olap.adapter;
 
+import com.prueba.olap.domain.entity.Query;
 import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.QueryMetrics;
 import com.prueba.olap.service.dto.AggregationResponse;
 import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
+import reactor.core.publisher.Flux;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
 
 /**
  * Adaptador JDBC para consultas OLAP contra bases de datos relacionales.
  * Implementa el patrón Adapter de arquitectura hexagonal.
+ * Mide por separado la ejecución ({@value #EXECUTE_STAGE}) y el mapeo de filas ({@value #MAPPING_STAGE}).
+ * El plan estimado se pide con {@code EXPLAIN} o, en SQL Server, con {@code SET SHOWPLAN_XML}.
  */
 public class JdbcOlapAdapter implements OlapQueryPort {
 
+    public static final String EXECUTE_STAGE = "jdbc.execute";
+    public static final String MAPPING_STAGE = "jdbc.mapping";
+
+    private static final String EXPLAIN_PREFIX = "EXPLAIN ";
+    private static final String SQL_SERVER_PRODUCT = "Microsoft SQL Server";
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final String cubeViewName;
+    private final QueryMetrics metrics;
 
     public JdbcOlapAdapter(NamedParameterJdbcTemplate jdbcTemplate, String cubeViewName) {
-        validateParameters(jdbcTemplate, cubeViewName);
+        this(jdbcTemplate, cubeViewName, QueryMetrics.disabled());
+    }
+
+    /**
+     * @param metrics Métricas de la aplicación; las etapas se etiquetan con la vista y el adaptador {@code jdbc}
+     */
+    public JdbcOlapAdapter(NamedParameterJdbcTemplate jdbcTemplate, String cubeViewName, QueryMetrics metrics) {
+        validateParameters(jdbcTemplate, cubeViewName, metrics);
         this.jdbcTemplate = jdbcTemplate;
         this.cubeViewName = cubeViewName;
+        this.metrics = metrics.withTags(cubeViewName, "jdbc");
     }
 
     @Override
     public AggregationResponse query(String sql, Map<String, Object> params) {
+        return execute(sql, params, QueryMetrics.RAW_SHAPE);
+    }
+
+    @Override
+    public AggregationResponse query(Query query) {
+        return execute(query.getStatement(), query.getParameters(), QueryMetrics.shapeOf(query));
+    }
+
+    private AggregationResponse execute(String sql, Map<String, Object> params, String shape) {
         validateQuery(sql);
         
         try {
             String finalSql = replaceCubeViewPlaceholder(sql);
             Map<String, Object> safeParams = params != null ? params : Map.of();
             
-            SqlRowSet resultSet = jdbcTemplate.queryForRowSet(finalSql, 
-                new MapSqlParameterSource(safeParams));
+            SqlRowSet resultSet = metrics.time(EXECUTE_STAGE, shape,
+                () -> jdbcTemplate.queryForRowSet(finalSql, new MapSqlParameterSource(safeParams)));
             
-            List<AggregationRow> rows = processResultSet(resultSet);
+            List<AggregationRow> rows = metrics.time(MAPPING_STAGE, shape, () -> processResultSet(resultSet));
             return new AggregationResponse(rows);
             
         } catch (DataAccessException e) {
             throw new RuntimeException("Error ejecutando consulta SQL: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Ejecuta la consulta con un cursor de solo avance y emite cada fila al leerla.
+     * El tamaño de lectura lo define el {@code fetchSize} del JdbcTemplate subyacente;
+     * el cursor y la conexión se liberan al completar, fallar o cancelar el flujo.
+     */
+    @Override
+    public Flux<AggregationRow> stream(String sql, Map<String, Object> params) {
+        validateQuery(sql);
+        String finalSql = replaceCubeViewPlaceholder(sql);
+        MapSqlParameterSource source = new MapSqlParameterSource(params != null ? params : Map.of());
+
+        return Flux.fromStream(() -> jdbcTemplate.queryForStream(finalSql, source, new AggregationRowMapper()))
+            .onErrorMap(DataAccessException.class,
+                e -> new RuntimeException("Error ejecutando consulta SQL: " + e.getMessage(), e));
+    }
     
-    private void validateParameters(NamedParameterJdbcTemplate jdbcTemplate, String cubeViewName) {
+    /**
+     * Pide al motor el plan estimado sin ejecutar la consulta, en la misma conexión y con los mismos
+     * parámetros. En SQL Server el modo showplan se desactiva antes de devolver la conexión al pool.
+     */
+    @Override
+    public Optional<String> explain(Query query) {
+        validateQuery(query.getStatement());
+        String finalSql = replaceCubeViewPlaceholder(query.getStatement());
+        MapSqlParameterSource source = new MapSqlParameterSource(query.getParameters());
+
+        try {
+            return Optional.ofNullable(jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> readPlan(connection, finalSql, source)));
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Error obteniendo el plan de ejecución: " + e.getMessage(), e);
+        }
+    }
+
+    private String readPlan(Connection connection, String sql, SqlParameterSource source) throws SQLException {
+        if (!connection.getMetaData().getDatabaseProductName().startsWith(SQL_SERVER_PRODUCT)) {
+            return fetchPlan(connection, statementFor(EXPLAIN_PREFIX + sql, source));
+        }
+        try (Statement session = connection.createStatement()) {
+            session.execute("SET SHOWPLAN_XML ON");
+            try {
+                return fetchPlan(connection, statementFor(sql, source));
+            } finally {
+                session.execute("SET SHOWPLAN_XML OFF");
+            }
+        }
+    }
+
+    private PreparedStatementCreator statementFor(String sql, SqlParameterSource source) {
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        String jdbcSql = NamedParameterUtils.substituteNamedParameters(parsedSql, source);
+        Object[] values = NamedParameterUtils.buildValueArray(parsedSql, source, null);
+        return new PreparedStatementCreatorFactory(jdbcSql, NamedParameterUtils.buildSqlParameterList(parsedSql, source))
+            .newPreparedStatementCreator(values);
+    }
+
+    private String fetchPlan(Connection connection, PreparedStatementCreator creator) throws SQLException {
+        try (PreparedStatement statement = creator.createPreparedStatement(connection);
+             ResultSet resultSet = statement.executeQuery()) {
+            StringJoiner plan = new StringJoiner("\n");
+            while (resultSet.next()) {
+                plan.add(resultSet.getString(1));
+            }
+            return plan.toString();
+        }
+    }
+
+    private void validateParameters(NamedParameterJdbcTemplate jdbcTemplate, String cubeViewName,
+                                    QueryMetrics metrics) {
         if (jdbcTemplate == null) {
             throw new IllegalArgumentException("JdbcTemplate no puede ser nulo");
         }
         if (cubeViewName == null || cubeViewName.trim().isEmpty()) {
             throw new IllegalArgumentException("Nombre de vista del cubo no puede ser nulo o vacío");
         }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Métricas de consultas no pueden ser nulas");
+        }
     }
     
     private void validateQuery(String sql) {
@@ -67,27 +182,70 @@ public class JdbcOlapAdapter implements OlapQueryPort {
         return sql.replace("cube_view", cubeViewName);
     }
     
-    private List<AggregationRow> processResultSet(SqlRowSet resultSet) {
+    /**
+     * Convierte el resultado en filas que comparten un único esquema de columnas;
+     * los valores de texto repetidos comparten instancia mediante un diccionario por consulta.
+     * Visibilidad de paquete para los benchmarks JMH.
+     */
+    List<AggregationRow> processResultSet(SqlRowSet resultSet) {
         List<AggregationRow> rows = new ArrayList<>();
+        RowSchema schema = readSchema(resultSet.getMetaData());
+        ValueDictionary dictionary = new ValueDictionary();
         
         while (resultSet.next()) {
-            Map<String, Object> rowData = extractRowData(resultSet);
-            rows.add(new AggregationRow(rowData));
+            Object[] rowData = extractRowData(resultSet, schema, dictionary);
+            rows.add(new AggregationRow(schema, rowData));
         }
         
         return rows;
     }
     
-    private Map<String, Object> extractRowData(SqlRowSet resultSet) {
-        SqlRowSetMetaData metaData = resultSet.getMetaData();
-        Map<String, Object> rowData = new HashMap<>();
+    private Object[] extractRowData(SqlRowSet resultSet, RowSchema schema, ValueDictionary dictionary) {
+        Object[] rowData = new Object[schema.size()];
         
-        for (int i = 1; i <= metaData.getColumnCount(); i++) {
-            String columnLabel = metaData.getColumnLabel(i);
-            Object columnValue = resultSet.getObject(i);
-            rowData.put(columnLabel, columnValue);
+        for (int i = 0; i < rowData.length; i++) {
+            rowData[i] = dictionary.encode(resultSet.getObject(i + 1));
         }
         
         return rowData;
     }
+
+    private RowSchema readSchema(SqlRowSetMetaData metaData) {
+        List<String> labels = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        return RowSchema.of(labels);
+    }
+
+    /**
+     * Convierte cada fila del cursor en una {@link AggregationRow}.
+     * Las etiquetas de columna se leen una sola vez por consulta.
+     */
+    private static final class AggregationRowMapper implements RowMapper<AggregationRow> {
+
+        private final ValueDictionary dictionary = new ValueDictionary();
+        private RowSchema schema;
+
+        @Override
+        public AggregationRow mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+            if (schema == null) {
+                schema = readSchema(resultSet.getMetaData());
+            }
+
+            Object[] rowData = new Object[schema.size()];
+            for (int i = 0; i < rowData.length; i++) {
+                rowData[i] = dictionary.encode(resultSet.getObject(i + 1));
+            }
+            return new AggregationRow(schema, rowData);
+        }
+
+        private static RowSchema readSchema(ResultSetMetaData metaData) throws SQLException {
+            List<String> labels = new ArrayList<>(metaData.getColumnCount());
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                labels.add(metaData.getColumnLabel(i));
+            }
+            return RowSchema.of(labels);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Rollup;
+import com.prueba.olap.port.RollupStorePort;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptador JDBC que materializa los rollups como tablas físicas.
+ * La tabla se crea la primera vez con la estructura de la agregación y cada recarga
+ * sustituye su contenido dentro de una transacción.
+ */
+public class JdbcRollupStore implements RollupStorePort {
+
+    private static final String SQL_SERVER_PRODUCT = "Microsoft SQL Server";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String cubeViewName;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcRollupStore(JdbcTemplate jdbcTemplate, String cubeViewName, TransactionTemplate transactionTemplate) {
+        validateParameters(jdbcTemplate, cubeViewName, transactionTemplate);
+        this.jdbcTemplate = jdbcTemplate;
+        this.cubeViewName = cubeViewName;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public long refresh(Rollup rollup) {
+        if (rollup == null) {
+            throw new IllegalArgumentException("Rollup no puede ser nulo");
+        }
+        if (!tableExists(rollup)) {
+            jdbcTemplate.execute(buildCreateStatement(rollup));
+        }
+        String columns = String.join(", ", columnsOf(rollup));
+        String insert = "INSERT INTO " + rollup.getTableName() + " (" + columns + ") " + buildAggregation(rollup, "");
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("DELETE FROM " + rollup.getTableName());
+            return jdbcTemplate.update(insert);
+        });
+        return rows != null ? rows : 0L;
+    }
+
+    private boolean tableExists(Rollup rollup) {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + rollup.getTableName() + " WHERE 1 = 0", Long.class);
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Crea la tabla vacía con los tipos que produce la propia agregación.
+     * SQL Server no admite {@code CREATE TABLE ... AS SELECT} y usa {@code SELECT ... INTO}.
+     */
+    private String buildCreateStatement(Rollup rollup) {
+        String emptyAggregation = buildAggregation(rollup, " WHERE 1 = 0");
+        if (isSqlServer()) {
+            return emptyAggregation.replaceFirst(" FROM ", " INTO " + rollup.getTableName() + " FROM ");
+        }
+        return "CREATE TABLE " + rollup.getTableName() + " AS " + emptyAggregation;
+    }
+
+    private String buildAggregation(Rollup rollup, String whereClause) {
+        List<String> select = new ArrayList<>(rollup.getDimensions());
+        rollup.getMeasures().forEach(measure -> select.add("SUM(" + measure + ") AS " + measure));
+        return "SELECT " + String.join(", ", select) + " FROM " + cubeViewName + whereClause
+            + " GROUP BY " + String.join(", ", rollup.getDimensions());
+    }
+
+    private List<String> columnsOf(Rollup rollup) {
+        List<String> columns = new ArrayList<>(rollup.getDimensions());
+        columns.addAll(rollup.getMeasures());
+        return columns;
+    }
+
+    private boolean isSqlServer() {
+        String product = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return SQL_SERVER_PRODUCT.equals(product);
+    }
+
+    private void validateParameters(JdbcTemplate jdbcTemplate, String cubeViewName,
+                                    TransactionTemplate transactionTemplate) {
+        if (jdbcTemplate == null) {
+            throw new IllegalArgumentException("JdbcTemplate no puede ser nulo");
+        }
+        if (cubeViewName == null || cubeViewName.isBlank()) {
+            throw new IllegalArgumentException("Nombre de vista del cubo no puede ser nulo o vacío");
+        }
+        if (transactionTemplate == null) {
+            throw new IllegalArgumentException("TransactionTemplate no puede ser nulo");
+        }
+    }
+}
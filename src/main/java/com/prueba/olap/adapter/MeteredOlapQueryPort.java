@@ -0,0 +1,64 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.QueryMetrics;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decorador de {@link OlapQueryPort} que mide cada llamada al adaptador
+ * (etapas {@value #QUERY_STAGE} y {@value #STREAM_STAGE}) con las etiquetas de {@link QueryMetrics}.
+ */
+public class MeteredOlapQueryPort implements OlapQueryPort {
+
+    public static final String QUERY_STAGE = "port.query";
+    public static final String STREAM_STAGE = "port.stream";
+
+    private final OlapQueryPort delegate;
+    private final QueryMetrics metrics;
+
+    public MeteredOlapQueryPort(OlapQueryPort delegate, QueryMetrics metrics) {
+        validateParameters(delegate, metrics);
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public AggregationResponse query(String query, Map<String, Object> params) {
+        return metrics.time(QUERY_STAGE, QueryMetrics.RAW_SHAPE, () -> delegate.query(query, params));
+    }
+
+    @Override
+    public AggregationResponse query(Query query) {
+        return metrics.time(QUERY_STAGE, query, () -> delegate.query(query));
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(String query, Map<String, Object> params) {
+        return metrics.time(STREAM_STAGE, QueryMetrics.RAW_SHAPE, delegate.stream(query, params));
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return metrics.time(STREAM_STAGE, query, delegate.stream(query));
+    }
+
+    @Override
+    public Optional<String> explain(Query query) {
+        return delegate.explain(query);
+    }
+
+    private void validateParameters(OlapQueryPort delegate, QueryMetrics metrics) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Puerto delegado no puede ser nulo");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Métricas de consultas no pueden ser nulas");
+        }
+    }
+}
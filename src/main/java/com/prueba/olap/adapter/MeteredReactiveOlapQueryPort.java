@@ -0,0 +1,49 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.QueryMetrics;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente reactivo de {@link MeteredOlapQueryPort}: el tiempo va de la suscripción a la última
+ * fila, e incluye la espera en la cola del ejecutor cuando el adaptador es bloqueante.
+ */
+public class MeteredReactiveOlapQueryPort implements ReactiveOlapQueryPort {
+
+    private final ReactiveOlapQueryPort delegate;
+    private final QueryMetrics metrics;
+
+    public MeteredReactiveOlapQueryPort(ReactiveOlapQueryPort delegate, QueryMetrics metrics) {
+        validateParameters(delegate, metrics);
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return metrics.time(MeteredOlapQueryPort.STREAM_STAGE, query, delegate.stream(query));
+    }
+
+    @Override
+    public Mono<AggregationResponse> aggregate(Query query) {
+        return metrics.time(MeteredOlapQueryPort.QUERY_STAGE, query, delegate.aggregate(query));
+    }
+
+    @Override
+    public Mono<String> plan(Query query) {
+        return delegate.plan(query);
+    }
+
+    private void validateParameters(ReactiveOlapQueryPort delegate, QueryMetrics metrics) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Puerto delegado no puede ser nulo");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Métricas de consultas no pueden ser nulas");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.QueryPartitioner;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Decorador de {@link ReactiveOlapQueryPort} que ejecuta cada consulta particionable como varias
+ * subconsultas en paralelo ({@link QueryPartitioner}). Sobre el puente bloqueante cada partición es una
+ * tarea del {@link com.prueba.olap.service.QueryExecutor} con su propia conexión del pool, de modo que el
+ * motor reparte el trabajo en varias sesiones en lugar de un único plan en serie.
+ * <p>
+ * Los valores de partición se leen del cubo y se guardan {@link #VALUES_TTL}, como la caché de resultados.
+ * Las filas con un valor nuevo o nulo las devuelve la partición del resto, así que una lista desactualizada
+ * solo reparte peor el trabajo. Si no hay al menos dos valores la consulta se ejecuta entera. El streaming
+ * no se particiona.
+ */
+public class PartitionedOlapQueryPort implements ReactiveOlapQueryPort {
+
+    static final Duration VALUES_TTL = Duration.ofMinutes(5);
+
+    private final ReactiveOlapQueryPort delegate;
+    private final QueryPartitioner partitioner;
+    private final Mono<List<String>> partitionValues;
+
+    public PartitionedOlapQueryPort(ReactiveOlapQueryPort delegate, QueryPartitioner partitioner) {
+        validateParameters(delegate, partitioner);
+        this.delegate = delegate;
+        this.partitioner = partitioner;
+        this.partitionValues = Mono.defer(() -> delegate.aggregate(partitioner.valuesQuery()))
+            .map(partitioner::partitionValues)
+            .cache(values -> VALUES_TTL, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return delegate.stream(query);
+    }
+
+    @Override
+    public Mono<AggregationResponse> aggregate(Query query) {
+        if (!partitioner.isPartitionable(query)) {
+            return delegate.aggregate(query);
+        }
+        return partitionValues.flatMap(values -> values.size() < 2
+            ? delegate.aggregate(query)
+            : aggregatePartitions(query, values));
+    }
+
+    @Override
+    public Mono<String> plan(Query query) {
+        return delegate.plan(query);
+    }
+
+    /**
+     * Ejecuta como mucho {@link QueryPartitioner#getParallelism()} particiones a la vez y combina sus filas:
+     * si la consulta no agrupa por la columna de partición, las vuelve a agregar por sus dimensiones.
+     */
+    private Mono<AggregationResponse> aggregatePartitions(Query query, List<String> values) {
+        CubeQuery cubeQuery = query.getCubeQuery().orElseThrow();
+        return Flux.fromIterable(partitioner.split(query, values))
+            .flatMapSequential(delegate::aggregate, partitioner.getParallelism())
+            .flatMapIterable(AggregationResponse::getRows)
+            .collectList()
+            .map(AggregationResponse::new)
+            .map(partials -> partitioner.requiresMerge(query)
+                ? ResultSubsumption.rollUp(cubeQuery, partials, cubeQuery)
+                : partials);
+    }
+
+    private void validateParameters(ReactiveOlapQueryPort delegate, QueryPartitioner partitioner) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Puerto delegado no puede ser nulo");
+        }
+        if (partitioner == null) {
+            throw new IllegalArgumentException("Particionador de consultas no puede ser nulo");
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.prueba.olap.adapter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de resultados OLAP compartida por los puertos decorados con {@link CachingOlapQueryPort}.
+ * Las entradas se indexan por cubo y consulta normalizada; la expiración, el límite de
+ * tamaño y el peso de cada entrada los define el constructor de Caffeine recibido.
+ * <p>
+ * Con subsunción activada, una consulta que no está se puede obtener de un resultado guardado más
+ * detallado ({@link ResultSubsumption}), por ejemplo al subir de nivel en la navegación. Los candidatos se
+ * buscan en un índice por cubo, filtros y exclusión, que se mantiene al guardar y con el listener de
+ * expulsión de Caffeine, de modo que un fallo no recorre la caché entera. La respuesta derivada se guarda
+ * con la vida que le queda a su origen ({@link #expireAfterWrite(Duration)}), así que nunca lo sobrevive.
+ */
+public class QueryResultCache {
+
+    private static final int ROW_OVERHEAD_BYTES = 40;
+    private static final int REFERENCE_BYTES = 8;
+    private static final int NUMBER_BYTES = 24;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final Cache<Key, AggregationResponse> cache;
+    private final boolean subsumption;
+    private final Map<SourceGroup, Set<Key>> sourcesByGroup = new ConcurrentHashMap<>();
+    private final AtomicLong derivedHits = new AtomicLong();
+
+    public QueryResultCache(Caffeine<? super Key, ? super AggregationResponse> builder) {
+        this(builder, true);
+    }
+
+    public QueryResultCache(Caffeine<? super Key, ? super AggregationResponse> builder, boolean subsumption) {
+        if (builder == null) {
+            throw new IllegalArgumentException("Constructor de la caché no puede ser nulo");
+        }
+        this.cache = builder.<Key, AggregationResponse>evictionListener(this::onEviction).build();
+        this.subsumption = subsumption;
+    }
+
+    /**
+     * Caduca cada entrada a los {@code ttl} de guardarla, como {@link Caffeine#expireAfterWrite(Duration)},
+     * pero con expiración variable: las respuestas derivadas se guardan con la vida restante de su origen.
+     * Con expiración fija las respuestas derivadas no se guardan.
+     */
+    public static Expiry<Key, AggregationResponse> expireAfterWrite(Duration ttl) {
+        long ttlNanos = ttl.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Key key, AggregationResponse response, long currentTime) {
+                return ttlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(Key key, AggregationResponse response, long currentTime,
+                                          long currentDuration) {
+                return ttlNanos;
+            }
+
+            @Override
+            public long expireAfterRead(Key key, AggregationResponse response, long currentTime,
+                                        long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Pesa cada entrada por su número de filas.
+     */
+    public static Weigher<Key, AggregationResponse> rowWeigher() {
+        return (key, response) -> Math.max(response.getRowCount(), 1);
+    }
+
+    /**
+     * Pesa cada entrada por una estimación de los bytes que ocupa en heap. Las filas guardan
+     * sus valores en un array sobre un esquema compartido y los textos repetidos comparten
+     * instancia, así que cada cadena distinta se cuenta una sola vez.
+     */
+    public static Weigher<Key, AggregationResponse> byteWeigher() {
+        return (key, response) -> {
+            long bytes = key.query().getStatement().length() * 2L;
+            Set<Object> seenStrings = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (AggregationRow row : response.getRows()) {
+                bytes += estimateRowBytes(row, seenStrings);
+            }
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        };
+    }
+
+    public Optional<AggregationResponse> get(String cube, Query query) {
+        return Optional.ofNullable(cache.getIfPresent(new Key(cube, query)));
+    }
+
+    /**
+     * Respuesta guardada para la consulta o, si no está, la que se obtiene volviendo a agregar el
+     * resultado guardado más pequeño que la contiene. Vuelve a agregar en el hilo que llama; los puertos
+     * reactivos usan {@link #findSource} y {@link #derive} para hacerlo fuera del event loop.
+     */
+    public Optional<AggregationResponse> find(String cube, Query query) {
+        Optional<AggregationResponse> cached = get(cube, query);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return findSource(cube, query).map(this::derive);
+    }
+
+    public void put(String cube, Query query, AggregationResponse response) {
+        Key key = new Key(cube, query);
+        index(key);
+        cache.put(key, response);
+    }
+
+    /**
+     * Resultado guardado más pequeño que contiene la consulta, sin alterar su antigüedad ni las
+     * estadísticas. Solo recorre las entradas del mismo cubo, filtros y exclusión.
+     */
+    Optional<Derivation> findSource(String cube, Query query) {
+        if (!subsumption) {
+            return Optional.empty();
+        }
+        return query.getCubeQuery()
+            .filter(ResultSubsumption::isDerivable)
+            .flatMap(requested -> findFinest(new Key(cube, query), requested));
+    }
+
+    /**
+     * Vuelve a agregar el origen y guarda el resultado hasta que caduque el origen.
+     */
+    AggregationResponse derive(Derivation derivation) {
+        AggregationResponse derived = ResultSubsumption.rollUp(
+            derivation.sourceQuery(), derivation.sourceResponse(), derivation.requested());
+        derivedHits.incrementAndGet();
+        putDerived(derivation.source(), derivation.target(), derived);
+        return derived;
+    }
+
+    /**
+     * Consultas respondidas volviendo a agregar un resultado guardado. Las estadísticas de Caffeine las
+     * cuentan como fallos, porque la consulta pedida no estaba.
+     */
+    public long getDerivedHitCount() {
+        return derivedHits.get();
+    }
+
+    /**
+     * Caché de Caffeine subyacente, para publicar sus estadísticas.
+     */
+    public Cache<Key, AggregationResponse> getStore() {
+        return cache;
+    }
+
+    /**
+     * Elimina todas las entradas de un cubo.
+     *
+     * @return número de entradas invalidadas
+     */
+    public long invalidateCube(String cube) {
+        long before = cache.estimatedSize();
+        cache.asMap().keySet().removeIf(key -> key.cube().equals(cube));
+        sourcesByGroup.keySet().removeIf(group -> group.cube().equals(cube));
+        cache.cleanUp();
+        return Math.max(before - cache.estimatedSize(), 0);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        sourcesByGroup.clear();
+        cache.cleanUp();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private Optional<Derivation> findFinest(Key target, CubeQuery requested) {
+        Set<Key> candidates = sourcesByGroup.get(SourceGroup.of(target.cube(), requested));
+        if (candidates == null) {
+            return Optional.empty();
+        }
+        Policy<Key, AggregationResponse> policy = cache.policy();
+        Derivation finest = null;
+        for (Key candidate : candidates) {
+            CubeQuery candidateQuery = candidate.query().getCubeQuery().orElseThrow();
+            if (!ResultSubsumption.subsumes(candidateQuery, requested)) {
+                continue;
+            }
+            AggregationResponse response = policy.getIfPresentQuietly(candidate);
+            if (response != null
+                && (finest == null || response.getRowCount() < finest.sourceResponse().getRowCount())) {
+                finest = new Derivation(candidate, candidateQuery, response, target, requested);
+            }
+        }
+        return Optional.ofNullable(finest);
+    }
+
+    /**
+     * Con expiración variable guarda la respuesta derivada con la vida restante del origen; sin expiración
+     * la guarda sin más. Con expiración fija no se puede acotar, así que no se guarda y se vuelve a derivar.
+     */
+    private void putDerived(Key source, Key target, AggregationResponse derived) {
+        Policy<Key, AggregationResponse> policy = cache.policy();
+        Optional<Policy.VarExpiration<Key, AggregationResponse>> variable = policy.expireVariably();
+        if (variable.isPresent()) {
+            variable.get().getExpiresAfter(source).ifPresent(remaining -> {
+                index(target);
+                variable.get().put(target, derived, remaining);
+            });
+        } else if (policy.expireAfterWrite().isEmpty() && policy.expireAfterAccess().isEmpty()) {
+            index(target);
+            cache.put(target, derived);
+        }
+    }
+
+    /**
+     * Registra la clave antes de guardarla: si Caffeine la expulsa enseguida, el listener la vuelve a quitar.
+     */
+    private void index(Key key) {
+        key.query().getCubeQuery()
+            .filter(ResultSubsumption::isSource)
+            .ifPresent(cubeQuery -> sourcesByGroup.compute(SourceGroup.of(key.cube(), cubeQuery), (group, keys) -> {
+                Set<Key> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                indexed.add(key);
+                return indexed;
+            }));
+    }
+
+    private void onEviction(Key key, AggregationResponse response, RemovalCause cause) {
+        if (key == null) {
+            return;
+        }
+        key.query().getCubeQuery().ifPresent(cubeQuery ->
+            sourcesByGroup.computeIfPresent(SourceGroup.of(key.cube(), cubeQuery), (group, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            }));
+    }
+
+    private static long estimateRowBytes(AggregationRow row, Set<Object> seenStrings) {
+        long bytes = ROW_OVERHEAD_BYTES;
+        for (int i = 0; i < row.getColumnCount(); i++) {
+            bytes += REFERENCE_BYTES + estimateValueBytes(row.getValueAt(i), seenStrings);
+        }
+        return bytes;
+    }
+
+    private static long estimateValueBytes(Object value, Set<Object> seenStrings) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return seenStrings.add(text) ? STRING_OVERHEAD_BYTES + text.length() * 2L : 0;
+        }
+        return NUMBER_BYTES;
+    }
+
+    /**
+     * Clave de la caché: nombre del cubo y consulta normalizada
+     * (texto, tipo y parámetros, según {@link Query#equals(Object)}).
+     */
+    public record Key(String cube, Query query) {
+    }
+
+    /**
+     * Resultados que solo se pueden contener entre sí: mismo cubo, filtros y exclusión.
+     */
+    private record SourceGroup(String cube, Map<String, String> filters, Optional<CubeQuery.Exclusion> exclusion) {
+
+        static SourceGroup of(String cube, CubeQuery query) {
+            return new SourceGroup(cube, query.getFilters(), query.getExclusion());
+        }
+    }
+
+    /**
+     * Resultado guardado {@code source} que contiene la consulta {@code target} pedida.
+     */
+    record Derivation(Key source, CubeQuery sourceQuery, AggregationResponse sourceResponse,
+                      Key target, CubeQuery requested) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.dao.DataAccessException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Adaptador R2DBC para consultas OLAP contra bases de datos relacionales (H2, SQL Server).
+ * Implementa el patrón Adapter de arquitectura hexagonal.
+ * - Mismo SQL parametrizado y sustitución de {@code cube_view} que {@link JdbcOlapAdapter}
+ * - Ningún hilo queda bloqueado esperando a la base de datos
+ * - Las filas se piden al driver según la demanda del suscriptor (backpressure)
+ */
+public class R2dbcOlapAdapter implements OlapQueryPort, ReactiveOlapQueryPort {
+
+    private final DatabaseClient databaseClient;
+    private final String cubeViewName;
+    private final int fetchSize;
+
+    public R2dbcOlapAdapter(DatabaseClient databaseClient, String cubeViewName, int fetchSize) {
+        validateParameters(databaseClient, cubeViewName, fetchSize);
+        this.databaseClient = databaseClient;
+        this.cubeViewName = cubeViewName;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Camino síncrono de {@link OlapQueryPort}: espera al resultado completo.
+     * El controlador usa {@link #stream(Query)}, que no bloquea.
+     */
+    @Override
+    public AggregationResponse query(String sql, Map<String, Object> params) {
+        List<AggregationRow> rows = stream(sql, params).collectList().block();
+        return new AggregationResponse(rows);
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return stream(query.getStatement(), query.getParameters());
+    }
+
+    /**
+     * Emite cada fila al leerla; la conexión vuelve al pool al completar, fallar o cancelar el flujo.
+     */
+    @Override
+    public Flux<AggregationRow> stream(String sql, Map<String, Object> params) {
+        validateQuery(sql);
+        String finalSql = replaceCubeViewPlaceholder(sql);
+        Map<String, Object> safeParams = params != null ? params : Map.of();
+
+        return Flux.defer(() -> databaseClient.sql(finalSql)
+                .bindValues(safeParams)
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)))
+                .map(new AggregationRowMapper())
+                .all())
+            .onErrorMap(DataAccessException.class,
+                e -> new RuntimeException("Error ejecutando consulta SQL: " + e.getMessage(), e));
+    }
+
+    private void validateParameters(DatabaseClient databaseClient, String cubeViewName, int fetchSize) {
+        if (databaseClient == null) {
+            throw new IllegalArgumentException("DatabaseClient no puede ser nulo");
+        }
+        if (cubeViewName == null || cubeViewName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nombre de vista del cubo no puede ser nulo o vacío");
+        }
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch-size debe ser mayor que cero: " + fetchSize);
+        }
+    }
+
+    private void validateQuery(String sql) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException("La consulta SQL no puede ser nula o vacía");
+        }
+    }
+
+    private String replaceCubeViewPlaceholder(String sql) {
+        return sql.replace("cube_view", cubeViewName);
+    }
+
+    /**
+     * Convierte cada fila en una {@link AggregationRow}; el esquema se lee de los metadatos
+     * de la primera fila y lo comparten todas las demás. Una instancia por suscripción.
+     */
+    private static final class AggregationRowMapper implements BiFunction<Row, RowMetadata, AggregationRow> {
+
+        private final ValueDictionary dictionary = new ValueDictionary();
+        private RowSchema schema;
+
+        @Override
+        public AggregationRow apply(Row row, RowMetadata metadata) {
+            if (schema == null) {
+                schema = readSchema(metadata);
+            }
+
+            Object[] rowData = new Object[schema.size()];
+            for (int i = 0; i < rowData.length; i++) {
+                rowData[i] = dictionary.encode(row.get(i));
+            }
+            return new AggregationRow(schema, rowData);
+        }
+
+        private static RowSchema readSchema(RowMetadata metadata) {
+            List<? extends ColumnMetadata> columns = metadata.getColumnMetadatas();
+            List<String> labels = new ArrayList<>(columns.size());
+            for (ColumnMetadata column : columns) {
+                labels.add(column.getName());
+            }
+            return RowSchema.of(labels);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.QueryTrace;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Equivalente reactivo de {@link CachingOlapQueryPort}: comparte la misma {@link QueryResultCache},
+ * de modo que una respuesta guardada por cualquiera de los dos caminos sirve para el otro.
+ * Volver a agregar un resultado más detallado puede recorrer muchas filas, así que se hace en el
+ * {@link QueryExecutor} y no en el event loop. El streaming no se cachea.
+ */
+public class ReactiveCachingOlapQueryPort implements ReactiveOlapQueryPort {
+
+    private final ReactiveOlapQueryPort delegate;
+    private final String cubeName;
+    private final QueryResultCache cache;
+    private final QueryExecutor queryExecutor;
+
+    public ReactiveCachingOlapQueryPort(ReactiveOlapQueryPort delegate, String cubeName, QueryResultCache cache,
+                                        QueryExecutor queryExecutor) {
+        validateParameters(delegate, cubeName, cache, queryExecutor);
+        this.delegate = delegate;
+        this.cubeName = cubeName;
+        this.cache = cache;
+        this.queryExecutor = queryExecutor;
+    }
+
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        return delegate.stream(query);
+    }
+
+    /**
+     * Sirve la respuesta desde caché si está o se puede derivar de otra guardada; anota el acierto o fallo
+     * en el {@link QueryTrace} de la petición.
+     */
+    @Override
+    public Mono<AggregationResponse> aggregate(Query query) {
+        return Mono.deferContextual(context -> {
+            Optional<AggregationResponse> cached = cache.get(cubeName, query);
+            Optional<QueryResultCache.Derivation> source = cached.isPresent()
+                ? Optional.empty()
+                : cache.findSource(cubeName, query);
+            boolean hit = cached.isPresent() || source.isPresent();
+            QueryTrace.from(context).ifPresent(trace -> trace.recordCache(hit));
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            return source.map(derivation -> queryExecutor.submit(() -> cache.derive(derivation)))
+                .orElseGet(() -> delegate.aggregate(query)
+                    .doOnNext(response -> cache.put(cubeName, query, response)));
+        });
+    }
+
+    @Override
+    public Mono<String> plan(Query query) {
+        return delegate.plan(query);
+    }
+
+    private void validateParameters(ReactiveOlapQueryPort delegate, String cubeName, QueryResultCache cache,
+                                    QueryExecutor queryExecutor) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Puerto delegado no puede ser nulo");
+        }
+        if (cubeName == null || cubeName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nombre del cubo no puede ser nulo o vacío");
+        }
+        if (cache == null) {
+            throw new IllegalArgumentException("Caché de resultados no puede ser nula");
+        }
+        if (queryExecutor == null) {
+            throw new IllegalArgumentException("Ejecutor de consultas no puede ser nulo");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Aggregate;
+import com.prueba.olap.domain.entity.AggregateFunction;
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Responde una consulta con el resultado ya calculado de otra más detallada: si el resultado agrupa por
+ * más dimensiones, con los mismos filtros, y contiene las medidas pedidas, basta con volver a agregar sus
+ * filas por las dimensiones pedidas. Así (Region) con {@code Year:2024} sale de (Region, Product) con
+ * {@code Year:2024} sin leer el cubo.
+ * <p>
+ * Solo vale para medidas que se pueden volver a agregar ({@link AggregateFunction#isReaggregable()}):
+ * sumas, conteos, mínimos y máximos. Medias, distintos, percentiles y medidas calculadas necesitan las
+ * filas originales. Los filtros deben coincidir exactamente: filtrar en memoria no respetaría la
+ * intercalación del motor (mayúsculas, espacios finales).
+ * <p>
+ * Agrupar en memoria tampoco la respeta: las filas se agrupan con {@code equals}, así que si el resultado
+ * guardado tiene {@code 'EMEA'} y {@code 'emea'} en productos distintos, subir a (Region) da dos filas donde
+ * SQL Server, que por defecto no distingue mayúsculas ni espacios finales, daría una. Solo es exacto sobre
+ * motores que agrupan por igualdad binaria, como el cubo en memoria.
+ */
+final class ResultSubsumption {
+
+    private ResultSubsumption() {
+    }
+
+    /**
+     * Indica si la consulta se puede obtener volviendo a agregar otro resultado: todas sus medidas se
+     * pueden volver a agregar y devuelve todas sus filas, sin subtotales ni página.
+     */
+    static boolean isDerivable(CubeQuery query) {
+        return !query.hasGroupingSets()
+            && query.getPage().isEmpty()
+            && query.getCalculatedMeasures().isEmpty()
+            && query.getAggregates().stream().allMatch(aggregate -> aggregate.getFunction().isReaggregable());
+    }
+
+    /**
+     * Indica si el resultado de la consulta puede contener el de otras: sin subtotales ni página.
+     */
+    static boolean isSource(CubeQuery cached) {
+        return !cached.hasGroupingSets() && cached.getPage().isEmpty();
+    }
+
+    /**
+     * Indica si el resultado de {@code cached} contiene el de {@code requested}: mismos filtros y
+     * exclusión, todas sus dimensiones y todas sus medidas, sin subtotales ni página.
+     */
+    static boolean subsumes(CubeQuery cached, CubeQuery requested) {
+        return isSource(cached)
+            && cached.getFilters().equals(requested.getFilters())
+            && cached.getExclusion().equals(requested.getExclusion())
+            && cached.getDimensions().containsAll(requested.getDimensions())
+            && cached.getMeasures().containsAll(requested.getMeasures());
+    }
+
+    /**
+     * Vuelve a agregar las filas de {@code cached} por las dimensiones de {@code requested}. Las columnas
+     * se leen por posición, así que no importa cómo las haya nombrado el motor. Con la misma consulta en
+     * los dos lados combina las filas de sus particiones ({@link PartitionedOlapQueryPort}).
+     */
+    static AggregationResponse rollUp(CubeQuery cached, AggregationResponse response, CubeQuery requested) {
+        List<String> cachedColumns = cached.getColumns();
+        List<Aggregate> aggregates = requested.getAggregates();
+        int dimensionCount = requested.getDimensions().size();
+        int[] positions = new int[dimensionCount + aggregates.size()];
+        for (int i = 0; i < dimensionCount; i++) {
+            positions[i] = cachedColumns.indexOf(requested.getDimensions().get(i));
+        }
+        for (int m = 0; m < aggregates.size(); m++) {
+            positions[dimensionCount + m] = cachedColumns.indexOf(aggregates.get(m).alias());
+        }
+
+        Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+        for (AggregationRow row : response.getRows()) {
+            Object[] key = new Object[dimensionCount];
+            for (int i = 0; i < dimensionCount; i++) {
+                key[i] = row.getValueAt(positions[i]);
+            }
+            Object[] values = groups.computeIfAbsent(Arrays.asList(key), k -> withKey(key, positions.length));
+            for (int m = 0; m < aggregates.size(); m++) {
+                int column = dimensionCount + m;
+                AggregateFunction function = aggregates.get(m).getFunction();
+                values[column] = AggregateValues.combine(function, values[column], row.getValueAt(positions[column]));
+            }
+        }
+        if (groups.isEmpty() && dimensionCount == 0) {
+            groups.put(List.of(), emptyTotals(aggregates));
+        }
+
+        RowSchema schema = RowSchema.of(requested.getColumns());
+        return new AggregationResponse(groups.values().stream()
+            .map(values -> new AggregationRow(schema, values))
+            .toList());
+    }
+
+    private static Object[] withKey(Object[] key, int width) {
+        Object[] values = new Object[width];
+        System.arraycopy(key, 0, values, 0, key.length);
+        return values;
+    }
+
+    /**
+     * Total general de un resultado sin filas, como lo devuelve SQL: los conteos valen 0 y el resto nulo.
+     */
+    private static Object[] emptyTotals(List<Aggregate> aggregates) {
+        Object[] values = new Object[aggregates.size()];
+        for (int m = 0; m < aggregates.size(); m++) {
+            values[m] = aggregates.get(m).getFunction() == AggregateFunction.COUNT ? 0L : null;
+        }
+        return values;
+    }
+}
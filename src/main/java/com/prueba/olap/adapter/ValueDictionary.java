@@ -0,0 +1,31 @@
+package com.prueba.olap.adapter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Diccionario de valores de texto por resultado: las filas que repiten el mismo valor
+ * de dimensión comparten una única instancia en lugar de una cadena por fila.
+ * Deja de añadir entradas al alcanzar su capacidad para acotar la memoria en columnas
+ * de alta cardinalidad.
+ */
+final class ValueDictionary {
+
+    private static final int MAX_ENTRIES = 65_536;
+
+    private final Map<String, String> entries = new HashMap<>();
+
+    Object encode(Object value) {
+        if (!(value instanceof String text)) {
+            return value;
+        }
+        String shared = entries.get(text);
+        if (shared != null) {
+            return shared;
+        }
+        if (entries.size() < MAX_ENTRIES) {
+            entries.put(text, text);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,227 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lector en streaming (StAX) de un cellset XMLA (formato Multidimensional).
+ * Lee los ejes una sola vez: las tuplas de {@code Axis0} dan las columnas de medidas y las de
+ * {@code Axis1} las filas, con una columna por jerarquía. Después recorre {@code CellData} en
+ * orden de {@code CellOrdinal} y reconstruye cada fila a partir de su tupla y sus celdas;
+ * las celdas vacías, que el servidor omite, quedan a null.
+ */
+final class XmlaCellsetReader implements XmlaResultReader {
+
+    private static final String AXIS = "Axis";
+    private static final String SLICER_AXIS = "SlicerAxis";
+    private static final String CELL_DATA = "CellData";
+    private static final String DEFAULT_VALUE_COLUMN = "Value";
+
+    private final InputStream input;
+    private final XMLStreamReader reader;
+    private final ValueDictionary dictionary = new ValueDictionary();
+    private final List<String> measureColumns = new ArrayList<>();
+    private final List<String> dimensionColumns = new ArrayList<>();
+    private final List<Object[]> rowTuples = new ArrayList<>();
+    private RowSchema schema;
+    private boolean hasRowAxis;
+    private int nextRow;
+    private boolean cellsExhausted;
+    private int pendingOrdinal = -1;
+    private Object pendingValue;
+
+    XmlaCellsetReader(InputStream input) {
+        this.input = input;
+        try {
+            this.reader = XmlaValues.INPUT_FACTORY.createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error parseando respuesta XMLA: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public AggregationRow next() {
+        try {
+            if (schema == null) {
+                readAxes();
+            }
+            int rowCount = hasRowAxis ? rowTuples.size() : 1;
+            return nextRow < rowCount ? readRow(nextRow++) : null;
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error parseando respuesta XMLA: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+            input.close();
+        } catch (XMLStreamException | IOException e) {
+            throw new RuntimeException("Error cerrando la respuesta XMLA", e);
+        }
+    }
+
+    /**
+     * Lee los ejes hasta el comienzo de {@code CellData} y fija el esquema de las filas.
+     */
+    private void readAxes() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String name = reader.getLocalName();
+            if (XmlaValues.isFault(name)) {
+                throw new RuntimeException("Error devuelto por el servidor XMLA: " + XmlaValues.readFault(reader));
+            }
+            if (CELL_DATA.equals(name)) {
+                break;
+            }
+            if (AXIS.equals(name)) {
+                readAxis(reader.getAttributeValue(null, "name"));
+            }
+        }
+        if (measureColumns.isEmpty()) {
+            measureColumns.add(DEFAULT_VALUE_COLUMN);
+        }
+        List<String> columns = new ArrayList<>(dimensionColumns);
+        columns.addAll(measureColumns);
+        schema = RowSchema.of(columns);
+    }
+
+    private void readAxis(String axisName) throws XMLStreamException {
+        if (SLICER_AXIS.equals(axisName)) {
+            skipElement();
+            return;
+        }
+        boolean columnAxis = "Axis0".equals(axisName);
+        if (!columnAxis && !"Axis1".equals(axisName)) {
+            throw new IllegalArgumentException("Solo se admiten cellsets de dos ejes, recibido: " + axisName);
+        }
+        hasRowAxis |= !columnAxis;
+        List<Object> captions = new ArrayList<>();
+        List<String> hierarchies = new ArrayList<>();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                onAxisElement(captions, hierarchies);
+            } else if (event == XMLStreamConstants.END_ELEMENT && "Tuple".equals(reader.getLocalName())) {
+                addTuple(columnAxis, captions, hierarchies);
+                captions.clear();
+            } else if (event == XMLStreamConstants.END_ELEMENT && AXIS.equals(reader.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    private void onAxisElement(List<Object> captions, List<String> hierarchies) throws XMLStreamException {
+        String name = reader.getLocalName();
+        if ("Member".equals(name)) {
+            hierarchies.add(reader.getAttributeValue(null, "Hierarchy"));
+        } else if ("Caption".equals(name)) {
+            captions.add(dictionary.encode(reader.getElementText()));
+        }
+    }
+
+    private void addTuple(boolean columnAxis, List<Object> captions, List<String> hierarchies) {
+        if (columnAxis) {
+            measureColumns.add(String.join(".", captions.stream().map(String::valueOf).toList()));
+            return;
+        }
+        if (rowTuples.isEmpty()) {
+            dimensionColumns.addAll(columnNames(hierarchies));
+        }
+        rowTuples.add(captions.toArray());
+    }
+
+    /**
+     * Nombre de columna de cada jerarquía: el atributo ({@code [Region].[Region]} → {@code Region}),
+     * o la jerarquía completa si dos atributos se llaman igual.
+     */
+    private static List<String> columnNames(List<String> hierarchies) {
+        List<String> names = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String hierarchy : hierarchies) {
+            String attribute = hierarchy.substring(hierarchy.lastIndexOf('.') + 1).replace("[", "").replace("]", "");
+            names.add(seen.add(attribute) ? attribute : hierarchy);
+        }
+        return names;
+    }
+
+    private AggregationRow readRow(int row) throws XMLStreamException {
+        int dimensions = dimensionColumns.size();
+        int measures = measureColumns.size();
+        Object[] values = new Object[dimensions + measures];
+        if (hasRowAxis) {
+            System.arraycopy(rowTuples.get(row), 0, values, 0, Math.min(dimensions, rowTuples.get(row).length));
+        }
+        int first = row * measures;
+        while (true) {
+            if (pendingOrdinal < 0 && !cellsExhausted) {
+                readNextCell();
+            }
+            if (pendingOrdinal < 0 || pendingOrdinal >= first + measures) {
+                return new AggregationRow(schema, values);
+            }
+            if (pendingOrdinal >= first) {
+                values[dimensions + pendingOrdinal - first] = pendingValue;
+            }
+            pendingOrdinal = -1;
+        }
+    }
+
+    /**
+     * Lee la siguiente celda con valor; al terminar {@code CellData} marca las celdas como agotadas.
+     */
+    private void readNextCell() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "Cell".equals(reader.getLocalName())) {
+                pendingOrdinal = Integer.parseInt(reader.getAttributeValue(null, "CellOrdinal"));
+                pendingValue = readCellValue();
+                return;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT && CELL_DATA.equals(reader.getLocalName())) {
+                break;
+            }
+        }
+        cellsExhausted = true;
+    }
+
+    private Object readCellValue() throws XMLStreamException {
+        Object value = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("Value".equals(reader.getLocalName())) {
+                String type = XmlaValues.localType(
+                    reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type"));
+                value = XmlaValues.convert(reader.getElementText(), type, dictionary);
+            } else {
+                skipElement();
+            }
+        }
+        return value;
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
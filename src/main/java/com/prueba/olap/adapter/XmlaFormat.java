@@ -0,0 +1,35 @@
+package com.prueba.olap.adapter;
+
+/**
+ * Formato de resultado que se pide al servidor XMLA.
+ * {@code TABULAR} devuelve un rowset plano; {@code MULTIDIMENSIONAL} un cellset con los ejes
+ * una sola vez y las celdas aparte, mucho más compacto en consultas MDX anchas.
+ */
+public enum XmlaFormat {
+    TABULAR("Tabular"),
+    MULTIDIMENSIONAL("Multidimensional");
+
+    private final String value;
+
+    XmlaFormat(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static XmlaFormat fromString(String format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Formato no puede ser nulo");
+        }
+
+        for (XmlaFormat xmlaFormat : values()) {
+            if (xmlaFormat.value.equalsIgnoreCase(format)) {
+                return xmlaFormat;
+            }
+        }
+
+        throw new IllegalArgumentException("Formato XMLA no soportado: " + format);
+    }
+}
@@ -0,0 +1,197 @@
+package com.prueba.olap.adapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cliente HTTP compartido para un endpoint XMLA. Un único {@link HttpClient} por adaptador
+ * reutiliza las conexiones (keep-alive, HTTP/2 cuando el servidor lo negocia), pide la
+ * respuesta comprimida con gzip/deflate y autentica con Basic si hay credenciales.
+ */
+public class XmlaHttpClient {
+
+    private static final String SOAP_ACTION = "urn:schemas-microsoft-com:xml-analysis:Execute";
+    private static final String CONTENT_TYPE = "text/xml; charset=utf-8";
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final Settings settings;
+    private final String authorization;
+
+    public XmlaHttpClient(String endpointUrl, Credentials credentials, Settings settings) {
+        validateParameters(endpointUrl, settings);
+        this.endpoint = URI.create(endpointUrl);
+        this.settings = settings;
+        this.authorization = credentials != null ? credentials.basicAuthorization() : null;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(settings.connectTimeout())
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    /**
+     * Envía el sobre SOAP y devuelve el cuerpo de la respuesta ya descomprimido.
+     * Quien lo recibe debe cerrarlo.
+     */
+    public InputStream execute(String envelope) {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(
+                buildRequest(envelope), HttpResponse.BodyHandlers.ofInputStream());
+            InputStream body = decode(response.headers(), response.body());
+            if (!isSoapResponse(response.statusCode())) {
+                body.close();
+                throw unexpectedStatus(response.statusCode());
+            }
+            return body;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error de comunicación con el endpoint XMLA: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Consulta XMLA interrumpida", e);
+        }
+    }
+
+    /**
+     * Variante asíncrona de {@link #execute(String)}: ningún hilo espera al servidor. El cuerpo
+     * (aún comprimido) se acumula con un {@link HttpResponse.BodySubscriber} en el selector del
+     * cliente y se entrega como un stream en memoria que se descomprime al leerlo.
+     */
+    public CompletableFuture<InputStream> executeAsync(String envelope) {
+        return httpClient.sendAsync(buildRequest(envelope), XmlaHttpClient::bufferedBody)
+            .thenApply(response -> {
+                if (!isSoapResponse(response.statusCode())) {
+                    throw unexpectedStatus(response.statusCode());
+                }
+                return response.body();
+            });
+    }
+
+    HttpRequest buildRequest(String envelope) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+            .timeout(settings.requestTimeout())
+            .header("Content-Type", CONTENT_TYPE)
+            .header("SOAPAction", SOAP_ACTION)
+            .header("Accept-Encoding", GZIP + ", " + DEFLATE);
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        byte[] body = envelope.getBytes(StandardCharsets.UTF_8);
+        if (settings.compressRequest()) {
+            builder.header("Content-Encoding", GZIP);
+            body = gzip(body);
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    static InputStream decode(HttpHeaders headers, InputStream body) throws IOException {
+        String encoding = headers.firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case GZIP -> new GZIPInputStream(body);
+            case DEFLATE -> new InflaterInputStream(body);
+            default -> body;
+        };
+    }
+
+    private static HttpResponse.BodySubscriber<InputStream> bufferedBody(HttpResponse.ResponseInfo info) {
+        if (!isSoapResponse(info.statusCode())) {
+            return HttpResponse.BodySubscribers.replacing(null);
+        }
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+            try {
+                return decode(info.headers(), new ByteArrayInputStream(bytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Respuesta XMLA comprimida inválida: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Los SOAP Fault llegan con estado 500 y se tratan al leer el cuerpo.
+     */
+    private static boolean isSoapResponse(int statusCode) {
+        return statusCode < 300 || statusCode == 500;
+    }
+
+    private static RuntimeException unexpectedStatus(int statusCode) {
+        return new RuntimeException("El endpoint XMLA respondió con estado HTTP " + statusCode);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error comprimiendo la petición XMLA", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void validateParameters(String endpointUrl, Settings settings) {
+        if (endpointUrl == null || endpointUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("Endpoint URL no puede ser nulo o vacío");
+        }
+        if (settings == null) {
+            throw new IllegalArgumentException("Configuración del cliente XMLA no puede ser nula");
+        }
+    }
+
+    /**
+     * Credenciales de acceso al endpoint XMLA; sin usuario no se envía autenticación.
+     */
+    public record Credentials(String username, String password) {
+
+        String basicAuthorization() {
+            if (username == null || username.isBlank()) {
+                return null;
+            }
+            String token = username + ":" + (password != null ? password : "");
+            return "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String toString() {
+            return "Credentials{username='" + username + "'}";
+        }
+    }
+
+    /**
+     * Tiempos de espera y compresión de la petición.
+     */
+    public record Settings(Duration connectTimeout, Duration requestTimeout, boolean compressRequest) {
+
+        public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(20);
+        public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+        public Settings {
+            if (connectTimeout == null || connectTimeout.isNegative() || connectTimeout.isZero()) {
+                throw new IllegalArgumentException("El connect-timeout debe ser positivo");
+            }
+            if (requestTimeout == null || requestTimeout.isNegative() || requestTimeout.isZero()) {
+                throw new IllegalArgumentException("El request-timeout debe ser positivo");
+            }
+        }
+
+        public static Settings defaults() {
+            return new Settings(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, false);
+        }
+    }
+}
@@ -1,72 +1,170 @@
 package com.prueba.olap.adapter;
 
+import com.prueba.olap.domain.entity.Query;
 import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.QueryMetrics;
 import com.prueba.olap.service.dto.AggregationResponse;
 import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.StringReader;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-
 /**
  * Adaptador XMLA que envía consultas MDX envueltas en SOAP a un endpoint XMLA.
  * Implementa el patrón Adapter de arquitectura hexagonal.
  * - Espera consultas MDX con prefijo "MDX:" 
- * - Usa solo APIs del JDK (HttpClient, DOM)
+ * - Usa solo APIs del JDK (HttpClient, StAX)
+ * - Comparte un único {@link XmlaHttpClient} por adaptador
+ * - Lee la respuesta en streaming, sin cargarla entera en memoria, en formato tabular
+ *   ({@link XmlaRowsetReader}) o multidimensional ({@link XmlaCellsetReader})
+ * - Como {@link ReactiveOlapQueryPort} no bloquea ningún hilo mientras espera al servidor
+ * - Mide por separado la espera al servidor ({@value #FETCH_STAGE}) y el parseo ({@value #PARSE_STAGE})
  */
-public class XmlaOlapAdapter implements OlapQueryPort {
+public class XmlaOlapAdapter implements OlapQueryPort, ReactiveOlapQueryPort {
+
+    public static final String FETCH_STAGE = "xmla.fetch";
+    public static final String PARSE_STAGE = "xmla.parse";
 
     private static final String MDX_PREFIX = "MDX:";
-    private static final int TIMEOUT_SECONDS = 20;
-    private static final String SOAP_ACTION = "urn:schemas-microsoft-com:xml-analysis:Execute";
     
-    private final Function<String, String> fetcher;
+    private final Function<String, InputStream> fetcher;
+    private final Function<String, CompletableFuture<InputStream>> asyncFetcher;
     private final String catalog;
+    private final XmlaFormat format;
+    private final QueryMetrics metrics;
 
     public XmlaOlapAdapter(String endpointUrl, String catalog, String username, String password) {
-        validateParameters(endpointUrl, catalog);
+        this(new XmlaHttpClient(endpointUrl, new XmlaHttpClient.Credentials(username, password),
+            XmlaHttpClient.Settings.defaults()), catalog);
+    }
+
+    public XmlaOlapAdapter(XmlaHttpClient httpClient, String catalog) {
+        this(httpClient, catalog, XmlaFormat.TABULAR);
+    }
+
+    public XmlaOlapAdapter(XmlaHttpClient httpClient, String catalog, XmlaFormat format) {
+        this(httpClient, catalog, format, QueryMetrics.disabled());
+    }
+
+    /**
+     * @param metrics Métricas de la aplicación; las etapas se etiquetan con el catálogo y el adaptador {@code xmla}
+     */
+    public XmlaOlapAdapter(XmlaHttpClient httpClient, String catalog, XmlaFormat format, QueryMetrics metrics) {
+        validateParameters(httpClient, catalog, metrics);
         this.catalog = catalog;
-        this.fetcher = this.createHttpFetcher(endpointUrl);
+        this.format = format != null ? format : XmlaFormat.TABULAR;
+        this.fetcher = httpClient::execute;
+        this.asyncFetcher = httpClient::executeAsync;
+        this.metrics = metrics.withTags(catalog, "xmla");
     }
 
     // Constructor para tests
     public XmlaOlapAdapter(Function<String, String> fetcher, String catalog) {
-        this.fetcher = fetcher;
+        this(fetcher, catalog, XmlaFormat.TABULAR);
+    }
+
+    // Constructor para tests
+    public XmlaOlapAdapter(Function<String, String> fetcher, String catalog, XmlaFormat format) {
+        this.fetcher = envelope -> toStream(fetcher.apply(envelope));
+        this.asyncFetcher = envelope -> CompletableFuture.completedFuture(this.fetcher.apply(envelope));
         this.catalog = catalog;
+        this.format = format;
+        this.metrics = QueryMetrics.disabled().withTags(catalog, "xmla");
     }
 
     @Override
     public AggregationResponse query(String query, Map<String, Object> params) {
+        return execute(query, QueryMetrics.RAW_SHAPE);
+    }
+
+    @Override
+    public AggregationResponse query(Query query) {
+        return execute(query.getStatement(), QueryMetrics.shapeOf(query));
+    }
+
+    /**
+     * En el camino bloqueante el fetch termina al recibir las cabeceras: el cuerpo se sigue
+     * descargando mientras se parsea y ese tiempo cuenta como parseo.
+     */
+    private AggregationResponse execute(String query, String shape) {
         validateQuery(query);
         String mdx = extractMdxQuery(query);
         String envelope = buildEnvelope(mdx);
-        String xml = fetcher.apply(envelope);
-        return parseXmlaResponse(xml);
+        InputStream body = metrics.time(FETCH_STAGE, shape, () -> fetcher.apply(envelope));
+        return metrics.time(PARSE_STAGE, shape, () -> parseXmlaResponse(body));
+    }
+
+    /**
+     * Emite las filas según se leen del cuerpo de la respuesta; la conexión se libera
+     * al completar, fallar o cancelar el flujo.
+     */
+    @Override
+    public Flux<AggregationRow> stream(String query, Map<String, Object> params) {
+        validateQuery(query);
+        String envelope = buildEnvelope(extractMdxQuery(query));
+        return Flux.defer(() -> {
+            InputStream body = metrics.time(FETCH_STAGE, QueryMetrics.RAW_SHAPE, () -> fetcher.apply(envelope));
+            if (body == null) {
+                return Flux.empty();
+            }
+            return metrics.time(PARSE_STAGE, QueryMetrics.RAW_SHAPE, readRows(body));
+        });
+    }
+
+    /**
+     * Camino no bloqueante: la petición se envía con {@code sendAsync} y el cuerpo llega por el
+     * selector del cliente HTTP; solo el parseo, que es trabajo de CPU sobre datos ya recibidos,
+     * ocupa un hilo del scheduler paralelo. Cancelar el flujo aborta la petición en curso.
+     */
+    @Override
+    public Flux<AggregationRow> stream(Query query) {
+        validateQuery(query.getStatement());
+        String envelope = buildEnvelope(extractMdxQuery(query.getStatement()));
+        String shape = QueryMetrics.shapeOf(query);
+        return metrics.time(FETCH_STAGE, shape, Mono.fromFuture(() -> asyncFetcher.apply(envelope)))
+            .publishOn(Schedulers.parallel())
+            .flatMapMany(body -> metrics.time(PARSE_STAGE, shape, readRows(body)))
+            .onErrorMap(IOException.class, e -> new UncheckedIOException(
+                "Error de comunicación con el endpoint XMLA: " + e.getMessage(), e));
+    }
+
+    private Flux<AggregationRow> readRows(InputStream body) {
+        return Flux.generate(() -> openReader(body), this::emitNextRow, XmlaResultReader::close);
+    }
+
+    private XmlaResultReader emitNextRow(XmlaResultReader reader, SynchronousSink<AggregationRow> sink) {
+        AggregationRow row = reader.next();
+        if (row != null) {
+            sink.next(row);
+        } else {
+            sink.complete();
+        }
+        return reader;
     }
     
-    private void validateParameters(String endpointUrl, String catalog) {
-        if (endpointUrl == null || endpointUrl.trim().isEmpty()) {
-            throw new IllegalArgumentException("Endpoint URL no puede ser nulo o vacío");
+    private void validateParameters(XmlaHttpClient httpClient, String catalog, QueryMetrics metrics) {
+        if (httpClient == null) {
+            throw new IllegalArgumentException("Cliente XMLA no puede ser nulo");
         }
         if (catalog == null || catalog.trim().isEmpty()) {
             throw new IllegalArgumentException("Catalog no puede ser nulo o vacío");
         }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Métricas de consultas no pueden ser nulas");
+        }
     }
     
     private void validateQuery(String query) {
@@ -79,29 +177,6 @@ public class XmlaOlapAdapter implements OlapQueryPort {
         return query.substring(MDX_PREFIX.length()).trim();
     }
     
-    private Function<String, String> createHttpFetcher(String endpointUrl) {
-        return envelope -> {
-            try {
-                HttpClient client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(TIMEOUT_SECONDS))
-                    .build();
-                    
-                HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpointUrl))
-                    .header("Content-Type", "text/xml; charset=utf-8")
-                    .header("SOAPAction", SOAP_ACTION)
-                    .POST(HttpRequest.BodyPublishers.ofString(envelope, StandardCharsets.UTF_8))
-                    .build();
-
-                HttpResponse<String> response = client.send(request, 
-                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-                return response.body();
-            } catch (Exception e) {
-                throw new RuntimeException("Error ejecutando consulta XMLA: " + e.getMessage(), e);
-            }
-        };
-    }
-
     private String buildEnvelope(String mdx) {
         StringBuilder sb = new StringBuilder();
         sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
@@ -117,55 +192,44 @@ public class XmlaOlapAdapter implements OlapQueryPort {
         if (catalog != null && !catalog.isBlank()) {
             sb.append("<Catalog>").append(escapeXml(catalog)).append("</Catalog>\n");
         }
-        sb.append("<Format>Tabular</Format>\n");
+        sb.append("<Format>").append(format.getValue()).append("</Format>\n");
+        if (format == XmlaFormat.MULTIDIMENSIONAL) {
+            sb.append("<AxisFormat>TupleFormat</AxisFormat>\n");
+        }
         sb.append("</PropertyList>\n</Properties>\n");
         sb.append("</Execute>\n</soap:Body>\n</soap:Envelope>");
         return sb.toString();
     }
 
-    private AggregationResponse parseXmlaResponse(String xml) {
-        if (xml == null || xml.isBlank()) {
+    /**
+     * Convierte la respuesta XMLA en filas leyendo en streaming.
+     * Visibilidad de paquete para los benchmarks JMH.
+     */
+    AggregationResponse parseXmlaResponse(InputStream body) {
+        if (body == null) {
             return new AggregationResponse(List.of());
         }
-        
-        try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(false);
-            // Configuración de seguridad para prevenir XXE
-            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            
-            Document doc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
-            NodeList rows = doc.getElementsByTagName("row");
-            
-            List<AggregationRow> list = new ArrayList<>();
-            for (int i = 0; i < rows.getLength(); i++) {
-                Node row = rows.item(i);
-                Map<String, Object> map = parseRowData(row);
-                list.add(new AggregationRow(map));
+        List<AggregationRow> rows = new ArrayList<>();
+        try (XmlaResultReader reader = openReader(body)) {
+            for (AggregationRow row = reader.next(); row != null; row = reader.next()) {
+                rows.add(row);
             }
-            return new AggregationResponse(list);
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException("Error de configuración del parser XML", e);
-        } catch (Exception e) {
-            throw new RuntimeException("Error parseando respuesta XMLA: " + e.getMessage(), e);
         }
+        return new AggregationResponse(rows);
     }
-    
-    private Map<String, Object> parseRowData(Node row) {
-        Map<String, Object> map = new HashMap<>();
-        NodeList children = row.getChildNodes();
-        
-        for (int j = 0; j < children.getLength(); j++) {
-            Node node = children.item(j);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                String key = node.getNodeName();
-                String value = node.getTextContent();
-                map.put(key, value);
-            }
+
+    private XmlaResultReader openReader(InputStream body) {
+        if (format == XmlaFormat.MULTIDIMENSIONAL) {
+            return new XmlaCellsetReader(body);
+        }
+        return new XmlaRowsetReader(body);
+    }
+
+    private static InputStream toStream(String xml) {
+        if (xml == null || xml.isBlank()) {
+            return null;
         }
-        return map;
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
     }
 
     private static String escapeXml(String input) {
@@ -0,0 +1,19 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.service.dto.AggregationRow;
+
+/**
+ * Lector incremental de una respuesta XMLA, sea cual sea su formato.
+ */
+interface XmlaResultReader extends AutoCloseable {
+
+    /**
+     * Avanza hasta la siguiente fila.
+     *
+     * @return la fila leída o {@code null} al final del resultado
+     */
+    AggregationRow next();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,138 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector en streaming (StAX) de un rowset XMLA tabular. Lee directamente del cuerpo de la
+ * respuesta y devuelve las filas de una en una, de modo que la memoria no crece con el tamaño
+ * de la respuesta. Los valores se convierten según los tipos XSD declarados en el esquema del
+ * rowset (o en {@code xsi:type} de cada celda); sin tipo se conservan como texto.
+ */
+final class XmlaRowsetReader implements XmlaResultReader {
+
+    private static final String ROW = "row";
+    private static final String SCHEMA = "schema";
+    private static final String ELEMENT = "element";
+
+    private final InputStream input;
+    private final XMLStreamReader reader;
+    private final ValueDictionary dictionary = new ValueDictionary();
+    private final Map<String, String> declaredTypes = new LinkedHashMap<>();
+    private RowSchema declaredSchema;
+    private RowSchema previousSchema = RowSchema.empty();
+
+    XmlaRowsetReader(InputStream input) {
+        this.input = input;
+        try {
+            this.reader = XmlaValues.INPUT_FACTORY.createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error parseando respuesta XMLA: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public AggregationRow next() {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    AggregationRow row = onStartElement();
+                    if (row != null) {
+                        return row;
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error parseando respuesta XMLA: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+            input.close();
+        } catch (XMLStreamException | IOException e) {
+            throw new RuntimeException("Error cerrando la respuesta XMLA", e);
+        }
+    }
+
+    private AggregationRow onStartElement() throws XMLStreamException {
+        String name = reader.getLocalName();
+        if (ROW.equals(name)) {
+            return readRow();
+        }
+        if (SCHEMA.equals(name) && XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(reader.getNamespaceURI())) {
+            readSchema();
+        } else if (XmlaValues.isFault(name)) {
+            throw new RuntimeException("Error devuelto por el servidor XMLA: " + XmlaValues.readFault(reader));
+        }
+        return null;
+    }
+
+    /**
+     * Recoge nombre y tipo de cada columna declarada en el esquema XSD del rowset.
+     */
+    private void readSchema() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String column = reader.getAttributeValue(null, "name");
+                if (ELEMENT.equals(reader.getLocalName()) && column != null) {
+                    declaredTypes.put(column, XmlaValues.localType(reader.getAttributeValue(null, "type")));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        if (!declaredTypes.isEmpty()) {
+            declaredSchema = RowSchema.of(List.copyOf(declaredTypes.keySet()));
+        }
+    }
+
+    private AggregationRow readRow() throws XMLStreamException {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String column = reader.getLocalName();
+            String cellType = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type");
+            boolean nil = "true".equals(
+                reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil"));
+            String text = reader.getElementText();
+            String type = cellType != null ? XmlaValues.localType(cellType) : declaredTypes.get(column);
+            columns.add(column);
+            values.add(nil ? null : XmlaValues.convert(text, type, dictionary));
+        }
+        return toRow(columns, values);
+    }
+
+    /**
+     * Con esquema declarado todas las filas comparten sus columnas (las celdas omitidas quedan a null);
+     * sin él se reutiliza el esquema de la fila anterior mientras coincida.
+     */
+    private AggregationRow toRow(List<String> columns, List<Object> values) {
+        if (declaredSchema != null && columns.stream().allMatch(declaredTypes::containsKey)) {
+            Object[] row = new Object[declaredSchema.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                row[declaredSchema.indexOf(columns.get(i))] = values.get(i);
+            }
+            return new AggregationRow(declaredSchema, row);
+        }
+        previousSchema = previousSchema.matches(columns) ? previousSchema : RowSchema.of(columns);
+        return new AggregationRow(previousSchema, values.toArray());
+    }
+}
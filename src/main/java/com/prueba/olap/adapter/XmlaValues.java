@@ -0,0 +1,88 @@
+package com.prueba.olap.adapter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.math.BigDecimal;
+
+/**
+ * Utilidades comunes a los lectores de respuestas XMLA: factoría StAX segura,
+ * conversión de valores según su tipo XSD y lectura de errores SOAP/XMLA.
+ */
+final class XmlaValues {
+
+    static final XMLInputFactory INPUT_FACTORY = createFactory();
+
+    private XmlaValues() {
+    }
+
+    /**
+     * Convierte el texto de una celda según su tipo XSD (sin prefijo); sin tipo o si no
+     * es numérico se conserva como texto compartido por el diccionario.
+     */
+    static Object convert(String text, String type, ValueDictionary dictionary) {
+        if (type == null) {
+            return dictionary.encode(text);
+        }
+        try {
+            return switch (type) {
+                case "double", "float" -> Double.valueOf(text);
+                case "decimal" -> new BigDecimal(text);
+                case "int", "short", "byte", "unsignedByte", "unsignedShort" -> Integer.valueOf(text);
+                case "long", "integer", "unsignedInt" -> Long.valueOf(text);
+                case "boolean" -> Boolean.valueOf(text);
+                default -> dictionary.encode(text);
+            };
+        } catch (NumberFormatException e) {
+            return dictionary.encode(text);
+        }
+    }
+
+    static String localType(String qualifiedType) {
+        if (qualifiedType == null) {
+            return null;
+        }
+        int separator = qualifiedType.indexOf(':');
+        return separator >= 0 ? qualifiedType.substring(separator + 1) : qualifiedType;
+    }
+
+    /**
+     * Mensaje de un {@code soap:Fault} o de un elemento {@code Error} de XMLA
+     * situado en el elemento actual del lector.
+     */
+    static String readFault(XMLStreamReader reader) throws XMLStreamException {
+        String description = reader.getAttributeValue(null, "Description");
+        if (description != null) {
+            return description;
+        }
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.CHARACTERS) {
+                text.append(reader.getText().trim()).append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    static boolean isFault(String localName) {
+        return "Fault".equals(localName) || "Error".equals(localName);
+    }
+
+    /**
+     * Factoría sin DTD ni entidades externas para prevenir XXE.
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+}
@@ -1,30 +1,82 @@
 package com.prueba.olap.config;
 
+import com.prueba.olap.adapter.BlockingOlapQueryBridge;
+import com.prueba.olap.adapter.CachingOlapQueryPort;
 import com.prueba.olap.adapter.JdbcOlapAdapter;
+import com.prueba.olap.adapter.MeteredOlapQueryPort;
+import com.prueba.olap.adapter.MeteredReactiveOlapQueryPort;
+import com.prueba.olap.adapter.PartitionedOlapQueryPort;
+import com.prueba.olap.adapter.QueryResultCache;
+import com.prueba.olap.adapter.ReactiveCachingOlapQueryPort;
 import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.QueryMetrics;
+import com.prueba.olap.service.QueryPartitioner;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 /**
  * Configuración de fuentes de datos y adaptadores OLAP.
  * Implementa el patrón de configuración de Spring para inyección de dependencias.
+ * El adaptador concreto se registra como {@value #ADAPTER_BEAN} según {@code app.datasource.mode}
+ * y el puerto principal lo envuelve con los decoradores activos. El puerto reactivo usa el propio
+ * adaptador si es no bloqueante (R2DBC) y, si no, un puente sobre el {@link QueryExecutor}.
+ * <p>
+ * {@link com.prueba.olap.service.OlapService} solo genera SQL, así que en modo {@code xmla} las consultas
+ * siguen por JDBC. {@link com.prueba.olap.adapter.XmlaOlapAdapter} ejecuta MDX y no se registra: ninguna
+ * ruta de la API lo generaría.
  */
 @Configuration
 public class DataSourceConfig {
 
+    public static final String ADAPTER_BEAN = "olapAdapter";
+    public static final String REACTIVE_ADAPTER_BEAN = "reactiveOlapAdapter";
+    static final String MODE_PROPERTY = "app.datasource.mode";
+    static final String JDBC_BACKED_MODES = "'${app.datasource.mode:jdbc}' != 'r2dbc'";
+    static final String JDBC_ADAPTER_MODES =
+        "'${app.datasource.mode:jdbc}' == 'jdbc' or '${app.datasource.mode:jdbc}' == 'xmla'";
+
     private static final String DEFAULT_CUBE_VIEW = "vw_olap_cube";
     private static final String URL_PROPERTY = "app.datasource.url";
     private static final String USERNAME_PROPERTY = "app.datasource.username";
     private static final String PASSWORD_PROPERTY = "app.datasource.password";
     private static final String DRIVER_PROPERTY = "app.datasource.driver-class-name";
     private static final String CUBE_VIEW_PROPERTY = "app.datasource.name";
+    private static final String JFR_PROPERTY = "app.observability.jfr";
+    private static final String DEFAULT_MODE = "jdbc";
+    private static final String FETCH_SIZE_PROPERTY = "app.datasource.fetch-size";
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final String POOL_PREFIX = "app.datasource.pool.";
+    private static final String POOL_NAME = "olap-pool";
+    private static final int DEFAULT_POOL_MIN_IDLE = 2;
+    private static final int DEFAULT_POOL_MAX_SIZE = 10;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 250;
+    private static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_VALIDATION_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration DEFAULT_MAX_LIFETIME = Duration.ofMinutes(30);
+    private static final Duration DEFAULT_LEAK_DETECTION = Duration.ZERO;
 
+    /**
+     * Pool de conexiones Hikari. El pool arranca de forma perezosa con la primera consulta
+     * y Spring Boot publica sus métricas (espera, activas, pendientes) como {@code hikaricp.*}.
+     * No se crea en modo R2DBC, que no usa JDBC.
+     */
     @Bean
+    @ConditionalOnExpression(JDBC_BACKED_MODES)
     public DataSource olapDataSource(Environment environment) {
         validateEnvironment(environment);
         
@@ -33,32 +85,104 @@ public class DataSourceConfig {
         String password = getRequiredProperty(environment, PASSWORD_PROPERTY);
         String driver = environment.getProperty(DRIVER_PROPERTY);
 
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        HikariDataSource dataSource = new HikariDataSource();
         
         if (driver != null && !driver.trim().isEmpty()) {
             dataSource.setDriverClassName(driver);
         }
         
-        dataSource.setUrl(url);
+        dataSource.setJdbcUrl(url);
         dataSource.setUsername(username);
         dataSource.setPassword(password);
+        configurePool(dataSource, environment);
+        configureStatementCache(dataSource, environment);
         
         return dataSource;
     }
 
     @Bean
-    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource) {
+    @ConditionalOnExpression(JDBC_BACKED_MODES)
+    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource, Environment environment) {
         validateDataSource(dataSource);
-        return new NamedParameterJdbcTemplate(dataSource);
+        validateEnvironment(environment);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(getFetchSize(environment));
+        return new NamedParameterJdbcTemplate(jdbcTemplate);
     }
 
+    /**
+     * Métricas por etapa de las consultas sobre el registro de Spring Boot, etiquetadas con la vista del
+     * cubo y el adaptador de las consultas agregadas ({@code jdbc} también en modo XMLA).
+     * {@code app.observability.jfr} activa además los eventos de Java Flight Recorder.
+     */
     @Bean
-    public OlapQueryPort olapQueryPort(NamedParameterJdbcTemplate jdbcTemplate, Environment environment) {
+    public QueryMetrics queryMetrics(MeterRegistry meterRegistry, Environment environment) {
+        validateEnvironment(environment);
+
+        String mode = environment.getProperty(MODE_PROPERTY, DEFAULT_MODE).trim();
+        String adapter = "xmla".equals(mode) ? DEFAULT_MODE : mode;
+        return new QueryMetrics(meterRegistry, getCubeViewName(environment), adapter)
+            .withFlightRecorder(environment.getProperty(JFR_PROPERTY, Boolean.class, false));
+    }
+
+    @Bean(name = ADAPTER_BEAN)
+    @ConditionalOnExpression(JDBC_ADAPTER_MODES)
+    public OlapQueryPort jdbcOlapAdapter(NamedParameterJdbcTemplate jdbcTemplate, QueryMetrics queryMetrics,
+                                         Environment environment) {
         validateJdbcTemplate(jdbcTemplate);
         validateEnvironment(environment);
         
+        return new JdbcOlapAdapter(jdbcTemplate, getCubeViewName(environment), queryMetrics);
+    }
+
+    @Bean
+    @Primary
+    public OlapQueryPort olapQueryPort(@Qualifier(ADAPTER_BEAN) OlapQueryPort adapter, QueryMetrics queryMetrics,
+                                       Environment environment, ObjectProvider<QueryResultCache> resultCache) {
+        validateEnvironment(environment);
+        
         String cubeViewName = getCubeViewName(environment);
-        return new JdbcOlapAdapter(jdbcTemplate, cubeViewName);
+        OlapQueryPort metered = new MeteredOlapQueryPort(adapter, queryMetrics);
+        return decorateWithCache(metered, cubeViewName, resultCache.getIfAvailable());
+    }
+    
+    /**
+     * Con un {@link QueryPartitioner} configurado, las consultas se dividen en particiones sobre el adaptador,
+     * por debajo de las métricas y la caché, que ven la consulta completa.
+     */
+    @Bean(name = REACTIVE_ADAPTER_BEAN)
+    public ReactiveOlapQueryPort reactiveOlapAdapter(@Qualifier(ADAPTER_BEAN) OlapQueryPort adapter,
+                                                     QueryExecutor queryExecutor,
+                                                     ObjectProvider<QueryPartitioner> queryPartitioner) {
+        ReactiveOlapQueryPort reactive = adapter instanceof ReactiveOlapQueryPort reactiveAdapter
+            ? reactiveAdapter
+            : new BlockingOlapQueryBridge(adapter, queryExecutor);
+        QueryPartitioner partitioner = queryPartitioner.getIfAvailable();
+        return partitioner != null ? new PartitionedOlapQueryPort(reactive, partitioner) : reactive;
+    }
+
+    @Bean
+    @Primary
+    public ReactiveOlapQueryPort reactiveOlapQueryPort(@Qualifier(REACTIVE_ADAPTER_BEAN) ReactiveOlapQueryPort adapter,
+                                                       QueryMetrics queryMetrics, QueryExecutor queryExecutor,
+                                                       Environment environment,
+                                                       ObjectProvider<QueryResultCache> resultCache) {
+        validateEnvironment(environment);
+
+        ReactiveOlapQueryPort metered = new MeteredReactiveOlapQueryPort(adapter, queryMetrics);
+        QueryResultCache cache = resultCache.getIfAvailable();
+        if (cache == null) {
+            return metered;
+        }
+        return new ReactiveCachingOlapQueryPort(metered, getCubeViewName(environment), cache, queryExecutor);
+    }
+
+    private OlapQueryPort decorateWithCache(OlapQueryPort adapter, String cubeName, QueryResultCache cache) {
+        if (cache == null) {
+            return adapter;
+        }
+        return new CachingOlapQueryPort(adapter, cubeName, cache);
     }
     
     private void validateEnvironment(Environment environment) {
@@ -88,7 +212,7 @@ public class DataSourceConfig {
         return value;
     }
     
-    private String getCubeViewName(Environment environment) {
+    static String getCubeViewName(Environment environment) {
         String cubeView = environment.getProperty(CUBE_VIEW_PROPERTY);
         
         if (cubeView == null || cubeView.trim().isEmpty()) {
@@ -97,4 +221,55 @@ public class DataSourceConfig {
         
         return cubeView.trim();
     }
+
+    static int getFetchSize(Environment environment) {
+        int fetchSize = environment.getProperty(FETCH_SIZE_PROPERTY, Integer.class, DEFAULT_FETCH_SIZE);
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El fetch-size debe ser mayor que cero: " + fetchSize);
+        }
+        return fetchSize;
+    }
+
+    private void configurePool(HikariDataSource dataSource, Environment environment) {
+        dataSource.setPoolName(POOL_NAME);
+        dataSource.setMinimumIdle(getInt(environment, "min-idle", DEFAULT_POOL_MIN_IDLE));
+        dataSource.setMaximumPoolSize(getInt(environment, "max-size", DEFAULT_POOL_MAX_SIZE));
+        dataSource.setConnectionTimeout(getDuration(environment, "connection-timeout", DEFAULT_CONNECTION_TIMEOUT));
+        dataSource.setValidationTimeout(getDuration(environment, "validation-timeout", DEFAULT_VALIDATION_TIMEOUT));
+        dataSource.setIdleTimeout(getDuration(environment, "idle-timeout", DEFAULT_IDLE_TIMEOUT));
+        dataSource.setMaxLifetime(getDuration(environment, "max-lifetime", DEFAULT_MAX_LIFETIME));
+        dataSource.setLeakDetectionThreshold(getDuration(environment, "leak-detection-threshold", DEFAULT_LEAK_DETECTION));
+
+        String testQuery = environment.getProperty(POOL_PREFIX + "connection-test-query");
+        if (testQuery != null && !testQuery.isBlank()) {
+            dataSource.setConnectionTestQuery(testQuery);
+        }
+    }
+
+    /**
+     * Activa la caché de sentencias preparadas del driver. Hikari no cachea sentencias,
+     * así que se delega en las propiedades propias de cada driver soportado.
+     */
+    private void configureStatementCache(HikariDataSource dataSource, Environment environment) {
+        int cacheSize = getInt(environment, "statement-cache-size", DEFAULT_STATEMENT_CACHE_SIZE);
+        String url = dataSource.getJdbcUrl();
+
+        if (cacheSize <= 0) {
+            return;
+        }
+        if (url.startsWith("jdbc:sqlserver:")) {
+            dataSource.addDataSourceProperty("disableStatementPooling", "false");
+            dataSource.addDataSourceProperty("statementPoolingCacheSize", String.valueOf(cacheSize));
+        } else if (url.startsWith("jdbc:h2:")) {
+            dataSource.addDataSourceProperty("QUERY_CACHE_SIZE", String.valueOf(cacheSize));
+        }
+    }
+
+    private int getInt(Environment environment, String name, int defaultValue) {
+        return environment.getProperty(POOL_PREFIX + name, Integer.class, defaultValue);
+    }
+
+    private long getDuration(Environment environment, String name, Duration defaultValue) {
+        return environment.getProperty(POOL_PREFIX + name, Duration.class, defaultValue).toMillis();
+    }
 }
\ No newline at end of file
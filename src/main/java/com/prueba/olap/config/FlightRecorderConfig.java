@@ -0,0 +1,28 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.service.QueryStageEvent;
+import jdk.jfr.FlightRecorder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra el tipo de evento JFR de las etapas de consulta ({@link QueryStageEvent}) con
+ * {@code app.observability.jfr=true}, que también activa su emisión en la {@code QueryMetrics} de la
+ * aplicación ({@link DataSourceConfig#queryMetrics}). Se registra al arrancar para que aparezca
+ * en las grabaciones aunque aún no haya consultas; los eventos solo se escriben si hay una grabación
+ * en curso con el evento habilitado (lo está por defecto).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.observability.jfr", havingValue = "true")
+public class FlightRecorderConfig implements DisposableBean {
+
+    public FlightRecorderConfig() {
+        FlightRecorder.register(QueryStageEvent.class);
+    }
+
+    @Override
+    public void destroy() {
+        FlightRecorder.unregister(QueryStageEvent.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.adapter.ColumnarCube;
+import com.prueba.olap.adapter.InMemoryCubeAdapter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuración del motor de cubo columnar en memoria ({@code app.datasource.mode=memory}).
+ * El cubo se carga desde la vista al arrancar y se recarga con la periodicidad configurada.
+ */
+@Configuration
+@ConditionalOnProperty(name = DataSourceConfig.MODE_PROPERTY, havingValue = "memory")
+public class InMemoryCubeConfig {
+
+    private static final String DIMENSIONS_PROPERTY = "app.datasource.memory.dimensions";
+    private static final String MEASURES_PROPERTY = "app.datasource.memory.measures";
+    private static final String RELOAD_INTERVAL_PROPERTY = "app.datasource.memory.reload-interval";
+    private static final String PARALLELISM_PROPERTY = "app.datasource.memory.parallelism";
+    private static final Duration DEFAULT_RELOAD_INTERVAL = Duration.ofMinutes(15);
+
+    @Bean(name = DataSourceConfig.ADAPTER_BEAN)
+    public InMemoryCubeAdapter inMemoryCubeAdapter(NamedParameterJdbcTemplate jdbcTemplate, Environment environment) {
+        validateEnvironment(environment);
+
+        ColumnarCube.CubeSchema schema = new ColumnarCube.CubeSchema(
+            getRequiredList(environment, DIMENSIONS_PROPERTY), getRequiredList(environment, MEASURES_PROPERTY));
+        int parallelism = environment.getProperty(
+            PARALLELISM_PROPERTY, Integer.class, Runtime.getRuntime().availableProcessors());
+        String cubeViewName = DataSourceConfig.getCubeViewName(environment);
+
+        InMemoryCubeAdapter adapter = new InMemoryCubeAdapter(
+            InMemoryCubeAdapter.jdbcLoader(jdbcTemplate, cubeViewName, schema), parallelism);
+        adapter.reload();
+        adapter.scheduleReloads(
+            environment.getProperty(RELOAD_INTERVAL_PROPERTY, Duration.class, DEFAULT_RELOAD_INTERVAL));
+        return adapter;
+    }
+
+    private List<String> getRequiredList(Environment environment, String propertyName) {
+        String value = environment.getProperty(propertyName);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Propiedad requerida no encontrada: " + propertyName);
+        }
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(column -> !column.isEmpty())
+            .toList();
+    }
+
+    private void validateEnvironment(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Environment no puede ser nulo");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.domain.entity.CalculatedMeasure;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.AggregateSyntax;
+import com.prueba.olap.service.GroupingSetsSyntax;
+import com.prueba.olap.service.LimitSyntax;
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryBatchPlanner;
+import com.prueba.olap.service.QueryMetrics;
+import com.prueba.olap.service.RollupCatalog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Configuración del servicio de aplicación OLAP.
+ * {@code app.sql.grouping-sets} elige cómo se generan los subtotales: {@code native} (GROUPING SETS)
+ * o {@code union-all} para motores que no lo soportan, como H2; {@code app.sql.limit-syntax} cómo se
+ * limitan las páginas: {@code offset-fetch} (SQL Server) o {@code limit} (H2); {@code app.sql.aggregates}
+ * cómo se escriben los percentiles y las funciones aproximadas: {@code sqlserver} o {@code standard} (H2).
+ * {@code app.calculated-measures[i]} define medidas calculadas con el formato {@code nombre = expresión}.
+ */
+@Configuration
+public class OlapServiceConfig {
+
+    private static final String ALLOWED_COLUMNS_PROPERTY = "app.allowed-columns";
+    private static final String GROUPING_SETS_PROPERTY = "app.sql.grouping-sets";
+    private static final String LIMIT_SYNTAX_PROPERTY = "app.sql.limit-syntax";
+    private static final String AGGREGATE_SYNTAX_PROPERTY = "app.sql.aggregates";
+    private static final String CALCULATED_MEASURES_PREFIX = "app.calculated-measures";
+
+    @Bean
+    public OlapService olapService(OlapQueryPort queryPort, QueryMetrics queryMetrics, Environment environment,
+                                   ObjectProvider<RollupCatalog> rollupCatalog) {
+        validateEnvironment(environment);
+        Set<String> allowedColumns = parseAllowedColumns(environment.getProperty(ALLOWED_COLUMNS_PROPERTY));
+        return new OlapService(queryPort, allowedColumns, rollupCatalog.getIfAvailable())
+            .withMetrics(queryMetrics)
+            .withGroupingSetsSyntax(GroupingSetsSyntax.fromString(
+                environment.getProperty(GROUPING_SETS_PROPERTY, GroupingSetsSyntax.NATIVE.getValue())))
+            .withLimitSyntax(LimitSyntax.fromString(
+                environment.getProperty(LIMIT_SYNTAX_PROPERTY, LimitSyntax.OFFSET_FETCH.getValue())))
+            .withAggregateSyntax(AggregateSyntax.fromString(
+                environment.getProperty(AGGREGATE_SYNTAX_PROPERTY, AggregateSyntax.SQLSERVER.getValue())))
+            .withCalculatedMeasures(readCalculatedMeasures(environment));
+    }
+
+    @Bean
+    public QueryBatchPlanner queryBatchPlanner(OlapService olapService) {
+        return new QueryBatchPlanner(olapService);
+    }
+
+    private void validateEnvironment(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Environment no puede ser nulo");
+        }
+    }
+
+    private List<CalculatedMeasure> readCalculatedMeasures(Environment environment) {
+        List<CalculatedMeasure> measures = new ArrayList<>();
+        for (int i = 0; environment.containsProperty(CALCULATED_MEASURES_PREFIX + "[" + i + "]"); i++) {
+            measures.add(CalculatedMeasure.parse(environment.getProperty(CALCULATED_MEASURES_PREFIX + "[" + i + "]")));
+        }
+        return measures;
+    }
+
+    private Set<String> parseAllowedColumns(String property) {
+        if (property == null || property.isBlank()) {
+            return Set.of();
+        }
+
+        return Arrays.stream(property.split(","))
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
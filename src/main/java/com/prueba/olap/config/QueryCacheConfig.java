@@ -0,0 +1,84 @@
+package com.prueba.olap.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.prueba.olap.adapter.QueryResultCache;
+import com.prueba.olap.service.dto.AggregationResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuración de la caché de resultados que decora el puerto OLAP.
+ * Se activa con {@code app.cache.enabled=true}; el peso de las entradas se mide
+ * en filas o en bytes estimados ({@code app.cache.weigher}) y {@code app.cache.subsumption} permite
+ * responder una consulta volviendo a agregar un resultado guardado más detallado. La subsunción agrupa en
+ * Java, no con la intercalación del motor, así que por defecto solo se activa con el cubo en memoria.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cache.enabled", havingValue = "true")
+public class QueryCacheConfig {
+
+    private static final String TTL_PROPERTY = "app.cache.ttl";
+    private static final String MAX_WEIGHT_PROPERTY = "app.cache.max-weight";
+    private static final String WEIGHER_PROPERTY = "app.cache.weigher";
+    private static final String SUBSUMPTION_PROPERTY = "app.cache.subsumption";
+    private static final String MEMORY_MODE = "memory";
+    private static final String CACHE_NAME = "olap.query.results";
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    private static final long DEFAULT_MAX_WEIGHT = 1_000_000L;
+    private static final String ROWS_WEIGHER = "rows";
+    private static final String BYTES_WEIGHER = "bytes";
+
+    @Bean
+    public QueryResultCache queryResultCache(Environment environment) {
+        validateEnvironment(environment);
+
+        Duration ttl = environment.getProperty(TTL_PROPERTY, Duration.class, DEFAULT_TTL);
+        Caffeine<QueryResultCache.Key, AggregationResponse> builder = Caffeine.newBuilder()
+            .expireAfter(QueryResultCache.expireAfterWrite(ttl))
+            .maximumWeight(environment.getProperty(MAX_WEIGHT_PROPERTY, Long.class, DEFAULT_MAX_WEIGHT))
+            .weigher(getWeigher(environment))
+            .recordStats();
+        boolean memoryMode = MEMORY_MODE.equals(environment.getProperty(DataSourceConfig.MODE_PROPERTY, "").trim());
+        return new QueryResultCache(builder, environment.getProperty(SUBSUMPTION_PROPERTY, Boolean.class, memoryMode));
+    }
+
+    /**
+     * Publica aciertos, fallos, expulsiones y peso expulsado como {@code cache.*{cache=olap.query.results}}.
+     * Las consultas derivadas de otro resultado cuentan como fallos en {@code cache.gets}; se publican
+     * aparte como {@code olap.cache.derived}.
+     */
+    @Bean
+    public MeterBinder queryResultCacheMetrics(QueryResultCache queryResultCache) {
+        return registry -> {
+            new CaffeineCacheMetrics<>(queryResultCache.getStore(), CACHE_NAME, List.of()).bindTo(registry);
+            FunctionCounter.builder("olap.cache.derived", queryResultCache, QueryResultCache::getDerivedHitCount)
+                .description("Consultas respondidas volviendo a agregar un resultado guardado más detallado")
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        };
+    }
+
+    private Weigher<QueryResultCache.Key, AggregationResponse> getWeigher(Environment environment) {
+        String weigher = environment.getProperty(WEIGHER_PROPERTY, ROWS_WEIGHER).trim();
+        return switch (weigher) {
+            case ROWS_WEIGHER -> QueryResultCache.rowWeigher();
+            case BYTES_WEIGHER -> QueryResultCache.byteWeigher();
+            default -> throw new IllegalArgumentException("Tipo de peso de caché no soportado: " + weigher);
+        };
+    }
+
+    private void validateEnvironment(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Environment no puede ser nulo");
+        }
+    }
+}
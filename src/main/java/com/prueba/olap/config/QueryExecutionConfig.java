@@ -0,0 +1,105 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryCoalescer;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.QueryPartitioner;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuración del modelo de ejecución de las consultas contra los puertos OLAP.
+ * Permite elegir entre un pool elástico acotado o un hilo virtual por consulta y, con
+ * {@code app.execution.partitioning.column}, dividir cada consulta en particiones que se ejecutan en paralelo.
+ */
+@Configuration
+public class QueryExecutionConfig {
+
+    private static final String MODE_PROPERTY = "app.execution.mode";
+    private static final String MAX_CONCURRENCY_PROPERTY = "app.execution.max-concurrency";
+    private static final String QUEUE_CAPACITY_PROPERTY = "app.execution.queue-capacity";
+    private static final String BOUNDED_ELASTIC_MODE = "bounded-elastic";
+    private static final String VIRTUAL_THREADS_MODE = "virtual-threads";
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+    private static final int DEFAULT_QUEUE_CAPACITY = 100;
+    private static final String PARTITION_COLUMN_PROPERTY = "app.execution.partitioning.column";
+    private static final String PARTITION_PARALLELISM_PROPERTY = "app.execution.partitioning.parallelism";
+    private static final String PARTITION_MERGE_PROPERTY = "app.execution.partitioning.merge";
+    private static final int DEFAULT_PARTITION_PARALLELISM = 4;
+
+    @Bean
+    public QueryExecutor queryExecutor(Environment environment) {
+        validateEnvironment(environment);
+
+        String mode = environment.getProperty(MODE_PROPERTY, BOUNDED_ELASTIC_MODE).trim();
+        int maxConcurrency = environment.getProperty(MAX_CONCURRENCY_PROPERTY, Integer.class, DEFAULT_MAX_CONCURRENCY);
+        int queueCapacity = environment.getProperty(QUEUE_CAPACITY_PROPERTY, Integer.class, DEFAULT_QUEUE_CAPACITY);
+
+        return switch (mode) {
+            case BOUNDED_ELASTIC_MODE -> QueryExecutor.boundedElastic(maxConcurrency, queueCapacity);
+            case VIRTUAL_THREADS_MODE -> QueryExecutor.virtualThreads(maxConcurrency, queueCapacity);
+            default -> throw new IllegalArgumentException("Modo de ejecución no soportado: " + mode);
+        };
+    }
+
+    @Bean
+    public MeterBinder queryExecutorMetrics(QueryExecutor queryExecutor) {
+        return registry -> {
+            Gauge.builder("olap.executor.queue.depth", queryExecutor, QueryExecutor::getQueueDepth)
+                .description("Consultas admitidas a la espera de un hilo")
+                .register(registry);
+            Gauge.builder("olap.executor.active", queryExecutor, QueryExecutor::getActiveCount)
+                .description("Consultas ejecutándose contra el puerto OLAP")
+                .register(registry);
+            FunctionCounter.builder("olap.executor.rejected", queryExecutor, QueryExecutor::getRejectedCount)
+                .description("Consultas rechazadas por saturación")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Sin {@code app.execution.partitioning.merge} solo se particionan las consultas que agrupan por la
+     * columna; volver a agregar en memoria no respeta la intercalación del motor ({@link QueryPartitioner}).
+     */
+    @Bean
+    @ConditionalOnProperty(name = PARTITION_COLUMN_PROPERTY)
+    public QueryPartitioner queryPartitioner(OlapService olapService, Environment environment) {
+        validateEnvironment(environment);
+
+        int parallelism = environment.getProperty(
+            PARTITION_PARALLELISM_PROPERTY, Integer.class, DEFAULT_PARTITION_PARALLELISM);
+        return new QueryPartitioner(olapService, environment.getProperty(PARTITION_COLUMN_PROPERTY), parallelism)
+            .withMerge(environment.getProperty(PARTITION_MERGE_PROPERTY, Boolean.class, false));
+    }
+
+    @Bean
+    public QueryCoalescer queryCoalescer() {
+        return new QueryCoalescer();
+    }
+
+    @Bean
+    public MeterBinder queryCoalescerMetrics(QueryCoalescer queryCoalescer) {
+        return registry -> {
+            FunctionCounter.builder("olap.queries.coalesced", queryCoalescer, QueryCoalescer::getCoalescedCount)
+                .description("Llamadas al backend ahorradas al unirse a una consulta idéntica en curso")
+                .register(registry);
+            FunctionCounter.builder("olap.queries.executed", queryCoalescer, QueryCoalescer::getExecutedCount)
+                .description("Consultas agregadas enviadas al backend")
+                .register(registry);
+            Gauge.builder("olap.queries.inflight", queryCoalescer, QueryCoalescer::getInFlightCount)
+                .description("Consultas distintas en curso")
+                .register(registry);
+        };
+    }
+
+    private void validateEnvironment(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Environment no puede ser nulo");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.adapter.R2dbcOlapAdapter;
+import com.prueba.olap.port.OlapQueryPort;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Configuración del adaptador R2DBC ({@code app.datasource.mode=r2dbc}).
+ * La URL R2DBC elige el driver ({@code r2dbc:h2:} o {@code r2dbc:mssql:}); usuario, contraseña,
+ * vista del cubo y fetch-size se comparten con la configuración JDBC.
+ */
+@Configuration
+@ConditionalOnProperty(name = DataSourceConfig.MODE_PROPERTY, havingValue = "r2dbc")
+public class R2dbcConfig {
+
+    private static final String R2DBC_PREFIX = "app.datasource.r2dbc.";
+    private static final String USERNAME_PROPERTY = "app.datasource.username";
+    private static final String PASSWORD_PROPERTY = "app.datasource.password";
+    private static final String POOL_NAME = "olap-r2dbc-pool";
+    private static final int DEFAULT_POOL_INITIAL_SIZE = 2;
+    private static final int DEFAULT_POOL_MAX_SIZE = 10;
+    private static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofMinutes(10);
+    private static final Duration DEFAULT_MAX_LIFE_TIME = Duration.ofMinutes(30);
+    private static final Duration DEFAULT_MAX_ACQUIRE_TIME = Duration.ofSeconds(30);
+
+    /**
+     * Pool reactivo de conexiones: las peticiones que esperan una conexión no ocupan hilos.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool olapConnectionFactory(Environment environment) {
+        validateEnvironment(environment);
+
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(getRequiredProperty(environment, "url"))
+            .mutate()
+            .option(ConnectionFactoryOptions.USER, environment.getProperty(USERNAME_PROPERTY, ""))
+            .option(ConnectionFactoryOptions.PASSWORD, environment.getProperty(PASSWORD_PROPERTY, ""))
+            .build();
+        return new ConnectionPool(buildPoolConfiguration(ConnectionFactories.get(options), environment));
+    }
+
+    @Bean(name = DataSourceConfig.ADAPTER_BEAN)
+    public OlapQueryPort r2dbcOlapAdapter(ConnectionFactory connectionFactory, Environment environment) {
+        validateEnvironment(environment);
+
+        return new R2dbcOlapAdapter(DatabaseClient.create(connectionFactory),
+            DataSourceConfig.getCubeViewName(environment), DataSourceConfig.getFetchSize(environment));
+    }
+
+    private ConnectionPoolConfiguration buildPoolConfiguration(ConnectionFactory factory, Environment environment) {
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(factory)
+            .name(POOL_NAME)
+            .initialSize(environment.getProperty(R2DBC_PREFIX + "pool.initial-size", Integer.class, DEFAULT_POOL_INITIAL_SIZE))
+            .maxSize(environment.getProperty(R2DBC_PREFIX + "pool.max-size", Integer.class, DEFAULT_POOL_MAX_SIZE))
+            .maxIdleTime(getDuration(environment, "pool.max-idle-time", DEFAULT_MAX_IDLE_TIME))
+            .maxLifeTime(getDuration(environment, "pool.max-life-time", DEFAULT_MAX_LIFE_TIME))
+            .maxAcquireTime(getDuration(environment, "pool.max-acquire-time", DEFAULT_MAX_ACQUIRE_TIME));
+
+        String validationQuery = environment.getProperty(R2DBC_PREFIX + "pool.validation-query");
+        if (validationQuery != null && !validationQuery.isBlank()) {
+            builder.validationQuery(validationQuery);
+        }
+        return builder.build();
+    }
+
+    private Duration getDuration(Environment environment, String name, Duration defaultValue) {
+        return environment.getProperty(R2DBC_PREFIX + name, Duration.class, defaultValue);
+    }
+
+    private String getRequiredProperty(Environment environment, String name) {
+        String value = environment.getProperty(R2DBC_PREFIX + name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Propiedad requerida no encontrada: " + R2DBC_PREFIX + name);
+        }
+        return value;
+    }
+
+    private void validateEnvironment(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Environment no puede ser nulo");
+        }
+    }
+}
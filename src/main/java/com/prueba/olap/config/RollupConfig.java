@@ -0,0 +1,76 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.adapter.JdbcRollupStore;
+import com.prueba.olap.domain.entity.Rollup;
+import com.prueba.olap.service.RollupCatalog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuración de las tablas de preagregación (rollups) sobre la vista del cubo.
+ * Cada definición se lee de {@code app.rollups.definitions[i]} con su tabla, dimensiones y medidas.
+ */
+@Configuration
+@ConditionalOnExpression("${app.rollups.enabled:false} and '${app.datasource.mode:jdbc}' == 'jdbc'")
+public class RollupConfig {
+
+    private static final String DEFINITION_PREFIX = "app.rollups.definitions";
+    private static final String REFRESH_INTERVAL_PROPERTY = "app.rollups.refresh-interval";
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofHours(1);
+
+    @Bean
+    public RollupCatalog rollupCatalog(NamedParameterJdbcTemplate jdbcTemplate, Environment environment) {
+        validateEnvironment(environment);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+            new DataSourceTransactionManager(jdbcTemplate.getJdbcTemplate().getDataSource()));
+        JdbcRollupStore store = new JdbcRollupStore(
+            jdbcTemplate.getJdbcTemplate(), DataSourceConfig.getCubeViewName(environment), transactionTemplate);
+
+        RollupCatalog catalog = new RollupCatalog(readDefinitions(environment), store);
+        catalog.scheduleRefresh(
+            environment.getProperty(REFRESH_INTERVAL_PROPERTY, Duration.class, DEFAULT_REFRESH_INTERVAL));
+        return catalog;
+    }
+
+    private List<Rollup> readDefinitions(Environment environment) {
+        List<Rollup> rollups = new ArrayList<>();
+        for (int i = 0; environment.containsProperty(definitionProperty(i, "table")); i++) {
+            rollups.add(new Rollup(
+                environment.getProperty(definitionProperty(i, "table")),
+                splitColumns(environment.getProperty(definitionProperty(i, "dimensions"))),
+                splitColumns(environment.getProperty(definitionProperty(i, "measures")))));
+        }
+        return rollups;
+    }
+
+    private String definitionProperty(int index, String name) {
+        return DEFINITION_PREFIX + "[" + index + "]." + name;
+    }
+
+    private List<String> splitColumns(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(column -> !column.isEmpty())
+            .toList();
+    }
+
+    private void validateEnvironment(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Environment no puede ser nulo");
+        }
+    }
+}
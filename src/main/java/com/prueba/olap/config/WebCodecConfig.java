@@ -0,0 +1,48 @@
+package com.prueba.olap.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prueba.olap.controller.MeteredJsonEncoder;
+import com.prueba.olap.controller.ServerTimingFilter;
+import com.prueba.olap.service.QueryMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Registra el encoder JSON medido para las respuestas agregadas. Los encoders propios de tipo
+ * concreto se consultan antes que los genéricos, así que el resto de respuestas no cambia.
+ * Con {@code app.observability.server-timing=true} las respuestas de la API OLAP llevan además
+ * la cabecera {@code Server-Timing} con el perfil de la petición.
+ */
+@Configuration
+public class WebCodecConfig implements WebFluxConfigurer {
+
+    private static final String SERVER_TIMING_PROPERTY = "app.observability.server-timing";
+    private static final String OLAP_API_PATH = "/api/olap/";
+
+    private final QueryMetrics queryMetrics;
+    private final ObjectMapper objectMapper;
+
+    public WebCodecConfig(QueryMetrics queryMetrics, ObjectMapper objectMapper) {
+        if (queryMetrics == null || objectMapper == null) {
+            throw new IllegalArgumentException("Métricas de consultas y ObjectMapper no pueden ser nulos");
+        }
+        this.queryMetrics = queryMetrics;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new MeteredJsonEncoder(
+            new Jackson2JsonEncoder(objectMapper), queryMetrics));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SERVER_TIMING_PROPERTY, havingValue = "true")
+    public ServerTimingFilter serverTimingFilter() {
+        return new ServerTimingFilter(OLAP_API_PATH);
+    }
+}
@@ -0,0 +1,177 @@
+package com.prueba.olap.controller;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.BatchPlan;
+import com.prueba.olap.service.BatchScan;
+import com.prueba.olap.service.QueryBatchPlanner;
+import com.prueba.olap.service.QueryCoalescer;
+import com.prueba.olap.service.QueryTrace;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.BatchAggregationRequest;
+import com.prueba.olap.service.dto.BatchAggregationResponse;
+import com.prueba.olap.service.dto.BatchItemResult;
+import com.prueba.olap.service.dto.BatchQueryItem;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Consultas agregadas en lote: {@code POST /api/olap/aggregate/batch} recibe las consultas de una página,
+ * las fusiona en lecturas compartidas con {@link QueryBatchPlanner} y ejecuta esas lecturas en paralelo
+ * por el puerto reactivo, como {@link OlapController}. Cada consulta tiene su propio resultado: un error
+ * afecta solo a las consultas de esa lectura y, si la lectura estaba fusionada, estas se reintentan por
+ * separado antes de darlas por fallidas.
+ */
+@RestController
+@RequestMapping("/api/olap")
+@Tag(name = "OLAP", description = "API para consultas OLAP y análisis de datos")
+public class BatchAggregateController {
+
+    private static final int MAX_PARALLEL_SCANS = 8;
+
+    private final QueryBatchPlanner batchPlanner;
+    private final ReactiveOlapQueryPort queryPort;
+    private final QueryCoalescer queryCoalescer;
+
+    public BatchAggregateController(QueryBatchPlanner batchPlanner, ReactiveOlapQueryPort queryPort,
+                                    QueryCoalescer queryCoalescer) {
+        validateConstructorParameters(batchPlanner, queryPort, queryCoalescer);
+        this.batchPlanner = batchPlanner;
+        this.queryPort = queryPort;
+        this.queryCoalescer = queryCoalescer;
+    }
+
+    @Operation(
+        summary = "Ejecutar un lote de consultas OLAP agregadas",
+        description = "Cada consulta admite dimensions, measures, filters y grouping como GET /aggregate. "
+            + "Las consultas con los mismos filtros comparten lectura; el resultado de cada una lleva su "
+            + "propio código de estado"
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Lote ejecutado; revisar el estado de cada resultado"),
+        @ApiResponse(responseCode = "400", description = "Lote vacío o con demasiadas consultas")
+    })
+    @PostMapping(value = "/aggregate/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BatchAggregationResponse> aggregateBatch(@RequestBody BatchAggregationRequest request) {
+        List<BatchQueryItem> items = request.getQueries();
+        return QueryTrace.traced(() -> batchPlanner.plan(items.stream()
+                .map(item -> item != null ? item.toRequest() : null)
+                .toList()))
+            .flatMap(plan -> new BatchExecution(items, plan).run())
+            .onErrorMap(IllegalArgumentException.class,
+                ex -> new IllegalArgumentException("Parámetros inválidos: " + ex.getMessage()));
+    }
+
+    private Mono<AggregationResponse> aggregate(Query query) {
+        return queryCoalescer.execute(query, () -> queryPort.aggregate(query));
+    }
+
+    /**
+     * Mismo código y mensaje que {@link OlapExceptionHandler} daría a la consulta por separado.
+     */
+    private static BatchItemResult failure(String id, Throwable error) {
+        if (error instanceof IllegalArgumentException) {
+            return BatchItemResult.failure(id, HttpStatus.BAD_REQUEST.value(),
+                "Parámetros inválidos", error.getMessage());
+        }
+        if (error instanceof RejectedExecutionException) {
+            return BatchItemResult.failure(id, HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Servicio saturado", error.getMessage());
+        }
+        return BatchItemResult.failure(id, HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            "Error interno del servidor", "Error procesando consulta OLAP: " + error.getMessage());
+    }
+
+    private void validateConstructorParameters(QueryBatchPlanner planner, ReactiveOlapQueryPort port,
+                                               QueryCoalescer coalescer) {
+        if (planner == null) {
+            throw new IllegalArgumentException("Planificador de lotes no puede ser nulo");
+        }
+        if (port == null) {
+            throw new IllegalArgumentException("Puerto reactivo de consultas no puede ser nulo");
+        }
+        if (coalescer == null) {
+            throw new IllegalArgumentException("Coalescedor de consultas no puede ser nulo");
+        }
+    }
+
+    /**
+     * Estado de un lote en ejecución: cada lectura rellena las posiciones de sus miembros.
+     */
+    private final class BatchExecution {
+
+        private final List<BatchQueryItem> items;
+        private final BatchPlan plan;
+        private final AtomicReferenceArray<BatchItemResult> results;
+
+        private BatchExecution(List<BatchQueryItem> items, BatchPlan plan) {
+            this.items = items;
+            this.plan = plan;
+            this.results = new AtomicReferenceArray<>(items.size());
+        }
+
+        private Mono<BatchAggregationResponse> run() {
+            plan.getFailures().forEach((index, error) -> results.set(index, failure(idOf(index), error)));
+            return Flux.fromIterable(plan.getScans())
+                .flatMap(this::execute, MAX_PARALLEL_SCANS)
+                .then(Mono.fromSupplier(this::response));
+        }
+
+        private Mono<Void> execute(BatchScan scan) {
+            return aggregate(scan.getQuery())
+                .doOnNext(response -> scan.getMembers().forEach(member ->
+                    succeed(member, scan.project(response, member))))
+                .then()
+                .onErrorResume(error -> scan.isMerged() && !(error instanceof RejectedExecutionException)
+                    ? retrySeparately(scan)
+                    : Mono.fromRunnable(() -> scan.getMembers().forEach(member -> fail(member, error))));
+        }
+
+        private Mono<Void> retrySeparately(BatchScan scan) {
+            return Flux.fromIterable(scan.getMembers())
+                .flatMap(member -> aggregate(member.query())
+                    .doOnNext(response -> succeed(member, response))
+                    .then()
+                    .onErrorResume(error -> Mono.fromRunnable(() -> fail(member, error))), MAX_PARALLEL_SCANS)
+                .then();
+        }
+
+        private void succeed(BatchScan.Member member, AggregationResponse response) {
+            results.set(member.index(), BatchItemResult.success(idOf(member.index()), response));
+        }
+
+        private void fail(BatchScan.Member member, Throwable error) {
+            results.set(member.index(), failure(idOf(member.index()), error));
+        }
+
+        private String idOf(int index) {
+            BatchQueryItem item = items.get(index);
+            return item != null ? item.getId() : null;
+        }
+
+        private BatchAggregationResponse response() {
+            List<BatchItemResult> ordered = new ArrayList<>(results.length());
+            for (int i = 0; i < results.length(); i++) {
+                BatchItemResult result = results.get(i);
+                ordered.add(result != null ? result : BatchItemResult.success(idOf(i), new AggregationResponse()));
+            }
+            return new BatchAggregationResponse(ordered, plan.getScans().size());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.prueba.olap.controller;
+
+import com.prueba.olap.adapter.QueryResultCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Endpoints de administración de la caché de resultados OLAP.
+ */
+@RestController
+@RequestMapping("/api/olap/admin/cache")
+@Tag(name = "OLAP Admin", description = "Administración de la caché de resultados")
+public class CacheAdminController {
+
+    private final ObjectProvider<QueryResultCache> resultCache;
+
+    public CacheAdminController(ObjectProvider<QueryResultCache> resultCache) {
+        if (resultCache == null) {
+            throw new IllegalArgumentException("Proveedor de caché no puede ser nulo");
+        }
+        this.resultCache = resultCache;
+    }
+
+    @Operation(summary = "Invalidar la caché de un cubo",
+        description = "Elimina todas las respuestas cacheadas del cubo indicado")
+    @DeleteMapping("/{cube}")
+    public ResponseEntity<Map<String, Object>> invalidateCube(@PathVariable("cube") String cube) {
+        QueryResultCache cache = resultCache.getIfAvailable();
+        if (cache == null) {
+            return cacheDisabled();
+        }
+        long invalidated = cache.invalidateCube(cube);
+        return ResponseEntity.ok(Map.of("cube", cube, "invalidated", invalidated));
+    }
+
+    @Operation(summary = "Vaciar la caché", description = "Elimina todas las respuestas cacheadas")
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> invalidateAll() {
+        QueryResultCache cache = resultCache.getIfAvailable();
+        if (cache == null) {
+            return cacheDisabled();
+        }
+        long invalidated = cache.size();
+        cache.invalidateAll();
+        return ResponseEntity.ok(Map.of("invalidated", invalidated));
+    }
+
+    private ResponseEntity<Map<String, Object>> cacheDisabled() {
+        Map<String, Object> error = Map.of(
+            "error", "Caché deshabilitada",
+            "message", "Active app.cache.enabled para usar la caché de resultados"
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+}
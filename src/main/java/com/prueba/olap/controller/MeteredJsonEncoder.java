@@ -0,0 +1,106 @@
+package com.prueba.olap.controller;
+
+import com.prueba.olap.service.QueryMetrics;
+import com.prueba.olap.service.QueryTrace;
+import com.prueba.olap.service.dto.AggregationResponse;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoder JSON de {@link AggregationResponse} que mide la serialización (etapa {@value #SERIALIZE_STAGE}).
+ * Delega en Jackson; el resto de tipos, incluido el streaming NDJSON (cuya serialización se intercala
+ * con la lectura de filas), siguen usando los encoders por defecto. Las filas y los bytes escritos
+ * se anotan en el {@link QueryTrace} de la petición, si lo hay.
+ */
+public class MeteredJsonEncoder implements HttpMessageEncoder<Object> {
+
+    public static final String SERIALIZE_STAGE = "serialize";
+
+    private final Jackson2JsonEncoder delegate;
+    private final QueryMetrics metrics;
+
+    public MeteredJsonEncoder(Jackson2JsonEncoder delegate, QueryMetrics metrics) {
+        validateParameters(delegate, metrics);
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return AggregationResponse.class.isAssignableFrom(elementType.toClass())
+            && delegate.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.flatMap(value -> QueryTrace.traced(() -> {
+                DataBuffer buffer = encodeValue(value, bufferFactory, elementType, mimeType, hints);
+                QueryTrace.current().ifPresent(trace -> trace.recordOutput(
+                    ((AggregationResponse) value).getRowCount(), buffer.readableByteCount()));
+                return buffer;
+            })).flux();
+        }
+        return delegate.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        return metrics.time(SERIALIZE_STAGE, shapeOf(value),
+            () -> delegate.encodeValue(value, bufferFactory, valueType, mimeType, hints));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return delegate.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes(ResolvableType elementType) {
+        return delegate.getEncodableMimeTypes(elementType);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return delegate.getStreamingMediaTypes();
+    }
+
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType,
+                                              MediaType mediaType, ServerHttpRequest request,
+                                              ServerHttpResponse response) {
+        return delegate.getEncodeHints(actualType, elementType, mediaType, request, response);
+    }
+
+    private static String shapeOf(Object value) {
+        if (value instanceof AggregationResponse response && !response.isEmpty()) {
+            return QueryMetrics.shapeOf(response.getRows().get(0).schema().getColumns());
+        }
+        return QueryMetrics.shapeOf(List.of());
+    }
+
+    private void validateParameters(Encoder<?> delegate, QueryMetrics metrics) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Encoder delegado no puede ser nulo");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Métricas de consultas no pueden ser nulas");
+        }
+    }
+}
@@ -1,42 +1,46 @@
 package com.prueba.olap.controller;
 
-import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
 import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryCoalescer;
+import com.prueba.olap.service.QueryTrace;
 import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.QueryRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.core.env.Environment;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador REST para operaciones OLAP.
  * Expone endpoints para consultas agregadas sobre cubos de datos.
+ * La cadena es reactiva de extremo a extremo: el servicio construye la consulta y el
+ * {@link ReactiveOlapQueryPort} la ejecuta sin bloquear el event loop.
+ * Con {@code explain=true} la petición la atiende {@link QueryExplainController}; los errores
+ * se traducen en {@link OlapExceptionHandler}.
  */
 @RestController
 @RequestMapping("/api/olap")
 @Tag(name = "OLAP", description = "API para consultas OLAP y análisis de datos")
 public class OlapController {
 
-    private static final String ALLOWED_COLUMNS_PROPERTY = "app.allowed-columns";
-    
     private final OlapService olapService;
+    private final ReactiveOlapQueryPort queryPort;
+    private final QueryCoalescer queryCoalescer;
 
-    public OlapController(OlapQueryPort queryPort, Environment environment) {
-        validateConstructorParameters(queryPort, environment);
-        Set<String> allowedColumns = parseAllowedColumns(environment.getProperty(ALLOWED_COLUMNS_PROPERTY));
-        this.olapService = new OlapService(queryPort, allowedColumns);
+    public OlapController(OlapService olapService, ReactiveOlapQueryPort queryPort, QueryCoalescer queryCoalescer) {
+        validateConstructorParameters(olapService, queryPort, queryCoalescer);
+        this.olapService = olapService;
+        this.queryPort = queryPort;
+        this.queryCoalescer = queryCoalescer;
     }
 
     @Operation(
@@ -46,7 +50,8 @@ public class OlapController {
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Consulta ejecutada exitosamente"),
         @ApiResponse(responseCode = "400", description = "Parámetros de consulta inválidos"),
-        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor"),
+        @ApiResponse(responseCode = "503", description = "Capacidad de consultas agotada")
     })
     @GetMapping(value = "/aggregate", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<AggregationResponse> aggregate(
@@ -57,8 +62,9 @@ public class OlapController {
             @RequestParam(name = "dimensions", required = false) String dimensions,
             
             @Parameter(
-                description = "Medidas a agregar, separadas por comas", 
-                example = "Sales,Quantity"
+                description = "Medidas a agregar, separadas por comas; cada una con función opcional "
+                    + "(columna:avg, :min, :max, :count, :distinct, :p95, :approx_distinct, :approx_p95)",
+                example = "Sales,Quantity:p95"
             )
             @RequestParam(name = "measures", required = false) String measures,
             
@@ -66,60 +72,82 @@ public class OlapController {
                 description = "Filtros en formato clave:valor separados por |", 
                 example = "Year:2024|Region:EMEA"
             )
-            @RequestParam(name = "filters", required = false) String filters
+            @RequestParam(name = "filters", required = false) String filters,
+
+            @Parameter(
+                description = "Subtotales en una sola consulta: rollup, cube o conjuntos separados por ; "
+                    + "(() es el total general). Cada fila lleva GROUPING_ID con su nivel",
+                example = "rollup"
+            )
+            @RequestParam(name = "grouping", required = false) String grouping,
+
+            @Parameter(
+                description = "Ordenación: columnas de la respuesta separadas por comas, con :asc o :desc",
+                example = "Sales:desc"
+            )
+            @RequestParam(name = "sort", required = false) String sort,
+
+            @Parameter(description = "Máximo de filas; la respuesta incluye nextCursor si hay más", example = "20")
+            @RequestParam(name = "limit", required = false) Integer limit,
+
+            @Parameter(description = "nextCursor de la página anterior")
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        return Mono.fromCallable(() -> {
+        return QueryTrace.traced(() -> {
             validateQueryParameters(dimensions, measures);
-            String query = olapService.buildQuery(dimensions, measures, filters);
-            return olapService.execute(query);
-        }).onErrorMap(IllegalArgumentException.class, 
+            return olapService.buildQuery(new QueryRequest(dimensions, measures, filters)
+                .withGrouping(grouping)
+                .withPage(sort, limit, cursor));
+        }).flatMap(query -> queryCoalescer.execute(query, () -> queryPort.aggregate(query))
+                .map(response -> olapService.paginate(query, response)))
+          .onErrorMap(IllegalArgumentException.class, 
             ex -> new IllegalArgumentException("Parámetros inválidos: " + ex.getMessage()))
-          .onErrorMap(Exception.class, 
+          .onErrorMap(ex -> !(ex instanceof RejectedExecutionException), 
             ex -> new RuntimeException("Error procesando consulta OLAP: " + ex.getMessage()));
     }
     
-    @ExceptionHandler(IllegalArgumentException.class)
-    public ResponseEntity<Map<String, String>> handleValidationError(IllegalArgumentException e) {
-        Map<String, String> error = Map.of(
-            "error", "Parámetros inválidos",
-            "message", e.getMessage()
-        );
-        return ResponseEntity.badRequest().body(error);
-    }
-    
-    @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<Map<String, String>> handleRuntimeError(RuntimeException e) {
-        Map<String, String> error = Map.of(
-            "error", "Error interno del servidor",
-            "message", e.getMessage()
-        );
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    @Operation(
+        summary = "Ejecutar consulta OLAP agregada en streaming",
+        description = "Emite cada fila como una línea JSON (NDJSON) a medida que se lee del cursor, "
+            + "sin materializar el resultado completo. Se selecciona con Accept: application/x-ndjson"
+    )
+    @GetMapping(value = "/aggregate", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AggregationRow> aggregateStream(
+            @RequestParam(name = "dimensions", required = false) String dimensions,
+            @RequestParam(name = "measures", required = false) String measures,
+            @RequestParam(name = "filters", required = false) String filters,
+            @RequestParam(name = "grouping", required = false) String grouping,
+            @RequestParam(name = "sort", required = false) String sort,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        return QueryTrace.traced(() -> {
+            validateQueryParameters(dimensions, measures);
+            return olapService.buildQuery(new QueryRequest(dimensions, measures, filters)
+                .withGrouping(grouping)
+                .withPage(sort, limit, cursor));
+        }).flatMapMany(queryPort::stream)
+          .onErrorMap(IllegalArgumentException.class,
+            ex -> new IllegalArgumentException("Parámetros inválidos: " + ex.getMessage()));
     }
-    
-    private void validateConstructorParameters(OlapQueryPort port, Environment env) {
+
+    private void validateConstructorParameters(OlapService service, ReactiveOlapQueryPort port,
+                                               QueryCoalescer coalescer) {
+        if (service == null) {
+            throw new IllegalArgumentException("Servicio OLAP no puede ser nulo");
+        }
         if (port == null) {
-            throw new IllegalArgumentException("Puerto de consulta OLAP no puede ser nulo");
+            throw new IllegalArgumentException("Puerto reactivo de consultas no puede ser nulo");
         }
-        if (env == null) {
-            throw new IllegalArgumentException("Environment no puede ser nulo");
+        if (coalescer == null) {
+            throw new IllegalArgumentException("Coalescedor de consultas no puede ser nulo");
         }
     }
     
-    private void validateQueryParameters(String dimensions, String measures) {
+    static void validateQueryParameters(String dimensions, String measures) {
         if ((dimensions == null || dimensions.trim().isEmpty()) && 
             (measures == null || measures.trim().isEmpty())) {
             throw new IllegalArgumentException("Debe especificar al menos dimensiones o medidas");
         }
     }
-
-    private Set<String> parseAllowedColumns(String property) {
-        if (property == null || property.isBlank()) {
-            return Set.of();
-        }
-        
-        return Arrays.stream(property.split(","))
-                .map(String::trim)
-                .filter(column -> !column.isEmpty())
-                .collect(Collectors.toSet());
-    }
 }
\ No newline at end of file
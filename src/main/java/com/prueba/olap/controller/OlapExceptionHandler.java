@@ -0,0 +1,44 @@
+package com.prueba.olap.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Traducción de errores a respuestas HTTP, común a los endpoints de consulta OLAP.
+ */
+@RestControllerAdvice(assignableTypes = {OlapController.class, QueryExplainController.class,
+    BatchAggregateController.class})
+public class OlapExceptionHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleValidationError(IllegalArgumentException e) {
+        Map<String, String> error = Map.of(
+            "error", "Parámetros inválidos",
+            "message", e.getMessage()
+        );
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejectedError(RejectedExecutionException e) {
+        Map<String, String> error = Map.of(
+            "error", "Servicio saturado",
+            "message", e.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> handleRuntimeError(RuntimeException e) {
+        Map<String, String> error = Map.of(
+            "error", "Error interno del servidor",
+            "message", e.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+}
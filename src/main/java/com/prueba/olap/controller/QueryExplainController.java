@@ -0,0 +1,114 @@
+package com.prueba.olap.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.ReactiveOlapQueryPort;
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryTrace;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.QueryExplanation;
+import com.prueba.olap.service.dto.QueryRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Perfil de una consulta bajo demanda: {@code GET /api/olap/aggregate?explain=true} ejecuta la consulta
+ * como lo haría {@link OlapController} (caché, ejecutor, adaptador), serializa la respuesta para medirla
+ * y devuelve el desglose en lugar de los datos. No se agrupa con consultas idénticas en curso, para que
+ * los tiempos correspondan a esta ejecución.
+ */
+@RestController
+@RequestMapping("/api/olap")
+@Tag(name = "OLAP", description = "API para consultas OLAP y análisis de datos")
+public class QueryExplainController {
+
+    private final OlapService olapService;
+    private final ReactiveOlapQueryPort queryPort;
+    private final ObjectMapper objectMapper;
+
+    public QueryExplainController(OlapService olapService, ReactiveOlapQueryPort queryPort,
+                                  ObjectMapper objectMapper) {
+        validateConstructorParameters(olapService, queryPort, objectMapper);
+        this.olapService = olapService;
+        this.queryPort = queryPort;
+        this.objectMapper = objectMapper;
+    }
+
+    @Operation(
+        summary = "Explicar una consulta OLAP agregada",
+        description = "Devuelve la consulta generada, acierto o fallo de caché, espera en cola, ejecución, "
+            + "mapeo y serialización en milisegundos, filas, bytes y el plan estimado del motor (JDBC)"
+    )
+    @GetMapping(value = "/aggregate", params = "explain=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<QueryExplanation> explain(
+            @RequestParam(name = "dimensions", required = false) String dimensions,
+            @RequestParam(name = "measures", required = false) String measures,
+            @RequestParam(name = "filters", required = false) String filters,
+            @RequestParam(name = "grouping", required = false) String grouping,
+            @RequestParam(name = "sort", required = false) String sort,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        return Mono.deferContextual(context -> {
+            QueryTrace trace = QueryTrace.from(context).orElseGet(QueryTrace::new);
+            return QueryTrace.traced(() -> {
+                    OlapController.validateQueryParameters(dimensions, measures);
+                    return olapService.buildQuery(new QueryRequest(dimensions, measures, filters)
+                        .withGrouping(grouping)
+                        .withPage(sort, limit, cursor));
+                })
+                .flatMap(query -> profile(query, trace))
+                .contextWrite(Context.of(QueryTrace.CONTEXT_KEY, trace));
+        }).onErrorMap(IllegalArgumentException.class,
+            ex -> new IllegalArgumentException("Parámetros inválidos: " + ex.getMessage()))
+          .onErrorMap(ex -> !(ex instanceof IllegalArgumentException || ex instanceof RejectedExecutionException),
+            ex -> new RuntimeException("Error explicando consulta OLAP: " + ex.getMessage()));
+    }
+
+    /**
+     * Ejecuta y serializa la consulta y después pide el plan; la petición del plan queda fuera del perfil.
+     */
+    private Mono<QueryExplanation> profile(Query query, QueryTrace trace) {
+        trace.recordQuery(query);
+        return queryPort.aggregate(query)
+            .doOnNext(response -> serialize(response, trace))
+            .then(queryPort.plan(query).contextWrite(context -> context.delete(QueryTrace.CONTEXT_KEY)))
+            .doOnNext(trace::recordPlan)
+            .then(Mono.fromSupplier(() -> QueryExplanation.from(trace)));
+    }
+
+    private void serialize(AggregationResponse response, QueryTrace trace) {
+        long start = System.nanoTime();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando la respuesta: " + e.getMessage(), e);
+        }
+        trace.record(MeteredJsonEncoder.SERIALIZE_STAGE, System.nanoTime() - start);
+        trace.recordOutput(response.getRowCount(), json.length);
+    }
+
+    private void validateConstructorParameters(OlapService service, ReactiveOlapQueryPort port,
+                                               ObjectMapper mapper) {
+        if (service == null) {
+            throw new IllegalArgumentException("Servicio OLAP no puede ser nulo");
+        }
+        if (port == null) {
+            throw new IllegalArgumentException("Puerto reactivo de consultas no puede ser nulo");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("ObjectMapper no puede ser nulo");
+        }
+    }
+}
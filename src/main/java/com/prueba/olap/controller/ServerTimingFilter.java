@@ -0,0 +1,40 @@
+package com.prueba.olap.controller;
+
+import com.prueba.olap.service.QueryTrace;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Abre un {@link QueryTrace} por cada petición a la API OLAP y, al confirmar la respuesta, lo publica
+ * en la cabecera {@value #HEADER} (visible en las herramientas de desarrollo del navegador).
+ * La cabecera se escribe justo antes del primer byte del cuerpo, por lo que en respuestas JSON incluye
+ * la serialización; en streaming NDJSON solo refleja las etapas terminadas hasta la primera fila.
+ */
+public class ServerTimingFilter implements WebFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final String pathPrefix;
+
+    public ServerTimingFilter(String pathPrefix) {
+        if (pathPrefix == null || pathPrefix.isBlank()) {
+            throw new IllegalArgumentException("El prefijo de ruta no puede ser nulo o vacío");
+        }
+        this.pathPrefix = pathPrefix;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().value().startsWith(pathPrefix)) {
+            return chain.filter(exchange);
+        }
+        QueryTrace trace = new QueryTrace();
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> Mono.fromRunnable(
+            () -> response.getHeaders().add(HEADER, trace.toServerTiming())));
+        return chain.filter(exchange).contextWrite(context -> context.put(QueryTrace.CONTEXT_KEY, trace));
+    }
+}
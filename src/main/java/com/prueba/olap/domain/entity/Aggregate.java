@@ -0,0 +1,117 @@
+package com.prueba.olap.domain.entity;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Medida agregada de una consulta: columna, función y, en los percentiles, el percentil (1-99).
+ * Se escribe {@code columna[:función]}: {@code Sales} (suma), {@code Sales:avg}, {@code Quantity:p95},
+ * {@code Product:approx_distinct}... La suma conserva el nombre de la columna en la respuesta; el resto
+ * se llama {@code columna_función} (p. ej. {@code Quantity_p95}).
+ */
+public final class Aggregate {
+
+    private static final String SEPARATOR = ":";
+    private static final String ALIAS_SEPARATOR = "_";
+
+    private final String column;
+    private final AggregateFunction function;
+    private final int percentile;
+
+    private Aggregate(String column, AggregateFunction function, int percentile) {
+        this.column = column;
+        this.function = function;
+        this.percentile = percentile;
+    }
+
+    public static Aggregate sum(String column) {
+        return parse(column);
+    }
+
+    /**
+     * @throws IllegalArgumentException Si la función no existe o el percentil está fuera de 1-99
+     */
+    public static Aggregate parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            throw new IllegalArgumentException("La medida no puede estar vacía");
+        }
+        String[] parts = spec.split(SEPARATOR, 2);
+        String column = parts[0].trim();
+        if (column.isEmpty()) {
+            throw new IllegalArgumentException("Medida sin columna: " + spec);
+        }
+        if (parts.length == 1) {
+            return new Aggregate(column, AggregateFunction.SUM, 0);
+        }
+
+        String function = parts[1].trim().toLowerCase(Locale.ROOT);
+        for (AggregateFunction candidate : AggregateFunction.values()) {
+            if (!candidate.isPercentile() && candidate.getValue().equals(function)) {
+                return new Aggregate(column, candidate, 0);
+            }
+        }
+        AggregateFunction percentileFunction = function.startsWith(AggregateFunction.APPROX_PERCENTILE.getValue())
+            ? AggregateFunction.APPROX_PERCENTILE
+            : AggregateFunction.PERCENTILE;
+        String digits = function.substring(Math.min(function.length(), percentileFunction.getValue().length()));
+        if (function.startsWith(percentileFunction.getValue()) && digits.matches("\\d{1,2}")
+            && Integer.parseInt(digits) >= 1) {
+            return new Aggregate(column, percentileFunction, Integer.parseInt(digits));
+        }
+        throw new IllegalArgumentException("Función de agregación no soportada: " + parts[1].trim());
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * Percentil pedido como fracción (0.95 para {@code p95}); 0 si no es un percentil.
+     */
+    public double getQuantile() {
+        return percentile / 100.0;
+    }
+
+    /**
+     * Forma canónica de la medida, la que guarda {@link CubeQuery#getMeasures()}.
+     */
+    public String spec() {
+        return function == AggregateFunction.SUM ? column : column + SEPARATOR + suffix();
+    }
+
+    /**
+     * Nombre de la columna en la respuesta.
+     */
+    public String alias() {
+        return function == AggregateFunction.SUM ? column : column + ALIAS_SEPARATOR + suffix();
+    }
+
+    private String suffix() {
+        return function.isPercentile() ? function.getValue() + percentile : function.getValue();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        Aggregate that = (Aggregate) obj;
+        return percentile == that.percentile &&
+               column.equals(that.column) &&
+               function == that.function;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, function, percentile);
+    }
+
+    @Override
+    public String toString() {
+        return spec();
+    }
+}
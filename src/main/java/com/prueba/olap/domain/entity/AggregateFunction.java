@@ -0,0 +1,39 @@
+package com.prueba.olap.domain.entity;
+
+/**
+ * Funciones de agregación de una medida. Las aproximadas ({@code approx_*}) se calculan con
+ * resúmenes (sketches) de tamaño acotado que se pueden fusionar entre particiones.
+ */
+public enum AggregateFunction {
+    SUM("sum"),
+    AVG("avg"),
+    MIN("min"),
+    MAX("max"),
+    COUNT("count"),
+    DISTINCT("distinct"),
+    PERCENTILE("p"),
+    APPROX_DISTINCT("approx_distinct"),
+    APPROX_PERCENTILE("approx_p");
+
+    private final String value;
+
+    AggregateFunction(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Indica si el resultado de varios grupos se puede combinar en el de su unión a partir solo de los
+     * resultados (la suma de sumas, el mínimo de mínimos...), como hacen los subtotales.
+     */
+    public boolean isReaggregable() {
+        return this == SUM || this == MIN || this == MAX || this == COUNT;
+    }
+
+    public boolean isPercentile() {
+        return this == PERCENTILE || this == APPROX_PERCENTILE;
+    }
+}
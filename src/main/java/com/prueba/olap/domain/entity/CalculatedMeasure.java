@@ -0,0 +1,356 @@
+package com.prueba.olap.domain.entity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Medida calculada definida en configuración: {@code nombre = expresión}. La expresión combina medidas
+ * agregadas ({@code Sales}, {@code Quantity:avg}...), números, {@code + - * /}, paréntesis y
+ * {@code total(medida)}, el valor de la medida sobre todas las filas del resultado:
+ * {@code AvgPrice = Sales / Quantity}, {@code SalesShare = Sales / total(Sales)}.
+ * <p>
+ * Se evalúa sobre las medidas ya agregadas de cada fila, en la misma consulta; una división entre cero
+ * o un operando nulo dan {@code null}.
+ */
+public final class CalculatedMeasure {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,127}");
+    private static final String DEFINITION_SEPARATOR = "=";
+    private static final String TOTAL = "total";
+
+    private final String name;
+    private final String expression;
+    private final Node root;
+
+    private CalculatedMeasure(String name, String expression, Node root) {
+        this.name = name;
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * @param definition {@code nombre = expresión}
+     * @throws IllegalArgumentException Si el nombre no es un identificador o la expresión no es válida
+     */
+    public static CalculatedMeasure parse(String definition) {
+        if (definition == null || !definition.contains(DEFINITION_SEPARATOR)) {
+            throw new IllegalArgumentException("Medida calculada sin formato nombre = expresión: " + definition);
+        }
+        String[] parts = definition.split(DEFINITION_SEPARATOR, 2);
+        String name = parts[0].trim();
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Nombre de medida calculada no válido: " + name);
+        }
+        String expression = parts[1].trim();
+        return new CalculatedMeasure(name, expression, new Parser(expression).parse());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Medidas agregadas que usa la expresión, con o sin {@code total}, sin repetir.
+     */
+    public List<Aggregate> getAggregates() {
+        Set<Aggregate> aggregates = new LinkedHashSet<>();
+        for (Reference reference : getReferences()) {
+            aggregates.add(reference.aggregate());
+        }
+        return List.copyOf(aggregates);
+    }
+
+    public List<Reference> getReferences() {
+        List<Reference> references = new ArrayList<>();
+        root.collect(references);
+        return references;
+    }
+
+    /**
+     * Expresión SQL equivalente. Cada división multiplica por {@code 1.0}, para no truncar entre enteros,
+     * y protege el divisor con {@code NULLIF(..., 0)}.
+     *
+     * @param reference Expresión SQL de cada referencia a una medida
+     */
+    public String toSql(Function<Reference, String> reference) {
+        return root.toSql(reference);
+    }
+
+    /**
+     * Valor de la expresión con los valores de cada referencia; {@code null} si alguno es nulo o se divide
+     * entre cero.
+     */
+    public Double evaluate(Function<Reference, Object> reference) {
+        return root.evaluate(reference);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        CalculatedMeasure that = (CalculatedMeasure) obj;
+        return name.equals(that.name) && root.equals(that.root);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, root);
+    }
+
+    @Override
+    public String toString() {
+        return name + " = " + expression;
+    }
+
+    /**
+     * Uso de una medida en la expresión: su valor en la fila o, con {@code total}, en todo el resultado.
+     */
+    public record Reference(Aggregate aggregate, boolean total) {
+    }
+
+    private sealed interface Node permits Literal, Measure, Negation, Operation {
+
+        String toSql(Function<Reference, String> reference);
+
+        Double evaluate(Function<Reference, Object> reference);
+
+        void collect(List<Reference> references);
+    }
+
+    private record Literal(BigDecimal value) implements Node {
+
+        @Override
+        public String toSql(Function<Reference, String> reference) {
+            return value.toPlainString();
+        }
+
+        @Override
+        public Double evaluate(Function<Reference, Object> reference) {
+            return value.doubleValue();
+        }
+
+        @Override
+        public void collect(List<Reference> references) {
+        }
+    }
+
+    private record Measure(Reference reference) implements Node {
+
+        @Override
+        public String toSql(Function<Reference, String> sql) {
+            return sql.apply(reference);
+        }
+
+        @Override
+        public Double evaluate(Function<Reference, Object> values) {
+            Object value = values.apply(reference);
+            return value != null ? ((Number) value).doubleValue() : null;
+        }
+
+        @Override
+        public void collect(List<Reference> references) {
+            references.add(reference);
+        }
+    }
+
+    private record Negation(Node operand) implements Node {
+
+        @Override
+        public String toSql(Function<Reference, String> reference) {
+            return "(-" + operand.toSql(reference) + ")";
+        }
+
+        @Override
+        public Double evaluate(Function<Reference, Object> reference) {
+            Double value = operand.evaluate(reference);
+            return value != null ? -value : null;
+        }
+
+        @Override
+        public void collect(List<Reference> references) {
+            operand.collect(references);
+        }
+    }
+
+    private record Operation(char operator, Node left, Node right) implements Node {
+
+        @Override
+        public String toSql(Function<Reference, String> reference) {
+            String leftSql = left.toSql(reference);
+            String rightSql = right.toSql(reference);
+            if (operator == '/') {
+                return "(1.0 * " + leftSql + " / NULLIF(" + rightSql + ", 0))";
+            }
+            return "(" + leftSql + " " + operator + " " + rightSql + ")";
+        }
+
+        @Override
+        public Double evaluate(Function<Reference, Object> reference) {
+            Double leftValue = left.evaluate(reference);
+            Double rightValue = right.evaluate(reference);
+            if (leftValue == null || rightValue == null || (operator == '/' && rightValue == 0)) {
+                return null;
+            }
+            return switch (operator) {
+                case '+' -> leftValue + rightValue;
+                case '-' -> leftValue - rightValue;
+                case '*' -> leftValue * rightValue;
+                default -> leftValue / rightValue;
+            };
+        }
+
+        @Override
+        public void collect(List<Reference> references) {
+            left.collect(references);
+            right.collect(references);
+        }
+    }
+
+    /**
+     * Analizador descendente recursivo:
+     * {@code expr := term (('+'|'-') term)*}, {@code term := factor (('*'|'/') factor)*},
+     * {@code factor := número | '-' factor | '(' expr ')' | total(medida) | medida}.
+     * Las medidas solo pueden usar funciones que se calculan en la misma agregación; {@code total}
+     * solo admite las que se pueden volver a agregar.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parse() {
+            if (text.isEmpty()) {
+                throw new IllegalArgumentException("La expresión de la medida calculada está vacía");
+            }
+            Node node = expression();
+            skipSpaces();
+            if (position < text.length()) {
+                throw error("carácter inesperado '" + text.charAt(position) + "'");
+            }
+            return node;
+        }
+
+        private Node expression() {
+            Node node = term();
+            while (peek('+') || peek('-')) {
+                char operator = text.charAt(position++);
+                node = new Operation(operator, node, term());
+            }
+            return node;
+        }
+
+        private Node term() {
+            Node node = factor();
+            while (peek('*') || peek('/')) {
+                char operator = text.charAt(position++);
+                node = new Operation(operator, node, factor());
+            }
+            return node;
+        }
+
+        private Node factor() {
+            if (peek('-')) {
+                position++;
+                return new Negation(factor());
+            }
+            if (peek('(')) {
+                position++;
+                Node node = expression();
+                expect(')');
+                return node;
+            }
+            if (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                return new Literal(number());
+            }
+            String identifier = identifier();
+            if (TOTAL.equalsIgnoreCase(identifier) && peek('(')) {
+                position++;
+                Aggregate aggregate = aggregate(identifier());
+                expect(')');
+                if (!aggregate.getFunction().isReaggregable()) {
+                    throw error("total solo admite medidas sum, min, max o count: " + aggregate.spec());
+                }
+                return new Measure(new Reference(aggregate, true));
+            }
+            return new Measure(new Reference(aggregate(identifier), false));
+        }
+
+        private Aggregate aggregate(String column) {
+            String spec = column;
+            if (peek(':')) {
+                position++;
+                spec = column + ":" + identifier();
+            }
+            Aggregate aggregate = Aggregate.parse(spec);
+            if (aggregate.getFunction().isPercentile()) {
+                throw error("las medidas calculadas no admiten percentiles: " + aggregate.spec());
+            }
+            return aggregate;
+        }
+
+        private BigDecimal number() {
+            int start = position;
+            while (position < text.length()
+                && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                position++;
+            }
+            try {
+                return new BigDecimal(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("número no válido " + text.substring(start, position));
+            }
+        }
+
+        private String identifier() {
+            skipSpaces();
+            int start = position;
+            while (position < text.length()
+                && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+                position++;
+            }
+            if (start == position) {
+                throw error(position < text.length()
+                    ? "carácter inesperado '" + text.charAt(position) + "'"
+                    : "falta un operando al final");
+            }
+            return text.substring(start, position);
+        }
+
+        private boolean peek(char expected) {
+            skipSpaces();
+            return position < text.length() && text.charAt(position) == expected;
+        }
+
+        private void expect(char expected) {
+            if (!peek(expected)) {
+                throw error("se esperaba '" + expected + "'");
+            }
+            position++;
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String detail) {
+            return new IllegalArgumentException("Expresión de medida calculada no válida (" + detail + "): " + text);
+        }
+    }
+}
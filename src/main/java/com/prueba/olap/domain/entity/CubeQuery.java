@@ -0,0 +1,327 @@
+package com.prueba.olap.domain.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Entidad de dominio que describe una consulta agregada de forma estructurada:
+ * dimensiones de agrupación, medidas agregadas y filtros de igualdad.
+ * Permite a los adaptadores que no ejecutan SQL resolver la consulta sin interpretar texto.
+ * <p>
+ * Con conjuntos de agrupación (GROUPING SETS) la respuesta contiene los subtotales de cada conjunto;
+ * las dimensiones agregadas valen {@code null} y la columna {@value #GROUPING_ID_COLUMN} indica el nivel.
+ * Con una {@link Page página} las filas se ordenan, empiezan después de un cursor y se limitan.
+ * Con una {@link Exclusion exclusión} solo cuentan las filas cuyo valor en una columna no está en una
+ * lista, incluidas las nulas.
+ * <p>
+ * Cada medida es un {@link Aggregate} en su forma canónica ({@code Sales}, {@code Quantity:p95}...);
+ * en la respuesta aparece con su {@link Aggregate#alias() alias}. Las {@link CalculatedMeasure medidas
+ * calculadas} van después, con su nombre, y se evalúan sobre las medidas agregadas de cada fila.
+ */
+public class CubeQuery {
+
+    public static final String GROUPING_ID_COLUMN = "GROUPING_ID";
+
+    private final List<String> dimensions;
+    private final List<String> measures;
+    private final Map<String, String> filters;
+    private final List<List<String>> groupingSets;
+    private final Page page;
+    private final List<CalculatedMeasure> calculatedMeasures;
+    private final Exclusion exclusion;
+
+    public CubeQuery(List<String> dimensions, List<String> measures, Map<String, String> filters) {
+        this.dimensions = dimensions != null ? List.copyOf(dimensions) : List.of();
+        this.measures = measures != null ? List.copyOf(measures) : List.of();
+        this.filters = filters != null ? Collections.unmodifiableMap(new TreeMap<>(filters)) : Map.of();
+        this.groupingSets = List.of();
+        this.page = null;
+        this.calculatedMeasures = List.of();
+        this.exclusion = null;
+    }
+
+    private CubeQuery(CubeQuery query, List<List<String>> groupingSets, Page page) {
+        this.dimensions = query.dimensions;
+        this.measures = query.measures;
+        this.filters = query.filters;
+        this.groupingSets = groupingSets.stream().map(List::copyOf).toList();
+        this.page = page;
+        this.calculatedMeasures = query.calculatedMeasures;
+        this.exclusion = query.exclusion;
+    }
+
+    private CubeQuery(CubeQuery query, List<CalculatedMeasure> calculatedMeasures) {
+        this.dimensions = query.dimensions;
+        this.measures = query.measures;
+        this.filters = query.filters;
+        this.groupingSets = query.groupingSets;
+        this.page = query.page;
+        this.calculatedMeasures = List.copyOf(calculatedMeasures);
+        this.exclusion = query.exclusion;
+    }
+
+    private CubeQuery(CubeQuery query, Exclusion exclusion) {
+        this.dimensions = query.dimensions;
+        this.measures = query.measures;
+        this.filters = query.filters;
+        this.groupingSets = query.groupingSets;
+        this.page = query.page;
+        this.calculatedMeasures = query.calculatedMeasures;
+        this.exclusion = exclusion;
+    }
+
+    /**
+     * Copia de la consulta que agrupa por cada uno de los conjuntos indicados en una sola pasada.
+     * Cada conjunto debe ser un subconjunto de las dimensiones; el conjunto vacío es el total general.
+     * Los subtotales se obtienen volviendo a agregar los grupos, así que todas las medidas deben
+     * admitirlo ({@link AggregateFunction#isReaggregable()}).
+     */
+    public CubeQuery withGroupingSets(List<List<String>> groupingSets) {
+        if (groupingSets == null) {
+            throw new IllegalArgumentException("Los conjuntos de agrupación no pueden ser nulos");
+        }
+        if (!groupingSets.isEmpty()) {
+            validateNoCalculatedMeasures(calculatedMeasures);
+            for (Aggregate aggregate : getAggregates()) {
+                if (!aggregate.getFunction().isReaggregable()) {
+                    throw new IllegalArgumentException(
+                        "Los subtotales solo admiten medidas sum, min, max y count: " + aggregate.spec());
+                }
+            }
+        }
+        for (List<String> set : groupingSets) {
+            if (!dimensions.containsAll(set)) {
+                throw new IllegalArgumentException("Conjunto de agrupación fuera de las dimensiones: " + set);
+            }
+        }
+        return new CubeQuery(this, groupingSets, page);
+    }
+
+    /**
+     * Copia de la consulta que devuelve solo una página de filas. Las columnas de la ordenación deben
+     * estar en la respuesta (dimensiones o medidas).
+     */
+    public CubeQuery withPage(Page page) {
+        if (page == null) {
+            throw new IllegalArgumentException("La página no puede ser nula");
+        }
+        List<String> columns = getColumns();
+        for (SortKey key : page.ordering()) {
+            if (!columns.contains(key.column())) {
+                throw new IllegalArgumentException("Columna de ordenación fuera de la consulta: " + key.column());
+            }
+        }
+        return new CubeQuery(this, groupingSets, page);
+    }
+
+    /**
+     * Copia de la consulta que añade las medidas calculadas indicadas, en ese orden. No se combinan con
+     * conjuntos de agrupación: {@code total} abarcaría todos los niveles a la vez.
+     */
+    public CubeQuery withCalculatedMeasures(List<CalculatedMeasure> calculatedMeasures) {
+        if (calculatedMeasures == null) {
+            throw new IllegalArgumentException("Las medidas calculadas no pueden ser nulas");
+        }
+        if (hasGroupingSets()) {
+            validateNoCalculatedMeasures(calculatedMeasures);
+        }
+        return new CubeQuery(this, calculatedMeasures);
+    }
+
+    /**
+     * Copia de la consulta que descarta las filas con alguno de los valores indicados en la columna; las
+     * filas con la columna nula se mantienen. La columna no puede tener además un filtro de igualdad.
+     */
+    public CubeQuery withExclusion(Exclusion exclusion) {
+        if (exclusion == null) {
+            throw new IllegalArgumentException("La exclusión no puede ser nula");
+        }
+        if (filters.containsKey(exclusion.column())) {
+            throw new IllegalArgumentException("La columna excluida ya tiene un filtro: " + exclusion.column());
+        }
+        return new CubeQuery(this, exclusion);
+    }
+
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Medidas en forma canónica ({@link Aggregate#spec()}).
+     */
+    public List<String> getMeasures() {
+        return measures;
+    }
+
+    public List<Aggregate> getAggregates() {
+        return measures.stream().map(Aggregate::parse).toList();
+    }
+
+    /**
+     * Indica si todas las medidas son sumas, sin medidas calculadas: el resultado de varios grupos se
+     * obtiene sumando los de cada uno, sin conocer ninguna función.
+     */
+    public boolean isAdditive() {
+        if (!calculatedMeasures.isEmpty()) {
+            return false;
+        }
+        return getAggregates().stream().allMatch(aggregate -> aggregate.getFunction() == AggregateFunction.SUM);
+    }
+
+    /**
+     * Filtros de igualdad columna → valor, ordenados por columna.
+     */
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Conjuntos de agrupación; vacío si la consulta agrupa solo por todas sus dimensiones.
+     */
+    public List<List<String>> getGroupingSets() {
+        return groupingSets;
+    }
+
+    public boolean hasGroupingSets() {
+        return !groupingSets.isEmpty();
+    }
+
+    public List<CalculatedMeasure> getCalculatedMeasures() {
+        return calculatedMeasures;
+    }
+
+    public Optional<Page> getPage() {
+        return Optional.ofNullable(page);
+    }
+
+    public Optional<Exclusion> getExclusion() {
+        return Optional.ofNullable(exclusion);
+    }
+
+    /**
+     * Columnas de la respuesta en orden: dimensiones, alias de las medidas y medidas calculadas.
+     */
+    public List<String> getColumns() {
+        List<String> columns = new ArrayList<>(dimensions);
+        getAggregates().forEach(aggregate -> columns.add(aggregate.alias()));
+        calculatedMeasures.forEach(measure -> columns.add(measure.getName()));
+        return columns;
+    }
+
+    /**
+     * Valor de {@value #GROUPING_ID_COLUMN} para las filas de un conjunto, como {@code GROUPING_ID} de SQL:
+     * un bit por dimensión, la primera el más significativo, a 1 si la dimensión está agregada.
+     * El nivel más detallado vale 0 y el total general {@code 2^n - 1}.
+     */
+    public int groupingId(List<String> groupingSet) {
+        return groupingId(dimensions, groupingSet);
+    }
+
+    public static int groupingId(List<String> dimensions, List<String> groupingSet) {
+        int id = 0;
+        for (String dimension : dimensions) {
+            id = (id << 1) | (groupingSet.contains(dimension) ? 0 : 1);
+        }
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        CubeQuery that = (CubeQuery) obj;
+        return Objects.equals(dimensions, that.dimensions) &&
+               Objects.equals(measures, that.measures) &&
+               Objects.equals(filters, that.filters) &&
+               Objects.equals(groupingSets, that.groupingSets) &&
+               Objects.equals(page, that.page) &&
+               Objects.equals(calculatedMeasures, that.calculatedMeasures) &&
+               Objects.equals(exclusion, that.exclusion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dimensions, measures, filters, groupingSets, page, calculatedMeasures, exclusion);
+    }
+
+    @Override
+    public String toString() {
+        return "CubeQuery{" +
+               "dimensions=" + dimensions +
+               ", measures=" + measures +
+               ", filters=" + filters.keySet() +
+               ", groupingSets=" + groupingSets +
+               ", page=" + page +
+               ", calculatedMeasures=" + calculatedMeasures.stream().map(CalculatedMeasure::getName).toList() +
+               ", exclusion=" + (exclusion != null ? exclusion.column() : null) +
+               '}';
+    }
+
+    private static void validateNoCalculatedMeasures(List<CalculatedMeasure> calculatedMeasures) {
+        if (!calculatedMeasures.isEmpty()) {
+            throw new IllegalArgumentException("Las medidas calculadas no se pueden combinar con subtotales");
+        }
+    }
+
+    /**
+     * Columna de ordenación. Los nulos se ordenan como el menor valor, como en SQL Server y H2.
+     */
+    public record SortKey(String column, boolean descending) {
+
+        public SortKey {
+            if (column == null || column.isBlank()) {
+                throw new IllegalArgumentException("La columna de ordenación no puede estar vacía");
+            }
+        }
+    }
+
+    /**
+     * Valores descartados de una columna: la consulta cubre las filas con cualquier otro valor o nulas,
+     * {@code column IS NULL OR column NOT IN (values)}.
+     */
+    public record Exclusion(String column, List<String> values) {
+
+        public Exclusion {
+            if (column == null || column.isBlank()) {
+                throw new IllegalArgumentException("La columna excluida no puede estar vacía");
+            }
+            if (values == null || values.isEmpty() || values.stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("Los valores excluidos no pueden estar vacíos ni ser nulos");
+            }
+            values = List.copyOf(values);
+        }
+    }
+
+    /**
+     * Página de resultados: orden completo de las filas, número máximo de filas (0 sin límite) y valores
+     * de la ordenación de la última fila de la página anterior ({@code null} en la primera página).
+     * Para que el cursor sea estable la ordenación debe identificar cada fila, por eso incluye todas las
+     * dimensiones.
+     */
+    public record Page(List<SortKey> ordering, int limit, List<Object> after) {
+
+        public Page {
+            if (ordering == null) {
+                throw new IllegalArgumentException("La ordenación no puede ser nula");
+            }
+            if (limit < 0) {
+                throw new IllegalArgumentException("El límite no puede ser negativo: " + limit);
+            }
+            if (after != null && after.size() != ordering.size()) {
+                throw new IllegalArgumentException("El cursor no corresponde a la ordenación");
+            }
+            ordering = List.copyOf(ordering);
+            after = after != null ? Collections.unmodifiableList(new ArrayList<>(after)) : null;
+        }
+
+        public boolean isLimited() {
+            return limit > 0;
+        }
+    }
+}
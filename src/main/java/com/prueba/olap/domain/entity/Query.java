@@ -2,6 +2,7 @@ package com.prueba.olap.domain.entity;
 
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Entidad de dominio que representa una consulta OLAP.
@@ -12,6 +13,7 @@ public class Query {
     private final String statement;
     private final QueryType type;
     private final Map<String, Object> parameters;
+    private final CubeQuery cubeQuery;
     
     public Query(String statement, QueryType type, Map<String, Object> parameters) {
         validateStatement(statement);
@@ -20,6 +22,23 @@ public class Query {
         this.statement = statement;
         this.type = type;
         this.parameters = parameters != null ? Map.copyOf(parameters) : Map.of();
+        this.cubeQuery = null;
+    }
+    
+    private Query(Query query, CubeQuery cubeQuery) {
+        this.statement = query.statement;
+        this.type = query.type;
+        this.parameters = query.parameters;
+        this.cubeQuery = cubeQuery;
+    }
+    
+    /**
+     * Devuelve una copia de la consulta que conserva además su descripción estructurada.
+     * La descripción se deriva de la misma petición que el texto, por lo que no participa
+     * en {@link #equals(Object)}.
+     */
+    public Query withCubeQuery(CubeQuery cubeQuery) {
+        return new Query(this, cubeQuery);
     }
     
     public String getStatement() {
@@ -34,6 +53,10 @@ public class Query {
         return Map.copyOf(parameters);
     }
     
+    public Optional<CubeQuery> getCubeQuery() {
+        return Optional.ofNullable(cubeQuery);
+    }
+    
     public boolean hasParameters() {
         return !parameters.isEmpty();
     }
@@ -0,0 +1,92 @@
+package com.prueba.olap.domain.entity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Entidad de dominio que define una tabla de preagregación (rollup): la vista del cubo
+ * agrupada por un subconjunto de dimensiones con las medidas sumadas.
+ * Puede responder cualquier consulta cuyas dimensiones y filtros estén entre las suyas.
+ */
+public class Rollup {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,127}");
+    private static final String CUBE_VIEW_PLACEHOLDER = "cube_view";
+
+    private final String tableName;
+    private final List<String> dimensions;
+    private final List<String> measures;
+
+    public Rollup(String tableName, List<String> dimensions, List<String> measures) {
+        validateTableName(tableName);
+        validateColumns(dimensions, measures);
+
+        this.tableName = tableName;
+        this.dimensions = dimensions.stream().sorted().distinct().toList();
+        this.measures = measures.stream().sorted().distinct().toList();
+    }
+
+    /**
+     * Indica si el rollup contiene todas las columnas de agrupación/filtro y todas las medidas pedidas.
+     */
+    public boolean covers(Collection<String> columns, Collection<String> requestedMeasures) {
+        return dimensions.containsAll(columns) && measures.containsAll(requestedMeasures);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+
+    public List<String> getMeasures() {
+        return measures;
+    }
+
+    private void validateTableName(String tableName) {
+        if (tableName == null || !TABLE_NAME.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("Nombre de tabla de rollup no válido: " + tableName);
+        }
+        if (tableName.toLowerCase().contains(CUBE_VIEW_PLACEHOLDER)) {
+            throw new IllegalArgumentException("El nombre del rollup no puede contener " + CUBE_VIEW_PLACEHOLDER);
+        }
+    }
+
+    private void validateColumns(List<String> dimensions, List<String> measures) {
+        if (dimensions == null || dimensions.isEmpty()) {
+            throw new IllegalArgumentException("El rollup debe tener al menos una dimensión");
+        }
+        if (measures == null || measures.isEmpty()) {
+            throw new IllegalArgumentException("El rollup debe tener al menos una medida");
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        Rollup rollup = (Rollup) obj;
+        return Objects.equals(tableName, rollup.tableName) &&
+               Objects.equals(dimensions, rollup.dimensions) &&
+               Objects.equals(measures, rollup.measures);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableName, dimensions, measures);
+    }
+
+    @Override
+    public String toString() {
+        return "Rollup{" +
+               "tableName='" + tableName + '\'' +
+               ", dimensions=" + dimensions +
+               ", measures=" + measures +
+               '}';
+    }
+}
@@ -1,8 +1,12 @@
 package com.prueba.olap.port;
 
+import com.prueba.olap.domain.entity.Query;
 import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Puerto para consultas OLAP que soporta tanto MDX como SQL.
@@ -28,4 +32,50 @@ public interface OlapQueryPort {
     default AggregationResponse query(String query) {
         return query(query, Map.of());
     }
+
+    /**
+     * Ejecuta una consulta construida por el servicio. Por defecto usa el texto y los
+     * parámetros; los adaptadores que resuelven la consulta sin SQL/MDX usan su
+     * {@link Query#getCubeQuery() descripción estructurada}.
+     *
+     * @param query Consulta a ejecutar
+     * @return Respuesta con los datos agregados
+     */
+    default AggregationResponse query(Query query) {
+        return query(query.getStatement(), query.getParameters());
+    }
+
+    /**
+     * Variante en streaming de {@link #query(Query)}.
+     *
+     * @param query Consulta a ejecutar
+     * @return Flujo de filas agregadas
+     */
+    default Flux<AggregationRow> stream(Query query) {
+        return stream(query.getStatement(), query.getParameters());
+    }
+
+    /**
+     * Ejecuta una consulta OLAP emitiendo las filas a medida que se leen.
+     * La implementación por defecto materializa la respuesta completa; los adaptadores
+     * capaces de leer con cursor deben sobrescribirla para mantener la memoria acotada.
+     *
+     * @param query La consulta MDX o SQL a ejecutar
+     * @param params Parámetros nombrados para la consulta (puede ser null o vacío)
+     * @return Flujo de filas agregadas
+     */
+    default Flux<AggregationRow> stream(String query, Map<String, Object> params) {
+        return Flux.defer(() -> Flux.fromIterable(query(query, params).getRows()));
+    }
+
+    /**
+     * Plan de ejecución estimado por el motor para la consulta, sin ejecutarla.
+     * Por defecto no hay plan; los adaptadores que pueden pedirlo al backend lo sobrescriben.
+     *
+     * @param query Consulta a explicar
+     * @return Plan en el formato nativo del motor, o vacío si el adaptador no lo ofrece
+     */
+    default Optional<String> explain(Query query) {
+        return Optional.empty();
+    }
 }
\ No newline at end of file
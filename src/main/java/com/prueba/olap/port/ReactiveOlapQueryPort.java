@@ -0,0 +1,44 @@
+package com.prueba.olap.port;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Variante no bloqueante de {@link OlapQueryPort}: las implementaciones no ocupan un hilo
+ * mientras esperan al backend, de modo que miles de consultas en curso no necesitan miles de hilos.
+ * Los adaptadores bloqueantes se exponen a través de un puente que los ejecuta en un pool acotado.
+ */
+public interface ReactiveOlapQueryPort {
+
+    /**
+     * Ejecuta la consulta emitiendo las filas a medida que están disponibles.
+     * La ejecución empieza al suscribirse y se aborta al cancelar.
+     *
+     * @param query Consulta a ejecutar
+     * @return Flujo de filas agregadas
+     */
+    Flux<AggregationRow> stream(Query query);
+
+    /**
+     * Ejecuta la consulta y publica la respuesta completa.
+     *
+     * @param query Consulta a ejecutar
+     * @return Respuesta con los datos agregados
+     */
+    default Mono<AggregationResponse> aggregate(Query query) {
+        return stream(query).collectList().map(AggregationResponse::new);
+    }
+
+    /**
+     * Variante no bloqueante de {@link OlapQueryPort#explain(Query)}.
+     *
+     * @param query Consulta a explicar
+     * @return Plan estimado, o vacío si el adaptador no lo ofrece
+     */
+    default Mono<String> plan(Query query) {
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,18 @@
+package com.prueba.olap.port;
+
+import com.prueba.olap.domain.entity.Rollup;
+
+/**
+ * Puerto para materializar tablas de preagregación a partir de la vista del cubo.
+ */
+public interface RollupStorePort {
+
+    /**
+     * Recalcula el contenido del rollup a partir de la vista base. Las consultas concurrentes
+     * siguen viendo la versión anterior hasta que la nueva está completa.
+     *
+     * @param rollup Definición del rollup a materializar
+     * @return Número de filas del rollup tras la recarga
+     */
+    long refresh(Rollup rollup);
+}
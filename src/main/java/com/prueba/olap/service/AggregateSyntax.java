@@ -0,0 +1,38 @@
+package com.prueba.olap.service;
+
+/**
+ * Cómo se escriben en SQL los percentiles y las agregaciones aproximadas.
+ * {@code SQLSERVER} calcula los percentiles exactos con {@code PERCENTILE_CONT ... OVER (PARTITION BY ...)},
+ * que en SQL Server solo existe como función de ventana, y usa las funciones nativas
+ * {@code APPROX_COUNT_DISTINCT} y {@code APPROX_PERCENTILE_CONT} (SQL Server 2022+);
+ * {@code STANDARD} usa {@code PERCENTILE_CONT ... WITHIN GROUP} como agregado (H2, PostgreSQL) y resuelve
+ * las aproximadas con su equivalente exacto.
+ */
+public enum AggregateSyntax {
+    SQLSERVER("sqlserver"),
+    STANDARD("standard");
+
+    private final String value;
+
+    AggregateSyntax(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static AggregateSyntax fromString(String syntax) {
+        if (syntax == null) {
+            throw new IllegalArgumentException("Sintaxis no puede ser nula");
+        }
+
+        for (AggregateSyntax aggregateSyntax : values()) {
+            if (aggregateSyntax.value.equalsIgnoreCase(syntax.trim())) {
+                return aggregateSyntax;
+            }
+        }
+
+        throw new IllegalArgumentException("Sintaxis de agregación no soportada: " + syntax);
+    }
+}
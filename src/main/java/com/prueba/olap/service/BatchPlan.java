@@ -0,0 +1,35 @@
+package com.prueba.olap.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de planificar un lote: lecturas a ejecutar y errores de construcción por posición
+ * de la consulta en el lote.
+ */
+public class BatchPlan {
+
+    private final List<BatchScan> scans;
+    private final Map<Integer, RuntimeException> failures;
+
+    public BatchPlan(List<BatchScan> scans, Map<Integer, RuntimeException> failures) {
+        this.scans = scans != null ? List.copyOf(scans) : List.of();
+        this.failures = failures != null ? Map.copyOf(failures) : Map.of();
+    }
+
+    public List<BatchScan> getScans() {
+        return scans;
+    }
+
+    public Map<Integer, RuntimeException> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPlan{" +
+               "scans=" + scans.size() +
+               ", failures=" + failures.size() +
+               "}";
+    }
+}
@@ -0,0 +1,103 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Una lectura del cubo dentro de un lote y las consultas del lote que se responden con ella.
+ */
+public class BatchScan {
+
+    /**
+     * Nivel de agrupación de un miembro que usa todas las filas de la lectura.
+     */
+    public static final int ALL_ROWS = -1;
+
+    private final Query query;
+    private final List<Member> members;
+
+    public BatchScan(Query query, List<Member> members) {
+        if (query == null || members == null || members.isEmpty()) {
+            throw new IllegalArgumentException("Una lectura necesita una consulta y al menos un miembro");
+        }
+        this.query = query;
+        this.members = List.copyOf(members);
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * Indica si la lectura responde a alguna consulta distinta de la suya propia; en ese caso, si
+     * falla, cada miembro puede reintentarse con su consulta original.
+     */
+    public boolean isMerged() {
+        return members.stream().anyMatch(member -> !member.query().equals(query));
+    }
+
+    /**
+     * Filas de la respuesta de la lectura que corresponden al miembro, con solo sus columnas.
+     * Las columnas se localizan por su posición en la consulta de la lectura (dimensiones, medidas y
+     * nivel de agrupación) porque algunos motores devuelven los nombres en mayúsculas; se conservan
+     * los nombres que devuelve el motor, como en la consulta por separado.
+     */
+    public AggregationResponse project(AggregationResponse response, Member member) {
+        if (member.query().equals(query) || response.isEmpty()) {
+            return response;
+        }
+        List<String> scanColumns = query.getCubeQuery().map(CubeQuery::getColumns).orElse(List.of());
+        int[] positions = member.columns().stream().mapToInt(scanColumns::indexOf).toArray();
+        int groupingPosition = member.groupingId() != ALL_ROWS ? scanColumns.size() : -1;
+
+        RowSchema source = response.getRows().get(0).schema();
+        RowSchema schema = RowSchema.of(Arrays.stream(positions).mapToObj(source::getColumn).toList());
+        List<AggregationRow> rows = new ArrayList<>();
+        for (AggregationRow row : response.getRows()) {
+            if (groupingPosition >= 0
+                && ((Number) row.getValueAt(groupingPosition)).intValue() != member.groupingId()) {
+                continue;
+            }
+            Object[] values = new Object[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                values[i] = row.getValueAt(positions[i]);
+            }
+            rows.add(new AggregationRow(schema, values));
+        }
+        return new AggregationResponse(rows);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchScan{" +
+               "members=" + members.size() +
+               ", merged=" + isMerged() +
+               "}";
+    }
+
+    /**
+     * Consulta del lote respondida por la lectura.
+     *
+     * @param index Posición de la consulta en el lote
+     * @param query Consulta que se ejecutaría para ella sola
+     * @param groupingId Nivel de sus filas en la lectura, o {@link #ALL_ROWS}
+     * @param columns Columnas de su respuesta: dimensiones y medidas
+     */
+    public record Member(int index, Query query, int groupingId, List<String> columns) {
+
+        public Member {
+            columns = List.copyOf(columns);
+        }
+    }
+}
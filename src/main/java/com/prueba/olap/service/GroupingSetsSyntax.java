@@ -0,0 +1,36 @@
+package com.prueba.olap.service;
+
+/**
+ * Cómo se expresan en SQL las consultas con conjuntos de agrupación.
+ * {@code NATIVE} usa {@code GROUP BY GROUPING SETS} y {@code GROUPING()} (SQL Server, PostgreSQL, Oracle);
+ * {@code UNION_ALL} agrega primero por todas las dimensiones en una CTE, que lee la vista una sola vez,
+ * y obtiene cada subtotal de ese resultado con {@code UNION ALL}, para motores sin GROUPING SETS como H2.
+ */
+public enum GroupingSetsSyntax {
+    NATIVE("native"),
+    UNION_ALL("union-all");
+
+    private final String value;
+
+    GroupingSetsSyntax(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static GroupingSetsSyntax fromString(String syntax) {
+        if (syntax == null) {
+            throw new IllegalArgumentException("Sintaxis no puede ser nula");
+        }
+
+        for (GroupingSetsSyntax groupingSetsSyntax : values()) {
+            if (groupingSetsSyntax.value.equalsIgnoreCase(syntax.trim())) {
+                return groupingSetsSyntax;
+            }
+        }
+
+        throw new IllegalArgumentException("Sintaxis de GROUPING SETS no soportada: " + syntax);
+    }
+}
@@ -0,0 +1,130 @@
+package com.prueba.olap.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Conteo aproximado de valores distintos (HyperLogLog) en memoria acotada: 4096 registros de un byte,
+ * error típico del 1,6 %. Con pocos valores guarda los hashes y el conteo es exacto. Dos resúmenes del
+ * mismo tipo se fusionan sin perder precisión, por eso los parciales de cada tramo o partición se pueden
+ * calcular por separado y combinar al final.
+ * <p>
+ * No es seguro para uso concurrente: cada hilo acumula su propio resumen y después se fusionan.
+ */
+public final class HyperLogLog {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int SPARSE_LIMIT = REGISTERS / 16;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Set<Long> sparse = new HashSet<>();
+    private byte[] registers;
+
+    /**
+     * Hash de 64 bits de un valor: los enteros y decimales por su valor binario, el resto por su texto.
+     * Los resúmenes que se fusionan deben haber calculado los hashes igual.
+     */
+    public static long hash(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return mix(((Number) value).longValue());
+        }
+        if (value instanceof Number number) {
+            return mix(Double.doubleToLongBits(number.doubleValue()));
+        }
+        long hash = FNV_OFFSET;
+        String text = String.valueOf(value);
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    public void add(Object value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        if (registers == null) {
+            sparse.add(hash);
+            if (sparse.size() > SPARSE_LIMIT) {
+                densify();
+            }
+            return;
+        }
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * Incorpora los valores de otro resumen, como si se hubieran añadido a este.
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.registers == null) {
+            other.sparse.forEach(this::addHash);
+            return this;
+        }
+        if (registers == null) {
+            densify();
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Estimación del número de valores distintos; con pocos valores, recuento lineal de registros vacíos.
+     */
+    public long estimate() {
+        if (registers == null) {
+            return sparse.size();
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private void densify() {
+        registers = new byte[REGISTERS];
+        Set<Long> hashes = sparse;
+        sparse = null;
+        hashes.forEach(this::addHash);
+    }
+
+    /**
+     * Paso final de MurmurHash3 (fmix64): reparte los bits para que valores consecutivos no compartan registro.
+     */
+    private static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{" +
+               "estimate=" + estimate() +
+               ", sparse=" + (registers == null) +
+               '}';
+    }
+}
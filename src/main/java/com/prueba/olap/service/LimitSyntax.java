@@ -0,0 +1,35 @@
+package com.prueba.olap.service;
+
+/**
+ * Cómo se limita en SQL el número de filas de una página.
+ * {@code OFFSET_FETCH} usa {@code OFFSET 0 ROWS FETCH NEXT n ROWS ONLY} (SQL estándar, SQL Server 2012+);
+ * {@code LIMIT} usa {@code LIMIT n} (H2, PostgreSQL, MySQL).
+ */
+public enum LimitSyntax {
+    OFFSET_FETCH("offset-fetch"),
+    LIMIT("limit");
+
+    private final String value;
+
+    LimitSyntax(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static LimitSyntax fromString(String syntax) {
+        if (syntax == null) {
+            throw new IllegalArgumentException("Sintaxis no puede ser nula");
+        }
+
+        for (LimitSyntax limitSyntax : values()) {
+            if (limitSyntax.value.equalsIgnoreCase(syntax.trim())) {
+                return limitSyntax;
+            }
+        }
+
+        throw new IllegalArgumentException("Sintaxis de límite de filas no soportada: " + syntax);
+    }
+}
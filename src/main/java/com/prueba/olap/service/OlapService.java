@@ -1,14 +1,33 @@
 package com.prueba.olap.service;
 
+import com.prueba.olap.domain.entity.Aggregate;
+import com.prueba.olap.domain.entity.AggregateFunction;
+import com.prueba.olap.domain.entity.CalculatedMeasure;
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.domain.entity.Rollup;
 import com.prueba.olap.port.OlapQueryPort;
 import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.QueryRequest;
+import reactor.core.publisher.Flux;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Servicio de aplicación para operaciones OLAP.
@@ -16,31 +35,283 @@ import java.util.stream.Collectors;
  */
 public class OlapService {
 
+    public static final String BUILD_STAGE = "build";
+
     private static final String CUBE_VIEW_PLACEHOLDER = "cube_view";
     private static final String FILTER_SEPARATOR = "\\|";
     private static final String KEY_VALUE_SEPARATOR = ":";
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,127}");
     private static final int MAX_PARAMETERS = 3;
+    private static final String PARAMETER_PREFIX = "p";
+    private static final String EXCLUDED_PREFIX = "e";
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    private static final int MAX_GROUPING_SETS = 32;
+    private static final String GROUPING_SET_SEPARATOR = ";";
+    private static final String GRAND_TOTAL_SET = "()";
+    private static final String ROLLUP = "rollup";
+    private static final String CUBE = "cube";
+    private static final String GROUPING_BASE = "grouping_base";
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final String SORT_SEPARATOR = ":";
+    private static final String ASCENDING = "asc";
+    private static final String DESCENDING = "desc";
+    private static final String CURSOR_PREFIX = "c";
+    private static final String LIMIT_PARAMETER = "limit";
+    private static final String PAGE_ALIAS = "paged";
+    private static final String WINDOW_ALIAS = "windowed";
     
     private final OlapQueryPort queryPort;
     private final Set<String> allowedColumns;
+    private final RollupCatalog rollupCatalog;
+    private final QueryMetrics metrics;
+    private final SqlSyntax sqlSyntax;
+    private final Map<String, CalculatedMeasure> calculatedMeasures;
+    private final Map<QueryShape, String> templateCache = new ConcurrentHashMap<>();
 
     public OlapService(OlapQueryPort queryPort, Set<String> allowedColumns) {
+        this(queryPort, allowedColumns, null);
+    }
+
+    /**
+     * @param rollupCatalog Catálogo de rollups al que se enrutan las consultas (puede ser null)
+     */
+    public OlapService(OlapQueryPort queryPort, Set<String> allowedColumns, RollupCatalog rollupCatalog) {
         validateConstructorParameters(queryPort, allowedColumns);
         this.queryPort = queryPort;
         this.allowedColumns = Set.copyOf(allowedColumns);
+        this.rollupCatalog = rollupCatalog;
+        this.metrics = QueryMetrics.disabled();
+        this.sqlSyntax = new SqlSyntax(GroupingSetsSyntax.NATIVE, LimitSyntax.OFFSET_FETCH, AggregateSyntax.SQLSERVER);
+        this.calculatedMeasures = Map.of();
+    }
+
+    private OlapService(OlapService service, QueryMetrics metrics, SqlSyntax sqlSyntax) {
+        this.queryPort = service.queryPort;
+        this.allowedColumns = service.allowedColumns;
+        this.rollupCatalog = service.rollupCatalog;
+        this.metrics = metrics;
+        this.sqlSyntax = sqlSyntax;
+        this.calculatedMeasures = service.calculatedMeasures;
+    }
+
+    private OlapService(OlapService service, Map<String, CalculatedMeasure> calculatedMeasures) {
+        this.queryPort = service.queryPort;
+        this.allowedColumns = service.allowedColumns;
+        this.rollupCatalog = service.rollupCatalog;
+        this.metrics = service.metrics;
+        this.sqlSyntax = service.sqlSyntax;
+        this.calculatedMeasures = Map.copyOf(calculatedMeasures);
+    }
+
+    /**
+     * Copia del servicio que etiqueta la etapa {@value #BUILD_STAGE} con el cubo y el adaptador de {@code metrics}.
+     */
+    public OlapService withMetrics(QueryMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Métricas de consultas no pueden ser nulas");
+        }
+        return new OlapService(this, metrics, sqlSyntax);
+    }
+
+    /**
+     * Copia del servicio que genera las consultas con subtotales en la sintaxis indicada.
+     */
+    public OlapService withGroupingSetsSyntax(GroupingSetsSyntax syntax) {
+        if (syntax == null) {
+            throw new IllegalArgumentException("Sintaxis de GROUPING SETS no puede ser nula");
+        }
+        return new OlapService(this, metrics, new SqlSyntax(syntax, sqlSyntax.limit(), sqlSyntax.aggregates()));
+    }
+
+    /**
+     * Copia del servicio que limita las páginas en la sintaxis indicada.
+     */
+    public OlapService withLimitSyntax(LimitSyntax syntax) {
+        if (syntax == null) {
+            throw new IllegalArgumentException("Sintaxis de límite de filas no puede ser nula");
+        }
+        return new OlapService(this, metrics, new SqlSyntax(sqlSyntax.grouping(), syntax, sqlSyntax.aggregates()));
+    }
+
+    /**
+     * Copia del servicio que escribe los percentiles y las agregaciones aproximadas en la sintaxis indicada.
+     */
+    public OlapService withAggregateSyntax(AggregateSyntax syntax) {
+        if (syntax == null) {
+            throw new IllegalArgumentException("Sintaxis de agregación no puede ser nula");
+        }
+        return new OlapService(this, metrics, new SqlSyntax(sqlSyntax.grouping(), sqlSyntax.limit(), syntax));
+    }
+
+    /**
+     * Copia del servicio que admite en {@code measures} los nombres de las medidas calculadas indicadas.
+     * Sus columnas deben estar permitidas y su nombre no puede coincidir con una columna ni repetirse.
+     */
+    public OlapService withCalculatedMeasures(List<CalculatedMeasure> measures) {
+        if (measures == null) {
+            throw new IllegalArgumentException("Medidas calculadas no pueden ser nulas");
+        }
+        Map<String, CalculatedMeasure> byName = new LinkedHashMap<>();
+        for (CalculatedMeasure measure : measures) {
+            if (allowedColumns.contains(measure.getName())) {
+                throw new IllegalArgumentException("La medida calculada coincide con una columna: " + measure.getName());
+            }
+            if (byName.put(measure.getName(), measure) != null) {
+                throw new IllegalArgumentException("Medida calculada duplicada: " + measure.getName());
+            }
+            validateColumns(measure.getAggregates().stream().map(Aggregate::getColumn).toList());
+        }
+        return new OlapService(this, byName);
+    }
+
+    /**
+     * Construye una consulta SQL parametrizada: los valores de los filtros viajan como
+     * parámetros nombrados y el texto SQL solo depende de la forma de la consulta, lo que
+     * permite reutilizar tanto la plantilla como el plan de ejecución en el servidor.
+     * Si hay un rollup materializado que contiene las columnas pedidas, la consulta se lee de él.
+     */
+    public Query buildQuery(String dimensions, String measures, String filters) {
+        return buildQuery(new QueryRequest(dimensions, measures, filters));
+    }
+
+    /**
+     * Como {@link #buildQuery(String, String, String)}, con las opciones adicionales de la petición.
+     * Con {@link QueryRequest#getGrouping() subtotales} genera una única consulta que devuelve todos los
+     * niveles, cada fila marcada con {@value CubeQuery#GROUPING_ID_COLUMN}. Con {@link QueryRequest#isPaged()
+     * página} la ordenación y el límite se resuelven en el motor ({@code ORDER BY} y {@code OFFSET/FETCH}
+     * o {@code LIMIT}) y el cursor se traduce en una condición sobre la ordenación (keyset), de modo que
+     * cada página cuesta lo mismo sin importar su posición.
+     * <p>
+     * Cada medida lleva su función ({@code Sales:avg}, {@code Quantity:p95}, {@code Product:approx_distinct}...;
+     * sin función es la suma), de modo que el análisis se resuelve en el motor en la misma pasada.
+     * Las {@link #withCalculatedMeasures(List) medidas calculadas} se piden por su nombre y se compilan en
+     * la misma consulta: {@code total(...)} es una función de ventana sobre el resultado agregado.
+     */
+    public Query buildQuery(QueryRequest request) {
+        validateRequest(request);
+        String shape = requestedShape(request.getDimensions(), request.getMeasures());
+        return metrics.time(BUILD_STAGE, shape, () -> constructQuery(request));
+    }
+
+    /**
+     * Forma para las métricas; solo con columnas permitidas, para que una entrada arbitraria
+     * no cree series nuevas. De las medidas cuenta la columna, no la función.
+     */
+    private String requestedShape(String dimensions, String measures) {
+        List<String> columns = new ArrayList<>(splitAndTrim(dimensions));
+        splitAndTrim(measures).forEach(measure -> columns.add(measure.split(KEY_VALUE_SEPARATOR, 2)[0].trim()));
+        if (allowedColumns.isEmpty() || !columns.stream()
+            .allMatch(column -> allowedColumns.contains(column) || calculatedMeasures.containsKey(column))) {
+            return QueryMetrics.RAW_SHAPE;
+        }
+        return QueryMetrics.shapeOf(columns);
+    }
+
+    private Query constructQuery(QueryRequest request) {
+        List<String> dimensionList = parseAndValidateColumns(request.getDimensions());
+        List<String> measureItems = splitAndTrim(request.getMeasures());
+        List<CalculatedMeasure> calculated = measureItems.stream()
+            .filter(calculatedMeasures::containsKey)
+            .sorted()
+            .distinct()
+            .map(calculatedMeasures::get)
+            .toList();
+        List<String> measureList = parseAndValidateMeasures(measureItems.stream()
+            .filter(measure -> !calculatedMeasures.containsKey(measure))
+            .toList());
+        Map<String, String> filterMap = parseFilters(request.getFilters());
+        CubeQuery cubeQuery = new CubeQuery(dimensionList, measureList, filterMap)
+            .withCalculatedMeasures(calculated)
+            .withGroupingSets(parseGroupingSets(request.getGrouping(), splitAndTrim(request.getDimensions())));
+        if (request.isPaged()) {
+            cubeQuery = cubeQuery.withPage(parsePage(request, cubeQuery));
+        }
+        return toQuery(cubeQuery);
+    }
+
+    private Query toQuery(CubeQuery cubeQuery) {
+        Map<String, String> filterMap = cubeQuery.getFilters();
+        Set<String> filterColumns = new TreeSet<>(filterMap.keySet());
+        cubeQuery.getExclusion().ifPresent(exclusion -> filterColumns.add(exclusion.column()));
+        String source = resolveSource(cubeQuery.getDimensions(), cubeQuery, filterColumns);
+        FilterShape filters = new FilterShape(List.copyOf(filterMap.keySet()),
+            cubeQuery.getExclusion().map(ExclusionShape::of).orElse(null));
+        QueryShape shape = new QueryShape(source, cubeQuery.getDimensions(), cubeQuery.getMeasures(), filters,
+            cubeQuery.getGroupingSets(), cubeQuery.getPage().map(PageShape::of).orElse(null),
+            cubeQuery.getCalculatedMeasures());
+        String statement = getOrBuildTemplate(shape);
+        return new Query(statement, QueryType.SQL, bindParameters(filterMap, cubeQuery)).withCubeQuery(cubeQuery);
+    }
+
+    /**
+     * Copia de la consulta restringida a un valor de la columna indicada, para ejecutarla como una
+     * partición. El filtro se añade aunque la consulta ya tenga el máximo de filtros de una petición.
+     */
+    public Query partition(Query query, String column, String value) {
+        CubeQuery cubeQuery = partitionSource(query, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Partición no válida de la consulta por " + column + ": " + value);
+        }
+        Map<String, String> filters = new TreeMap<>(cubeQuery.getFilters());
+        filters.put(column, value);
+        CubeQuery partition = new CubeQuery(cubeQuery.getDimensions(), cubeQuery.getMeasures(), filters)
+            .withCalculatedMeasures(cubeQuery.getCalculatedMeasures())
+            .withGroupingSets(cubeQuery.getGroupingSets());
+        if (cubeQuery.getPage().isPresent()) {
+            partition = partition.withPage(cubeQuery.getPage().get());
+        }
+        return toQuery(partition);
+    }
+
+    /**
+     * Partición con el resto de filas: las que tienen la columna nula o un valor fuera de {@code values}.
+     * Junto con {@link #partition(Query, String, String)} para cada valor cubre todas las filas aunque la
+     * lista de valores ya no esté al día.
+     */
+    public Query remainder(Query query, String column, List<String> values) {
+        CubeQuery cubeQuery = partitionSource(query, column);
+        return toQuery(cubeQuery.withExclusion(new CubeQuery.Exclusion(column, values)));
+    }
+
+    private CubeQuery partitionSource(Query query, String column) {
+        validateQuery(query);
+        CubeQuery cubeQuery = query.getCubeQuery().orElseThrow(() ->
+            new IllegalArgumentException("Solo se pueden particionar consultas estructuradas"));
+        validateColumns(List.of(column));
+        if (cubeQuery.getFilters().containsKey(column) || cubeQuery.getExclusion().isPresent()) {
+            throw new IllegalArgumentException("La consulta ya está restringida por " + column);
+        }
+        return cubeQuery;
     }
 
-    public String buildQuery(String dimensions, String measures, String filters) {
-        List<String> dimensionList = parseAndValidateColumns(dimensions);
-        List<String> measureList = parseAndValidateColumns(measures);
-        Map<String, String> filterMap = parseFilters(filters);
+    /**
+     * Devuelve la respuesta con el cursor de la página siguiente si la consulta pide un número limitado
+     * de filas y la página está llena; el cursor son los valores de la ordenación de la última fila.
+     * Las columnas se leen por posición, porque algunos motores devuelven los nombres en mayúsculas.
+     */
+    public AggregationResponse paginate(Query query, AggregationResponse response) {
+        validateQuery(query);
+        CubeQuery.Page page = query.getCubeQuery().flatMap(CubeQuery::getPage).orElse(null);
+        if (response == null || page == null || !page.isLimited() || page.ordering().isEmpty()
+            || response.getRowCount() < page.limit()) {
+            return response;
+        }
+        List<String> columns = query.getCubeQuery().orElseThrow().getColumns();
+        AggregationRow last = response.getRows().get(response.getRowCount() - 1);
+        List<Object> values = page.ordering().stream()
+            .map(key -> last.getValueAt(columns.indexOf(key.column())))
+            .toList();
+        return response.withNextCursor(PageCursor.encode(page.ordering(), values));
+    }
 
-        return constructSqlQuery(dimensionList, measureList, filterMap);
+    public AggregationResponse execute(Query query) {
+        validateQuery(query);
+        return queryPort.query(query);
     }
 
-    public AggregationResponse execute(String sql) {
-        validateSqlQuery(sql);
-        return queryPort.query(sql, Map.of());
+    public Flux<AggregationRow> stream(Query query) {
+        validateQuery(query);
+        return queryPort.stream(query);
     }
     
     private void validateConstructorParameters(OlapQueryPort port, Set<String> columns) {
@@ -52,21 +323,81 @@ public class OlapService {
         }
     }
     
+    /**
+     * Normaliza las columnas (ordenadas y sin duplicados) para que consultas equivalentes
+     * produzcan el mismo texto SQL y compartan plantilla, plan y entrada de caché.
+     */
     private List<String> parseAndValidateColumns(String input) {
         List<String> columns = splitAndTrim(input);
         validateColumns(columns);
-        return columns;
+        return columns.stream().sorted().distinct().toList();
+    }
+
+    /**
+     * Como {@link #parseAndValidateColumns(String)} con las medidas en su forma canónica
+     * ({@code Sales:sum} es {@code Sales}); se valida la columna de cada una.
+     */
+    private List<String> parseAndValidateMeasures(List<String> measures) {
+        List<Aggregate> aggregates = measures.stream().map(Aggregate::parse).toList();
+        validateColumns(aggregates.stream().map(Aggregate::getColumn).toList());
+        return aggregates.stream().map(Aggregate::spec).sorted().distinct().toList();
+    }
+    
+    /**
+     * Tabla más pequeña que puede responder la consulta: un rollup o, en su defecto, la vista base.
+     * Los rollups guardan sumas, así que solo sirven si todas las medidas usadas, también las de las
+     * medidas calculadas, son sumas.
+     */
+    private String resolveSource(List<String> dimensions, CubeQuery cubeQuery, Set<String> filterKeys) {
+        List<Aggregate> aggregates = new ArrayList<>(cubeQuery.getAggregates());
+        cubeQuery.getCalculatedMeasures().forEach(measure -> aggregates.addAll(measure.getAggregates()));
+        if (rollupCatalog == null
+            || aggregates.stream().anyMatch(aggregate -> aggregate.getFunction() != AggregateFunction.SUM)) {
+            return CUBE_VIEW_PLACEHOLDER;
+        }
+        Set<String> measures = aggregates.stream()
+            .map(Aggregate::getColumn)
+            .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> columns = new TreeSet<>(dimensions);
+        columns.addAll(filterKeys);
+        return rollupCatalog.route(columns, measures)
+            .map(Rollup::getTableName)
+            .orElse(CUBE_VIEW_PLACEHOLDER);
+    }
+
+    private String getOrBuildTemplate(QueryShape shape) {
+        String cached = templateCache.get(shape);
+        if (cached != null) {
+            return cached;
+        }
+        if (templateCache.size() >= MAX_CACHED_TEMPLATES) {
+            templateCache.clear();
+        }
+        return templateCache.computeIfAbsent(shape, this::constructSqlQuery);
     }
     
-    private String constructSqlQuery(List<String> dimensions, List<String> measures, Map<String, String> filters) {
-        List<String> selectColumns = buildSelectColumns(dimensions, measures);
+    private String constructSqlQuery(QueryShape shape) {
+        if (shape.page() != null) {
+            return constructPagedQuery(shape);
+        }
+        if (!shape.groupingSets().isEmpty()) {
+            return sqlSyntax.grouping() == GroupingSetsSyntax.NATIVE
+                ? constructGroupingSetsQuery(shape)
+                : constructUnionAllQuery(shape);
+        }
+        if (sqlSyntax.aggregates() == AggregateSyntax.SQLSERVER && aggregatesOf(shape.measures()).stream()
+            .anyMatch(aggregate -> aggregate.getFunction() == AggregateFunction.PERCENTILE)) {
+            return constructWindowedQuery(shape);
+        }
+        List<String> selectColumns = buildSelectColumns(shape.dimensions(), shape.measures());
+        shape.calculated().forEach(measure -> selectColumns.add(buildCalculatedColumn(measure)));
         String selectClause = String.join(", ", selectColumns);
-        String whereClause = buildWhereClause(filters);
-        String groupByClause = buildGroupByClause(dimensions);
+        String whereClause = buildWhereClause(shape.filters());
+        String groupByClause = buildGroupByClause(shape.dimensions());
         
         StringBuilder query = new StringBuilder();
         query.append("SELECT ").append(selectClause)
-             .append(" FROM ").append(CUBE_VIEW_PLACEHOLDER);
+             .append(" FROM ").append(shape.source());
         
         if (!whereClause.isEmpty()) {
             query.append(" WHERE ").append(whereClause);
@@ -79,31 +410,420 @@ public class OlapService {
         return query.toString();
     }
     
+    /**
+     * Página sobre la consulta agregada. Con cursor, la agregación se envuelve en una tabla derivada para
+     * filtrar por las medidas ya sumadas; la ordenación incluye todas las dimensiones, así que la condición
+     * "después del cursor" identifica exactamente las filas restantes.
+     */
+    private String constructPagedQuery(QueryShape shape) {
+        PageShape page = shape.page();
+        String base = constructSqlQuery(new QueryShape(shape.source(), shape.dimensions(), shape.measures(),
+            shape.filters(), shape.groupingSets(), null, shape.calculated()));
+
+        StringBuilder query = new StringBuilder();
+        if (page.afterNulls() != null && !page.ordering().isEmpty()) {
+            query.append("SELECT * FROM (").append(base).append(") ").append(PAGE_ALIAS)
+                 .append(" WHERE ").append(buildKeysetCondition(page));
+        } else {
+            query.append(base);
+        }
+        if (!page.ordering().isEmpty()) {
+            query.append(" ORDER BY ").append(page.ordering().stream()
+                .map(key -> key.column() + (key.descending() ? " DESC" : ""))
+                .collect(Collectors.joining(", ")));
+        }
+        if (page.limited()) {
+            query.append(sqlSyntax.limit() == LimitSyntax.LIMIT
+                ? " LIMIT :" + LIMIT_PARAMETER
+                : " OFFSET 0 ROWS FETCH NEXT :" + LIMIT_PARAMETER + " ROWS ONLY");
+        }
+        return query.toString();
+    }
+
+    /**
+     * Filas estrictamente posteriores al cursor en la ordenación, con los nulos como menor valor:
+     * {@code k1 > v1 OR (k1 = v1 AND k2 > v2) OR ...}. Un valor nulo del cursor se compara con
+     * {@code IS NULL}, por eso el texto depende de qué valores del cursor son nulos.
+     */
+    private String buildKeysetCondition(PageShape page) {
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < page.ordering().size(); i++) {
+            String after = buildAfterCondition(page.ordering().get(i), i, page.afterNulls().get(i));
+            if (after == null) {
+                continue;
+            }
+            List<String> terms = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                String column = page.ordering().get(j).column();
+                terms.add(page.afterNulls().get(j) ? column + " IS NULL" : column + " = :" + CURSOR_PREFIX + j);
+            }
+            terms.add(after);
+            alternatives.add(terms.size() > 1 ? "(" + String.join(" AND ", terms) + ")" : after);
+        }
+        return alternatives.isEmpty() ? "1 = 0" : String.join(" OR ", alternatives);
+    }
+
+    /**
+     * Condición "posterior al valor del cursor" en una columna, o null si nada puede serlo
+     * (un nulo en orden descendente es el último valor).
+     */
+    private String buildAfterCondition(CubeQuery.SortKey key, int index, boolean afterNull) {
+        String column = key.column();
+        if (afterNull) {
+            return key.descending() ? null : column + " IS NOT NULL";
+        }
+        String parameter = ":" + CURSOR_PREFIX + index;
+        return key.descending()
+            ? "(" + column + " < " + parameter + " OR " + column + " IS NULL)"
+            : column + " > " + parameter;
+    }
+
+    /**
+     * Percentiles exactos en SQL Server, donde {@code PERCENTILE_CONT} es solo función de ventana: la tabla
+     * derivada calcula el percentil de cada grupo en todas sus filas y la agregación externa lo toma una vez
+     * ({@code MAX} de un valor constante) junto al resto de medidas. Sigue siendo una sola lectura de la vista.
+     */
+    private String constructWindowedQuery(QueryShape shape) {
+        String partition = shape.dimensions().isEmpty()
+            ? "OVER ()"
+            : "OVER (PARTITION BY " + buildGroupByClause(shape.dimensions()) + ")";
+        Set<String> innerColumns = new LinkedHashSet<>(shape.dimensions());
+        List<String> selectColumns = new ArrayList<>(shape.dimensions());
+        for (Aggregate aggregate : aggregatesOf(shape.measures())) {
+            if (aggregate.getFunction() == AggregateFunction.PERCENTILE) {
+                innerColumns.add(buildPercentileExpression("PERCENTILE_CONT", aggregate) + " " + partition
+                    + " AS " + aggregate.alias());
+                selectColumns.add("MAX(" + aggregate.alias() + ") AS " + aggregate.alias());
+            } else {
+                innerColumns.add(aggregate.getColumn());
+                selectColumns.add(buildAggregateExpression(aggregate) + " AS " + aggregate.alias());
+            }
+        }
+        for (CalculatedMeasure measure : shape.calculated()) {
+            measure.getAggregates().forEach(aggregate -> innerColumns.add(aggregate.getColumn()));
+            selectColumns.add(buildCalculatedColumn(measure));
+        }
+        String whereClause = buildWhereClause(shape.filters());
+
+        StringBuilder query = new StringBuilder();
+        query.append("SELECT ").append(String.join(", ", selectColumns))
+             .append(" FROM (SELECT ").append(String.join(", ", innerColumns))
+             .append(" FROM ").append(shape.source());
+        if (!whereClause.isEmpty()) {
+            query.append(" WHERE ").append(whereClause);
+        }
+        query.append(") ").append(WINDOW_ALIAS);
+        if (!shape.dimensions().isEmpty()) {
+            query.append(" GROUP BY ").append(buildGroupByClause(shape.dimensions()));
+        }
+        return query.toString();
+    }
+
+    /**
+     * {@code GROUP BY GROUPING SETS}: una pasada; el nivel de cada fila sale de {@code GROUPING()}.
+     */
+    private String constructGroupingSetsQuery(QueryShape shape) {
+        List<String> selectColumns = buildSelectColumns(shape.dimensions(), shape.measures());
+        selectColumns.add(buildGroupingIdExpression(shape.dimensions()) + " AS " + CubeQuery.GROUPING_ID_COLUMN);
+        String whereClause = buildWhereClause(shape.filters());
+
+        StringBuilder query = new StringBuilder();
+        query.append("SELECT ").append(String.join(", ", selectColumns))
+             .append(" FROM ").append(shape.source());
+        if (!whereClause.isEmpty()) {
+            query.append(" WHERE ").append(whereClause);
+        }
+        query.append(" GROUP BY GROUPING SETS (").append(shape.groupingSets().stream()
+            .map(set -> "(" + String.join(", ", set) + ")")
+            .collect(Collectors.joining(", "))).append(")");
+        return query.toString();
+    }
+
+    /**
+     * Alternativa portable: la CTE agrega la vista por todas las dimensiones (la única lectura de la
+     * vista) y cada conjunto vuelve a agregar ese resultado, ya pequeño, en una rama de {@code UNION ALL}.
+     */
+    private String constructUnionAllQuery(QueryShape shape) {
+        QueryShape base = new QueryShape(shape.source(), shape.dimensions(), shape.measures(), shape.filters(),
+            List.of(), null, List.of());
+        String branches = shape.groupingSets().stream()
+            .map(set -> constructGroupingBranch(shape, set))
+            .collect(Collectors.joining(" UNION ALL "));
+        return "WITH " + GROUPING_BASE + " AS (" + constructSqlQuery(base) + ") " + branches;
+    }
+
+    private String constructGroupingBranch(QueryShape shape, List<String> groupingSet) {
+        List<String> selectColumns = new ArrayList<>();
+        for (String dimension : shape.dimensions()) {
+            selectColumns.add(groupingSet.contains(dimension) ? dimension : "NULL AS " + dimension);
+        }
+        for (Aggregate aggregate : aggregatesOf(shape.measures())) {
+            selectColumns.add(buildReaggregateExpression(aggregate) + " AS " + aggregate.alias());
+        }
+        selectColumns.add(CubeQuery.groupingId(shape.dimensions(), groupingSet) + " AS " + CubeQuery.GROUPING_ID_COLUMN);
+
+        String branch = "SELECT " + String.join(", ", selectColumns) + " FROM " + GROUPING_BASE;
+        return groupingSet.isEmpty() ? branch : branch + " GROUP BY " + buildGroupByClause(groupingSet);
+    }
+
+    /**
+     * Equivalente portable de {@code GROUPING_ID(d1, ..., dn)}: SQL Server no admite {@code GROUPING} con
+     * varias columnas, así que se suma {@code GROUPING(di)} con su peso.
+     */
+    private String buildGroupingIdExpression(List<String> dimensions) {
+        if (dimensions.isEmpty()) {
+            return "0";
+        }
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            int weight = 1 << (dimensions.size() - 1 - i);
+            terms.add("GROUPING(" + dimensions.get(i) + ")" + (weight > 1 ? " * " + weight : ""));
+        }
+        return String.join(" + ", terms);
+    }
+
     private List<String> buildSelectColumns(List<String> dimensions, List<String> measures) {
         List<String> selectColumns = new ArrayList<>(dimensions);
-        List<String> aggregatedMeasures = measures.stream()
-            .map(measure -> "SUM(" + measure + ") AS " + measure)
+        List<String> aggregatedMeasures = aggregatesOf(measures).stream()
+            .map(aggregate -> buildAggregateExpression(aggregate) + " AS " + aggregate.alias())
             .collect(Collectors.toList());
         selectColumns.addAll(aggregatedMeasures);
         return selectColumns;
     }
+
+    /**
+     * Expresión SQL de una medida. {@code AVG} multiplica por {@code 1.0} para no truncar la media de
+     * columnas enteras; sin funciones aproximadas nativas se usa la exacta, que da el mismo resultado.
+     */
+    private String buildAggregateExpression(Aggregate aggregate) {
+        String column = aggregate.getColumn();
+        boolean approximate = sqlSyntax.aggregates() == AggregateSyntax.SQLSERVER;
+        return switch (aggregate.getFunction()) {
+            case SUM -> "SUM(" + column + ")";
+            case AVG -> "AVG(1.0 * " + column + ")";
+            case MIN -> "MIN(" + column + ")";
+            case MAX -> "MAX(" + column + ")";
+            case COUNT -> "COUNT(" + column + ")";
+            case DISTINCT -> "COUNT(DISTINCT " + column + ")";
+            case PERCENTILE -> buildPercentileExpression("PERCENTILE_CONT", aggregate);
+            case APPROX_DISTINCT -> approximate
+                ? "APPROX_COUNT_DISTINCT(" + column + ")"
+                : "COUNT(DISTINCT " + column + ")";
+            case APPROX_PERCENTILE -> buildPercentileExpression(
+                approximate ? "APPROX_PERCENTILE_CONT" : "PERCENTILE_CONT", aggregate);
+        };
+    }
+
+    private String buildPercentileExpression(String function, Aggregate aggregate) {
+        return function + "(" + BigDecimal.valueOf(aggregate.getQuantile()).toPlainString()
+            + ") WITHIN GROUP (ORDER BY " + aggregate.getColumn() + ")";
+    }
+
+    /**
+     * Agregación de una medida ya agregada, para los subtotales: las sumas y los conteos se suman,
+     * los mínimos y máximos se vuelven a comparar.
+     */
+    private String buildReaggregateExpression(Aggregate aggregate) {
+        return reaggregateFunction(aggregate) + "(" + aggregate.alias() + ")";
+    }
+
+    private String reaggregateFunction(Aggregate aggregate) {
+        return switch (aggregate.getFunction()) {
+            case MIN -> "MIN";
+            case MAX -> "MAX";
+            default -> "SUM";
+        };
+    }
+
+    /**
+     * Medida calculada sobre las expresiones de sus medidas en la misma agregación. {@code total(m)} vuelve
+     * a agregar {@code m} sobre todas las filas del resultado con una ventana vacía,
+     * {@code SUM(SUM(m)) OVER ()}, que el motor evalúa después del {@code GROUP BY} sin otra lectura.
+     */
+    private String buildCalculatedColumn(CalculatedMeasure measure) {
+        return measure.toSql(reference -> reference.total()
+            ? reaggregateFunction(reference.aggregate()) + "(" + buildAggregateExpression(reference.aggregate())
+                + ") OVER ()"
+            : buildAggregateExpression(reference.aggregate())) + " AS " + measure.getName();
+    }
+
+    private List<Aggregate> aggregatesOf(List<String> measures) {
+        return measures.stream().map(Aggregate::parse).toList();
+    }
     
-    private String buildWhereClause(Map<String, String> filters) {
-        return filters.entrySet().stream()
-            .map(entry -> entry.getKey() + " = '" + sanitizeValue(entry.getValue()) + "'")
-            .collect(Collectors.joining(" AND "));
+    private String buildWhereClause(FilterShape filters) {
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < filters.keys().size(); i++) {
+            conditions.add(filters.keys().get(i) + " = :" + PARAMETER_PREFIX + i);
+        }
+        if (filters.exclusion() != null) {
+            String column = filters.exclusion().column();
+            conditions.add("(" + column + " IS NULL OR " + column + " NOT IN (" + IntStream
+                .range(0, filters.exclusion().size())
+                .mapToObj(i -> ":" + EXCLUDED_PREFIX + i)
+                .collect(Collectors.joining(", ")) + "))");
+        }
+        return String.join(" AND ", conditions);
+    }
+    
+    private Map<String, Object> bindParameters(Map<String, String> filters, CubeQuery cubeQuery) {
+        Map<String, Object> parameters = bindFilterValues(filters);
+        cubeQuery.getExclusion().ifPresent(exclusion -> {
+            for (int i = 0; i < exclusion.values().size(); i++) {
+                parameters.put(EXCLUDED_PREFIX + i, exclusion.values().get(i));
+            }
+        });
+        cubeQuery.getPage().ifPresent(page -> {
+            if (page.after() != null) {
+                for (int i = 0; i < page.after().size(); i++) {
+                    if (page.after().get(i) != null) {
+                        parameters.put(CURSOR_PREFIX + i, page.after().get(i));
+                    }
+                }
+            }
+            if (PageShape.of(page).limited()) {
+                parameters.put(LIMIT_PARAMETER, page.limit());
+            }
+        });
+        return parameters;
+    }
+
+    private Map<String, Object> bindFilterValues(Map<String, String> filters) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        int index = 0;
+        for (String value : filters.values()) {
+            parameters.put(PARAMETER_PREFIX + index++, value);
+        }
+        return parameters;
     }
     
     private String buildGroupByClause(List<String> dimensions) {
         return String.join(", ", dimensions);
     }
     
-    private String sanitizeValue(String value) {
-        return value.replace("'", "''"); // Escape single quotes
+    /**
+     * Conjuntos de agrupación pedidos: {@code rollup} (prefijos de las dimensiones en el orden pedido),
+     * {@code cube} (todas las combinaciones) o conjuntos explícitos separados por {@value #GROUPING_SET_SEPARATOR}.
+     * Cada conjunto se normaliza ordenado, como las dimensiones.
+     */
+    private List<List<String>> parseGroupingSets(String grouping, List<String> requestedDimensions) {
+        if (grouping == null || grouping.isBlank()) {
+            return List.of();
+        }
+        List<String> dimensions = requestedDimensions.stream().distinct().toList();
+        String spec = grouping.trim();
+        List<List<String>> sets;
+        if (ROLLUP.equalsIgnoreCase(spec)) {
+            sets = rollupSets(dimensions);
+        } else if (CUBE.equalsIgnoreCase(spec)) {
+            sets = cubeSets(dimensions);
+        } else {
+            sets = explicitSets(spec);
+        }
+        validateGroupingSetCount(sets.size());
+        return sets;
     }
-    
-    private void validateSqlQuery(String sql) {
-        if (sql == null || sql.trim().isEmpty()) {
+
+    private List<List<String>> rollupSets(List<String> dimensions) {
+        List<List<String>> sets = new ArrayList<>();
+        for (int size = dimensions.size(); size >= 0; size--) {
+            sets.add(dimensions.subList(0, size).stream().sorted().toList());
+        }
+        return sets;
+    }
+
+    private List<List<String>> cubeSets(List<String> dimensions) {
+        validateGroupingSetCount(1L << Math.min(dimensions.size(), Long.SIZE - 2));
+        List<List<String>> sets = new ArrayList<>();
+        for (int mask = (1 << dimensions.size()) - 1; mask >= 0; mask--) {
+            int bits = mask;
+            sets.add(IntStream.range(0, dimensions.size())
+                .filter(i -> (bits & (1 << (dimensions.size() - 1 - i))) != 0)
+                .mapToObj(dimensions::get)
+                .sorted()
+                .toList());
+        }
+        return sets;
+    }
+
+    private List<List<String>> explicitSets(String spec) {
+        return Arrays.stream(spec.split(GROUPING_SET_SEPARATOR, -1))
+            .map(String::trim)
+            .map(set -> GRAND_TOTAL_SET.equals(set)
+                ? List.<String>of()
+                : splitAndTrim(set).stream().sorted().distinct().toList())
+            .distinct()
+            .toList();
+    }
+
+    /**
+     * Ordenación pedida ({@code columna[:asc|desc]} separadas por comas) completada con las dimensiones
+     * que no aparecen, en orden ascendente, para que cada fila tenga una posición única.
+     */
+    private CubeQuery.Page parsePage(QueryRequest request, CubeQuery cubeQuery) {
+        if (cubeQuery.hasGroupingSets()) {
+            throw new IllegalArgumentException("sort, limit y cursor no se pueden combinar con grouping");
+        }
+        List<CubeQuery.SortKey> ordering = new ArrayList<>();
+        Set<String> sorted = new HashSet<>();
+        for (String spec : splitAndTrim(request.getSort())) {
+            CubeQuery.SortKey key = parseSortKey(spec);
+            if (!sorted.add(key.column())) {
+                throw new IllegalArgumentException("Columna de ordenación duplicada: " + key.column());
+            }
+            ordering.add(key);
+        }
+        for (String dimension : cubeQuery.getDimensions()) {
+            if (sorted.add(dimension)) {
+                ordering.add(new CubeQuery.SortKey(dimension, false));
+            }
+        }
+
+        int limit = validateLimit(request.getLimit());
+        List<Object> after = null;
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            if (limit == 0) {
+                throw new IllegalArgumentException("El cursor requiere limit");
+            }
+            after = PageCursor.decode(request.getCursor(), ordering);
+        }
+        return new CubeQuery.Page(ordering, limit, after);
+    }
+
+    private CubeQuery.SortKey parseSortKey(String spec) {
+        String[] parts = spec.split(SORT_SEPARATOR, 2);
+        String direction = parts.length > 1 ? parts[1].trim() : ASCENDING;
+        if (!ASCENDING.equalsIgnoreCase(direction) && !DESCENDING.equalsIgnoreCase(direction)) {
+            throw new IllegalArgumentException("Dirección de ordenación no soportada: " + direction);
+        }
+        return new CubeQuery.SortKey(parts[0].trim(), DESCENDING.equalsIgnoreCase(direction));
+    }
+
+    private int validateLimit(Integer limit) {
+        if (limit == null) {
+            return 0;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_PAGE_SIZE + ", recibido: " + limit);
+        }
+        return limit;
+    }
+
+    private void validateGroupingSetCount(long count) {
+        if (count > MAX_GROUPING_SETS) {
+            throw new IllegalArgumentException(
+                "Máximo " + MAX_GROUPING_SETS + " conjuntos de agrupación permitidos, recibidos: " + count);
+        }
+    }
+
+    private void validateRequest(QueryRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("La petición de consulta no puede ser nula");
+        }
+    }
+
+    private void validateQuery(Query query) {
+        if (query == null) {
             throw new IllegalArgumentException("Consulta SQL no puede ser nula o vacía");
         }
     }
@@ -129,10 +849,15 @@ public class OlapService {
                 .filter(arr -> arr.length == 2)
                 .collect(Collectors.toMap(
                     arr -> arr[0].trim(), 
-                    arr -> arr[1].trim()
+                    arr -> arr[1].trim(),
+                    (first, second) -> {
+                        throw new IllegalArgumentException("Filtros duplicados no permitidos");
+                    },
+                    TreeMap::new
                 ));
         
         validateFilterCount(filterMap);
+        validateColumns(List.copyOf(filterMap.keySet()));
         return filterMap;
     }
     
@@ -143,8 +868,17 @@ public class OlapService {
         }
     }
 
+    /**
+     * Las columnas se concatenan al SQL, así que además de estar permitidas deben ser identificadores,
+     * también cuando no hay lista de columnas permitidas.
+     */
     private void validateColumns(List<String> columns) {
-        if (columns.isEmpty() || allowedColumns.isEmpty()) {
+        for (String column : columns) {
+            if (!COLUMN_NAME.matcher(column).matches()) {
+                throw new IllegalArgumentException("Nombre de columna no válido: " + column);
+            }
+        }
+        if (allowedColumns.isEmpty()) {
             return;
         }
         
@@ -154,4 +888,44 @@ public class OlapService {
             }
         }
     }
+
+    /**
+     * Forma de una consulta: todo lo que determina el texto SQL salvo los valores de los filtros.
+     */
+    private record QueryShape(String source, List<String> dimensions, List<String> measures,
+                              FilterShape filters, List<List<String>> groupingSets, PageShape page,
+                              List<CalculatedMeasure> calculated) {
+    }
+
+    /**
+     * Columnas con filtro de igualdad y, si la hay, la exclusión de valores de una columna; de la
+     * exclusión solo importa al texto SQL cuántos valores tiene.
+     */
+    private record FilterShape(List<String> keys, ExclusionShape exclusion) {
+    }
+
+    private record ExclusionShape(String column, int size) {
+
+        static ExclusionShape of(CubeQuery.Exclusion exclusion) {
+            return new ExclusionShape(exclusion.column(), exclusion.values().size());
+        }
+    }
+
+    /**
+     * Lo que una página aporta al texto SQL: la ordenación, si hay límite y qué valores del cursor son
+     * nulos ({@code afterNulls} es null en la primera página). El límite solo se aplica si hay orden:
+     * sin dimensiones ni ordenación la respuesta es una sola fila.
+     */
+    private record PageShape(List<CubeQuery.SortKey> ordering, boolean limited, List<Boolean> afterNulls) {
+
+        static PageShape of(CubeQuery.Page page) {
+            List<Boolean> afterNulls = page.after() != null
+                ? page.after().stream().map(value -> value == null).toList()
+                : null;
+            return new PageShape(page.ordering(), page.isLimited() && !page.ordering().isEmpty(), afterNulls);
+        }
+    }
+
+    private record SqlSyntax(GroupingSetsSyntax grouping, LimitSyntax limit, AggregateSyntax aggregates) {
+    }
 }
\ No newline at end of file
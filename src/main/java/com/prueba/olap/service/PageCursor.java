@@ -0,0 +1,110 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.CubeQuery;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cursor de paginación por clave (keyset): valores de la ordenación de la última fila devuelta,
+ * codificados en un texto opaco. Lleva una huella de la ordenación para rechazarlo si se usa con
+ * otra consulta, donde esos valores no significarían nada.
+ */
+final class PageCursor {
+
+    private static final String SEPARATOR = ".";
+    private static final char NULL_TYPE = 'n';
+    private static final char STRING_TYPE = 's';
+    private static final char INTEGER_TYPE = 'i';
+    private static final char DECIMAL_TYPE = 'd';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PageCursor() {
+    }
+
+    static String encode(List<CubeQuery.SortKey> ordering, List<Object> values) {
+        List<String> parts = new ArrayList<>();
+        parts.add(fingerprint(ordering));
+        for (Object value : values) {
+            parts.add(encodeValue(value));
+        }
+        return ENCODER.encodeToString(String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Valores de la ordenación, en su orden; pueden ser nulos
+     * @throws IllegalArgumentException Si el cursor está mal formado o es de otra ordenación
+     */
+    static List<Object> decode(String cursor, List<CubeQuery.SortKey> ordering) {
+        String[] parts;
+        try {
+            parts = new String(DECODER.decode(cursor.trim()), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        if (parts.length != ordering.size() + 1 || !parts[0].equals(fingerprint(ordering))) {
+            throw new IllegalArgumentException("El cursor no corresponde a esta consulta");
+        }
+        List<Object> values = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            values.add(decodeValue(parts[i]));
+        }
+        return values;
+    }
+
+    private static String fingerprint(List<CubeQuery.SortKey> ordering) {
+        String spec = ordering.stream()
+            .map(key -> key.column() + (key.descending() ? ":desc" : ":asc"))
+            .collect(Collectors.joining(","));
+        return Integer.toHexString(spec.hashCode());
+    }
+
+    /**
+     * Cada valor es su tipo y su texto en Base64, para que el separador no pueda aparecer dentro.
+     * Los enteros se conservan como {@code Long} y el resto de números como {@code BigDecimal}.
+     */
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return String.valueOf(NULL_TYPE);
+        }
+        char type;
+        String text;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+            type = INTEGER_TYPE;
+            text = value.toString();
+        } else if (value instanceof Number number) {
+            type = DECIMAL_TYPE;
+            text = new BigDecimal(number.toString()).toPlainString();
+        } else {
+            type = STRING_TYPE;
+            text = value.toString();
+        }
+        return type + ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object decodeValue(String part) {
+        if (part.isEmpty()) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        char type = part.charAt(0);
+        if (type == NULL_TYPE && part.length() == 1) {
+            return null;
+        }
+        try {
+            String text = new String(DECODER.decode(part.substring(1)), StandardCharsets.UTF_8);
+            return switch (type) {
+                case STRING_TYPE -> text;
+                case INTEGER_TYPE -> Long.valueOf(text);
+                case DECIMAL_TYPE -> new BigDecimal(text);
+                default -> throw new IllegalArgumentException("Cursor inválido");
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
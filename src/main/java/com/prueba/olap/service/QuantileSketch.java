@@ -0,0 +1,188 @@
+package com.prueba.olap.service;
+
+/**
+ * Resumen para percentiles aproximados con error relativo acotado (al estilo de DDSketch): cada valor
+ * cuenta en un intervalo logarítmico de anchura relativa 2 %, así que el percentil devuelto difiere
+ * del real en menos de un 1 % de su valor, sea cual sea la distribución. Ocupa como mucho
+ * {@value #MAX_BUCKETS} contadores por signo y, como los contadores se suman, dos resúmenes se fusionan
+ * sin perder precisión: los parciales de cada tramo o partición se combinan al final.
+ * <p>
+ * No es seguro para uso concurrente: cada hilo acumula su propio resumen y después se fusionan.
+ */
+public final class QuantileSketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_INDEXABLE = Double.MIN_NORMAL * GAMMA;
+    private static final int MAX_BUCKETS = 2048;
+
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    /**
+     * Incorpora los valores de otro resumen, como si se hubieran añadido a este.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        positive.addAll(other.positive);
+        negative.addAll(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Valor aproximado del percentil {@code quantile} (0-1); {@code NaN} si el resumen está vacío.
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 1: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = quantile * (count - 1);
+        long seen = 0;
+        for (int index = negative.highest; index >= negative.lowest; index--) {
+            seen += negative.countAt(index);
+            if (seen > rank) {
+                return -value(index);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int index = positive.lowest; index <= positive.highest; index++) {
+            seen += positive.countAt(index);
+            if (seen > rank) {
+                return value(index);
+            }
+        }
+        return value(positive.highest);
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /**
+     * Representante del intervalo {@code (γ^(i-1), γ^i]}: su error relativo respecto a cualquier valor del
+     * intervalo es como mucho {@value #RELATIVE_ACCURACY}.
+     */
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{" +
+               "count=" + count +
+               ", median=" + quantile(0.5) +
+               '}';
+    }
+
+    /**
+     * Contadores por índice de intervalo en un array con desplazamiento. Si el rango de índices supera
+     * {@value #MAX_BUCKETS}, los intervalos más bajos (valores más cercanos a cero) se acumulan en el
+     * menor que se conserva: la precisión se pierde solo en el extremo menos significativo.
+     */
+    private static final class Buckets {
+
+        private long[] counts = new long[0];
+        private int offset;
+        private int lowest = Integer.MAX_VALUE;
+        private int highest = Integer.MIN_VALUE;
+
+        void add(int index, long amount) {
+            int target = index;
+            if (highest != Integer.MIN_VALUE && target <= highest - MAX_BUCKETS) {
+                target = highest - MAX_BUCKETS + 1;
+            }
+            if (lowest != Integer.MAX_VALUE && target - lowest >= MAX_BUCKETS) {
+                collapseBelow(target - MAX_BUCKETS + 1);
+            }
+            ensureRange(target);
+            counts[target - offset] += amount;
+            lowest = Math.min(lowest, target);
+            highest = Math.max(highest, target);
+        }
+
+        void addAll(Buckets other) {
+            for (int index = other.lowest; index <= other.highest; index++) {
+                long amount = other.countAt(index);
+                if (amount > 0) {
+                    add(index, amount);
+                }
+            }
+        }
+
+        long countAt(int index) {
+            return counts[index - offset];
+        }
+
+        private void collapseBelow(int newLowest) {
+            long collapsed = 0;
+            for (int index = lowest; index < newLowest && index <= highest; index++) {
+                collapsed += counts[index - offset];
+                counts[index - offset] = 0;
+            }
+            if (newLowest > highest) {
+                lowest = Integer.MAX_VALUE;
+                highest = Integer.MIN_VALUE;
+                ensureRange(newLowest);
+                lowest = newLowest;
+                highest = newLowest;
+            } else {
+                lowest = newLowest;
+            }
+            counts[newLowest - offset] += collapsed;
+        }
+
+        /**
+         * Amplía el array para que quepa {@code index}, dejando holgura hacia el lado por el que crece.
+         */
+        private void ensureRange(int index) {
+            if (index >= offset && index < offset + counts.length) {
+                return;
+            }
+            boolean empty = lowest > highest;
+            int from = empty ? index : Math.min(lowest, index);
+            int to = empty ? index : Math.max(highest, index);
+            int span = to - from + 1;
+            int length = Math.max(span + span / 2, 64);
+            int newOffset;
+            if (empty) {
+                newOffset = index - length / 2;
+            } else {
+                newOffset = index == from ? to - length + 1 : from;
+            }
+            long[] resized = new long[length];
+            if (!empty) {
+                System.arraycopy(counts, lowest - offset, resized, lowest - newOffset, highest - lowest + 1);
+            }
+            counts = resized;
+            offset = newOffset;
+        }
+    }
+}
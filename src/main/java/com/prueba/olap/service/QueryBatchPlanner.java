@@ -0,0 +1,157 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.QueryRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Planifica un lote de consultas agregadas para que compartan lecturas del cubo.
+ * Las consultas sin subtotales y con los mismos filtros se fusionan en una sola: si agrupan por las
+ * mismas dimensiones basta la unión de sus medidas; si no, cada conjunto de dimensiones es un
+ * conjunto de agrupación de una consulta GROUPING SETS y cada consulta recupera sus filas por
+ * {@value CubeQuery#GROUPING_ID_COLUMN}. Las consultas con subtotales o paginadas se ejecutan solas.
+ * Una consulta inválida no impide planificar las demás.
+ */
+public class QueryBatchPlanner {
+
+    public static final int MAX_BATCH_SIZE = 50;
+
+    private static final String FILTER_SEPARATOR = "|";
+    private static final String KEY_VALUE_SEPARATOR = ":";
+    private static final String GROUPING_SET_SEPARATOR = ";";
+    private static final String GRAND_TOTAL_SET = "()";
+
+    private final OlapService olapService;
+
+    public QueryBatchPlanner(OlapService olapService) {
+        if (olapService == null) {
+            throw new IllegalArgumentException("Servicio OLAP no puede ser nulo");
+        }
+        this.olapService = olapService;
+    }
+
+    /**
+     * @param requests Consultas del lote, identificadas después por su posición
+     * @return Lecturas a ejecutar y errores de las consultas que no se pudieron construir
+     */
+    public BatchPlan plan(List<QueryRequest> requests) {
+        validateRequests(requests);
+        Map<Integer, RuntimeException> failures = new LinkedHashMap<>();
+        Map<Map<String, String>, List<Integer>> mergeable = new LinkedHashMap<>();
+        Map<Integer, Query> itemQueries = new LinkedHashMap<>();
+        List<BatchScan> scans = new ArrayList<>();
+
+        for (int index = 0; index < requests.size(); index++) {
+            try {
+                validateRequest(requests.get(index));
+                Query query = olapService.buildQuery(requests.get(index));
+                CubeQuery cubeQuery = query.getCubeQuery().orElseThrow();
+                itemQueries.put(index, query);
+                if (cubeQuery.hasGroupingSets() || cubeQuery.getPage().isPresent()) {
+                    scans.add(single(index, query));
+                } else {
+                    mergeable.computeIfAbsent(cubeQuery.getFilters(), filters -> new ArrayList<>()).add(index);
+                }
+            } catch (RuntimeException e) {
+                failures.put(index, e);
+            }
+        }
+
+        for (List<Integer> group : mergeable.values()) {
+            scans.addAll(mergeGroup(group, itemQueries));
+        }
+        return new BatchPlan(scans, failures);
+    }
+
+    /**
+     * Una lectura para todo el grupo o, si la consulta fusionada no se puede construir
+     * (p. ej. demasiados conjuntos de agrupación), una por consulta.
+     */
+    private List<BatchScan> mergeGroup(List<Integer> group, Map<Integer, Query> itemQueries) {
+        if (group.size() > 1) {
+            try {
+                return List.of(merge(group, itemQueries));
+            } catch (IllegalArgumentException e) {
+                // Cada consulta ya es válida por separado
+            }
+        }
+        return group.stream().map(index -> single(index, itemQueries.get(index))).toList();
+    }
+
+    private BatchScan single(int index, Query query) {
+        List<String> columns = query.getCubeQuery().orElseThrow().getColumns();
+        return new BatchScan(query, List.of(new BatchScan.Member(index, query, BatchScan.ALL_ROWS, columns)));
+    }
+
+    private BatchScan merge(List<Integer> group, Map<Integer, Query> itemQueries) {
+        Set<String> dimensions = new TreeSet<>();
+        Set<String> measures = new TreeSet<>();
+        Set<List<String>> dimensionSets = new LinkedHashSet<>();
+        for (int index : group) {
+            CubeQuery cubeQuery = itemQueries.get(index).getCubeQuery().orElseThrow();
+            dimensions.addAll(cubeQuery.getDimensions());
+            measures.addAll(cubeQuery.getMeasures());
+            cubeQuery.getCalculatedMeasures().forEach(measure -> measures.add(measure.getName()));
+            dimensionSets.add(cubeQuery.getDimensions());
+        }
+        CubeQuery first = itemQueries.get(group.get(0)).getCubeQuery().orElseThrow();
+        QueryRequest merged = new QueryRequest(String.join(",", dimensions), String.join(",", measures),
+            formatFilters(first.getFilters()));
+        if (dimensionSets.size() > 1) {
+            merged = merged.withGrouping(formatGroupingSets(dimensionSets));
+        }
+
+        Query query = olapService.buildQuery(merged);
+        CubeQuery mergedCube = query.getCubeQuery().orElseThrow();
+        List<BatchScan.Member> members = new ArrayList<>();
+        for (int index : group) {
+            CubeQuery cubeQuery = itemQueries.get(index).getCubeQuery().orElseThrow();
+            int groupingId = mergedCube.hasGroupingSets()
+                ? mergedCube.groupingId(cubeQuery.getDimensions())
+                : BatchScan.ALL_ROWS;
+            members.add(new BatchScan.Member(index, itemQueries.get(index), groupingId, cubeQuery.getColumns()));
+        }
+        return new BatchScan(query, members);
+    }
+
+    private String formatFilters(Map<String, String> filters) {
+        return filters.entrySet().stream()
+            .map(filter -> filter.getKey() + KEY_VALUE_SEPARATOR + filter.getValue())
+            .collect(Collectors.joining(FILTER_SEPARATOR));
+    }
+
+    private String formatGroupingSets(Set<List<String>> sets) {
+        return sets.stream()
+            .map(set -> set.isEmpty() ? GRAND_TOTAL_SET : String.join(",", set))
+            .collect(Collectors.joining(GROUPING_SET_SEPARATOR));
+    }
+
+    private void validateRequest(QueryRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("La petición de consulta no puede ser nula");
+        }
+        if ((request.getDimensions() == null || request.getDimensions().isBlank()) &&
+            (request.getMeasures() == null || request.getMeasures().isBlank())) {
+            throw new IllegalArgumentException("Debe especificar al menos dimensiones o medidas");
+        }
+    }
+
+    private void validateRequests(List<QueryRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos una consulta");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                "Máximo " + MAX_BATCH_SIZE + " consultas por lote, recibidas: " + requests.size());
+        }
+    }
+}
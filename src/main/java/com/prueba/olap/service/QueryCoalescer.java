@@ -0,0 +1,87 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa consultas idénticas en curso (single-flight): mientras una consulta está en ejecución,
+ * las peticiones con la misma {@link Query} se suscriben a esa misma ejecución en lugar de
+ * lanzar otra llamada al backend. Si todos los suscriptores cancelan, se cancela la ejecución.
+ */
+public class QueryCoalescer {
+
+    private final ConcurrentMap<Query, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Ejecuta la llamada o se une a una ejecución idéntica que ya esté en curso.
+     *
+     * @param query Consulta que identifica la ejecución
+     * @param call Llamada al backend; solo se suscribe si no hay otra en curso
+     * @return Respuesta compartida por todos los suscriptores de la misma consulta
+     */
+    public Mono<AggregationResponse> execute(Query query, Supplier<Mono<AggregationResponse>> call) {
+        validateParameters(query, call);
+        return Mono.defer(() -> {
+            Flight flight = new Flight(query, call);
+            Flight existing = inFlight.putIfAbsent(query, flight);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                return existing.result;
+            }
+            executed.incrementAndGet();
+            return flight.result;
+        });
+    }
+
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Llamadas al backend ahorradas por unirse a una ejecución en curso.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void validateParameters(Query query, Supplier<Mono<AggregationResponse>> call) {
+        if (query == null) {
+            throw new IllegalArgumentException("Consulta no puede ser nula");
+        }
+        if (call == null) {
+            throw new IllegalArgumentException("Llamada al backend no puede ser nula");
+        }
+    }
+
+    /**
+     * Ejecución compartida: se conecta con el primer suscriptor, se desconecta (cancelando
+     * la llamada) cuando se va el último y abandona el mapa al terminar o cancelarse.
+     */
+    private final class Flight {
+
+        private final Mono<AggregationResponse> result;
+
+        private Flight(Query query, Supplier<Mono<AggregationResponse>> call) {
+            Runnable leave = () -> inFlight.remove(query, this);
+            this.result = Mono.defer(call)
+                .doOnTerminate(leave)
+                .doOnCancel(leave)
+                .flux()
+                .publish()
+                .refCount(1)
+                .next();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.prueba.olap.service;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor acotado para las llamadas bloqueantes a los puertos OLAP.
+ * Saca el trabajo JDBC/XMLA del event loop y aplica control de admisión:
+ * como máximo {@code maxConcurrency} consultas activas y {@code queueCapacity} en espera;
+ * por encima de ese límite rechaza inmediatamente con {@link RejectedExecutionException}.
+ */
+public class QueryExecutor implements AutoCloseable {
+
+    private static final int THREAD_TTL_SECONDS = 60;
+
+    private final Scheduler scheduler;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public QueryExecutor(ThreadFactory threadFactory, int maxConcurrency, int queueCapacity) {
+        validateParameters(threadFactory, maxConcurrency, queueCapacity);
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.scheduler = Schedulers.newBoundedElastic(
+            maxConcurrency, Math.max(queueCapacity, 1), threadFactory, THREAD_TTL_SECONDS);
+    }
+
+    /**
+     * Pool elástico acotado sobre hilos de plataforma.
+     */
+    public static QueryExecutor boundedElastic(int maxConcurrency, int queueCapacity) {
+        ThreadFactory factory = Thread.ofPlatform().name("olap-query-", 0).daemon(true).factory();
+        return new QueryExecutor(factory, maxConcurrency, queueCapacity);
+    }
+
+    /**
+     * Un hilo virtual por consulta, con el mismo límite de concurrencia y de cola.
+     */
+    public static QueryExecutor virtualThreads(int maxConcurrency, int queueCapacity) {
+        ThreadFactory factory = Thread.ofVirtual().name("olap-vquery-", 0).factory();
+        return new QueryExecutor(factory, maxConcurrency, queueCapacity);
+    }
+
+    /**
+     * Ejecuta una tarea bloqueante en el ejecutor y publica su resultado. Si la petición lleva un
+     * {@link QueryTrace}, registra la espera en cola ({@value QueryTrace#QUEUE_STAGE}) y la tarea lo ve
+     * en {@link QueryTrace#current()}. Cancelar no libera la plaza mientras la tarea se ejecuta.
+     */
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.deferContextual(context -> {
+            if (!tryAdmit()) {
+                return Mono.error(rejection());
+            }
+            Slot slot = new Slot();
+            QueryTrace trace = QueryTrace.from(context).orElse(null);
+            long queuedAt = System.nanoTime();
+            return Mono.fromCallable(() -> {
+                    if (!slot.start()) {
+                        return null;
+                    }
+                    try {
+                        return runActive(task, trace, queuedAt);
+                    } finally {
+                        slot.finish();
+                    }
+                })
+                .subscribeOn(scheduler)
+                .doOnCancel(slot::abandon)
+                .doOnError(error -> slot.abandon());
+        });
+    }
+
+    /**
+     * Suscribe un flujo bloqueante en el ejecutor; la consulta cuenta como activa
+     * hasta que el flujo termina o se cancela. Si se cancela mientras el motor ejecuta la sentencia,
+     * la plaza se libera cuando la fuente termina de abrirse y recibe la cancelación.
+     */
+    public <T> Flux<T> stream(Supplier<? extends Publisher<T>> source) {
+        return Flux.deferContextual(context -> {
+            if (!tryAdmit()) {
+                return Flux.<T>error(rejection());
+            }
+            Slot slot = new Slot();
+            long queuedAt = System.nanoTime();
+            return Flux.defer(() -> {
+                    if (!slot.start()) {
+                        return Flux.<T>empty();
+                    }
+                    QueryTrace.from(context).ifPresent(trace -> recordQueueWait(trace, queuedAt));
+                    active.incrementAndGet();
+                    Runnable deactivate = releaseOnce(active);
+                    Publisher<T> publisher;
+                    try {
+                        publisher = source.get();
+                    } catch (RuntimeException e) {
+                        deactivate.run();
+                        slot.finish();
+                        throw e;
+                    }
+                    Runnable done = () -> {
+                        deactivate.run();
+                        slot.finish();
+                    };
+                    return Flux.from(publisher).doOnTerminate(done).doOnCancel(done);
+                })
+                .subscribeOn(scheduler)
+                .doOnCancel(slot::abandon)
+                .doOnError(error -> slot.abandon());
+        });
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getQueueDepth() {
+        return Math.max(inFlight.get() - active.get(), 0);
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public void close() {
+        scheduler.dispose();
+    }
+
+    private boolean tryAdmit() {
+        if (inFlight.incrementAndGet() > maxConcurrency + queueCapacity) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private Runnable releaseOnce(AtomicInteger counter) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                counter.decrementAndGet();
+            }
+        };
+    }
+
+    private <T> T runActive(Callable<T> task, QueryTrace trace, long queuedAt) throws Exception {
+        if (trace != null) {
+            recordQueueWait(trace, queuedAt);
+        }
+        active.incrementAndGet();
+        try {
+            return QueryTrace.callWith(trace, task);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private void recordQueueWait(QueryTrace trace, long queuedAt) {
+        trace.record(QueryTrace.QUEUE_STAGE, System.nanoTime() - queuedAt);
+    }
+
+    /**
+     * Plaza admitida en el ejecutor. Se libera cuando termina el trabajo bloqueante, no cuando el cliente
+     * cancela: una sentencia JDBC en curso sigue ocupando su conexión aunque nadie espere el resultado.
+     * Si se cancela o falla antes de empezar, la tarea ya no se ejecuta y la plaza se libera entonces.
+     */
+    private final class Slot {
+
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Runnable release = releaseOnce(inFlight);
+
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        void finish() {
+            release.run();
+        }
+
+        void abandon() {
+            if (start()) {
+                release.run();
+            }
+        }
+    }
+
+    private RejectedExecutionException rejection() {
+        return new RejectedExecutionException(
+            "Capacidad de consultas agotada: " + maxConcurrency + " activas y " + queueCapacity + " en cola");
+    }
+
+    private void validateParameters(ThreadFactory threadFactory, int maxConcurrency, int queueCapacity) {
+        if (threadFactory == null) {
+            throw new IllegalArgumentException("ThreadFactory no puede ser nulo");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("La concurrencia máxima debe ser mayor que cero");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("La capacidad de la cola no puede ser negativa");
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Aggregate;
+import com.prueba.olap.domain.entity.CalculatedMeasure;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Métricas por etapa de una consulta OLAP (construcción, puerto, mapeo de filas, fetch/parse XMLA,
+ * serialización): un timer {@value #STAGE_TIMER} y un resumen de filas {@value #ROWS_SUMMARY},
+ * etiquetados con etapa, cubo, adaptador, forma de la consulta y resultado.
+ * <p>
+ * La forma es el conjunto de columnas (dimensiones y medidas) en minúsculas y ordenado, de modo que
+ * coincide en todas las etapas aunque el motor devuelva las etiquetas en mayúsculas.
+ * La aplicación registra una instancia sobre el {@link MeterRegistry} de Spring Boot y cada adaptador
+ * la copia con sus etiquetas ({@link #withTags(String, String)}). Cada etapa medida se suma además al
+ * {@link QueryTrace} de la petición, de donde salen la cabecera {@code Server-Timing} y el desglose de
+ * {@code explain=true}, y, con {@link #withFlightRecorder(boolean)}, se emite como evento de Java
+ * Flight Recorder.
+ */
+public final class QueryMetrics {
+
+    public static final String STAGE_TIMER = "olap.query.stage";
+    public static final String ROWS_SUMMARY = "olap.query.rows";
+    public static final String RAW_SHAPE = "raw";
+
+    static final String SUCCESS = "success";
+    static final String ERROR = "error";
+    static final String CANCELLED = "cancelled";
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final String cube;
+    private final String adapter;
+    private final boolean flightRecorderEnabled;
+
+    public QueryMetrics(MeterRegistry registry, String cube, String adapter) {
+        if (registry == null) {
+            throw new IllegalArgumentException("MeterRegistry no puede ser nulo");
+        }
+        this.registry = registry;
+        this.cube = cube != null && !cube.isBlank() ? cube : NONE;
+        this.adapter = adapter != null && !adapter.isBlank() ? adapter : NONE;
+        this.flightRecorderEnabled = false;
+    }
+
+    private QueryMetrics(QueryMetrics metrics, boolean flightRecorderEnabled) {
+        this.registry = metrics.registry;
+        this.cube = metrics.cube;
+        this.adapter = metrics.adapter;
+        this.flightRecorderEnabled = flightRecorderEnabled;
+    }
+
+    /**
+     * Métricas que no publican en ningún registro, para los componentes creados sin ellas. Las etapas
+     * se siguen sumando al {@link QueryTrace} de la petición.
+     */
+    public static QueryMetrics disabled() {
+        return new QueryMetrics(new CompositeMeterRegistry(), null, null);
+    }
+
+    /**
+     * Copia que publica en el mismo registro con otro cubo y adaptador.
+     */
+    public QueryMetrics withTags(String cube, String adapter) {
+        return new QueryMetrics(new QueryMetrics(registry, cube, adapter), flightRecorderEnabled);
+    }
+
+    /**
+     * Copia que emite, o no, un evento {@link QueryStageEvent} de Java Flight Recorder por etapa.
+     * Desactivados, cada etapa no paga nada más.
+     */
+    public QueryMetrics withFlightRecorder(boolean enabled) {
+        return new QueryMetrics(this, enabled);
+    }
+
+    public boolean isFlightRecorderEnabled() {
+        return flightRecorderEnabled;
+    }
+
+    /**
+     * Mide una etapa síncrona. Si el resultado es una respuesta o una colección, registra también sus filas.
+     * La duración se suma al {@link QueryTrace#current() perfil del hilo}, si lo hay.
+     */
+    public <T> T time(String stage, String shape, Supplier<T> action) {
+        return time(new StageKey(stage, shape, null), action);
+    }
+
+    /**
+     * Como {@link #time(String, String, Supplier)}, con la forma y el hash del SQL/MDX de la consulta.
+     */
+    public <T> T time(String stage, Query query, Supplier<T> action) {
+        return time(StageKey.of(stage, query), action);
+    }
+
+    /**
+     * Mide un flujo desde la suscripción hasta que termina, falla o se cancela; cada elemento cuenta como una fila.
+     * La duración se suma al {@link QueryTrace} del contexto de Reactor, si lo hay.
+     */
+    public <T> Flux<T> time(String stage, String shape, Flux<T> source) {
+        return time(new StageKey(stage, shape, null), source);
+    }
+
+    public <T> Flux<T> time(String stage, Query query, Flux<T> source) {
+        return time(StageKey.of(stage, query), source);
+    }
+
+    /**
+     * Mide una publicación de un único valor desde la suscripción hasta su resultado. El resultado se
+     * registra al llegar el valor: la cancelación que algunos operadores envían después no cuenta.
+     */
+    public <T> Mono<T> time(String stage, String shape, Mono<T> source) {
+        return time(new StageKey(stage, shape, null), source);
+    }
+
+    public <T> Mono<T> time(String stage, Query query, Mono<T> source) {
+        return time(StageKey.of(stage, query), source);
+    }
+
+    public static String shapeOf(Query query) {
+        if (query == null) {
+            return RAW_SHAPE;
+        }
+        return query.getCubeQuery()
+            .map(cubeQuery -> shapeOf(Stream.of(
+                    cubeQuery.getDimensions().stream(),
+                    cubeQuery.getAggregates().stream().map(Aggregate::getColumn),
+                    cubeQuery.getCalculatedMeasures().stream().map(CalculatedMeasure::getName))
+                .flatMap(columns -> columns)
+                .toList()))
+            .orElse(RAW_SHAPE);
+    }
+
+    public static String shapeOf(Collection<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return NONE;
+        }
+        return columns.stream()
+            .map(column -> column.toLowerCase(Locale.ROOT))
+            .sorted()
+            .distinct()
+            .collect(Collectors.joining(","));
+    }
+
+    public String getCube() {
+        return cube;
+    }
+
+    public String getAdapter() {
+        return adapter;
+    }
+
+    private <T> T time(StageKey key, Supplier<T> action) {
+        Stage running = new Stage(key, QueryTrace.current().orElse(null));
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            running.stop(ERROR, -1);
+            throw e;
+        }
+        running.stop(SUCCESS, rowCount(result));
+        return result;
+    }
+
+    private <T> Flux<T> time(StageKey key, Flux<T> source) {
+        return Flux.deferContextual(context -> {
+            Stage running = new Stage(key, QueryTrace.from(context).orElse(null));
+            AtomicLong rows = new AtomicLong();
+            return source.doOnNext(value -> rows.incrementAndGet())
+                .doFinally(signal -> running.stop(outcome(signal), rows.get()));
+        });
+    }
+
+    private <T> Mono<T> time(StageKey key, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            Stage running = new Stage(key, QueryTrace.from(context).orElse(null));
+            return source
+                .doOnSuccess(value -> running.stop(SUCCESS, rowCount(value)))
+                .doOnError(e -> running.stop(ERROR, -1))
+                .doOnCancel(() -> running.stop(CANCELLED, -1));
+        });
+    }
+
+    private long record(Timer.Sample sample, Tags tags, long rows) {
+        long nanos = sample.stop(Timer.builder(STAGE_TIMER)
+            .description("Duración de cada etapa de una consulta OLAP")
+            .tags(tags)
+            .register(registry));
+        if (rows >= 0) {
+            DistributionSummary.builder(ROWS_SUMMARY)
+                .description("Filas producidas por cada etapa de una consulta OLAP")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(registry)
+                .record(rows);
+        }
+        return nanos;
+    }
+
+    private Tags tags(String stage, String shape, String outcome) {
+        return Tags.of("stage", stage, "cube", cube, "adapter", adapter)
+            .and("shape", shape != null ? shape : RAW_SHAPE, "outcome", outcome);
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> SUCCESS;
+            case CANCEL -> CANCELLED;
+            default -> ERROR;
+        };
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof AggregationResponse response) {
+            return response.getRowCount();
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return -1;
+    }
+
+    /**
+     * Identifica una etapa: nombre, forma y, si se conoce, el texto SQL/MDX (solo se usa para su hash en JFR).
+     */
+    private record StageKey(String name, String shape, String statement) {
+
+        private static StageKey of(String name, Query query) {
+            return new StageKey(name, shapeOf(query), query != null ? query.getStatement() : null);
+        }
+    }
+
+    /**
+     * Una ejecución de una etapa: se detiene una sola vez, suma su duración al perfil de la petición
+     * si lo hay y, con JFR activado, emite un {@link QueryStageEvent} con las mismas etiquetas.
+     */
+    private final class Stage {
+
+        private final StageKey key;
+        private final QueryTrace trace;
+        private final QueryStageEvent event;
+        private final Timer.Sample sample = Timer.start(registry);
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        private Stage(StageKey key, QueryTrace trace) {
+            this.key = key;
+            this.trace = trace;
+            this.event = flightRecorderEnabled ? QueryStageEvent.start() : null;
+        }
+
+        private void stop(String outcome, long rows) {
+            if (!stopped.compareAndSet(false, true)) {
+                return;
+            }
+            long nanos = record(sample, tags(key.name(), key.shape(), outcome), rows);
+            if (trace != null) {
+                trace.record(key.name(), nanos);
+            }
+            if (event != null) {
+                commit(outcome, rows);
+            }
+        }
+
+        private void commit(String outcome, long rows) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = key.name();
+                event.cube = cube;
+                event.adapter = adapter;
+                event.shape = key.shape() != null ? key.shape() : RAW_SHAPE;
+                event.statementHash = key.statement() != null ? Integer.toHexString(key.statement().hashCode()) : null;
+                event.outcome = outcome;
+                event.rows = rows;
+                event.commit();
+            }
+        }
+    }
+}
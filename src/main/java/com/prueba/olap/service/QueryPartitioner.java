@@ -0,0 +1,146 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divide una consulta en particiones por los valores de una columna (p. ej. {@code Year} o {@code Region}):
+ * una subconsulta por valor, con ese valor como filtro, y otra con el resto de filas (valores nuevos o
+ * nulos), que se pueden ejecutar a la vez en conexiones distintas y combinar después en memoria. Gracias a
+ * la del resto, la lista de valores puede estar desactualizada sin que se pierdan filas.
+ * <p>
+ * Se particionan las consultas que no filtran ya por la columna, sin subtotales, página ni medidas
+ * calculadas, y que agrupan por la columna: cada grupo cae entero en una partición y basta con concatenar
+ * los resultados.
+ * <p>
+ * {@link #withMerge(boolean)} particiona además las que no agrupan por la columna y solo tienen medidas que
+ * se pueden volver a agregar (sum, count, min y max), volviendo a agregar las particiones en memoria. Allí
+ * los grupos se comparan con {@code equals}, no con la intercalación del motor: en SQL Server, que por
+ * defecto no distingue mayúsculas e ignora los espacios finales, cada partición puede devolver otro
+ * representante del mismo grupo ({@code 'EMEA'}, {@code 'emea'}) y el resultado tendría filas de más. Solo
+ * es seguro si la columna se agrupa con una intercalación binaria o los valores ya están normalizados.
+ */
+public class QueryPartitioner {
+
+    private static final String COUNT_SUFFIX = ":count";
+
+    private final OlapService olapService;
+    private final String column;
+    private final int parallelism;
+    private final boolean merge;
+    private final Query valuesQuery;
+
+    /**
+     * @param parallelism Número máximo de particiones de una consulta en ejecución a la vez
+     * @throws IllegalArgumentException Si la columna no está permitida o el paralelismo no es positivo
+     */
+    public QueryPartitioner(OlapService olapService, String column, int parallelism) {
+        validateParameters(olapService, column, parallelism);
+        this.olapService = olapService;
+        this.column = column.trim();
+        this.parallelism = parallelism;
+        this.merge = false;
+        this.valuesQuery = olapService.buildQuery(this.column, this.column + COUNT_SUFFIX, null);
+    }
+
+    private QueryPartitioner(QueryPartitioner source, boolean merge) {
+        this.olapService = source.olapService;
+        this.column = source.column;
+        this.parallelism = source.parallelism;
+        this.merge = merge;
+        this.valuesQuery = source.valuesQuery;
+    }
+
+    /**
+     * Copia que particiona también las consultas que no agrupan por la columna, volviendo a agregar sus
+     * particiones en memoria. Ver las restricciones de intercalación en la descripción de la clase.
+     */
+    public QueryPartitioner withMerge(boolean merge) {
+        return new QueryPartitioner(this, merge);
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isMerge() {
+        return merge;
+    }
+
+    /**
+     * Consulta que devuelve un grupo por cada valor de la columna de partición.
+     */
+    public Query valuesQuery() {
+        return valuesQuery;
+    }
+
+    /**
+     * Valores de partición leídos del resultado de {@link #valuesQuery()}. El nulo se omite: sus filas
+     * caen en la partición del resto.
+     */
+    public List<String> partitionValues(AggregationResponse response) {
+        List<String> values = new ArrayList<>(response.getRowCount());
+        for (AggregationRow row : response.getRows()) {
+            Object value = row.getValueAt(0);
+            if (value != null) {
+                values.add(value.toString());
+            }
+        }
+        return values;
+    }
+
+    public boolean isPartitionable(Query query) {
+        return query.getCubeQuery()
+            .filter(cubeQuery -> !cubeQuery.getFilters().containsKey(column) && cubeQuery.getExclusion().isEmpty())
+            .filter(cubeQuery -> !cubeQuery.hasGroupingSets() && cubeQuery.getPage().isEmpty())
+            .filter(cubeQuery -> cubeQuery.getCalculatedMeasures().isEmpty())
+            .filter(cubeQuery -> cubeQuery.getDimensions().contains(column) || merge && cubeQuery.getAggregates()
+                .stream().allMatch(aggregate -> aggregate.getFunction().isReaggregable()))
+            .isPresent();
+    }
+
+    /**
+     * Indica si los resultados de las particiones se deben volver a agregar por las dimensiones de la
+     * consulta; si agrupa por la columna de partición basta con concatenarlos.
+     */
+    public boolean requiresMerge(Query query) {
+        return query.getCubeQuery()
+            .map(CubeQuery::getDimensions)
+            .map(dimensions -> !dimensions.contains(column))
+            .orElse(true);
+    }
+
+    /**
+     * Una subconsulta por valor, en el mismo orden, y al final la del resto de filas.
+     */
+    public List<Query> split(Query query, List<String> values) {
+        if (!isPartitionable(query)) {
+            throw new IllegalArgumentException("La consulta no se puede particionar por " + column);
+        }
+        List<Query> partitions = new ArrayList<>(values.size() + 1);
+        values.forEach(value -> partitions.add(olapService.partition(query, column, value)));
+        partitions.add(olapService.remainder(query, column, values));
+        return partitions;
+    }
+
+    private void validateParameters(OlapService olapService, String column, int parallelism) {
+        if (olapService == null) {
+            throw new IllegalArgumentException("Servicio OLAP no puede ser nulo");
+        }
+        if (column == null || column.isBlank()) {
+            throw new IllegalArgumentException("La columna de partición no puede estar vacía");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("El paralelismo de las particiones debe ser mayor que cero");
+        }
+    }
+}
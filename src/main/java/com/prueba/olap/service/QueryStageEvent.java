@@ -0,0 +1,54 @@
+package com.prueba.olap.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Java Flight Recorder por cada etapa de una consulta OLAP medida por {@link QueryMetrics}
+ * (construcción, puerto, ejecución y mapeo JDBC, fetch/parse XMLA, serialización). En una grabación
+ * continua permite atribuir pausas de GC y zonas calientes de CPU a consultas concretas del cubo:
+ * el hilo y el intervalo del evento coinciden con los de la etapa.
+ */
+@Name(QueryStageEvent.NAME)
+@Label("OLAP Query Stage")
+@Category({"OLAP", "Query"})
+@Description("Etapa de una consulta OLAP: cubo, adaptador, columnas, hash del SQL/MDX y filas")
+@StackTrace(false)
+public class QueryStageEvent extends Event {
+
+    public static final String NAME = "com.prueba.olap.QueryStage";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Cube")
+    String cube;
+
+    @Label("Adapter")
+    String adapter;
+
+    @Label("Shape")
+    @Description("Dimensiones y medidas pedidas, en minúsculas y ordenadas")
+    String shape;
+
+    @Label("Statement Hash")
+    @Description("Hash del texto SQL/MDX; vacío en etapas que no conocen la consulta")
+    String statementHash;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Rows")
+    @Description("Filas producidas; -1 si la etapa falló o se canceló")
+    long rows;
+
+    static QueryStageEvent start() {
+        QueryStageEvent event = new QueryStageEvent();
+        event.begin();
+        return event;
+    }
+}
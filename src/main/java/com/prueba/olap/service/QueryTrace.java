@@ -0,0 +1,162 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Query;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+
+/**
+ * Perfil de una única petición: duración de cada etapa (las mismas que mide {@link QueryMetrics}),
+ * acierto o fallo de caché, filas, bytes, consulta generada y plan estimado.
+ * <p>
+ * Viaja en el contexto de Reactor bajo {@link #CONTEXT_KEY}; las etapas síncronas lo ven a través
+ * de {@link #current()} mientras se ejecutan con {@link #traced(Callable)} o {@link #callWith}.
+ * Todos los métodos son seguros entre hilos: las etapas se ejecutan en el event loop y en el ejecutor.
+ */
+public final class QueryTrace {
+
+    public static final Class<QueryTrace> CONTEXT_KEY = QueryTrace.class;
+    public static final String QUEUE_STAGE = "queue";
+    public static final String CACHE_METRIC = "cache";
+    public static final String TOTAL_METRIC = "total";
+
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private volatile Query query;
+    private volatile Boolean cacheHit;
+    private volatile String plan;
+    private volatile long rows = -1;
+    private volatile long bytes = -1;
+
+    public static Optional<QueryTrace> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * Perfil asociado al hilo actual, si la etapa se ejecuta dentro de {@link #callWith}.
+     */
+    public static Optional<QueryTrace> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Ejecuta una tarea síncrona con el perfil visible en {@link #current()}; sin perfil, la ejecuta tal cual.
+     */
+    public static <T> T callWith(QueryTrace trace, Callable<T> task) throws Exception {
+        if (trace == null) {
+            return task.call();
+        }
+        QueryTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Equivalente a {@link Mono#fromCallable(Callable)} que expone al hilo el perfil del contexto de Reactor.
+     */
+    public static <T> Mono<T> traced(Callable<T> task) {
+        return Mono.deferContextual(context ->
+            Mono.fromCallable(() -> callWith(from(context).orElse(null), task)));
+    }
+
+    /**
+     * Suma la duración de una etapa; una etapa repetida (p. ej. varios intentos) acumula su tiempo.
+     */
+    public void record(String stage, long nanos) {
+        synchronized (stageNanos) {
+            stageNanos.merge(stage, Math.max(nanos, 0), Long::sum);
+        }
+    }
+
+    public void recordCache(boolean hit) {
+        this.cacheHit = hit;
+    }
+
+    public void recordQuery(Query query) {
+        this.query = query;
+    }
+
+    public void recordPlan(String plan) {
+        this.plan = plan;
+    }
+
+    public void recordOutput(long rows, long bytes) {
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Duración en milisegundos de cada etapa registrada, en orden de registro.
+     */
+    public Map<String, Double> getStageMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        synchronized (stageNanos) {
+            stageNanos.forEach((stage, nanos) -> millis.put(stage, nanos / NANOS_PER_MILLI));
+        }
+        return millis;
+    }
+
+    public double getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / NANOS_PER_MILLI;
+    }
+
+    public Optional<Query> getQuery() {
+        return Optional.ofNullable(query);
+    }
+
+    /**
+     * {@code hit}, {@code miss}, o vacío si la petición no pasó por la caché.
+     */
+    public Optional<String> getCacheStatus() {
+        Boolean hit = cacheHit;
+        return hit == null ? Optional.empty() : Optional.of(hit ? "hit" : "miss");
+    }
+
+    public Optional<String> getPlan() {
+        return Optional.ofNullable(plan);
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Valor de la cabecera {@code Server-Timing}: una métrica por etapa, el estado de la caché y el total.
+     */
+    public String toServerTiming() {
+        StringJoiner header = new StringJoiner(", ");
+        getStageMillis().forEach((stage, millis) -> header.add(stage + ";dur=" + format(millis)));
+        getCacheStatus().ifPresent(status -> header.add(CACHE_METRIC + ";desc=" + status));
+        header.add(TOTAL_METRIC + ";dur=" + format(getElapsedMillis()));
+        return header.toString();
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+
+    private static void restore(QueryTrace previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Rollup;
+import com.prueba.olap.port.RollupStorePort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catálogo de rollups disponibles. Refresca su contenido mediante el {@link RollupStorePort}
+ * y elige, para cada consulta, el rollup materializado más pequeño capaz de responderla.
+ * Un rollup que aún no se ha cargado, o cuya última recarga falló sin versión previa, no se usa.
+ */
+public class RollupCatalog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupCatalog.class);
+
+    private final List<Rollup> rollups;
+    private final RollupStorePort store;
+    private final Map<Rollup, Long> materializedRows = new ConcurrentHashMap<>();
+    private ScheduledExecutorService refreshScheduler;
+
+    public RollupCatalog(List<Rollup> rollups, RollupStorePort store) {
+        validateParameters(rollups, store);
+        this.rollups = List.copyOf(rollups);
+        this.store = store;
+    }
+
+    /**
+     * Rollup materializado con menos filas que contiene las columnas y medidas pedidas.
+     *
+     * @param columns Dimensiones de agrupación y columnas filtradas
+     * @param measures Medidas sumadas
+     * @return El rollup elegido, o vacío si la consulta debe ir a la vista base
+     */
+    public Optional<Rollup> route(Collection<String> columns, Collection<String> measures) {
+        return rollups.stream()
+            .filter(materializedRows::containsKey)
+            .filter(rollup -> rollup.covers(columns, measures))
+            .min(Comparator.comparingLong(materializedRows::get));
+    }
+
+    /**
+     * Recarga todos los rollups. Un fallo se registra y conserva la versión anterior.
+     */
+    public void refreshAll() {
+        for (Rollup rollup : rollups) {
+            try {
+                long start = System.nanoTime();
+                materializedRows.put(rollup, store.refresh(rollup));
+                log.info("Rollup {} recargado: {} filas en {} ms", rollup.getTableName(),
+                    materializedRows.get(rollup), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (RuntimeException e) {
+                log.warn("Error recargando el rollup {}", rollup.getTableName(), e);
+            }
+        }
+    }
+
+    /**
+     * Programa la recarga periódica de los rollups; la primera se lanza inmediatamente en segundo plano.
+     */
+    public synchronized void scheduleRefresh(Duration interval) {
+        if (interval == null || interval.isZero() || interval.isNegative() || refreshScheduler != null) {
+            return;
+        }
+        refreshScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("olap-rollup-refresh").daemon(true).factory());
+        refreshScheduler.scheduleWithFixedDelay(this::refreshAll, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public List<Rollup> getRollups() {
+        return rollups;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdownNow();
+            refreshScheduler = null;
+        }
+    }
+
+    private void validateParameters(List<Rollup> rollups, RollupStorePort store) {
+        if (rollups == null) {
+            throw new IllegalArgumentException("Lista de rollups no puede ser nula");
+        }
+        if (store == null) {
+            throw new IllegalArgumentException("Almacén de rollups no puede ser nulo");
+        }
+    }
+}
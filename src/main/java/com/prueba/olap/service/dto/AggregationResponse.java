@@ -1,15 +1,18 @@
 package com.prueba.olap.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 import java.util.Objects;
 
 /**
  * DTO que encapsula la respuesta de una consulta OLAP.
- * Contiene una lista de filas con datos agregados.
+ * Contiene una lista de filas con datos agregados que comparten un mismo esquema de columnas.
  */
 public class AggregationResponse {
     
     private List<AggregationRow> rows;
+    private String nextCursor;
 
     public AggregationResponse() {
         this.rows = List.of();
@@ -19,13 +22,33 @@ public class AggregationResponse {
         this.rows = rows != null ? List.copyOf(rows) : List.of();
     }
 
+    /**
+     * Filas de la respuesta. La lista es inmutable y se devuelve sin copiarla.
+     */
     public List<AggregationRow> getRows() {
-        return rows != null ? List.copyOf(rows) : List.of();
+        return rows != null ? rows : List.of();
     }
 
     public void setRows(List<AggregationRow> rows) {
         this.rows = rows != null ? List.copyOf(rows) : List.of();
     }
+
+    /**
+     * Copia con el cursor de la página siguiente; comparte las filas sin copiarlas.
+     */
+    public AggregationResponse withNextCursor(String nextCursor) {
+        AggregationResponse response = new AggregationResponse(rows);
+        response.nextCursor = nextCursor;
+        return response;
+    }
+
+    /**
+     * Cursor para pedir la página siguiente; ausente si no hay paginación o esta es la última página.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
+    }
     
     public int getRowCount() {
         return rows != null ? rows.size() : 0;
@@ -41,12 +64,13 @@ public class AggregationResponse {
         if (obj == null || getClass() != obj.getClass()) return false;
         
         AggregationResponse that = (AggregationResponse) obj;
-        return Objects.equals(rows, that.rows);
+        return Objects.equals(rows, that.rows) &&
+               Objects.equals(nextCursor, that.nextCursor);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(rows);
+        return Objects.hash(rows, nextCursor);
     }
     
     @Override
@@ -1,50 +1,90 @@
 package com.prueba.olap.service.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * DTO que representa una fila de datos agregados en una respuesta OLAP.
- * Encapsula los valores de columnas como un mapa clave-valor.
+ * Los valores se guardan en un array ordenado según un {@link RowSchema} compartido por
+ * todas las filas de la respuesta; {@link #getValues()} los expone como un mapa de solo lectura
+ * sin copiarlos.
  */
+@JsonSerialize(using = AggregationRowSerializer.class)
 public class AggregationRow {
     
-    private Map<String, Object> values;
+    private RowSchema schema;
+    private Object[] values;
 
     public AggregationRow() {
-        this.values = Map.of();
+        this.schema = RowSchema.empty();
+        this.values = new Object[0];
     }
 
     public AggregationRow(Map<String, Object> values) {
-        this.values = values != null ? Map.copyOf(values) : Map.of();
+        setValues(values);
+    }
+
+    /**
+     * Crea una fila sobre un esquema compartido. El array no se copia: quien lo crea
+     * no debe modificarlo después.
+     */
+    public AggregationRow(RowSchema schema, Object[] values) {
+        validateSchemaValues(schema, values);
+        this.schema = schema;
+        this.values = values;
     }
 
     public Map<String, Object> getValues() {
-        return values != null ? Map.copyOf(values) : Map.of();
+        return new ValuesView();
     }
 
     public void setValues(Map<String, Object> values) {
-        this.values = values != null ? Map.copyOf(values) : Map.of();
+        Map<String, Object> source = values != null ? values : Map.of();
+        this.schema = RowSchema.of(new ArrayList<>(source.keySet()));
+        this.values = new Object[schema.size()];
+        for (int i = 0; i < this.values.length; i++) {
+            this.values[i] = source.get(schema.getColumn(i));
+        }
     }
     
     public Optional<Object> getValue(String columnName) {
-        if (columnName == null || values == null) {
+        if (columnName == null) {
             return Optional.empty();
         }
-        return Optional.ofNullable(values.get(columnName));
+        int index = schema.indexOf(columnName);
+        return index >= 0 ? Optional.ofNullable(values[index]) : Optional.empty();
+    }
+
+    /**
+     * Valor en la posición indicada del esquema.
+     */
+    public Object getValueAt(int index) {
+        return values[index];
+    }
+
+    public RowSchema schema() {
+        return schema;
     }
     
     public boolean hasColumn(String columnName) {
-        return values != null && values.containsKey(columnName);
+        return columnName != null && schema.indexOf(columnName) >= 0;
     }
     
     public int getColumnCount() {
-        return values != null ? values.size() : 0;
+        return values.length;
     }
     
     public boolean isEmpty() {
-        return values == null || values.isEmpty();
+        return values.length == 0;
     }
     
     @Override
@@ -53,19 +93,89 @@ public class AggregationRow {
         if (obj == null || getClass() != obj.getClass()) return false;
         
         AggregationRow that = (AggregationRow) obj;
-        return Objects.equals(values, that.values);
+        return getValues().equals(that.getValues());
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(values);
+        int hash = 0;
+        for (int i = 0; i < values.length; i++) {
+            hash += schema.getColumn(i).hashCode() ^ Objects.hashCode(values[i]);
+        }
+        return hash;
     }
     
     @Override
     public String toString() {
         return "AggregationRow{" +
                "columnCount=" + getColumnCount() +
-               ", values=" + values +
+               ", values=" + getValues() +
                "}";
     }
+
+    private void validateSchemaValues(RowSchema schema, Object[] values) {
+        if (schema == null || values == null) {
+            throw new IllegalArgumentException("Esquema y valores no pueden ser nulos");
+        }
+        if (schema.size() != values.length) {
+            throw new IllegalArgumentException(
+                "Número de valores (" + values.length + ") distinto del esquema (" + schema.size() + ")");
+        }
+    }
+
+    /**
+     * Vista de solo lectura columna → valor sobre el array de la fila.
+     */
+    private final class ValuesView extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            int index = key instanceof String column ? schema.indexOf(column) : -1;
+            return index >= 0 ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String column && schema.indexOf(column) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            int index = next++;
+            return new AbstractMap.SimpleImmutableEntry<>(schema.getColumn(index), values[index]);
+        }
+    }
 }
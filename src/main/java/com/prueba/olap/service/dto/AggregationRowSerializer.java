@@ -0,0 +1,36 @@
+package com.prueba.olap.service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializa una {@link AggregationRow} directamente desde su esquema y su array de valores,
+ * con el mismo formato JSON que el mapa original ({@code values}, {@code columnCount}, {@code empty})
+ * y sin crear copias ni entradas intermedias.
+ */
+public class AggregationRowSerializer extends StdSerializer<AggregationRow> {
+
+    public AggregationRowSerializer() {
+        super(AggregationRow.class);
+    }
+
+    @Override
+    public void serialize(AggregationRow row, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        RowSchema schema = row.schema();
+        generator.writeStartObject();
+        generator.writeFieldName("values");
+        generator.writeStartObject();
+        for (int i = 0; i < schema.size(); i++) {
+            generator.writeFieldName(schema.getColumn(i));
+            provider.defaultSerializeValue(row.getValueAt(i), generator);
+        }
+        generator.writeEndObject();
+        generator.writeNumberField("columnCount", row.getColumnCount());
+        generator.writeBooleanField("empty", row.isEmpty());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,34 @@
+package com.prueba.olap.service.dto;
+
+import java.util.List;
+
+/**
+ * Cuerpo de {@code POST /api/olap/aggregate/batch}: las consultas de una página en una sola petición.
+ */
+public class BatchAggregationRequest {
+
+    private List<BatchQueryItem> queries;
+
+    public BatchAggregationRequest() {
+        this.queries = List.of();
+    }
+
+    public BatchAggregationRequest(List<BatchQueryItem> queries) {
+        setQueries(queries);
+    }
+
+    public List<BatchQueryItem> getQueries() {
+        return queries;
+    }
+
+    public void setQueries(List<BatchQueryItem> queries) {
+        this.queries = queries != null ? List.copyOf(queries) : List.of();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchAggregationRequest{" +
+               "queries=" + queries.size() +
+               "}";
+    }
+}
@@ -0,0 +1,34 @@
+package com.prueba.olap.service.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de un lote: un resultado por consulta, en el orden de la petición, y el número de
+ * lecturas que se enviaron al backend para obtenerlos.
+ */
+public class BatchAggregationResponse {
+
+    private final List<BatchItemResult> results;
+    private final int scanCount;
+
+    public BatchAggregationResponse(List<BatchItemResult> results, int scanCount) {
+        this.results = results != null ? List.copyOf(results) : List.of();
+        this.scanCount = scanCount;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public int getScanCount() {
+        return scanCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchAggregationResponse{" +
+               "results=" + results.size() +
+               ", scanCount=" + scanCount +
+               "}";
+    }
+}
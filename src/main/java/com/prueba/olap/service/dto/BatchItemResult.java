@@ -0,0 +1,61 @@
+package com.prueba.olap.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de una consulta del lote: sus filas o el error que la hizo fallar, con el código HTTP
+ * que habría devuelto la misma consulta por separado.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private final String id;
+    private final int status;
+    private final AggregationResponse result;
+    private final String error;
+    private final String message;
+
+    private BatchItemResult(String id, int status, AggregationResponse result, String error, String message) {
+        this.id = id;
+        this.status = status;
+        this.result = result;
+        this.error = error;
+        this.message = message;
+    }
+
+    public static BatchItemResult success(String id, AggregationResponse result) {
+        return new BatchItemResult(id, 200, result, null, null);
+    }
+
+    public static BatchItemResult failure(String id, int status, String error, String message) {
+        return new BatchItemResult(id, status, null, error, message);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public AggregationResponse getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+               "id=" + id +
+               ", status=" + status +
+               "}";
+    }
+}
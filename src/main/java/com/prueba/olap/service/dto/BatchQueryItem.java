@@ -0,0 +1,77 @@
+package com.prueba.olap.service.dto;
+
+/**
+ * Una consulta de un lote, con los mismos parámetros que {@code GET /api/olap/aggregate}.
+ * El identificador es opcional y se devuelve tal cual en su resultado.
+ */
+public class BatchQueryItem {
+
+    private String id;
+    private String dimensions;
+    private String measures;
+    private String filters;
+    private String grouping;
+
+    public BatchQueryItem() {
+    }
+
+    public BatchQueryItem(String id, String dimensions, String measures, String filters) {
+        this.id = id;
+        this.dimensions = dimensions;
+        this.measures = measures;
+        this.filters = filters;
+    }
+
+    public QueryRequest toRequest() {
+        return new QueryRequest(dimensions, measures, filters).withGrouping(grouping);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(String dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public String getMeasures() {
+        return measures;
+    }
+
+    public void setMeasures(String measures) {
+        this.measures = measures;
+    }
+
+    public String getFilters() {
+        return filters;
+    }
+
+    public void setFilters(String filters) {
+        this.filters = filters;
+    }
+
+    public String getGrouping() {
+        return grouping;
+    }
+
+    public void setGrouping(String grouping) {
+        this.grouping = grouping;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchQueryItem{" +
+               "id=" + id +
+               ", dimensions=" + dimensions +
+               ", measures=" + measures +
+               "}";
+    }
+}
@@ -0,0 +1,100 @@
+package com.prueba.olap.service.dto;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.service.QueryTrace;
+
+import java.util.Map;
+
+/**
+ * DTO con el desglose de una consulta ejecutada con {@code explain=true}: consulta generada,
+ * estado de la caché, duración de cada etapa en milisegundos, filas y bytes de la respuesta
+ * y, si el adaptador lo ofrece, el plan estimado por el motor.
+ */
+public class QueryExplanation {
+
+    private final String statement;
+    private final String queryType;
+    private final Map<String, Object> parameters;
+    private final String cache;
+    private final Map<String, Double> stages;
+    private final double totalMillis;
+    private final long rows;
+    private final long bytes;
+    private final String plan;
+
+    private QueryExplanation(QueryTrace trace) {
+        Query query = trace.getQuery().orElse(null);
+        this.statement = query != null ? query.getStatement() : null;
+        this.queryType = query != null ? query.getType().name() : null;
+        this.parameters = query != null ? query.getParameters() : Map.of();
+        this.cache = trace.getCacheStatus().orElse(null);
+        this.stages = trace.getStageMillis();
+        this.totalMillis = trace.getElapsedMillis();
+        this.rows = trace.getRows();
+        this.bytes = trace.getBytes();
+        this.plan = trace.getPlan().orElse(null);
+    }
+
+    /**
+     * Toma una instantánea del perfil; las etapas que terminen después no aparecen.
+     */
+    public static QueryExplanation from(QueryTrace trace) {
+        if (trace == null) {
+            throw new IllegalArgumentException("El perfil de la consulta no puede ser nulo");
+        }
+        return new QueryExplanation(trace);
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getQueryType() {
+        return queryType;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * {@code hit}, {@code miss}, o nulo si la caché está deshabilitada.
+     */
+    public String getCache() {
+        return cache;
+    }
+
+    /**
+     * Milisegundos por etapa: {@code build}, {@code queue}, {@code port.query}, {@code jdbc.execute},
+     * {@code jdbc.mapping}, {@code xmla.fetch}, {@code xmla.parse}, {@code serialize}...
+     */
+    public Map<String, Double> getStages() {
+        return stages;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryExplanation{" +
+               "queryType=" + queryType +
+               ", cache=" + cache +
+               ", rows=" + rows +
+               ", totalMillis=" + totalMillis +
+               "}";
+    }
+}
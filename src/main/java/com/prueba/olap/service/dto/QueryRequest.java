@@ -0,0 +1,115 @@
+package com.prueba.olap.service.dto;
+
+import java.util.Objects;
+
+/**
+ * Parámetros de una petición de agregación tal como llegan de la API, antes de validarlos.
+ * Las opciones adicionales se añaden con métodos {@code with...} que devuelven una copia.
+ */
+public class QueryRequest {
+
+    private final String dimensions;
+    private final String measures;
+    private final String filters;
+    private final String grouping;
+    private final Page page;
+
+    public QueryRequest(String dimensions, String measures, String filters) {
+        this.dimensions = dimensions;
+        this.measures = measures;
+        this.filters = filters;
+        this.grouping = null;
+        this.page = Page.NONE;
+    }
+
+    private QueryRequest(QueryRequest request, String grouping, Page page) {
+        this.dimensions = request.dimensions;
+        this.measures = request.measures;
+        this.filters = request.filters;
+        this.grouping = grouping;
+        this.page = page;
+    }
+
+    /**
+     * Copia con subtotales: {@code rollup}, {@code cube} o conjuntos explícitos separados por {@code ;}
+     * (p. ej. {@code Region,Product;Region;()}, donde {@code ()} es el total general).
+     */
+    public QueryRequest withGrouping(String grouping) {
+        return new QueryRequest(this, grouping, page);
+    }
+
+    /**
+     * Copia que pide una página: {@code sort} son columnas de la respuesta separadas por comas, cada una
+     * con {@code :asc} (por defecto) o {@code :desc}; {@code limit} el máximo de filas y {@code cursor}
+     * el {@link AggregationResponse#getNextCursor() cursor} devuelto con la página anterior.
+     */
+    public QueryRequest withPage(String sort, Integer limit, String cursor) {
+        return new QueryRequest(this, grouping, new Page(sort, limit, cursor));
+    }
+
+    public String getDimensions() {
+        return dimensions;
+    }
+
+    public String getMeasures() {
+        return measures;
+    }
+
+    public String getFilters() {
+        return filters;
+    }
+
+    public String getGrouping() {
+        return grouping;
+    }
+
+    public String getSort() {
+        return page.sort();
+    }
+
+    public Integer getLimit() {
+        return page.limit();
+    }
+
+    public String getCursor() {
+        return page.cursor();
+    }
+
+    public boolean isPaged() {
+        return !page.equals(Page.NONE);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        QueryRequest that = (QueryRequest) obj;
+        return Objects.equals(dimensions, that.dimensions) &&
+               Objects.equals(measures, that.measures) &&
+               Objects.equals(filters, that.filters) &&
+               Objects.equals(grouping, that.grouping) &&
+               Objects.equals(page, that.page);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dimensions, measures, filters, grouping, page);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryRequest{" +
+               "dimensions=" + dimensions +
+               ", measures=" + measures +
+               ", grouping=" + grouping +
+               ", sort=" + page.sort() +
+               ", limit=" + page.limit() +
+               '}';
+    }
+
+    private record Page(String sort, Integer limit, String cursor) {
+
+        private static final Page NONE = new Page(null, null, null);
+    }
+}
@@ -0,0 +1,95 @@
+package com.prueba.olap.service.dto;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Esquema de columnas compartido por todas las filas de una respuesta.
+ * Cada fila guarda solo sus valores en el orden del esquema, sin repetir los nombres.
+ */
+public final class RowSchema {
+
+    private static final RowSchema EMPTY = new RowSchema(new String[0]);
+
+    private final String[] columns;
+    private final Map<String, Integer> positions;
+
+    private RowSchema(String[] columns) {
+        this.columns = columns;
+        this.positions = new HashMap<>(Math.max(columns.length * 2, 2));
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null) {
+                throw new IllegalArgumentException("Los nombres de columna no pueden ser nulos");
+            }
+            if (positions.putIfAbsent(columns[i], i) != null) {
+                throw new IllegalArgumentException("Columna duplicada en el esquema: " + columns[i]);
+            }
+        }
+    }
+
+    public static RowSchema of(List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return EMPTY;
+        }
+        return new RowSchema(columns.toArray(String[]::new));
+    }
+
+    public static RowSchema empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return columns.length;
+    }
+
+    public String getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @return posición de la columna o -1 si no pertenece al esquema
+     */
+    public int indexOf(String column) {
+        Integer position = positions.get(column);
+        return position != null ? position : -1;
+    }
+
+    public List<String> getColumns() {
+        return List.of(columns);
+    }
+
+    /**
+     * Indica si el esquema tiene exactamente estas columnas en este orden.
+     */
+    public boolean matches(List<String> candidate) {
+        if (candidate.size() != columns.length) {
+            return false;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].equals(candidate.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        return Arrays.equals(columns, ((RowSchema) obj).columns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(columns);
+    }
+
+    @Override
+    public String toString() {
+        return "RowSchema" + Arrays.toString(columns);
+    }
+}
@@ -0,0 +1,76 @@
+package com.prueba.olap;
+
+import com.prueba.olap.adapter.JdbcOlapAdapter;
+import com.prueba.olap.adapter.XmlaHttpClient;
+import com.prueba.olap.adapter.XmlaOlapAdapter;
+import com.prueba.olap.config.DataSourceConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Perfil {@code prod} ({@code app.datasource.mode=xmla}) de extremo a extremo, con la base JDBC en H2:
+ * las consultas agregadas generan SQL y deben seguir respondiendo aunque el modo sea XMLA.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+	"app.datasource.url=jdbc:h2:mem:olap_prod_profile;DB_CLOSE_DELAY=-1",
+	"app.datasource.username=sa",
+	"app.datasource.password=",
+	"app.datasource.driver-class-name=org.h2.Driver",
+	"app.datasource.name=vw_olap_cube",
+	"spring.sql.init.mode=always"
+})
+@ActiveProfiles("prod")
+class ProdProfileTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void contextLoads_aggregatesRunOnJdbcWithoutXmlaBeans() {
+		Assertions.assertInstanceOf(JdbcOlapAdapter.class, context.getBean(DataSourceConfig.ADAPTER_BEAN));
+		Assertions.assertTrue(context.getBeansOfType(XmlaOlapAdapter.class).isEmpty());
+		Assertions.assertTrue(context.getBeansOfType(XmlaHttpClient.class).isEmpty());
+	}
+
+	@Test
+	void aggregate_json_returnsRows() {
+		webTestClient.get()
+			.uri("/api/olap/aggregate?dimensions=Region&measures=Sales")
+			.accept(MediaType.APPLICATION_JSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$.rows.length()").isEqualTo(3);
+	}
+
+	@Test
+	void aggregate_ndjson_streamsRows() {
+		webTestClient.get()
+			.uri("/api/olap/aggregate?dimensions=Region&measures=Sales")
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBodyList(String.class).hasSize(3);
+	}
+
+	@Test
+	void aggregateBatch_returnsOkPerQuery() {
+		webTestClient.post()
+			.uri("/api/olap/aggregate/batch")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("{\"queries\":[{\"id\":\"a\",\"dimensions\":\"Region\",\"measures\":\"Sales\"}]}")
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$.results[0].status").isEqualTo(200);
+	}
+}
@@ -0,0 +1,62 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class BlockingOlapQueryBridgeTest {
+
+    private static final Query QUERY = new Query("SELECT Region FROM cube_view GROUP BY Region", QueryType.SQL, Map.of());
+
+    @Test
+    void aggregate_runsBlockingPortOnExecutorThread() {
+        OlapQueryPort port = (sql, params) -> new AggregationResponse(
+            List.of(new AggregationRow(Map.of("Thread", Thread.currentThread().getName()))));
+
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(2, 2)) {
+            var bridge = new BlockingOlapQueryBridge(port, executor);
+
+            AggregationResponse response = bridge.aggregate(QUERY).block();
+            List<AggregationRow> streamed = bridge.stream(QUERY).collectList().block();
+
+            Assertions.assertTrue(((String) response.getRows().get(0).getValues().get("Thread")).startsWith("olap-query-"));
+            Assertions.assertTrue(((String) streamed.get(0).getValues().get("Thread")).startsWith("olap-query-"));
+        }
+    }
+
+    @Test
+    void aggregate_saturatedExecutor_rejects() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OlapQueryPort port = (sql, params) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new AggregationResponse();
+        };
+
+        try (QueryExecutor executor = QueryExecutor.virtualThreads(1, 0)) {
+            var bridge = new BlockingOlapQueryBridge(port, executor);
+            var pending = bridge.aggregate(QUERY).toFuture();
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Assertions.assertThrows(RejectedExecutionException.class, () -> bridge.aggregate(QUERY).block());
+            release.countDown();
+            Assertions.assertNotNull(pending.join());
+        }
+    }
+}
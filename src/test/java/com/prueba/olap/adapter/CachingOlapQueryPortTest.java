@@ -0,0 +1,207 @@
+package com.prueba.olap.adapter;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.RowSchema;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CachingOlapQueryPortTest {
+
+    private static final String SQL = "SELECT Region, SUM(Sales) AS Sales FROM cube_view WHERE Year = :p0 GROUP BY Region";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final OlapQueryPort backend = (sql, params) -> {
+        calls.incrementAndGet();
+        return new AggregationResponse(List.of(new AggregationRow(Map.of("Region", "EMEA", "Sales", 10))));
+    };
+
+    @Test
+    void query_repeatedQuery_servedFromCache() {
+        var port = new CachingOlapQueryPort(backend, "vw_olap_cube", newCache());
+
+        var first = port.query(SQL, Map.of("p0", "2024"));
+        var second = port.query(SQL, Map.of("p0", "2024"));
+        port.query(SQL, Map.of("p0", "2023"));
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void invalidateCube_evictsOnlyThatCube() {
+        var cache = newCache();
+        var sales = new CachingOlapQueryPort(backend, "vw_olap_cube", cache);
+        var other = new CachingOlapQueryPort(backend, "other_cube", cache);
+        sales.query(SQL, Map.of("p0", "2024"));
+        other.query(SQL, Map.of("p0", "2024"));
+
+        Assertions.assertEquals(1, cache.invalidateCube("vw_olap_cube"));
+        sales.query(SQL, Map.of("p0", "2024"));
+        other.query(SQL, Map.of("p0", "2024"));
+
+        Assertions.assertEquals(3, calls.get());
+    }
+
+    @Test
+    void stream_bypassesCache() {
+        var port = new CachingOlapQueryPort(backend, "vw_olap_cube", newCache());
+
+        port.stream(SQL, Map.of()).blockLast();
+        port.stream(SQL, Map.of()).blockLast();
+
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void reactiveAggregate_sharesCacheWithBlockingPort() {
+        var cache = newCache();
+        var blocking = new CachingOlapQueryPort(backend, "vw_olap_cube", cache);
+        try (var executor = QueryExecutor.boundedElastic(1, 1)) {
+            var reactive = new ReactiveCachingOlapQueryPort(
+                query -> Flux.defer(() -> Flux.fromIterable(backend.query(query).getRows())), "vw_olap_cube", cache,
+                executor);
+            var query = new Query(SQL, QueryType.SQL, Map.of("p0", "2024"));
+
+            var first = blocking.query(query);
+            var second = reactive.aggregate(query).block();
+            reactive.aggregate(new Query(SQL, QueryType.SQL, Map.of("p0", "2023"))).block();
+
+            Assertions.assertEquals(first, second);
+            Assertions.assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    void reactiveAggregate_coarserQuery_derivedOnTheExecutor() {
+        var schema = RowSchema.of(List.of("Product", "Region", "Sales"));
+        OlapQueryPort fine = (sql, params) -> {
+            calls.incrementAndGet();
+            return new AggregationResponse(List.of(
+                new AggregationRow(schema, new Object[]{"Laptop", "EMEA", 100L}),
+                new AggregationRow(schema, new Object[]{"Phone", "EMEA", 50L})));
+        };
+        var cache = newCache();
+        var service = new OlapService(fine, Set.of("Region", "Product", "Sales"));
+        var threads = new ArrayList<String>();
+
+        try (var executor = QueryExecutor.boundedElastic(1, 1)) {
+            var reactive = new ReactiveCachingOlapQueryPort(
+                query -> Flux.defer(() -> Flux.fromIterable(fine.query(query).getRows())), "vw_olap_cube", cache,
+                executor);
+            reactive.aggregate(service.buildQuery("Region,Product", "Sales", null)).block();
+            var byRegion = reactive.aggregate(service.buildQuery("Region", "Sales", null))
+                .doOnNext(response -> threads.add(Thread.currentThread().getName()))
+                .block();
+            reactive.aggregate(service.buildQuery("Region", "Sales", null)).block();
+
+            Assertions.assertEquals(150L, byRegion.getRows().get(0).getValue("Sales").orElseThrow());
+            Assertions.assertEquals(1, calls.get());
+            Assertions.assertEquals(1, cache.getDerivedHitCount(), "El resultado derivado se guarda");
+            Assertions.assertNotEquals(Thread.currentThread().getName(), threads.get(0));
+        }
+    }
+
+    @Test
+    void query_coarserQuery_rolledUpFromCachedFinerResult() {
+        var schema = RowSchema.of(List.of("Product", "Region", "Quantity_max", "Sales"));
+        OlapQueryPort fine = (sql, params) -> {
+            calls.incrementAndGet();
+            return new AggregationResponse(List.of(
+                new AggregationRow(schema, new Object[]{"Laptop", "EMEA", 7, 100L}),
+                new AggregationRow(schema, new Object[]{"Phone", "EMEA", 12, 50L}),
+                new AggregationRow(schema, new Object[]{"Laptop", "APAC", 3, 25L})));
+        };
+        var port = new CachingOlapQueryPort(fine, "vw_olap_cube", newCache());
+        var service = new OlapService(port, Set.of("Region", "Product", "Year", "Sales", "Quantity"));
+
+        service.execute(service.buildQuery("Region,Product", "Sales,Quantity:max", "Year:2024"));
+        var byRegion = service.execute(service.buildQuery("Region", "Quantity:max,Sales", "Year:2024"));
+        var total = service.execute(service.buildQuery(null, "Sales", "Year:2024"));
+
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(List.of(Map.of("Region", "EMEA", "Quantity_max", 12, "Sales", 150L),
+                Map.of("Region", "APAC", "Quantity_max", 3, "Sales", 25L)),
+            byRegion.getRows().stream().map(AggregationRow::getValues).toList());
+        Assertions.assertEquals(175L, total.getRows().get(0).getValue("Sales").orElseThrow());
+
+        service.execute(service.buildQuery("Region", "Sales", "Year:2023"));
+        service.execute(service.buildQuery("Region", "Sales:avg", "Year:2024"));
+        service.execute(service.buildQuery("Region,Year", "Sales", "Year:2024"));
+        Assertions.assertEquals(4, calls.get());
+    }
+
+    @Test
+    void query_derivedResult_expiresWithItsSource() {
+        var schema = RowSchema.of(List.of("Product", "Region", "Sales"));
+        OlapQueryPort fine = (sql, params) -> {
+            calls.incrementAndGet();
+            return new AggregationResponse(List.of(new AggregationRow(schema, new Object[]{"Laptop", "EMEA", 100L})));
+        };
+        var now = new AtomicLong();
+        var cache = new QueryResultCache(Caffeine.newBuilder()
+            .expireAfter(QueryResultCache.expireAfterWrite(Duration.ofMinutes(5)))
+            .ticker(now::get)
+            .executor(Runnable::run));
+        var port = new CachingOlapQueryPort(fine, "vw_olap_cube", cache);
+        var service = new OlapService(port, Set.of("Region", "Product", "Sales"));
+        var coarse = service.buildQuery("Region", "Sales", null);
+
+        service.execute(service.buildQuery("Region,Product", "Sales", null));
+        now.addAndGet(Duration.ofMinutes(4).toNanos());
+        service.execute(coarse);
+        service.execute(coarse);
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1, cache.getDerivedHitCount(), "El segundo acierto lee el resultado derivado");
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        service.execute(coarse);
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void query_subsumptionDisabled_onlyExactMatches() {
+        var port = new CachingOlapQueryPort(backend, "vw_olap_cube", new QueryResultCache(
+            Caffeine.newBuilder().maximumSize(10).executor(Runnable::run), false));
+        var service = new OlapService(port, Set.of("Region", "Product", "Sales"));
+
+        service.execute(service.buildQuery("Region,Product", "Sales", null));
+        service.execute(service.buildQuery("Region", "Sales", null));
+
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void byteWeigher_countsRowContent() {
+        var response = new AggregationResponse(List.of(new AggregationRow(Map.of("Region", "EMEA", "Sales", 10))));
+        var key = new QueryResultCache.Key("cube", new Query(SQL, QueryType.SQL, Map.of()));
+
+        int rows = QueryResultCache.rowWeigher().weigh(key, response);
+        int bytes = QueryResultCache.byteWeigher().weigh(key, response);
+
+        Assertions.assertEquals(1, rows);
+        Assertions.assertTrue(bytes > SQL.length());
+    }
+
+    private QueryResultCache newCache() {
+        return new QueryResultCache(Caffeine.newBuilder()
+            .maximumWeight(1000)
+            .weigher(QueryResultCache.rowWeigher())
+            .executor(Runnable::run));
+    }
+}
@@ -1,16 +1,22 @@
 package com.prueba.olap.adapter;
 
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
 import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
 import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class H2CubeIntegrationTest {
 
@@ -42,4 +48,46 @@ class H2CubeIntegrationTest {
         assertEquals("EMEA", resp.getRows().get(1).getValues().get("REGION"));
         assertEquals(100, resp.getRows().get(1).getValues().get("SALES"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void h2_streamReadsRowsWithCursorAndBindsParameters() {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:olap_stream_test;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(ds);
+        template.setFetchSize(2);
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(template);
+
+        template.execute("CREATE TABLE fact_sales (Region VARCHAR(50), Sales INT)");
+        template.execute("INSERT INTO fact_sales VALUES ('EMEA', 100), ('APAC', 200), ('EMEA', 50)");
+        template.execute("CREATE VIEW vw_olap_cube AS SELECT Region, Sales FROM fact_sales");
+
+        JdbcOlapAdapter adapter = new JdbcOlapAdapter(jdbc, "vw_olap_cube");
+
+        List<AggregationRow> rows = adapter.stream(
+                "SELECT Region, SUM(Sales) AS Sales FROM cube_view WHERE Region = :region GROUP BY Region",
+                Map.of("region", "EMEA"))
+            .collectList()
+            .block();
+
+        assertNotNull(rows);
+        assertEquals(1, rows.size());
+        assertEquals("EMEA", rows.get(0).getValues().get("REGION"));
+        assertEquals(150L, ((Number) rows.get(0).getValues().get("SALES")).longValue());
+    }
+
+    @Test
+    void h2_explainReturnsEstimatedPlanWithoutRunningQuery() {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:olap_explain_test;DB_CLOSE_DELAY=-1", "sa", "");
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(ds);
+        jdbc.getJdbcTemplate().execute("CREATE TABLE fact_sales (Region VARCHAR(50), Sales INT)");
+        jdbc.getJdbcTemplate().execute("CREATE VIEW vw_olap_cube AS SELECT Region, Sales FROM fact_sales");
+
+        JdbcOlapAdapter adapter = new JdbcOlapAdapter(jdbc, "vw_olap_cube");
+        Query query = new Query("SELECT Region, SUM(Sales) AS Sales FROM cube_view WHERE Region = :region GROUP BY Region",
+            QueryType.SQL, Map.of("region", "EMEA"));
+
+        String plan = adapter.explain(query).orElseThrow();
+
+        assertTrue(plan.toUpperCase().contains("FACT_SALES"), plan);
+        assertTrue(plan.toUpperCase().contains("GROUP BY"), plan);
+    }
+}
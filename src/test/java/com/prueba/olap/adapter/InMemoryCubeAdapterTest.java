@@ -0,0 +1,335 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.CalculatedMeasure;
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.AggregateSyntax;
+import com.prueba.olap.service.GroupingSetsSyntax;
+import com.prueba.olap.service.LimitSyntax;
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.QueryRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryCubeAdapterTest {
+
+    private static final ColumnarCube.CubeSchema SCHEMA =
+        new ColumnarCube.CubeSchema(List.of("Region", "Product", "Year"), List.of("Sales", "Quantity"));
+
+    private static NamedParameterJdbcTemplate jdbc;
+
+    @BeforeAll
+    static void createCube() {
+        JdbcTemplate template = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:olap_columnar_test;DB_CLOSE_DELAY=-1", "sa", ""));
+        template.execute("CREATE TABLE fact_sales (Region VARCHAR(50), Product VARCHAR(50), "
+            + "Sales DECIMAL(10,2), Quantity INT, \"Year\" INT)");
+        template.execute("INSERT INTO fact_sales VALUES "
+            + "('EMEA', 'ProductA', 1000.00, 50, 2024), ('EMEA', 'ProductB', 1500.00, 75, 2024), "
+            + "('APAC', 'ProductA', 800.00, 40, 2024), ('EMEA', 'ProductA', 250.50, 10, 2023)");
+        template.execute("CREATE VIEW vw_olap_cube AS SELECT Region, Product, Sales, Quantity, \"Year\" FROM fact_sales");
+        template.execute("CREATE TABLE fact_returns (Region VARCHAR(50), Product VARCHAR(50), "
+            + "Sales DECIMAL(10,2), Quantity INT, \"Year\" INT)");
+        template.execute("INSERT INTO fact_returns VALUES "
+            + "('EMEA', 'ProductA', 100.00, NULL, 2024), ('EMEA', 'ProductB', NULL, 5, 2024), "
+            + "('EMEA', 'ProductA', 40.00, 15, 2024), ('EMEA', 'ProductC', 60.00, 25, 2024), "
+            + "('APAC', 'ProductA', NULL, NULL, 2024)");
+        template.execute("CREATE VIEW vw_returns_cube AS SELECT Region, Product, Sales, Quantity, \"Year\" FROM fact_returns");
+        jdbc = new NamedParameterJdbcTemplate(template);
+    }
+
+    @Test
+    void query_groupsByDimensionsAndSumsMeasures() {
+        InMemoryCubeAdapter adapter = loadedAdapter();
+
+        AggregationResponse response = adapter.query(cubeQuery(List.of("Region"), List.of("Quantity", "Sales"), Map.of()));
+
+        List<AggregationRow> rows = sortedByRegion(response);
+        assertEquals(2, rows.size());
+        assertEquals("APAC", rows.get(0).getValues().get("Region"));
+        assertEquals(40L, rows.get(0).getValues().get("Quantity"));
+        assertEquals("EMEA", rows.get(1).getValues().get("Region"));
+        assertEquals(135L, rows.get(1).getValues().get("Quantity"));
+        assertEquals(2750.5, ((Number) rows.get(1).getValues().get("Sales")).doubleValue(), 1e-9);
+    }
+
+    @Test
+    void query_appliesFiltersOnNonStringDimensions() {
+        InMemoryCubeAdapter adapter = loadedAdapter();
+
+        AggregationResponse response = adapter.query(
+            cubeQuery(List.of("Product"), List.of("Quantity"), Map.of("Region", "EMEA", "Year", "2024")));
+
+        assertEquals(2, response.getRows().size());
+        long total = response.getRows().stream()
+            .mapToLong(row -> ((Number) row.getValues().get("Quantity")).longValue())
+            .sum();
+        assertEquals(125L, total);
+    }
+
+    @Test
+    void query_unknownFilterValue_returnsEmptyResponse() {
+        InMemoryCubeAdapter adapter = loadedAdapter();
+
+        AggregationResponse response = adapter.query(
+            cubeQuery(List.of("Region"), List.of("Sales"), Map.of("Region", "LATAM")));
+
+        assertTrue(response.getRows().isEmpty());
+    }
+
+    @Test
+    void query_unknownColumn_throwsIllegalArgumentException() {
+        InMemoryCubeAdapter adapter = loadedAdapter();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> adapter.query(cubeQuery(List.of("Country"), List.of("Sales"), Map.of())));
+    }
+
+    @Test
+    void query_withoutCubeQuery_throwsIllegalArgumentException() {
+        InMemoryCubeAdapter adapter = loadedAdapter();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> adapter.query(new Query("SELECT 1", QueryType.SQL, Map.of())));
+        assertThrows(IllegalArgumentException.class, () -> adapter.query("SELECT 1", Map.of()));
+    }
+
+    @Test
+    void query_beforeFirstLoad_throwsIllegalStateException() {
+        InMemoryCubeAdapter adapter = new InMemoryCubeAdapter(
+            InMemoryCubeAdapter.jdbcLoader(jdbc, "vw_olap_cube", SCHEMA), 2);
+
+        assertThrows(IllegalStateException.class,
+            () -> adapter.query(cubeQuery(List.of("Region"), List.of("Sales"), Map.of())));
+    }
+
+    @Test
+    void reload_publishesNewVersionOfTheCube() {
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryCubeAdapter adapter = new InMemoryCubeAdapter(() -> {
+            loads.incrementAndGet();
+            return InMemoryCubeAdapter.jdbcLoader(jdbc, "vw_olap_cube", SCHEMA).get();
+        }, 2);
+
+        adapter.reload();
+        adapter.reload();
+
+        assertEquals(2, loads.get());
+        assertEquals(4, adapter.query(cubeQuery(List.of("Region", "Product", "Year"), List.of("Sales"), Map.of()))
+            .getRows().size());
+    }
+
+    @Test
+    void query_rollup_matchesUnionAllSqlOnH2() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_olap_cube"), Set.of())
+            .withGroupingSetsSyntax(GroupingSetsSyntax.UNION_ALL);
+        Query query = service.buildQuery(new QueryRequest("Region,Product", "Quantity", "Region:EMEA").withGrouping("rollup"));
+
+        Set<List<String>> fromSql = positionalValues(service.execute(query));
+        Set<List<String>> fromMemory = positionalValues(loadedAdapter().query(query));
+
+        assertEquals(Set.of(
+            List.of("ProductA", "EMEA", "60", "0"), List.of("ProductB", "EMEA", "75", "0"),
+            List.of("null", "EMEA", "135", "2"), List.of("null", "null", "135", "3")), fromSql);
+        assertEquals(fromSql, fromMemory);
+    }
+
+    @Test
+    void query_pagedWithCursor_walksSameRowsAsLimitSqlOnH2() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_olap_cube"), Set.of())
+            .withLimitSyntax(LimitSyntax.LIMIT);
+        InMemoryCubeAdapter adapter = loadedAdapter();
+
+        List<List<String>> fromSql = walkPages(service, service::execute);
+        List<List<String>> fromMemory = walkPages(service, adapter::query);
+
+        assertEquals(List.of(List.of("ProductB", "EMEA", "75"), List.of("ProductA", "EMEA", "60"),
+            List.of("ProductA", "APAC", "40")), fromSql);
+        assertEquals(fromSql, fromMemory);
+    }
+
+    @Test
+    void query_aggregateFunctions_matchStandardSqlOnH2() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_olap_cube"), Set.of())
+            .withAggregateSyntax(AggregateSyntax.STANDARD);
+        Query query = service.buildQuery("Region", "Quantity:avg,Quantity:min,Quantity:max,Quantity:count,"
+            + "Product:distinct,Quantity:p50,Product:approx_distinct,Quantity:approx_p50", null);
+
+        Map<String, List<Double>> fromSql = numericValues(service.execute(query));
+        Map<String, List<Double>> fromMemory = numericValues(loadedAdapter().query(query));
+
+        // Product_approx_distinct, Product_distinct, Quantity_approx_p50, avg, count, max, min, p50
+        assertEquals(List.of(2.0, 2.0, 50.0, 45.0, 3.0, 75.0, 10.0, 50.0), fromSql.get("EMEA"));
+        assertEquals(fromSql.keySet(), fromMemory.keySet());
+        fromSql.forEach((region, expected) -> {
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), fromMemory.get(region).get(i), expected.get(i) * 0.01,
+                    region + " " + query.getCubeQuery().orElseThrow().getColumns().get(i + 1));
+            }
+        });
+    }
+
+    @Test
+    void query_calculatedMeasures_matchWindowedSqlOnH2() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_olap_cube"), Set.of())
+            .withCalculatedMeasures(List.of(CalculatedMeasure.parse("AvgPrice = Sales / Quantity"),
+                CalculatedMeasure.parse("SalesShare = Sales / total(Sales)"),
+                CalculatedMeasure.parse("Spread = (Quantity:max - Quantity:min) / -total(Quantity:max)")));
+        Query query = service.buildQuery("Region", "Spread,SalesShare,AvgPrice", null);
+
+        Map<String, List<Double>> fromSql = numericValues(service.execute(query));
+        Map<String, List<Double>> fromMemory = numericValues(loadedAdapter().query(query));
+
+        assertEquals(List.of(2750.5 / 135, 2750.5 / 3550.5, -65.0 / 75), fromSql.get("EMEA"));
+        assertEquals(fromSql.keySet(), fromMemory.keySet());
+        fromSql.forEach((region, expected) -> {
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), fromMemory.get(region).get(i), Math.abs(expected.get(i)) * 1e-6);
+            }
+        });
+    }
+
+    @Test
+    void query_remainderPartition_matchesSqlOnH2() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_olap_cube"), Set.of());
+        Query query = service.remainder(service.buildQuery("Product", "Sales,Quantity", null),
+            "Region", List.of("EMEA", "LATAM"));
+
+        Map<String, List<Double>> fromSql = numericValues(service.execute(query));
+
+        assertEquals(Map.of("ProductA", List.of(40.0, 800.0)), fromSql);
+        assertEquals(fromSql, numericValues(loadedAdapter().query(query)));
+    }
+
+    @Test
+    void query_nullableMeasures_skipNullsLikeSqlOnH2() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_returns_cube"), Set.of())
+            .withAggregateSyntax(AggregateSyntax.STANDARD);
+        Query query = service.buildQuery("Region", "Sales,Sales:avg,Quantity:min,Quantity:max,Quantity:count,"
+            + "Quantity:distinct,Quantity:p50,Quantity:approx_distinct,Quantity:approx_p50", null);
+        InMemoryCubeAdapter adapter = new InMemoryCubeAdapter(
+            InMemoryCubeAdapter.jdbcLoader(jdbc, "vw_returns_cube", SCHEMA), 2);
+        adapter.reload();
+
+        Map<String, List<Double>> fromSql = nullableValues(service.execute(query));
+        Map<String, List<Double>> fromMemory = nullableValues(adapter.query(query));
+
+        // APAC solo tiene nulos: las agregaciones son nulas y los recuentos cero
+        assertEquals(Arrays.asList(0.0, null, 0.0, 0.0, null, null, null, null, null), fromSql.get("APAC"));
+        assertEquals(fromSql.get("APAC"), fromMemory.get("APAC"));
+        // EMEA: Quantity_approx_distinct, Quantity_approx_p50, Quantity_count, Quantity_distinct, max, min, p50,
+        // Sales, Sales_avg
+        List<Double> expected = List.of(3.0, 15.0, 3.0, 3.0, 25.0, 5.0, 15.0, 200.0, 200.0 / 3);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), fromSql.get("EMEA").get(i), 1e-9);
+            assertEquals(expected.get(i), fromMemory.get("EMEA").get(i), expected.get(i) * 0.01);
+        }
+    }
+
+    @Test
+    void query_moreGroupsThanDenseLimit_matchesSqlOnH2() {
+        JdbcTemplate template = jdbc.getJdbcTemplate();
+        template.execute("CREATE TABLE fact_wide AS SELECT 'R' || MOD(X, 300) AS Region, "
+            + "'P' || MOD(X, 301) AS Product, CAST(X AS DECIMAL(10,2)) AS Sales, MOD(X, 5) AS Quantity, "
+            + "CAST(MOD(X, 3) AS INT) AS \"Year\" FROM SYSTEM_RANGE(1, 20000)");
+        template.execute("CREATE VIEW vw_wide_cube AS SELECT Region, Product, Sales, Quantity, \"Year\" FROM fact_wide");
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_wide_cube"), Set.of());
+        Query query = service.buildQuery("Region,Product", "Sales,Quantity:max", null);
+        InMemoryCubeAdapter adapter = new InMemoryCubeAdapter(
+            InMemoryCubeAdapter.jdbcLoader(jdbc, "vw_wide_cube", SCHEMA), 4);
+        adapter.reload();
+
+        Set<List<Object>> fromSql = typedValues(service.execute(query));
+
+        // 300 x 301 combinaciones posibles: la tabla de grupos asigna huecos bajo demanda
+        assertEquals(20000, fromSql.size());
+        assertEquals(fromSql, typedValues(adapter.query(query)));
+    }
+
+    /**
+     * Recorre las páginas de dos filas siguiendo nextCursor hasta agotarlas.
+     */
+    private List<List<String>> walkPages(OlapService service, Function<Query, AggregationResponse> execute) {
+        List<List<String>> rows = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Query query = service.buildQuery(new QueryRequest("Product,Region", "Quantity", null)
+                .withPage("Quantity:desc", 2, cursor));
+            AggregationResponse page = service.paginate(query, execute.apply(query));
+            page.getRows().forEach(row -> rows.add(Arrays.stream(new int[] {0, 1, 2})
+                .mapToObj(i -> String.valueOf(row.getValueAt(i))).toList()));
+            cursor = page.getNextCursor();
+            assertTrue(++pages <= 3, "el cursor debe avanzar");
+        } while (cursor != null);
+        return rows;
+    }
+
+    private Set<List<String>> positionalValues(AggregationResponse response) {
+        return response.getRows().stream()
+            .map(row -> Arrays.stream(new int[] {0, 1, 2, 3}).mapToObj(i -> String.valueOf(row.getValueAt(i))).toList())
+            .collect(Collectors.toSet());
+    }
+
+    private Set<List<Object>> typedValues(AggregationResponse response) {
+        return response.getRows().stream()
+            .map(row -> IntStream.range(0, row.getColumnCount())
+                .mapToObj(i -> row.getValueAt(i) instanceof Number number ? number.doubleValue() : row.getValueAt(i))
+                .toList())
+            .collect(Collectors.toSet());
+    }
+
+    private Map<String, List<Double>> numericValues(AggregationResponse response) {
+        return response.getRows().stream().collect(Collectors.toMap(
+            row -> String.valueOf(row.getValueAt(0)),
+            row -> IntStream.range(1, row.schema().size())
+                .mapToObj(i -> ((Number) row.getValueAt(i)).doubleValue())
+                .toList()));
+    }
+
+    private Map<String, List<Double>> nullableValues(AggregationResponse response) {
+        return response.getRows().stream().collect(Collectors.toMap(
+            row -> String.valueOf(row.getValueAt(0)),
+            row -> IntStream.range(1, row.schema().size())
+                .mapToObj(i -> row.getValueAt(i) instanceof Number number ? number.doubleValue() : null)
+                .toList()));
+    }
+
+    private InMemoryCubeAdapter loadedAdapter() {
+        InMemoryCubeAdapter adapter = new InMemoryCubeAdapter(
+            InMemoryCubeAdapter.jdbcLoader(jdbc, "vw_olap_cube", SCHEMA), 2);
+        adapter.reload();
+        return adapter;
+    }
+
+    private Query cubeQuery(List<String> dimensions, List<String> measures, Map<String, String> filters) {
+        return new Query("SELECT 1", QueryType.SQL, Map.of()).withCubeQuery(new CubeQuery(dimensions, measures, filters));
+    }
+
+    private List<AggregationRow> sortedByRegion(AggregationResponse response) {
+        return response.getRows().stream()
+            .sorted(Comparator.comparing(row -> String.valueOf(row.getValues().get("Region"))))
+            .toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Rollup;
+import com.prueba.olap.service.dto.AggregationResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JdbcRollupStoreTest {
+
+    @Test
+    void refresh_createsTableAndReplacesContentOnEachRefresh() {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:olap_rollup_test;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(ds);
+        template.execute("CREATE TABLE fact_sales (Region VARCHAR(50), Product VARCHAR(50), Sales INT)");
+        template.execute("INSERT INTO fact_sales VALUES ('EMEA', 'A', 100), ('EMEA', 'B', 50), ('APAC', 'A', 200)");
+        template.execute("CREATE VIEW vw_olap_cube AS SELECT Region, Product, Sales FROM fact_sales");
+
+        JdbcRollupStore store = new JdbcRollupStore(
+            template, "vw_olap_cube", new TransactionTemplate(new DataSourceTransactionManager(ds)));
+        Rollup byRegion = new Rollup("agg_region", List.of("Region"), List.of("Sales"));
+
+        assertEquals(2L, store.refresh(byRegion));
+
+        template.execute("INSERT INTO fact_sales VALUES ('AMERICAS', 'A', 10), ('EMEA', 'A', 1)");
+        assertEquals(3L, store.refresh(byRegion));
+
+        AggregationResponse response = new JdbcOlapAdapter(new NamedParameterJdbcTemplate(template), "vw_olap_cube")
+            .query("SELECT Region, SUM(Sales) AS Sales FROM agg_region WHERE Region = :p0 GROUP BY Region",
+                Map.of("p0", "EMEA"));
+        assertEquals(151L, ((Number) response.getRows().get(0).getValues().get("SALES")).longValue());
+    }
+}
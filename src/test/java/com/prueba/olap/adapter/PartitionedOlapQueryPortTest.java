@@ -0,0 +1,156 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.QueryPartitioner;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PartitionedOlapQueryPortTest {
+
+    private static final Set<String> ALLOWED_COLUMNS = Set.of("Region", "Product", "Sales", "Quantity");
+
+    private static JdbcTemplate template;
+    private static OlapQueryPort jdbcAdapter;
+    private static QueryExecutor executor;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final OlapQueryPort counting = new OlapQueryPort() {
+        @Override
+        public AggregationResponse query(String query, Map<String, Object> params) {
+            return jdbcAdapter.query(query, params);
+        }
+
+        @Override
+        public AggregationResponse query(Query query) {
+            calls.incrementAndGet();
+            return jdbcAdapter.query(query);
+        }
+    };
+    private final OlapService service = new OlapService(counting, ALLOWED_COLUMNS);
+
+    @BeforeAll
+    static void createCube() {
+        template = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:olap_partition_test;DB_CLOSE_DELAY=-1", "sa", ""));
+        template.execute("CREATE TABLE fact_sales (Region VARCHAR(50), Product VARCHAR(50), "
+            + "Sales DECIMAL(10,2), Quantity INT)");
+        template.execute("INSERT INTO fact_sales VALUES "
+            + "('EMEA', 'ProductA', 1000.00, 50), ('EMEA', 'ProductB', 1500.00, 75), "
+            + "('APAC', 'ProductA', 800.00, 40), ('EMEA', 'ProductA', 250.50, 10), "
+            + "('AMER', 'ProductB', 300.00, 5), ('AMER', 'ProductC', NULL, 20)");
+        template.execute("CREATE VIEW vw_olap_cube AS SELECT Region, Product, Sales, Quantity FROM fact_sales");
+        jdbcAdapter = new JdbcOlapAdapter(new NamedParameterJdbcTemplate(template), "vw_olap_cube");
+        executor = QueryExecutor.boundedElastic(4, 16);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        executor.close();
+    }
+
+    @Test
+    void aggregate_partitionedByRegion_matchesSingleQuery() {
+        var port = new PartitionedOlapQueryPort(new BlockingOlapQueryBridge(counting, executor),
+            new QueryPartitioner(service, "Region", 2).withMerge(true));
+        List<Query> queries = List.of(
+            service.buildQuery("Product", "Sales,Quantity:max,Quantity:min,Quantity:count", null),
+            service.buildQuery(null, "Sales,Quantity", "Product:ProductA"),
+            service.buildQuery("Product,Region", "Sales:avg,Product:distinct", null));
+
+        for (Query query : queries) {
+            calls.set(0);
+            AggregationResponse partitioned = port.aggregate(query).block();
+            int partitionCalls = calls.get();
+            AggregationResponse single = service.execute(query);
+
+            Assertions.assertEquals(valuesOf(single), valuesOf(partitioned), query.getStatement());
+            Assertions.assertTrue(partitionCalls >= 3, "Una subconsulta por región: " + partitionCalls);
+        }
+    }
+
+    @Test
+    void aggregate_staleValues_newAndNullValuesFallInTheRemainder() {
+        var port = new PartitionedOlapQueryPort(new BlockingOlapQueryBridge(counting, executor),
+            new QueryPartitioner(service, "Region", 2).withMerge(true));
+        List<Query> queries = List.of(
+            service.buildQuery("Product", "Sales,Quantity:count", null),
+            service.buildQuery("Region", "Sales,Quantity:max", null));
+        port.aggregate(queries.get(0)).block();
+
+        template.update("INSERT INTO fact_sales VALUES ('LATAM', 'ProductA', 70.00, 7), (NULL, 'ProductC', 30.00, 3)");
+        try {
+            for (Query query : queries) {
+                Assertions.assertEquals(valuesOf(service.execute(query)), valuesOf(port.aggregate(query).block()),
+                    query.getStatement());
+            }
+        } finally {
+            template.update("DELETE FROM fact_sales WHERE Region IS NULL OR Region = 'LATAM'");
+        }
+    }
+
+    @Test
+    void aggregate_notReaggregableOrAlreadyFiltered_runsUnpartitioned() {
+        var port = new PartitionedOlapQueryPort(
+            new BlockingOlapQueryBridge(counting, executor), new QueryPartitioner(service, "Region", 2));
+
+        port.aggregate(service.buildQuery("Product", "Sales:avg", null)).block();
+        port.aggregate(service.buildQuery("Product", "Sales", "Region:EMEA")).block();
+
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new QueryPartitioner(service, "Secret", 2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new QueryPartitioner(service, "Region", 0));
+    }
+
+    @Test
+    void aggregate_withoutMerge_partitionsOnlyQueriesGroupedByTheColumn() {
+        var port = new PartitionedOlapQueryPort(
+            new BlockingOlapQueryBridge(counting, executor), new QueryPartitioner(service, "Region", 2));
+        Query byProduct = service.buildQuery("Product", "Sales", null);
+        Query byRegion = service.buildQuery("Region,Product", "Sales", null);
+        port.aggregate(byRegion).block();
+
+        calls.set(0);
+        AggregationResponse merged = port.aggregate(byProduct).block();
+        Assertions.assertEquals(1, calls.get(), "Sin merge se ejecuta entera");
+        Assertions.assertEquals(valuesOf(service.execute(byProduct)), valuesOf(merged));
+
+        calls.set(0);
+        AggregationResponse concatenated = port.aggregate(byRegion).block();
+        Assertions.assertTrue(calls.get() >= 3, "Una subconsulta por región: " + calls.get());
+        Assertions.assertEquals(valuesOf(service.execute(byRegion)), valuesOf(concatenated));
+    }
+
+    /**
+     * Filas por posición, sin orden y con los números como {@code double}: la suma de las particiones
+     * puede ser de otro tipo que la de la consulta única.
+     */
+    private static Set<List<Object>> valuesOf(AggregationResponse response) {
+        Set<List<Object>> rows = new HashSet<>();
+        for (AggregationRow row : response.getRows()) {
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < row.getColumnCount(); i++) {
+                Object value = row.getValueAt(i);
+                values.add(value instanceof Number number ? number.doubleValue() : value);
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,92 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+import java.util.Map;
+
+class R2dbcOlapAdapterTest {
+
+    private static final String SQL =
+        "SELECT Region, SUM(Sales) AS Sales FROM cube_view WHERE Product = :p0 GROUP BY Region ORDER BY Region";
+
+    private ConnectionPool pool;
+    private R2dbcOlapAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbc = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:r2dbc_adapter_test;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS vw_olap_cube (Region VARCHAR(50), Product VARCHAR(50), Sales INT)");
+        jdbc.execute("DELETE FROM vw_olap_cube");
+        jdbc.execute("INSERT INTO vw_olap_cube VALUES ('EMEA', 'Laptop', 100), ('EMEA', 'Laptop', 50), "
+            + "('APAC', 'Laptop', 200), ('APAC', 'Phone', 70), ('LATAM', 'Laptop', 10)");
+
+        ConnectionFactoryOptions options = ConnectionFactoryOptions
+            .parse("r2dbc:h2:mem:///r2dbc_adapter_test?options=DB_CLOSE_DELAY=-1")
+            .mutate()
+            .option(ConnectionFactoryOptions.USER, "sa")
+            .option(ConnectionFactoryOptions.PASSWORD, "")
+            .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .maxSize(2)
+            .build());
+        adapter = new R2dbcOlapAdapter(DatabaseClient.create(pool), "vw_olap_cube", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.dispose();
+    }
+
+    @Test
+    void stream_replacesCubeViewAndBindsNamedParameters() {
+        Query query = new Query(SQL, QueryType.SQL, Map.of("p0", "Laptop"));
+
+        List<AggregationRow> rows = adapter.stream(query).collectList().block();
+
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals("APAC", rows.get(0).getValues().get("REGION"));
+        Assertions.assertEquals(150L, ((Number) rows.get(1).getValues().get("SALES")).longValue());
+        Assertions.assertSame(rows.get(0).schema(), rows.get(2).schema());
+    }
+
+    @Test
+    void stream_cancelledEarly_releasesConnection() {
+        Query query = new Query(SQL, QueryType.SQL, Map.of("p0", "Laptop"));
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(1, adapter.stream(query).take(1).collectList().block().size());
+        }
+
+        Assertions.assertEquals(0, pool.getMetrics().orElseThrow().acquiredSize());
+    }
+
+    @Test
+    void query_blockingPath_returnsSameRows() {
+        AggregationResponse response = adapter.query(SQL, Map.of("p0", "Phone"));
+
+        Assertions.assertEquals(1, response.getRowCount());
+        Assertions.assertEquals("APAC", response.getRows().get(0).getValues().get("REGION"));
+    }
+
+    @Test
+    void query_invalidSql_throwsRuntimeException() {
+        Assertions.assertThrows(RuntimeException.class, () -> adapter.query("SELECT * FROM missing_table", Map.of()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> adapter.query(" ", Map.of()));
+    }
+}
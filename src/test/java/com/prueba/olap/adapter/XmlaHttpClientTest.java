@@ -0,0 +1,139 @@
+package com.prueba.olap.adapter;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+class XmlaHttpClientTest {
+
+    private static final String RESPONSE =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?><root><row><Region>EMEA</Region><Sales>100</Sales></row></root>";
+
+    private HttpServer server;
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/xmla", exchange -> {
+            requests.incrementAndGet();
+            authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            requestBodies.add(readBody(exchange.getRequestBody(),
+                "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))));
+
+            byte[] body = gzip(RESPONSE.getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void query_sendsBasicAuthAndDecodesGzipResponse() {
+        var client = new XmlaHttpClient(endpoint(), new XmlaHttpClient.Credentials("user", "secret"),
+            XmlaHttpClient.Settings.defaults());
+        var adapter = new XmlaOlapAdapter(client, "Sales");
+
+        AggregationResponse first = adapter.query("MDX: SELECT 1");
+        adapter.query("MDX: SELECT 2");
+
+        Assertions.assertEquals("EMEA", first.getRows().get(0).getValues().get("Region"));
+        Assertions.assertEquals(2, requests.get());
+        String expected = "Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(List.of(expected, expected), authorizations);
+    }
+
+    @Test
+    void query_compressRequest_sendsGzippedEnvelope() {
+        var settings = new XmlaHttpClient.Settings(Duration.ofSeconds(5), Duration.ofSeconds(5), true);
+        var client = new XmlaHttpClient(endpoint(), new XmlaHttpClient.Credentials(null, null), settings);
+
+        new XmlaOlapAdapter(client, "Sales").query("MDX: SELECT FROM [Sales]");
+
+        Assertions.assertTrue(requestBodies.get(0).contains("SELECT FROM [Sales]"));
+        Assertions.assertEquals(List.of("null"), authorizations);
+    }
+
+    @Test
+    void stream_query_sendsAsynchronouslyAndDecodesGzipResponse() {
+        var client = new XmlaHttpClient(endpoint(), null, XmlaHttpClient.Settings.defaults());
+        var adapter = new XmlaOlapAdapter(client, "Sales");
+
+        List<AggregationRow> rows = adapter.stream(new Query("MDX: SELECT 1", QueryType.MDX, Map.of()))
+            .collectList().block(Duration.ofSeconds(10));
+
+        Assertions.assertEquals(1, rows.size());
+        Assertions.assertEquals("EMEA", rows.get(0).getValues().get("Region"));
+        Assertions.assertEquals(List.of("null"), authorizations);
+    }
+
+    @Test
+    void executeAsync_unexpectedStatus_failsWithoutReadingBody() {
+        var client = new XmlaHttpClient(endpoint() + "/missing-catalog", null, XmlaHttpClient.Settings.defaults());
+        server.removeContext("/xmla");
+        server.createContext("/xmla", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+
+        var error = Assertions.assertThrows(CompletionException.class,
+            () -> client.executeAsync("<Execute/>").join());
+
+        Assertions.assertTrue(error.getCause().getMessage().contains("404"));
+    }
+
+    @Test
+    void settings_nonPositiveTimeout_throwsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new XmlaHttpClient.Settings(Duration.ZERO, Duration.ofSeconds(1), false));
+    }
+
+    private String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/xmla";
+    }
+
+    private static String readBody(InputStream body, boolean gzipped) throws IOException {
+        InputStream in = gzipped ? new GZIPInputStream(body) : body;
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -4,7 +4,9 @@ import com.prueba.olap.service.dto.AggregationResponse;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 class XmlaOlapAdapterTest {
 
@@ -27,4 +29,101 @@ class XmlaOlapAdapterTest {
         var adapter = new XmlaOlapAdapter(envelope -> "", "TestCatalog");
         Assertions.assertThrows(IllegalArgumentException.class, () -> adapter.query("SELECT * FROM table"));
     }
+
+    @Test
+    void query_convertsValuesWithRowsetSchemaTypes() {
+        String fakeResponse = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<root xmlns=\"urn:schemas-microsoft-com:xml-analysis:rowset\" "
+            + "xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<xsd:schema><xsd:complexType name=\"row\"><xsd:sequence>"
+            + "<xsd:element name=\"Region\" type=\"xsd:string\"/><xsd:element name=\"Sales\" type=\"xsd:double\"/>"
+            + "<xsd:element name=\"Quantity\" type=\"xsd:long\"/><xsd:element name=\"Price\"/>"
+            + "</xsd:sequence></xsd:complexType></xsd:schema>"
+            + "<row><Region>EMEA</Region><Sales>100.5</Sales><Quantity>7</Quantity>"
+            + "<Price xsi:type=\"xsd:decimal\">1.10</Price></row>"
+            + "<row><Region>APAC</Region><Quantity>3</Quantity></row>"
+            + "</root></soap:Body></soap:Envelope>";
+
+        var adapter = new XmlaOlapAdapter(envelope -> fakeResponse, "TestCatalog");
+        AggregationResponse resp = adapter.query("MDX: SELECT ...");
+
+        var first = resp.getRows().get(0).getValues();
+        var second = resp.getRows().get(1);
+        Assertions.assertEquals(100.5, first.get("Sales"));
+        Assertions.assertEquals(7L, first.get("Quantity"));
+        Assertions.assertEquals(new BigDecimal("1.10"), first.get("Price"));
+        Assertions.assertSame(resp.getRows().get(0).schema(), second.schema());
+        Assertions.assertTrue(second.hasColumn("Sales"));
+        Assertions.assertNull(second.getValues().get("Sales"));
+    }
+
+    @Test
+    void query_soapFault_throwsRuntimeException() {
+        String fault = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<soap:Fault><faultcode>XMLAnalysisError</faultcode><faultstring>Cubo no encontrado</faultstring>"
+            + "</soap:Fault></soap:Body></soap:Envelope>";
+
+        var adapter = new XmlaOlapAdapter(envelope -> fault, "TestCatalog");
+
+        var error = Assertions.assertThrows(RuntimeException.class, () -> adapter.query("MDX: SELECT ..."));
+        Assertions.assertTrue(error.getMessage().contains("Cubo no encontrado"));
+    }
+
+    @Test
+    void stream_emitsRowsAsTheyAreRead() {
+        String fakeResponse = "<root><row><Region>EMEA</Region></row><row><Region>APAC</Region></row></root>";
+        var adapter = new XmlaOlapAdapter(envelope -> fakeResponse, "TestCatalog");
+
+        List<String> regions = adapter.stream("MDX: SELECT ...", null)
+            .map(row -> (String) row.getValues().get("Region"))
+            .collectList()
+            .block();
+
+        Assertions.assertEquals(List.of("EMEA", "APAC"), regions);
+    }
+
+    @Test
+    void query_multidimensionalFormat_rebuildsRowsFromAxesAndCells() {
+        String cellset = "<root xmlns=\"urn:schemas-microsoft-com:xml-analysis:mddataset\" "
+            + "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<OlapInfo><AxesInfo><AxisInfo name=\"Axis0\"/></AxesInfo></OlapInfo><Axes>"
+            + "<Axis name=\"Axis0\"><Tuples>"
+            + tuple(member("[Measures]", "Sales")) + tuple(member("[Measures]", "Quantity"))
+            + "</Tuples></Axis><Axis name=\"Axis1\"><Tuples>"
+            + tuple(member("[Region].[Region]", "EMEA") + member("[Product].[Product]", "P1"))
+            + tuple(member("[Region].[Region]", "APAC") + member("[Product].[Product]", "P2"))
+            + "</Tuples></Axis><Axis name=\"SlicerAxis\"><Tuples><Tuple/></Tuples></Axis></Axes><CellData>"
+            + "<Cell CellOrdinal=\"0\"><Value xsi:type=\"xsd:double\">100.5</Value><FmtValue>100,5</FmtValue></Cell>"
+            + "<Cell CellOrdinal=\"1\"><Value xsi:type=\"xsd:int\">7</Value></Cell>"
+            + "<Cell CellOrdinal=\"3\"><Value xsi:type=\"xsd:int\">3</Value></Cell>"
+            + "</CellData></root>";
+        var envelope = new AtomicReference<String>();
+        var adapter = new XmlaOlapAdapter(request -> {
+            envelope.set(request);
+            return cellset;
+        }, "TestCatalog", XmlaFormat.MULTIDIMENSIONAL);
+
+        AggregationResponse resp = adapter.query("MDX: SELECT ...");
+
+        Assertions.assertTrue(envelope.get().contains("<Format>Multidimensional</Format>"));
+        Assertions.assertEquals(2, resp.getRows().size());
+        var first = resp.getRows().get(0).getValues();
+        var second = resp.getRows().get(1).getValues();
+        Assertions.assertEquals("EMEA", first.get("Region"));
+        Assertions.assertEquals("P1", first.get("Product"));
+        Assertions.assertEquals(100.5, first.get("Sales"));
+        Assertions.assertEquals(7, first.get("Quantity"));
+        Assertions.assertEquals("APAC", second.get("Region"));
+        Assertions.assertNull(second.get("Sales"));
+        Assertions.assertEquals(3, second.get("Quantity"));
+    }
+
+    private static String tuple(String members) {
+        return "<Tuple>" + members + "</Tuple>";
+    }
+
+    private static String member(String hierarchy, String caption) {
+        return "<Member Hierarchy=\"" + hierarchy + "\"><UName>" + hierarchy + ".&amp;[" + caption + "]</UName>"
+            + "<Caption>" + caption + "</Caption><LName>" + hierarchy + "</LName><LNum>1</LNum></Member>";
+    }
 }
@@ -0,0 +1,76 @@
+package com.prueba.olap.config;
+
+import com.prueba.olap.adapter.BlockingOlapQueryBridge;
+import com.prueba.olap.adapter.PartitionedOlapQueryPort;
+import com.prueba.olap.adapter.XmlaOlapAdapter;
+import com.prueba.olap.port.OlapQueryPort;
+import com.prueba.olap.service.OlapService;
+import com.prueba.olap.service.QueryExecutor;
+import com.prueba.olap.service.QueryPartitioner;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.util.Set;
+
+class DataSourceConfigTest {
+
+    @Test
+    void olapDataSource_buildsConfiguredHikariPool() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("app.datasource.url", "jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1")
+            .withProperty("app.datasource.username", "sa")
+            .withProperty("app.datasource.password", "")
+            .withProperty("app.datasource.pool.max-size", "4")
+            .withProperty("app.datasource.pool.min-idle", "1")
+            .withProperty("app.datasource.pool.statement-cache-size", "64");
+
+        DataSource dataSource = new DataSourceConfig().olapDataSource(environment);
+
+        try (HikariDataSource pool = Assertions.assertInstanceOf(HikariDataSource.class, dataSource)) {
+            Assertions.assertEquals(4, pool.getMaximumPoolSize());
+            Assertions.assertEquals(1, pool.getMinimumIdle());
+            Assertions.assertEquals("64", pool.getDataSourceProperties().getProperty("QUERY_CACHE_SIZE"));
+        }
+    }
+
+    @Test
+    void olapDataSource_missingUrl_throws() {
+        MockEnvironment environment = new MockEnvironment();
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new DataSourceConfig().olapDataSource(environment));
+    }
+
+    @Test
+    void reactiveOlapAdapter_bridgesBlockingAdaptersAndReusesNonBlockingOnes() {
+        var config = new DataSourceConfig();
+        OlapQueryPort blocking = (sql, params) -> new AggregationResponse();
+        var xmla = new XmlaOlapAdapter(envelope -> "", "Sales");
+
+        var noPartitioner = new StaticListableBeanFactory().getBeanProvider(QueryPartitioner.class);
+
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(1, 1)) {
+            Assertions.assertInstanceOf(BlockingOlapQueryBridge.class,
+                config.reactiveOlapAdapter(blocking, executor, noPartitioner));
+            Assertions.assertSame(xmla, config.reactiveOlapAdapter(xmla, executor, noPartitioner));
+        }
+    }
+
+    @Test
+    void reactiveOlapAdapter_withPartitioner_partitionsOverTheBridge() {
+        var config = new DataSourceConfig();
+        OlapQueryPort blocking = (sql, params) -> new AggregationResponse();
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("queryPartitioner",
+            new QueryPartitioner(new OlapService(blocking, Set.of("Year", "Sales")), "Year", 2));
+
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(1, 1)) {
+            Assertions.assertInstanceOf(PartitionedOlapQueryPort.class,
+                config.reactiveOlapAdapter(blocking, executor, beans.getBeanProvider(QueryPartitioner.class)));
+        }
+    }
+}
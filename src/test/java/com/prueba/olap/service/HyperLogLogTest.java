@@ -0,0 +1,37 @@
+package com.prueba.olap.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_fewValues_isExact() {
+        var sketch = new HyperLogLog();
+        for (int i = 0; i < 200; i++) {
+            sketch.add("Product" + (i % 150));
+        }
+
+        Assertions.assertEquals(150, sketch.estimate());
+    }
+
+    @Test
+    void merge_partitionsWithOverlap_estimatesUnionWithinTwoPercent() {
+        var first = new HyperLogLog();
+        var second = new HyperLogLog();
+        var whole = new HyperLogLog();
+        for (long i = 0; i < 60_000; i++) {
+            first.add(i);
+            whole.add(i);
+        }
+        for (long i = 40_000; i < 100_000; i++) {
+            second.add(i);
+            whole.add(i);
+        }
+
+        long merged = first.merge(second).estimate();
+
+        Assertions.assertEquals(100_000, merged, 2_000);
+        Assertions.assertEquals(whole.estimate(), merged, "fusionar equivale a añadirlo todo a un resumen");
+    }
+}
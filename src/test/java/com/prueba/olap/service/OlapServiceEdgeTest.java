@@ -23,7 +23,7 @@ class OlapServiceEdgeTest {
     void buildQuery_onlyMeasures_noGroupBy() {
         OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of(new AggregationRow(Map.of("Sales", 10))));
         var service = new OlapService(fake, Set.of("Sales"));
-        var sql = service.buildQuery(null, "Sales", null);
+        var sql = service.buildQuery(null, "Sales", null).getStatement();
         Assertions.assertTrue(sql.contains("SUM(Sales) AS Sales"));
         Assertions.assertFalse(sql.contains("GROUP BY"));
     }
@@ -38,4 +38,12 @@ class OlapServiceEdgeTest {
         var q2 = service.buildQuery(null, null, "badfilter");
         Assertions.assertNotNull(q2);
     }
+
+    @Test
+    void buildQuery_duplicateFilter_throws() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of());
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> service.buildQuery("Region", "Sales", "Region:EMEA|Region:APAC"));
+    }
 }
@@ -1,11 +1,17 @@
 package com.prueba.olap.service;
 
+import com.prueba.olap.domain.entity.CalculatedMeasure;
+import com.prueba.olap.domain.entity.Rollup;
 import com.prueba.olap.port.OlapQueryPort;
 import com.prueba.olap.service.dto.AggregationResponse;
 import com.prueba.olap.service.dto.AggregationRow;
+import com.prueba.olap.service.dto.QueryRequest;
+import com.prueba.olap.service.dto.RowSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,25 +22,64 @@ class OlapServiceTest {
     @Test
     void buildQuery_happyPath_generatesExpectedSql() {
         var captured = new AtomicReference<String>();
+        var capturedParams = new AtomicReference<Map<String, Object>>();
         OlapQueryPort fake = (sql, params) -> {
             captured.set(sql);
+            capturedParams.set(params);
             var row = new AggregationRow(Map.of("Region", "EMEA", "Sales", 1000));
             return new AggregationResponse(List.of(row));
         };
 
-        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity"));
-        var sql = service.buildQuery("Region", "Sales", "Year:2024|Region:EMEA");
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity", "Year"));
+        var query = service.buildQuery("Region", "Sales", "Year:2024|Region:EMEA");
+        var sql = query.getStatement();
 
         Assertions.assertTrue(sql.contains("SELECT Region, SUM(Sales) AS Sales"));
         Assertions.assertTrue(sql.contains("FROM cube_view"));
-        Assertions.assertTrue(sql.contains("WHERE Year = '2024' AND Region = 'EMEA'"));
+        Assertions.assertTrue(sql.contains("WHERE Region = :p0 AND Year = :p1"));
+        Assertions.assertEquals(Map.of("p0", "EMEA", "p1", "2024"), query.getParameters());
 
-        var resp = service.execute(sql);
+        var resp = service.execute(query);
+        Assertions.assertEquals(sql, captured.get());
+        Assertions.assertEquals(query.getParameters(), capturedParams.get());
         Assertions.assertNotNull(resp);
         Assertions.assertEquals(1, resp.getRows().size());
         Assertions.assertEquals("EMEA", resp.getRows().get(0).getValues().get("Region"));
     }
 
+    @Test
+    void remainder_keepsNullAndUnknownValuesOfThePartitionColumn() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Year"));
+        var query = service.buildQuery("Product", "Sales", "Year:2024");
+
+        var remainder = service.remainder(query, "Region", List.of("EMEA", "APAC"));
+
+        Assertions.assertTrue(remainder.getStatement()
+            .contains("WHERE Year = :p0 AND (Region IS NULL OR Region NOT IN (:e0, :e1))"));
+        Assertions.assertEquals(Map.of("p0", "2024", "e0", "EMEA", "e1", "APAC"), remainder.getParameters());
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> service.remainder(remainder, "Region", List.of("AMER")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> service.remainder(query, "Year", List.of("2023")));
+    }
+
+    @Test
+    void buildQuery_withMetrics_recordsBuildStageOnlyForAllowedShapes() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var registry = new SimpleMeterRegistry();
+        var service = new OlapService(fake, Set.of("Region", "Sales"))
+            .withMetrics(new QueryMetrics(registry, "vw_olap_cube", "jdbc"));
+
+        service.buildQuery("Region", "Sales", null);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery("Secret", "Sales", null));
+
+        Assertions.assertEquals(1, registry.get(QueryMetrics.STAGE_TIMER)
+            .tags("stage", OlapService.BUILD_STAGE, "shape", "region,sales", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.get(QueryMetrics.STAGE_TIMER)
+            .tags("shape", QueryMetrics.RAW_SHAPE, "outcome", "error").timer().count());
+    }
+
     @Test
     void buildQuery_emptyFilters_returnsGroupAndSelect() {
         var captured = new AtomicReference<String>();
@@ -45,12 +90,195 @@ class OlapServiceTest {
         };
 
         var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity"));
-        var sql = service.buildQuery("Product", "Quantity", null);
+        var query = service.buildQuery("Product", "Quantity", null);
+        var sql = query.getStatement();
 
         Assertions.assertTrue(sql.contains("SELECT Product, SUM(Quantity) AS Quantity"));
         Assertions.assertFalse(sql.contains("WHERE"));
+        Assertions.assertFalse(query.hasParameters());
 
-        var resp = service.execute(sql);
+        var resp = service.execute(query);
         Assertions.assertEquals(1, resp.getRows().size());
     }
+
+    @Test
+    void buildQuery_sameShapeDifferentValues_reusesStatementTemplate() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Sales", "Year"));
+
+        var emea = service.buildQuery("Region", "Sales", "Region:EMEA");
+        var apac = service.buildQuery("Region", "Sales", "Region:O'Brien");
+
+        Assertions.assertSame(emea.getStatement(), apac.getStatement());
+        Assertions.assertEquals("O'Brien", apac.getParameters().get("p0"));
+        Assertions.assertNotEquals(emea, apac);
+    }
+
+    @Test
+    void buildQuery_equivalentColumnOrder_producesSameQuery() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity"));
+
+        var first = service.buildQuery("Region,Product", "Sales,Quantity", null);
+        var second = service.buildQuery("Product, Region", "Quantity,Sales,Sales", null);
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertTrue(first.getStatement().contains("GROUP BY Product, Region"));
+    }
+
+    @Test
+    void buildQuery_coveredByMaterializedRollup_readsFromSmallestRollup() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var byRegion = new Rollup("agg_region", List.of("Region"), List.of("Sales"));
+        var byRegionProduct = new Rollup("agg_region_product", List.of("Region", "Product"), List.of("Sales"));
+        var catalog = new RollupCatalog(List.of(byRegionProduct, byRegion),
+            rollup -> rollup.getDimensions().size() * 100L);
+        catalog.refreshAll();
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity"), catalog);
+
+        var byRegionQuery = service.buildQuery("Region", "Sales", null);
+        var filteredByProduct = service.buildQuery("Region", "Sales", "Product:P1");
+        var notCovered = service.buildQuery("Region", "Quantity", null);
+
+        Assertions.assertTrue(byRegionQuery.getStatement().contains("FROM agg_region GROUP BY"));
+        Assertions.assertTrue(filteredByProduct.getStatement().contains("FROM agg_region_product WHERE"));
+        Assertions.assertTrue(notCovered.getStatement().contains("FROM cube_view"));
+    }
+
+    @Test
+    void buildQuery_withGrouping_generatesGroupingSetsOrUnionAllWithGroupingId() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales"));
+        var rollup = new QueryRequest("Region,Product", "Sales", "Region:EMEA").withGrouping("rollup");
+
+        var sql = service.buildQuery(rollup).getStatement();
+        Assertions.assertEquals("SELECT Product, Region, SUM(Sales) AS Sales, "
+            + "GROUPING(Product) * 2 + GROUPING(Region) AS GROUPING_ID FROM cube_view WHERE Region = :p0 "
+            + "GROUP BY GROUPING SETS ((Product, Region), (Region), ())", sql);
+
+        var union = service.withGroupingSetsSyntax(GroupingSetsSyntax.UNION_ALL).buildQuery(rollup).getStatement();
+        Assertions.assertEquals(1, union.split("cube_view", -1).length - 1, "la vista se lee una sola vez");
+        Assertions.assertTrue(union.contains("SELECT NULL AS Product, NULL AS Region, SUM(Sales) AS Sales, 3 AS GROUPING_ID"));
+
+        var cube = service.buildQuery(new QueryRequest("Region,Product", "Sales", null).withGrouping("CUBE"));
+        Assertions.assertEquals(4, cube.getCubeQuery().orElseThrow().getGroupingSets().size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region", "Sales", null).withGrouping("Region;Product")));
+    }
+
+    @Test
+    void buildQuery_withPage_pushesOrderAndLimitAndContinuesAfterCursor() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales"));
+        var top = new QueryRequest("Region,Product", "Sales", "Region:EMEA").withPage("Sales:desc", 1, null);
+
+        var first = service.buildQuery(top);
+        Assertions.assertEquals("SELECT Product, Region, SUM(Sales) AS Sales FROM cube_view WHERE Region = :p0 "
+            + "GROUP BY Product, Region ORDER BY Sales DESC, Product, Region OFFSET 0 ROWS FETCH NEXT :limit ROWS ONLY",
+            first.getStatement());
+        Assertions.assertEquals(1, first.getParameters().get("limit"));
+
+        var row = new AggregationRow(RowSchema.of(List.of("PRODUCT", "REGION", "SALES")),
+            new Object[] {"ProductB", "EMEA", new BigDecimal("1500.00")});
+        var cursor = service.paginate(first, new AggregationResponse(List.of(row))).getNextCursor();
+        Assertions.assertNotNull(cursor);
+
+        var next = service.withLimitSyntax(LimitSyntax.LIMIT)
+            .buildQuery(new QueryRequest("Region,Product", "Sales", "Region:EMEA").withPage("Sales:desc", 1, cursor));
+        Assertions.assertTrue(next.getStatement().startsWith("SELECT * FROM (SELECT Product, Region"));
+        Assertions.assertTrue(next.getStatement().endsWith(" WHERE (Sales < :c0 OR Sales IS NULL) "
+            + "OR (Sales = :c0 AND Product > :c1) OR (Sales = :c0 AND Product = :c1 AND Region > :c2) "
+            + "ORDER BY Sales DESC, Product, Region LIMIT :limit"), next.getStatement());
+        Assertions.assertEquals(List.of(new BigDecimal("1500.00"), "ProductB", "EMEA"),
+            List.of(next.getParameters().get("c0"), next.getParameters().get("c1"), next.getParameters().get("c2")));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region,Product", "Sales", null).withPage("Sales:asc", 1, cursor)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region", "Sales", null).withPage(null, 0, null)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region", "Sales", null).withPage("Product", 10, null)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region", "Sales", null).withGrouping("rollup").withPage(null, 10, null)));
+    }
+
+    @Test
+    void buildQuery_withAggregateFunctions_rendersEachMeasureInOneScan() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity"));
+
+        var windowed = service.buildQuery("Region", "Sales:avg,Quantity:p95,Product:approx_distinct", "Region:EMEA");
+        Assertions.assertEquals("SELECT Region, APPROX_COUNT_DISTINCT(Product) AS Product_approx_distinct, "
+            + "MAX(Quantity_p95) AS Quantity_p95, AVG(1.0 * Sales) AS Sales_avg FROM (SELECT Region, Product, "
+            + "PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY Quantity) OVER (PARTITION BY Region) AS Quantity_p95, "
+            + "Sales FROM cube_view WHERE Region = :p0) windowed GROUP BY Region", windowed.getStatement());
+
+        var standard = service.withAggregateSyntax(AggregateSyntax.STANDARD)
+            .buildQuery("Region", "Quantity:approx_p95,Sales:distinct", null);
+        Assertions.assertEquals("SELECT Region, PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY Quantity) AS "
+            + "Quantity_approx_p95, COUNT(DISTINCT Sales) AS Sales_distinct FROM cube_view GROUP BY Region",
+            standard.getStatement());
+        Assertions.assertEquals(List.of("Region", "Quantity_approx_p95", "Sales_distinct"),
+            standard.getCubeQuery().orElseThrow().getColumns());
+
+        Assertions.assertEquals(service.buildQuery("Region", "Sales", null), service.buildQuery("Region", "Sales:SUM", null));
+        var rollup = service.withGroupingSetsSyntax(GroupingSetsSyntax.UNION_ALL)
+            .buildQuery(new QueryRequest("Region", "Sales:max,Sales:count", null).withGrouping("rollup"));
+        Assertions.assertTrue(rollup.getStatement().contains("SUM(Sales_count) AS Sales_count, MAX(Sales_max) AS Sales_max"));
+
+        for (String invalid : List.of("Sales:median", "Sales:p0", "Sales:p100", "Secret:avg", ":avg")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery("Region", invalid, null),
+                invalid);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region", "Sales:avg", null).withGrouping("rollup")));
+    }
+
+    @Test
+    void buildQuery_withCalculatedMeasures_compilesExpressionsIntoSameScan() {
+        OlapQueryPort fake = (sql, params) -> new AggregationResponse(List.of());
+        var service = new OlapService(fake, Set.of("Region", "Product", "Sales", "Quantity")).withCalculatedMeasures(
+            List.of(CalculatedMeasure.parse("AvgPrice = Sales / Quantity"),
+                CalculatedMeasure.parse("SalesShare = Sales / total(Sales)")));
+
+        var query = service.buildQuery("Region", "SalesShare,Sales,AvgPrice", "Region:EMEA");
+
+        Assertions.assertEquals("SELECT Region, SUM(Sales) AS Sales, (1.0 * SUM(Sales) / NULLIF(SUM(Quantity), 0)) "
+            + "AS AvgPrice, (1.0 * SUM(Sales) / NULLIF(SUM(SUM(Sales)) OVER (), 0)) AS SalesShare FROM cube_view "
+            + "WHERE Region = :p0 GROUP BY Region", query.getStatement());
+        Assertions.assertEquals(List.of("Region", "Sales", "AvgPrice", "SalesShare"),
+            query.getCubeQuery().orElseThrow().getColumns());
+        Assertions.assertEquals(QueryMetrics.shapeOf(List.of("Region", "Sales", "AvgPrice", "SalesShare")),
+            QueryMetrics.shapeOf(query));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.buildQuery(
+            new QueryRequest("Region", "AvgPrice", null).withGrouping("rollup")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.withCalculatedMeasures(
+            List.of(CalculatedMeasure.parse("Leak = Secret / Sales"))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.withCalculatedMeasures(
+            List.of(CalculatedMeasure.parse("Sales = Sales * 2"))));
+        for (String invalid : List.of("Bad = Sales /", "Bad = total(Sales:avg)", "Bad = Quantity:p95 * 2",
+            "Bad = (Sales", "1Bad = Sales", "Bad = Sales Quantity")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> CalculatedMeasure.parse(invalid), invalid);
+        }
+    }
+
+    @Test
+    void buildQuery_unauthorizedFilterKey_isRejectedBeforeReachingSql() {
+        var captured = new AtomicReference<String>();
+        OlapQueryPort fake = (sql, params) -> {
+            captured.set(sql);
+            return new AggregationResponse(List.of());
+        };
+        var restricted = new OlapService(fake, Set.of("Region", "Sales"));
+        var unrestricted = new OlapService(fake, Set.of());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> restricted.buildQuery("Region", "Sales", "Secret:1"));
+        for (OlapService service : List.of(restricted, unrestricted)) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                () -> service.buildQuery("Region", "Sales", "Region = 'x' OR 1:1"));
+        }
+        Assertions.assertNull(captured.get());
+    }
 }
@@ -0,0 +1,38 @@
+package com.prueba.olap.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantile_mergedPartitions_staysWithinRelativeAccuracy() {
+        var low = new QuantileSketch();
+        var high = new QuantileSketch();
+        for (int i = 1; i <= 10_000; i++) {
+            (i % 2 == 0 ? low : high).add(i * 1.5);
+        }
+
+        var merged = low.merge(high);
+
+        Assertions.assertEquals(10_000, merged.getCount());
+        for (double quantile : new double[] {0.01, 0.5, 0.95, 0.99, 1.0}) {
+            double exact = 1.5 * (1 + Math.floor(quantile * 9_999));
+            Assertions.assertEquals(exact, merged.quantile(quantile), exact * 0.01, "p" + quantile);
+        }
+    }
+
+    @Test
+    void quantile_negativeZeroAndWideRange_keepsOrder() {
+        var sketch = new QuantileSketch();
+        for (double value : new double[] {-1e6, -5, 0, 0, 1e-9, 3, 1e12}) {
+            sketch.add(value);
+        }
+
+        Assertions.assertEquals(-1e6, sketch.quantile(0), 1e4);
+        Assertions.assertEquals(0, sketch.quantile(0.5));
+        Assertions.assertEquals(1e12, sketch.quantile(1), 1e10);
+        Assertions.assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+    }
+}
@@ -0,0 +1,90 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.adapter.JdbcOlapAdapter;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.QueryRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class QueryBatchPlannerTest {
+
+    private static final Set<String> ALLOWED_COLUMNS = Set.of("Region", "Product", "Sales", "Quantity");
+
+    private static NamedParameterJdbcTemplate jdbc;
+
+    @BeforeAll
+    static void createCube() {
+        JdbcTemplate template = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:olap_batch_test;DB_CLOSE_DELAY=-1", "sa", ""));
+        template.execute("CREATE TABLE fact_sales (Region VARCHAR(50), Product VARCHAR(50), "
+            + "Sales DECIMAL(10,2), Quantity INT)");
+        template.execute("INSERT INTO fact_sales VALUES "
+            + "('EMEA', 'ProductA', 1000.00, 50), ('EMEA', 'ProductB', 1500.00, 75), "
+            + "('APAC', 'ProductA', 800.00, 40), ('EMEA', 'ProductA', 250.50, 10)");
+        template.execute("CREATE VIEW vw_olap_cube AS SELECT Region, Product, Sales, Quantity FROM fact_sales");
+        jdbc = new NamedParameterJdbcTemplate(template);
+    }
+
+    @Test
+    void plan_sameFilters_mergesIntoOneScanWithSameResultsAsSeparateQueries() {
+        OlapService service = new OlapService(new JdbcOlapAdapter(jdbc, "vw_olap_cube"), ALLOWED_COLUMNS)
+            .withGroupingSetsSyntax(GroupingSetsSyntax.UNION_ALL);
+        List<QueryRequest> requests = List.of(
+            new QueryRequest("Region", "Sales", "Product:ProductA"),
+            new QueryRequest("Region", "Quantity", "Product:ProductA"),
+            new QueryRequest("Product,Region", "Sales", "Product:ProductA"),
+            new QueryRequest(null, "Quantity", "Product:ProductA"));
+
+        BatchPlan plan = new QueryBatchPlanner(service).plan(requests);
+
+        Assertions.assertEquals(1, plan.getScans().size());
+        BatchScan scan = plan.getScans().get(0);
+        Assertions.assertTrue(scan.isMerged());
+        AggregationResponse shared = service.execute(scan.getQuery());
+        for (BatchScan.Member member : scan.getMembers()) {
+            AggregationResponse separate = service.execute(service.buildQuery(requests.get(member.index())));
+            Assertions.assertEquals(valuesOf(separate), valuesOf(scan.project(shared, member)),
+                "Consulta " + member.index());
+        }
+    }
+
+    @Test
+    void plan_isolatesInvalidQueriesAndKeepsOthersSeparate() {
+        OlapService service = new OlapService((sql, params) -> new AggregationResponse(), ALLOWED_COLUMNS);
+        List<QueryRequest> requests = List.of(
+            new QueryRequest("Region", "Sales", "Region:EMEA"),
+            new QueryRequest("Region", "Password", null),
+            new QueryRequest("Region", "Sales", null),
+            new QueryRequest("Region,Product", "Sales", "Region:EMEA").withGrouping("rollup"),
+            new QueryRequest(null, null, null));
+
+        BatchPlan plan = new QueryBatchPlanner(service).plan(requests);
+
+        Assertions.assertEquals(Set.of(1, 4), plan.getFailures().keySet());
+        Assertions.assertEquals(3, plan.getScans().size());
+        Assertions.assertTrue(plan.getScans().stream().noneMatch(BatchScan::isMerged));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new QueryBatchPlanner(service)
+            .plan(Collections.nCopies(QueryBatchPlanner.MAX_BATCH_SIZE + 1, requests.get(0))));
+    }
+
+    /**
+     * Valores como texto: al volver a sumar en la CTE de {@code union-all}, H2 puede devolver
+     * BigDecimal donde la consulta por separado da Long; en JSON son el mismo número.
+     */
+    private Set<Map<String, String>> valuesOf(AggregationResponse response) {
+        return response.getRows().stream()
+            .map(row -> row.getValues().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> String.valueOf(entry.getValue()))))
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,80 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.service.dto.AggregationResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class QueryCoalescerTest {
+
+    private static final Query QUERY = new Query("SELECT 1 FROM cube_view", QueryType.SQL, Map.of("p0", "EMEA"));
+
+    @Test
+    void execute_identicalConcurrentQueries_runBackendOnce() {
+        var coalescer = new QueryCoalescer();
+        var calls = new AtomicInteger();
+        Sinks.One<AggregationResponse> backend = Sinks.one();
+
+        var first = coalescer.execute(QUERY, () -> {
+            calls.incrementAndGet();
+            return backend.asMono();
+        }).toFuture();
+        var second = coalescer.execute(QUERY, () -> {
+            calls.incrementAndGet();
+            return backend.asMono();
+        }).toFuture();
+
+        var response = new AggregationResponse(List.of());
+        backend.tryEmitValue(response);
+
+        Assertions.assertSame(response, first.join());
+        Assertions.assertSame(response, second.join());
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1, coalescer.getCoalescedCount());
+        Assertions.assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void execute_afterCompletion_runsAgain() {
+        var coalescer = new QueryCoalescer();
+        var calls = new AtomicInteger();
+
+        coalescer.execute(QUERY, () -> Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            return new AggregationResponse();
+        })).block();
+        coalescer.execute(QUERY, () -> Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            return new AggregationResponse();
+        })).block();
+
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void execute_allSubscribersCancel_cancelsBackendCall() {
+        var coalescer = new QueryCoalescer();
+        var cancelled = new AtomicBoolean();
+        Mono<AggregationResponse> never = Mono.<AggregationResponse>never().doOnCancel(() -> cancelled.set(true));
+
+        Disposable first = coalescer.execute(QUERY, () -> never).subscribe();
+        Disposable second = coalescer.execute(QUERY, () -> never).subscribe();
+
+        first.dispose();
+        Assertions.assertFalse(cancelled.get());
+        second.dispose();
+
+        Assertions.assertTrue(cancelled.get());
+        Assertions.assertEquals(0, coalescer.getInFlightCount());
+    }
+}
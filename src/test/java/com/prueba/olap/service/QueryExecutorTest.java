@@ -0,0 +1,151 @@
+package com.prueba.olap.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class QueryExecutorTest {
+
+    @Test
+    void submit_runsTaskOffCallerThread() {
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(2, 2)) {
+            String caller = Thread.currentThread().getName();
+
+            String worker = executor.submit(() -> Thread.currentThread().getName()).block();
+
+            Assertions.assertNotEquals(caller, worker);
+            Assertions.assertTrue(worker.startsWith("olap-query-"));
+        }
+    }
+
+    @Test
+    void submit_rejectsFastWhenSaturated() throws InterruptedException {
+        try (QueryExecutor executor = QueryExecutor.virtualThreads(1, 0)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Mono<String> slow = executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return "done";
+            });
+            var pending = slow.toFuture();
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(1, executor.getActiveCount());
+            Assertions.assertThrows(RejectedExecutionException.class,
+                () -> executor.submit(() -> "second").block(Duration.ofSeconds(5)));
+            Assertions.assertEquals(1, executor.getRejectedCount());
+
+            release.countDown();
+            Assertions.assertEquals("done", pending.join());
+        }
+    }
+
+    @Test
+    void stream_releasesCapacityWhenFluxCompletes() {
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(1, 0)) {
+            var first = executor.stream(() -> Flux.just(1, 2, 3)).collectList().block();
+            var second = executor.stream(() -> Flux.just(4)).collectList().block();
+
+            Assertions.assertEquals(3, first.size());
+            Assertions.assertEquals(1, second.size());
+            Assertions.assertEquals(0, executor.getQueueDepth());
+            Assertions.assertEquals(0, executor.getActiveCount());
+        }
+    }
+
+    @Test
+    void submit_recordsQueueWaitAndExposesTraceToTask() {
+        QueryTrace trace = new QueryTrace();
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(1, 0)) {
+            QueryTrace seen = executor.submit(() -> QueryTrace.current().orElse(null))
+                .contextWrite(Context.of(QueryTrace.CONTEXT_KEY, trace))
+                .block(Duration.ofSeconds(5));
+
+            Assertions.assertSame(trace, seen);
+            Assertions.assertTrue(trace.getStageMillis().containsKey(QueryTrace.QUEUE_STAGE));
+            Assertions.assertTrue(executor.submit(() -> QueryTrace.current().isEmpty()).block(Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    void submit_cancelledWhileRunning_keepsSlotUntilTaskFinishes() throws InterruptedException {
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(1, 0)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(1);
+            var running = executor.submit(() -> {
+                started.countDown();
+                awaitIgnoringInterrupts(release);
+                finished.countDown();
+                return "done";
+            }).subscribe();
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            running.dispose();
+            Assertions.assertThrows(RejectedExecutionException.class,
+                () -> executor.submit(() -> "second").block(Duration.ofSeconds(5)));
+
+            release.countDown();
+            Assertions.assertTrue(finished.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals("third", awaitAdmission(executor));
+        }
+    }
+
+    @Test
+    void submit_cancelledWhileQueued_releasesSlotImmediately() throws InterruptedException {
+        try (QueryExecutor executor = QueryExecutor.boundedElastic(1, 1)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            var running = executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return "done";
+            }).toFuture();
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            executor.submit(() -> "queued").subscribe().dispose();
+            var third = executor.submit(() -> "third").toFuture();
+
+            release.countDown();
+            Assertions.assertEquals("done", running.join());
+            Assertions.assertEquals("third", third.join());
+            Assertions.assertEquals(0, executor.getRejectedCount());
+        }
+    }
+
+    /**
+     * Como una llamada JDBC, que no se detiene al interrumpir el hilo que la ejecuta.
+     */
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // se sigue esperando
+            }
+        }
+    }
+
+    /**
+     * La plaza se libera en el hilo del ejecutor justo después de la tarea; se reintenta hasta verla libre.
+     */
+    private static String awaitAdmission(QueryExecutor executor) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            try {
+                return executor.submit(() -> "third").block(Duration.ofSeconds(5));
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(20);
+            }
+        }
+        throw new AssertionError("La plaza no se liberó al terminar la tarea");
+    }
+}
@@ -0,0 +1,132 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.CubeQuery;
+import com.prueba.olap.domain.entity.Query;
+import com.prueba.olap.domain.entity.QueryType;
+import com.prueba.olap.service.dto.AggregationResponse;
+import com.prueba.olap.service.dto.AggregationRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+class QueryMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryMetrics metrics = new QueryMetrics(registry, "vw_olap_cube", "jdbc");
+
+    @Test
+    void time_recordsDurationAndRowsTaggedBySuccess() {
+        AggregationResponse response = new AggregationResponse(List.of(
+            new AggregationRow(Map.of("Region", "EMEA")), new AggregationRow(Map.of("Region", "APAC"))));
+
+        metrics.time("port.query", "region", () -> response);
+
+        var timer = registry.get(QueryMetrics.STAGE_TIMER)
+            .tags("stage", "port.query", "cube", "vw_olap_cube", "adapter", "jdbc", "shape", "region", "outcome", "success")
+            .timer();
+        Assertions.assertEquals(1, timer.count());
+        Assertions.assertEquals(2.0, registry.get(QueryMetrics.ROWS_SUMMARY).summary().totalAmount());
+    }
+
+    @Test
+    void time_failure_recordsErrorOutcomeAndRethrows() {
+        Assertions.assertThrows(IllegalStateException.class, () -> metrics.time("build", "raw", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        Assertions.assertEquals(1, registry.get(QueryMetrics.STAGE_TIMER).tag("outcome", "error").timer().count());
+        Assertions.assertTrue(registry.find(QueryMetrics.ROWS_SUMMARY).summaries().isEmpty());
+    }
+
+    @Test
+    void time_flux_countsRowsAndRecordsCancellation() {
+        Flux<Integer> rows = Flux.range(1, 10);
+
+        metrics.time("port.stream", "region", rows).blockLast();
+        metrics.time("port.stream", "region", rows).take(3).blockLast();
+        metrics.time("port.query", "region", Mono.just(List.of(1, 2, 3))).block();
+
+        Assertions.assertEquals(1, registry.get(QueryMetrics.STAGE_TIMER).tag("outcome", "cancelled").timer().count());
+        Assertions.assertEquals(10.0, registry.get(QueryMetrics.ROWS_SUMMARY)
+            .tags("stage", "port.stream", "outcome", "success").summary().totalAmount());
+        Assertions.assertEquals(3.0, registry.get(QueryMetrics.ROWS_SUMMARY)
+            .tags("stage", "port.query").summary().totalAmount());
+    }
+
+    @Test
+    void shapeOf_matchesBetweenQueryAndResultColumns() {
+        Query query = new Query("SELECT ...", QueryType.SQL, Map.of())
+            .withCubeQuery(new CubeQuery(List.of("Region", "Product"), List.of("Sales"), Map.of()));
+
+        Assertions.assertEquals("product,region,sales", QueryMetrics.shapeOf(query));
+        Assertions.assertEquals("product,region,sales", QueryMetrics.shapeOf(List.of("SALES", "REGION", "PRODUCT")));
+        Assertions.assertEquals(QueryMetrics.RAW_SHAPE,
+            QueryMetrics.shapeOf(new Query("MDX: SELECT", QueryType.MDX, Map.of())));
+    }
+
+    @Test
+    void time_addsStageDurationsToRequestTrace() throws Exception {
+        QueryTrace trace = new QueryTrace();
+
+        QueryTrace.callWith(trace, () -> metrics.time("build", "region", () -> "query"));
+        metrics.time("port.query", "region", Mono.just(new AggregationResponse()))
+            .contextWrite(Context.of(QueryTrace.CONTEXT_KEY, trace))
+            .block();
+        metrics.time("build", "region", () -> "untraced");
+
+        Assertions.assertEquals(List.of("build", "port.query"), List.copyOf(trace.getStageMillis().keySet()));
+        Assertions.assertTrue(trace.toServerTiming().matches("build;dur=[0-9.]+, port\\.query;dur=[0-9.]+, total;dur=[0-9.]+"),
+            trace.toServerTiming());
+    }
+
+    @Test
+    void withTags_publishesToSameRegistryWithoutChangingTheOriginal() {
+        QueryMetrics xmla = metrics.withFlightRecorder(true).withTags("Sales", "xmla");
+
+        xmla.time("xmla.fetch", "region", () -> "body");
+        metrics.time("build", "region", () -> "query");
+
+        Assertions.assertTrue(xmla.isFlightRecorderEnabled());
+        Assertions.assertFalse(metrics.isFlightRecorderEnabled());
+        Assertions.assertEquals(1, registry.get(QueryMetrics.STAGE_TIMER).tags("cube", "Sales", "adapter", "xmla")
+            .timer().count());
+        Assertions.assertEquals(1, registry.get(QueryMetrics.STAGE_TIMER).tags("cube", "vw_olap_cube", "adapter", "jdbc")
+            .timer().count());
+    }
+
+    @Test
+    void time_emitsFlightRecorderEventsOnlyWhenEnabled(@TempDir Path dir) throws Exception {
+        Query query = new Query("SELECT Region FROM cube_view", QueryType.SQL, Map.of());
+        Path file = dir.resolve("olap.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(QueryStageEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            metrics.time("build", "region", () -> "disabled");
+            metrics.withFlightRecorder(true).time("port.query", query, () -> List.of(1, 2));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals(QueryStageEvent.NAME))
+            .toList();
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals("port.query", events.get(0).getString("stage"));
+        Assertions.assertEquals("jdbc", events.get(0).getString("adapter"));
+        Assertions.assertEquals(2L, events.get(0).getLong("rows"));
+        Assertions.assertEquals(Integer.toHexString(query.getStatement().hashCode()),
+            events.get(0).getString("statementHash"));
+    }
+}
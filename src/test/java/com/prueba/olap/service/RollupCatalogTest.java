@@ -0,0 +1,62 @@
+package com.prueba.olap.service;
+
+import com.prueba.olap.domain.entity.Rollup;
+import com.prueba.olap.port.RollupStorePort;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class RollupCatalogTest {
+
+    private final Rollup byYear = new Rollup("agg_year", List.of("Year"), List.of("Sales", "Quantity"));
+    private final Rollup byRegionYear = new Rollup("agg_region_year", List.of("Region", "Year"), List.of("Sales"));
+
+    @Test
+    void route_beforeRefresh_fallsBackToBaseView() {
+        var catalog = new RollupCatalog(List.of(byYear, byRegionYear), rollup -> 10L);
+
+        Assertions.assertEquals(Optional.empty(), catalog.route(List.of("Year"), List.of("Sales")));
+    }
+
+    @Test
+    void route_choosesCoveringRollupWithFewestRows() {
+        Map<String, Long> rows = Map.of("agg_year", 3L, "agg_region_year", 15L);
+        var catalog = new RollupCatalog(List.of(byRegionYear, byYear), rollup -> rows.get(rollup.getTableName()));
+        catalog.refreshAll();
+
+        Assertions.assertEquals(Optional.of(byYear), catalog.route(List.of("Year"), List.of("Sales")));
+        Assertions.assertEquals(Optional.of(byRegionYear), catalog.route(List.of("Region"), List.of("Sales")));
+        Assertions.assertEquals(Optional.empty(), catalog.route(List.of("Region"), List.of("Quantity")));
+        Assertions.assertEquals(Optional.empty(), catalog.route(List.of("Product"), List.of("Sales")));
+    }
+
+    @Test
+    void refreshAll_failure_keepsPreviouslyMaterializedRollup() {
+        var failing = new AtomicBoolean(false);
+        RollupStorePort store = rollup -> {
+            if (failing.get()) {
+                throw new IllegalStateException("base de datos no disponible");
+            }
+            return 5L;
+        };
+        var catalog = new RollupCatalog(List.of(byYear), store);
+        catalog.refreshAll();
+
+        failing.set(true);
+        catalog.refreshAll();
+
+        Assertions.assertEquals(Optional.of(byYear), catalog.route(List.of("Year"), List.of("Sales")));
+    }
+
+    @Test
+    void constructor_invalidRollupName_throwsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Rollup("agg; DROP TABLE x", List.of("Year"), List.of("Sales")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Rollup("cube_view_year", List.of("Year"), List.of("Sales")));
+    }
+}
@@ -1,8 +1,10 @@
 package com.prueba.olap.service.dto;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,4 +21,35 @@ class AggregationDtoTest {
         resp.setRows(List.of());
         Assertions.assertTrue(resp.getRows().isEmpty());
     }
+
+    @Test
+    void aggregationRow_sharedSchema_exposesValuesWithoutCopying() {
+        var schema = RowSchema.of(List.of("Region", "Sales"));
+        var first = new AggregationRow(schema, new Object[] {"EMEA", 100L});
+        var second = new AggregationRow(schema, new Object[] {"APAC", null});
+
+        Assertions.assertSame(first.schema(), second.schema());
+        Assertions.assertEquals(Map.of("Region", "EMEA", "Sales", 100L), first.getValues());
+        Assertions.assertEquals(first, new AggregationRow(Map.of("Sales", 100L, "Region", "EMEA")));
+        Assertions.assertTrue(second.hasColumn("Sales"));
+        Assertions.assertTrue(second.getValue("Sales").isEmpty());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.getValues().put("x", 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new AggregationRow(schema, new Object[] {"EMEA"}));
+    }
+
+    @Test
+    void aggregationResponse_json_keepsMapWireFormat() throws Exception {
+        var mapper = new ObjectMapper();
+        var schema = RowSchema.of(List.of("Region", "Sales"));
+        var compact = new AggregationResponse(List.of(new AggregationRow(schema, new Object[] {"EMEA", 100})));
+
+        var json = mapper.readTree(mapper.writeValueAsString(compact));
+
+        Assertions.assertEquals(mapper.readTree(
+            "{\"rows\":[{\"values\":{\"Region\":\"EMEA\",\"Sales\":100},\"columnCount\":2,\"empty\":false}],"
+                + "\"rowCount\":1,\"empty\":false}"), json);
+        Map<String, Object> values = new HashMap<>(compact.getRows().get(0).getValues());
+        Assertions.assertEquals(Map.of("Region", "EMEA", "Sales", 100), values);
+    }
 }